@@ -0,0 +1,146 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * The Adam optimizer. It keeps a moving average of the gradient and of its
+ * square for each weight, corrects their bias towards zero in the first
+ * steps and moves each weight by their ratio:
+ * 
+ * <pre>
+ * m = beta1 * m + (1 - beta1) * g
+ * v = beta2 * v + (1 - beta2) * g * g
+ * w = w - learningFactor * (m / (1 - beta1^t)) / (sqrt(v / (1 - beta2^t)) + epsilon)
+ * </pre>
+ * 
+ * @version 1.0
+ */
+public class AdamOptimizer implements Optimizer {
+	private final double _beta1;
+	private final double _beta2;
+	private final double _epsilon;
+	private double[] _means;
+	private double[] _variances;
+	private long _steps;
+
+	/**
+	 * It creates an optimizer with beta1 0.9, beta2 0.999 and epsilon 1e-8
+	 */
+	public AdamOptimizer() {
+		this(0.9, 0.999, 1e-8);
+	}
+
+	/**
+	 * It creates an optimizer with the given params
+	 * 
+	 * @param beta1 the decay of the mean of the gradient, between 0 (inclusive) and 1 (exclusive)
+	 * @param beta2 the decay of the mean of the squared gradient, between 0 (inclusive) and 1 (exclusive)
+	 * @param epsilon a positive value that avoids divisions by zero
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public AdamOptimizer(double beta1, double beta2, double epsilon) {
+		if (beta1 < 0 || beta1 >= 1) {
+			throw new IllegalArgumentException("beta1 must be between 0 and 1 but is " + beta1);
+		}
+
+		if (beta2 < 0 || beta2 >= 1) {
+			throw new IllegalArgumentException("beta2 must be between 0 and 1 but is " + beta2);
+		}
+
+		if (epsilon <= 0) {
+			throw new IllegalArgumentException("epsilon must be positive but is " + epsilon);
+		}
+
+		_beta1 = beta1;
+		_beta2 = beta2;
+		_epsilon = epsilon;
+		initialize(0);
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_means = new double[numberOfWeights];
+		_variances = new double[numberOfWeights];
+		_steps = 0;
+	}
+
+	@Override
+	public void update(double[] weights, double[] gradient, double learningFactor) {
+		if (_means.length != weights.length) {
+			initialize(weights.length);
+		}
+
+		_steps++;
+
+		double correction1 = 1 - Math.pow(_beta1, _steps);
+		double correction2 = 1 - Math.pow(_beta2, _steps);
+
+		for (int i = 0; i < weights.length; i++) {
+			double g = gradient[i];
+			_means[i] = _beta1 * _means[i] + (1 - _beta1) * g;
+			_variances[i] = _beta2 * _variances[i] + (1 - _beta2) * g * g;
+
+			double mean = _means[i] / correction1;
+			double variance = _variances[i] / correction2;
+			weights[i] -= learningFactor * mean / (Math.sqrt(variance) + _epsilon);
+		}
+	}
+
+	@Override
+	public AdamOptimizer copy() {
+		return new AdamOptimizer(_beta1, _beta2, _epsilon);
+	}
+
+	/**
+	 * It returns the state of the optimizer: the means, the variances and the
+	 * number of steps made
+	 * 
+	 * @return an array with 2 * N + 1 values
+	 */
+	@Override
+	public double[] getState() {
+		int n = _means.length;
+		double[] state = new double[2 * n + 1];
+
+		System.arraycopy(_means, 0, state, 0, n);
+		System.arraycopy(_variances, 0, state, n, n);
+		state[2 * n] = _steps;
+
+		return state;
+	}
+
+	@Override
+	public void setState(double[] state) {
+		if (state.length % 2 != 1) {
+			throw new IllegalArgumentException("state is not an Adam state");
+		}
+
+		int n = state.length / 2;
+		_means = new double[n];
+		_variances = new double[n];
+
+		System.arraycopy(state, 0, _means, 0, n);
+		System.arraycopy(state, n, _variances, 0, n);
+		_steps = (long) state[2 * n];
+	}
+
+	@Override
+	public String toString() {
+		return "Adam (beta1 " + _beta1 + ", beta2 " + _beta2 + ")";
+	}
+}
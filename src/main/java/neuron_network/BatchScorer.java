@@ -0,0 +1,460 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A BatchScorer writes the predictions of a network for all the patrons of a
+ * data file, using several threads.
+ * 
+ * <p>
+ * The file has the format of {@link NetworkData}: a header with the number
+ * of inputs, outputs and patrons, and one patron per line. The file is not
+ * loaded in memory. It is split in chunks of whole lines, each chunk is
+ * memory-mapped and scored as a batch by a worker of the pool, and the
+ * predictions of the chunks are written in the order of the file. Only a
+ * bounded window of chunks is in flight, so the memory used doesn't depend
+ * on the size of the file.
+ * </p>
+ * 
+ * <p>
+ * The predictor is shared by all the workers, so it must be thread safe.
+ * MultilayerPerceptron is not, so a network is scored through a
+ * {@link DensePerceptron}, which gives the same outputs.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class BatchScorer {
+
+	/**
+	 * The formats of the predictions. CSV writes a header with the names of
+	 * the outputs and a line per patron; JSON writes an array with an array
+	 * of outputs per patron.
+	 */
+	public enum outputFormat {
+		CSV, JSON
+	}
+
+	private final Predictor _predictor;
+	private final int _threads;
+	private int _chunkSize;
+	private int _window;
+	private outputFormat _format;
+
+	/**
+	 * It creates a scorer for a trained network
+	 * 
+	 * @param network the trained network
+	 * @param threads the number of workers
+	 * @throws IllegalArgumentException if threads is lower than 1
+	 */
+	public BatchScorer(MultilayerPerceptron network, int threads) {
+		this(new DensePerceptron(network), threads);
+	}
+
+	/**
+	 * It creates a scorer for a thread safe predictor
+	 * 
+	 * @param predictor the predictor shared by the workers
+	 * @param threads the number of workers
+	 * @throws IllegalArgumentException if threads is lower than 1
+	 */
+	public BatchScorer(Predictor predictor, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1 but is " + threads);
+		}
+
+		_predictor = predictor;
+		_threads = threads;
+		_chunkSize = 4 << 20;
+		_window = 4 * threads;
+		_format = outputFormat.CSV;
+	}
+
+	/**
+	 * It sets the approximate size of each chunk. A chunk always ends at the
+	 * end of a line, so it can be bigger than this size.
+	 * 
+	 * @param bytes the size of the chunks in bytes
+	 * @throws IllegalArgumentException if bytes is lower than 1
+	 */
+	public void setChunkSize(int bytes) {
+		if (bytes < 1) {
+			throw new IllegalArgumentException("chunk size must be at least 1 but is " + bytes);
+		}
+
+		_chunkSize = bytes;
+	}
+
+	/**
+	 * It returns the approximate size of each chunk
+	 * 
+	 * @return the size of the chunks in bytes
+	 */
+	public int getChunkSize() {
+		return _chunkSize;
+	}
+
+	/**
+	 * It sets the maximum number of chunks that are being scored or waiting
+	 * to be written. A chunk that finishes before the previous ones waits in
+	 * this window until they are written.
+	 * 
+	 * @param chunks the size of the window
+	 * @throws IllegalArgumentException if chunks is lower than 1
+	 */
+	public void setWindow(int chunks) {
+		if (chunks < 1) {
+			throw new IllegalArgumentException("window must be at least 1 but is " + chunks);
+		}
+
+		_window = chunks;
+	}
+
+	/**
+	 * It returns the maximum number of chunks in flight
+	 * 
+	 * @return the size of the window
+	 */
+	public int getWindow() {
+		return _window;
+	}
+
+	/**
+	 * It sets the format of the predictions
+	 * 
+	 * @param format the format
+	 */
+	public void setFormat(outputFormat format) {
+		_format = format;
+	}
+
+	/**
+	 * It returns the format of the predictions
+	 * 
+	 * @return the format
+	 */
+	public outputFormat getFormat() {
+		return _format;
+	}
+
+	/**
+	 * It scores all the patrons of a data file. Each line must have the
+	 * number of values given in the header; the first values are the inputs,
+	 * and the desired outputs, if any, are ignored. Empty lines are skipped.
+	 * 
+	 * @param file the path of the data file
+	 * @param out the stream where the predictions are written. It is not closed.
+	 * @return the number of patrons scored
+	 * @throws IOException if the file can't be read, it has a wrong structure, or its inputs don't match the predictor
+	 * @throws InterruptedException if the thread is interrupted while it waits for a chunk
+	 */
+	public long score(String file, OutputStream out) throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(_threads);
+		ArrayDeque<Future<Chunk>> window = new ArrayDeque<Future<Chunk>>();
+		long patrons = 0;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int fields = readHeader(channel);
+			long position = nextLine(channel, 0, size);
+
+			writeHeader(out);
+
+			while (position < size) {
+				long start = position;
+				long end = nextLine(channel, Math.min(size, start + _chunkSize), size);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+				if (window.size() == _window) {
+					patrons += write(window.poll(), out, patrons);
+				}
+
+				window.add(pool.submit(() -> score(buffer, start, fields)));
+				position = end;
+			}
+
+			while (!window.isEmpty()) {
+				patrons += write(window.poll(), out, patrons);
+			}
+
+			writeFooter(out);
+			out.flush();
+		} finally {
+			pool.shutdownNow();
+		}
+
+		return patrons;
+	}
+
+	/**
+	 * The predictions of a chunk as text, and the number of patrons
+	 */
+	private static final class Chunk {
+		final byte[] text;
+		final int patrons;
+
+		Chunk(byte[] text, int patrons) {
+			this.text = text;
+			this.patrons = patrons;
+		}
+	}
+
+	/**
+	 * It reads the header of the file and returns the number of values in
+	 * each line
+	 */
+	private int readHeader(FileChannel channel) throws IOException {
+		long end = nextLine(channel, 0, channel.size());
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end, 4096));
+
+		channel.read(buffer, 0);
+
+		String header = new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1).trim();
+		String[] fields = header.split("( |\t)+");
+
+		if (fields.length < 3) {
+			throw new IOException("Header is not valid.");
+		}
+
+		try {
+			int inputs = Integer.valueOf(fields[0]);
+			int outputs = Integer.valueOf(fields[1]);
+
+			if (inputs != _predictor.getInputsLength() || outputs < 0) {
+				throw new IOException(String.format("The predictor expects %s inputs but the data has %s",
+						_predictor.getInputsLength(), inputs));
+			}
+
+			return inputs + outputs;
+		} catch (NumberFormatException e) {
+			throw new IOException("Header is not valid.", e);
+		}
+	}
+
+	/**
+	 * It returns the position after the first new line at or after from, or
+	 * size if there is no new line
+	 */
+	private static long nextLine(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long position = from;
+
+		if (position > 0 && position < size) {
+			// A chunk that would end just after a new line already ends at a line
+			ByteBuffer previous = ByteBuffer.allocate(1);
+			channel.read(previous, position - 1);
+
+			if (previous.get(0) == '\n') {
+				return position;
+			}
+		}
+
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+
+			if (read <= 0) {
+				break;
+			}
+
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+
+			position += read;
+		}
+
+		return size;
+	}
+
+	/**
+	 * It parses the patrons of a chunk, predicts them in one batch and
+	 * formats the predictions
+	 */
+	private Chunk score(ByteBuffer buffer, long offset, int fields) throws IOException {
+		int inputsLength = _predictor.getInputsLength();
+		int outputsLength = _predictor.getOutputLayerSize();
+		int limit = buffer.limit();
+		double[] inputs = new double[Math.max(16, limit / Math.max(1, 2 * fields)) * inputsLength];
+		byte[] token = new byte[64];
+		int patrons = 0;
+		int field = 0;
+		int i = 0;
+
+		while (i <= limit) {
+			byte c = (i < limit) ? buffer.get(i) : (byte) '\n';
+
+			if (c == '\n') {
+				if (field != 0 && field != fields) {
+					throw new IOException("Data is corrupted near byte " + (offset + i) + ".");
+				}
+
+				if (field != 0) {
+					patrons++;
+				}
+
+				field = 0;
+				i++;
+			}
+			else if (c == ' ' || c == '\t' || c == '\r') {
+				i++;
+			}
+			else {
+				int length = 0;
+
+				while (i < limit) {
+					c = buffer.get(i);
+
+					if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+						break;
+					}
+
+					if (length == token.length) {
+						token = Arrays.copyOf(token, 2 * length);
+					}
+
+					token[length++] = c;
+					i++;
+				}
+
+				if (field >= fields) {
+					throw new IOException("Data is corrupted near byte " + (offset + i) + ".");
+				}
+
+				if (field < inputsLength) {
+					if ((patrons + 1) * inputsLength > inputs.length) {
+						inputs = Arrays.copyOf(inputs, 2 * inputs.length);
+					}
+
+					try {
+						inputs[patrons * inputsLength + field] = Double.parseDouble(
+								new String(token, 0, length, StandardCharsets.ISO_8859_1));
+					} catch (NumberFormatException e) {
+						throw new IOException("Data is corrupted near byte " + (offset + i) + ".", e);
+					}
+				}
+
+				field++;
+			}
+		}
+
+		double[] outputs = new double[patrons * outputsLength];
+		_predictor.predict(inputs, outputs, patrons);
+
+		return new Chunk(format(outputs, patrons, outputsLength), patrons);
+	}
+
+	private byte[] format(double[] outputs, int patrons, int outputsLength) {
+		StringBuilder builder = new StringBuilder(patrons * outputsLength * 20);
+
+		for (int p = 0; p < patrons; p++) {
+			int row = p * outputsLength;
+
+			if (_format == outputFormat.JSON) {
+				builder.append(",\n[");
+			}
+
+			for (int k = 0; k < outputsLength; k++) {
+				double value = outputs[row + k];
+
+				if (k > 0) {
+					builder.append(',');
+				}
+
+				if (_format == outputFormat.JSON && (Double.isNaN(value) || Double.isInfinite(value))) {
+					builder.append("null");
+				}
+				else {
+					builder.append(value);
+				}
+			}
+
+			builder.append(_format == outputFormat.JSON ? "]" : "\n");
+		}
+
+		return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * It waits for the next chunk in the order of the file and writes it
+	 */
+	private int write(Future<Chunk> future, OutputStream out, long written)
+			throws IOException, InterruptedException {
+		Chunk chunk;
+
+		try {
+			chunk = future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw new IOException(e.getCause());
+		}
+
+		if (_format == outputFormat.JSON && written == 0 && chunk.patrons > 0) {
+			out.write(chunk.text, 1, chunk.text.length - 1); // No comma before the first patron
+		}
+		else {
+			out.write(chunk.text);
+		}
+
+		return chunk.patrons;
+	}
+
+	private void writeHeader(OutputStream out) throws IOException {
+		if (_format == outputFormat.JSON) {
+			out.write('[');
+			return;
+		}
+
+		StringBuilder builder = new StringBuilder();
+
+		for (int k = 0; k < _predictor.getOutputLayerSize(); k++) {
+			builder.append(k == 0 ? "y" : ",y").append(k + 1);
+		}
+
+		out.write(builder.append('\n').toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private void writeFooter(OutputStream out) throws IOException {
+		if (_format == outputFormat.JSON) {
+			out.write("\n]\n".getBytes(StandardCharsets.ISO_8859_1));
+		}
+	}
+}
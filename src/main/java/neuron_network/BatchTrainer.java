@@ -0,0 +1,77 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * A BatchTrainer makes the epochs of an offline training with its own
+ * algorithm instead of the backpropagation with learning factor and inertia.
+ * 
+ * <p>
+ * In each epoch it receives the network and all the training data, and it
+ * changes the weights of the network. It usually works with the flat arrays
+ * of {@link MultilayerPerceptron#getWeights()} and
+ * {@link MultilayerPerceptron#computeGradient(NetworkData, double[])}, and it
+ * keeps its state in arrays of the same length. A BatchTrainer is not thread
+ * safe: each network needs its own instance, that can be made with copy.
+ * </p>
+ * 
+ * @version 1.0
+ * @see MultilayerPerceptron#setBatchTrainer(BatchTrainer)
+ */
+public interface BatchTrainer {
+
+	/**
+	 * It forgets the state and prepares it for a network with the given
+	 * number of weights
+	 * 
+	 * @param numberOfWeights the number of weights of the network
+	 */
+	public void initialize(int numberOfWeights);
+
+	/**
+	 * It makes an epoch with all the data. If the trainer wasn't initialized
+	 * for the number of weights of the network, it is initialized first.
+	 * 
+	 * @param network the network to be trained
+	 * @param data the training data
+	 * @throws IllegalArgumentException if the network or the data can't be trained with this algorithm
+	 */
+	public void epoch(MultilayerPerceptron network, NetworkData data);
+
+	/**
+	 * It creates a new trainer with the same params and an empty state
+	 * 
+	 * @return a new trainer
+	 */
+	public BatchTrainer copy();
+
+	/**
+	 * It returns the state of the trainer
+	 * 
+	 * @return a copy of the state
+	 */
+	public double[] getState();
+
+	/**
+	 * It restores a state returned by getState
+	 * 
+	 * @param state a state returned by getState
+	 * @throws IllegalArgumentException if the state is not valid for this trainer
+	 */
+	public void setState(double[] state);
+}
@@ -0,0 +1,135 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A CheckpointWriter writes training checkpoints to a file in a background
+ * thread, so the training doesn't wait for the disk.
+ * 
+ * <p>
+ * Only the newest checkpoint matters: if a checkpoint is submitted while the
+ * previous one is still waiting to be written, the previous one is dropped.
+ * Each file is replaced atomically, so the file always holds a complete
+ * checkpoint. Errors don't stop the training; the last one can be read with
+ * getLastError.
+ * </p>
+ * 
+ * @version 1.0
+ * @see MultilayerPerceptron#setCheckpointWriter(CheckpointWriter, int)
+ */
+public class CheckpointWriter implements AutoCloseable {
+	private final String _file;
+	private final ExecutorService _executor;
+	private final AtomicReference<TrainingCheckpoint> _pending;
+	private volatile TrainingCheckpoint _lastWritten;
+	private volatile IOException _lastError;
+
+	/**
+	 * It creates a writer for the given file
+	 * 
+	 * @param file the path of the checkpoint file
+	 */
+	public CheckpointWriter(String file) {
+		_file = file;
+		_pending = new AtomicReference<TrainingCheckpoint>();
+		_executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "checkpoint-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * It schedules the checkpoint to be written. It never blocks.
+	 * 
+	 * @param checkpoint the checkpoint to be written
+	 * @throws java.util.concurrent.RejectedExecutionException if the writer was closed
+	 */
+	public void submit(TrainingCheckpoint checkpoint) {
+		if (_pending.getAndSet(checkpoint) == null) {
+			_executor.execute(this::writePending);
+		}
+	}
+
+	/**
+	 * It returns the path of the checkpoint file
+	 * 
+	 * @return the path of the file
+	 */
+	public String getFile() {
+		return _file;
+	}
+
+	/**
+	 * It returns the last checkpoint written to the file
+	 * 
+	 * @return the last written checkpoint or null if none was written
+	 */
+	public TrainingCheckpoint getLastWritten() {
+		return _lastWritten;
+	}
+
+	/**
+	 * It returns the error of the last failed write
+	 * 
+	 * @return the last error or null if all checkpoints were written
+	 */
+	public IOException getLastError() {
+		return _lastError;
+	}
+
+	/**
+	 * It writes the pending checkpoint, if any, and stops the background
+	 * thread.
+	 */
+	@Override
+	public void close() {
+		_executor.shutdown();
+
+		try {
+			while (!_executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				// Wait until the last checkpoint is on disk
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writePending() {
+		TrainingCheckpoint checkpoint = _pending.getAndSet(null);
+
+		if (checkpoint == null) {
+			return;
+		}
+
+		try {
+			checkpoint.writeAtomically(_file);
+			_lastWritten = checkpoint;
+			_lastError = null;
+		} catch (IOException e) {
+			_lastError = e;
+		}
+	}
+}
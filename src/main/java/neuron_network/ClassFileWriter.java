@@ -0,0 +1,308 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A minimal writer of Java 8 class files. It only supports what the
+ * CompiledPerceptron needs: a public final class without fields, whose
+ * methods are straight-line code. Code without branches doesn't need stack map
+ * frames, so the writer doesn't compute them.
+ */
+final class ClassFileWriter {
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_STATIC = 0x0008;
+	static final int ACC_FINAL = 0x0010;
+	static final int ACC_SUPER = 0x0020;
+
+	static final int DCONST_0 = 0x0e;
+	static final int DCONST_1 = 0x0f;
+	static final int BIPUSH = 0x10;
+	static final int SIPUSH = 0x11;
+	static final int LDC2_W = 0x14;
+	static final int ALOAD_0 = 0x2a;
+	static final int ALOAD_1 = 0x2b;
+	static final int ALOAD_2 = 0x2c;
+	static final int ALOAD_3 = 0x2d;
+	static final int DALOAD = 0x31;
+	static final int ASTORE_3 = 0x4e;
+	static final int DASTORE = 0x52;
+	static final int DADD = 0x63;
+	static final int DMUL = 0x6b;
+	static final int DDIV = 0x6f;
+	static final int DNEG = 0x77;
+	static final int DRETURN = 0xaf;
+	static final int RETURN = 0xb1;
+	static final int INVOKESPECIAL = 0xb7;
+	static final int INVOKESTATIC = 0xb8;
+	static final int NEWARRAY = 0xbc;
+	static final int T_DOUBLE = 7;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	private final ByteArrayOutputStream _pool = new ByteArrayOutputStream();
+	private final DataOutputStream _poolData = new DataOutputStream(_pool);
+	private final HashMap<String, Integer> _poolIndexes = new HashMap<String, Integer>();
+	private final ArrayList<byte[]> _methods = new ArrayList<byte[]>();
+	private int _poolCount = 1;
+	private final int _thisClass;
+	private final int _superClass;
+	private final int _interface;
+
+	/**
+	 * It starts a new public final class that extends Object
+	 * 
+	 * @param name the internal name of the class, like a/b/C
+	 * @param interfaceName the internal name of the interface implemented by the class
+	 */
+	ClassFileWriter(String name, String interfaceName) {
+		_thisClass = classConstant(name);
+		_superClass = classConstant("java/lang/Object");
+		_interface = classConstant(interfaceName);
+	}
+
+	/**
+	 * It returns the index of an UTF8 constant, adding it if needed
+	 */
+	int utf8Constant(String value) {
+		Integer index = _poolIndexes.get("U" + value);
+
+		if (index == null) {
+			index = _poolCount++;
+			write(() -> {
+				_poolData.writeByte(CONSTANT_UTF8);
+				_poolData.writeUTF(value);
+			});
+			_poolIndexes.put("U" + value, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * It returns the index of a class constant, adding it if needed
+	 */
+	int classConstant(String name) {
+		Integer index = _poolIndexes.get("C" + name);
+
+		if (index == null) {
+			int nameIndex = utf8Constant(name);
+			index = _poolCount++;
+			write(() -> {
+				_poolData.writeByte(CONSTANT_CLASS);
+				_poolData.writeShort(nameIndex);
+			});
+			_poolIndexes.put("C" + name, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * It returns the index of a double constant, adding it if needed. Double
+	 * constants use two entries of the pool.
+	 */
+	int doubleConstant(double value) {
+		String key = "D" + Double.doubleToRawLongBits(value);
+		Integer index = _poolIndexes.get(key);
+
+		if (index == null) {
+			index = _poolCount;
+			_poolCount += 2;
+			write(() -> {
+				_poolData.writeByte(CONSTANT_DOUBLE);
+				_poolData.writeDouble(value);
+			});
+			_poolIndexes.put(key, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * It returns the index of a method reference, adding it if needed
+	 */
+	int methodConstant(String owner, String name, String descriptor) {
+		String key = "M" + owner + "." + name + descriptor;
+		Integer index = _poolIndexes.get(key);
+
+		if (index == null) {
+			int classIndex = classConstant(owner);
+			int nameIndex = utf8Constant(name);
+			int descriptorIndex = utf8Constant(descriptor);
+			int nameAndType = _poolCount++;
+
+			write(() -> {
+				_poolData.writeByte(CONSTANT_NAME_AND_TYPE);
+				_poolData.writeShort(nameIndex);
+				_poolData.writeShort(descriptorIndex);
+			});
+
+			index = _poolCount++;
+			write(() -> {
+				_poolData.writeByte(CONSTANT_METHODREF);
+				_poolData.writeShort(classIndex);
+				_poolData.writeShort(nameAndType);
+			});
+			_poolIndexes.put(key, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * It adds a method to the class
+	 * 
+	 * @param access the access flags of the method
+	 * @param name the name of the method
+	 * @param descriptor the descriptor of the method
+	 * @param maxStack the maximum depth of the operand stack
+	 * @param maxLocals the number of local variable slots, including the arguments
+	 * @param code the bytecode of the method
+	 * @throws IllegalStateException if the code is too long for a method
+	 */
+	void addMethod(int access, String name, String descriptor, int maxStack,
+			int maxLocals, byte[] code) {
+		if (code.length > 65535) {
+			throw new IllegalStateException("method " + name + " is too long: "
+					+ code.length + " bytes");
+		}
+
+		int nameIndex = utf8Constant(name);
+		int descriptorIndex = utf8Constant(descriptor);
+		int codeIndex = utf8Constant("Code");
+		ByteArrayOutputStream method = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(method);
+
+		try {
+			out.writeShort(access);
+			out.writeShort(nameIndex);
+			out.writeShort(descriptorIndex);
+			out.writeShort(1);
+			out.writeShort(codeIndex);
+			out.writeInt(12 + code.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			out.writeShort(0); // exception table
+			out.writeShort(0); // attributes
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		_methods.add(method.toByteArray());
+	}
+
+	/**
+	 * It returns the bytes of the class file
+	 * 
+	 * @return the class file
+	 * @throws IllegalStateException if the constant pool is too big
+	 */
+	byte[] toByteArray() {
+		if (_poolCount > 65535) {
+			throw new IllegalStateException("too many constants: " + _poolCount);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		try {
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0); // minor version
+			out.writeShort(52); // Java 8
+			out.writeShort(_poolCount);
+			_poolData.flush();
+			_pool.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(_thisClass);
+			out.writeShort(_superClass);
+			out.writeShort(1);
+			out.writeShort(_interface);
+			out.writeShort(0); // fields
+			out.writeShort(_methods.size());
+
+			for (byte[] method : _methods) {
+				out.write(method);
+			}
+
+			out.writeShort(0); // attributes
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * A bytecode buffer with helpers to push constants
+	 */
+	static class Code {
+		private final ByteArrayOutputStream _code = new ByteArrayOutputStream();
+
+		void op(int opcode) {
+			_code.write(opcode);
+		}
+
+		void op(int opcode, int u2) {
+			_code.write(opcode);
+			_code.write((u2 >> 8) & 0xff);
+			_code.write(u2 & 0xff);
+		}
+
+		void pushInt(int value) {
+			if (value >= -1 && value <= 5) {
+				_code.write(0x03 + value); // iconst_<n>
+			} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				_code.write(BIPUSH);
+				_code.write(value);
+			} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+				op(SIPUSH, value);
+			} else {
+				throw new IllegalStateException("int constant too big: " + value);
+			}
+		}
+
+		byte[] toByteArray() {
+			return _code.toByteArray();
+		}
+	}
+
+	private interface PoolWrite {
+		void run() throws IOException;
+	}
+
+	private void write(PoolWrite w) {
+		try {
+			w.run();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The CompiledPerceptron specializes a trained MultilayerPerceptron for its
+ * exact topology. It generates a class at runtime where each neuron is a
+ * method with its weights as constants and the loop over its inputs fully
+ * unrolled. Weights that are zero, for example after a pruning, are skipped.
+ * 
+ * <p>
+ * Only small networks are specialized: at most {@value #MAX_INPUTS} inputs,
+ * {@value #MAX_NEURONS} neurons in each layer and {@value #MAX_TOTAL_NEURONS}
+ * neurons in all layers, so the generated methods stay below the size that
+ * the JIT compiles. Bigger networks, or networks
+ * that can't be compiled for any reason, use a {@link DensePerceptron}
+ * instead. Both engines give the same outputs than the network.
+ * </p>
+ * 
+ * <p>
+ * The generated class is defined by its own class loader, so it is unloaded
+ * when the engine is not used any more. The engine is immutable, so it can be
+ * shared between threads.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class CompiledPerceptron implements Predictor {
+	/**
+	 * The maximum number of inputs of a specialized network
+	 */
+	public static final int MAX_INPUTS = 64;
+
+	/**
+	 * The maximum number of neurons in each layer of a specialized network
+	 */
+	public static final int MAX_NEURONS = 32;
+
+	/**
+	 * The maximum number of neurons in all the layers of a specialized
+	 * network. Each neuron adds a call to predict, and HotSpot doesn't
+	 * compile methods bigger than 8000 bytes.
+	 */
+	public static final int MAX_TOTAL_NEURONS = 256;
+
+	/**
+	 * The interface implemented by the generated classes. It must be public
+	 * because the generated class lives in another class loader.
+	 */
+	public interface Kernel {
+		void predict(double[] inputs, double[] outputs);
+	}
+
+	private static final AtomicInteger _generatedClasses = new AtomicInteger();
+
+	private final int _inputsLength;
+	private final int _outputsLength;
+	private final boolean _softmax;
+	private final Kernel _kernel;
+	private final boolean _specialized;
+
+	/**
+	 * It compiles the given network or falls back to a dense engine
+	 * 
+	 * @param network the trained network
+	 */
+	public CompiledPerceptron(MultilayerPerceptron network) {
+		_inputsLength = network.getInputsLength();
+		_outputsLength = network.getOutputLayerSize();
+		_softmax = network.isSoftmax();
+
+		Kernel kernel = null;
+
+		if (canBeSpecialized(network)) {
+			try {
+				kernel = generate(network);
+			} catch (RuntimeException | LinkageError e) {
+				kernel = null;
+			}
+		}
+
+		if (kernel != null) {
+			_kernel = kernel;
+			_specialized = true;
+		} else {
+			DensePerceptron dense = new DensePerceptron(network);
+			_kernel = (inputs, outputs) -> dense.predict(inputs, outputs);
+			_specialized = false;
+		}
+	}
+
+	/**
+	 * It checks if the network was compiled or it uses the generic engine
+	 * 
+	 * @return true when the engine runs generated code
+	 */
+	public boolean isSpecialized() {
+		return _specialized;
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _outputsLength;
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _softmax;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		_kernel.predict(inputs, outputs);
+
+		if (_softmax && _specialized) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It checks if the topology of the network is small enough
+	 * 
+	 * @param network the network to be checked
+	 * @return true if the network can be specialized
+	 */
+	private static boolean canBeSpecialized(MultilayerPerceptron network) {
+		if (network.getInputsLength() > MAX_INPUTS
+				|| network.getOutputLayerSize() > MAX_NEURONS) {
+			return false;
+		}
+
+		int neurons = network.getOutputLayerSize();
+
+		for (int l = 0; l < network.getNumberOfHiddenLayers(); l++) {
+			if (network.getLayerSize(l) > MAX_NEURONS) {
+				return false;
+			}
+
+			neurons += network.getLayerSize(l);
+		}
+
+		return neurons <= MAX_TOTAL_NEURONS;
+	}
+
+	/**
+	 * It generates, loads and instantiates the specialized class.
+	 * 
+	 * <p>
+	 * Each neuron is a static method double nX(double[] source) that returns
+	 * its output. The activations of the hidden layers are stored in a local
+	 * array, so predict only has to call the neuron methods in order.
+	 * </p>
+	 * 
+	 * @param network the network to be compiled
+	 * @return an instance of the generated class
+	 */
+	private static Kernel generate(MultilayerPerceptron network) {
+		String name = "neuron_network/GeneratedPerceptron"
+				+ _generatedClasses.incrementAndGet();
+		String kernelName = Kernel.class.getName().replace('.', '/');
+		ClassFileWriter writer = new ClassFileWriter(name, kernelName);
+		int layers = network.getNumberOfHiddenLayers() + 1;
+		int exp = writer.methodConstant("java/lang/Math", "exp", "(D)D");
+
+		ClassFileWriter.Code init = new ClassFileWriter.Code();
+		init.op(ClassFileWriter.ALOAD_0);
+		init.op(ClassFileWriter.INVOKESPECIAL,
+				writer.methodConstant("java/lang/Object", "<init>", "()V"));
+		init.op(ClassFileWriter.RETURN);
+		writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", 1, 1,
+				init.toByteArray());
+
+		int hiddenNeurons = 0;
+
+		for (int l = 0; l < layers - 1; l++) {
+			hiddenNeurons += network.getLayerSize(l);
+		}
+
+		// predict(double[] inputs, double[] outputs), with the hidden
+		// activations in the local variable 3
+		ClassFileWriter.Code predict = new ClassFileWriter.Code();
+		predict.pushInt(hiddenNeurons);
+		predict.op(ClassFileWriter.NEWARRAY);
+		predict.op(ClassFileWriter.T_DOUBLE);
+		predict.op(ClassFileWriter.ASTORE_3);
+
+		int sourceOffset = 0;
+		int targetOffset = 0;
+		int neuronId = 0;
+
+		for (int l = 0; l < layers; l++) {
+			int layerIndex = (l < layers - 1) ? l : -1;
+			int neurons = network.getLayerSize(layerIndex);
+			double[] weights = network.getLayerWeights(layerIndex);
+			double[] biases = network.getLayerBiases(layerIndex);
+			int fanIn = weights.length / neurons;
+			boolean output = (layerIndex < 0);
+
+			for (int i = 0; i < neurons; i++) {
+				String method = "n" + (neuronId++);
+				ClassFileWriter.Code neuron = new ClassFileWriter.Code();
+
+				// 1 / (1 + exp(-acc)): the dividend is pushed first
+				neuron.op(ClassFileWriter.DCONST_1);
+				neuron.op(ClassFileWriter.DCONST_0);
+
+				for (int j = 0; j < fanIn; j++) {
+					double w = weights[i * fanIn + j];
+
+					if (w == 0) {
+						continue;
+					}
+
+					neuron.op(ClassFileWriter.ALOAD_0);
+					neuron.pushInt(sourceOffset + j);
+					neuron.op(ClassFileWriter.DALOAD);
+					neuron.op(ClassFileWriter.LDC2_W, writer.doubleConstant(w));
+					neuron.op(ClassFileWriter.DMUL);
+					neuron.op(ClassFileWriter.DADD);
+				}
+
+				neuron.op(ClassFileWriter.LDC2_W, writer.doubleConstant(biases[i]));
+				neuron.op(ClassFileWriter.DADD);
+				neuron.op(ClassFileWriter.DNEG);
+				neuron.op(ClassFileWriter.INVOKESTATIC, exp);
+				neuron.op(ClassFileWriter.DCONST_1);
+				neuron.op(ClassFileWriter.DADD);
+				neuron.op(ClassFileWriter.DDIV);
+				neuron.op(ClassFileWriter.DRETURN);
+				writer.addMethod(ClassFileWriter.ACC_PUBLIC
+						| ClassFileWriter.ACC_STATIC, method, "([D)D", 8, 1,
+						neuron.toByteArray());
+
+				// target[index] = nX(source)
+				predict.op(output ? ClassFileWriter.ALOAD_2 : ClassFileWriter.ALOAD_3);
+				predict.pushInt(output ? i : targetOffset + i);
+				predict.op(l == 0 ? ClassFileWriter.ALOAD_1 : ClassFileWriter.ALOAD_3);
+				predict.op(ClassFileWriter.INVOKESTATIC,
+						writer.methodConstant(name, method, "([D)D"));
+				predict.op(ClassFileWriter.DASTORE);
+			}
+
+			sourceOffset = targetOffset;
+			targetOffset += neurons;
+		}
+
+		predict.op(ClassFileWriter.RETURN);
+		writer.addMethod(ClassFileWriter.ACC_PUBLIC, "predict", "([D[D)V", 4,
+				4, predict.toByteArray());
+
+		byte[] bytes = writer.toByteArray();
+		KernelLoader loader = new KernelLoader(CompiledPerceptron.class.getClassLoader());
+		Class<?> generated = loader.define(name.replace('/', '.'), bytes);
+
+		try {
+			return (Kernel) generated.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A class loader for only one generated class
+	 */
+	private static final class KernelLoader extends ClassLoader {
+		KernelLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * A cosine annealing schedule with warm restarts. Inside each cycle the
+ * learning factor goes down from the base learning factor to the minimum
+ * following half a cosine, and then it restarts at the base learning factor.
+ * The first cycle lasts period epochs and each cycle is periodMultiplier times
+ * longer than the previous one.
+ * 
+ * @version 1.0
+ */
+public class CosineAnnealingSchedule implements LearningRateSchedule {
+	private final double _period;
+	private final double _periodMultiplier;
+	private final double _minimumLearningFactor;
+
+	/**
+	 * It creates a cosine annealing schedule with cycles of the same length
+	 * 
+	 * @param period the number of epochs of each cycle
+	 * @param minimumLearningFactor the learning factor at the end of each cycle
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public CosineAnnealingSchedule(int period, double minimumLearningFactor) {
+		this(period, 1, minimumLearningFactor);
+	}
+
+	/**
+	 * It creates a cosine annealing schedule
+	 * 
+	 * @param period the number of epochs of the first cycle
+	 * @param periodMultiplier the growth of each cycle, at least 1
+	 * @param minimumLearningFactor the learning factor at the end of each cycle
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public CosineAnnealingSchedule(int period, double periodMultiplier, double minimumLearningFactor) {
+		if (period < 1) {
+			throw new IllegalArgumentException("period must be at least 1 but is " + period);
+		}
+
+		if (periodMultiplier < 1) {
+			throw new IllegalArgumentException("periodMultiplier must be at least 1 but is " + periodMultiplier);
+		}
+
+		if (minimumLearningFactor < 0) {
+			throw new IllegalArgumentException("minimumLearningFactor can't be negative");
+		}
+
+		_period = period;
+		_periodMultiplier = periodMultiplier;
+		_minimumLearningFactor = minimumLearningFactor;
+	}
+
+	@Override
+	public double getLearningFactor(double epoch, double baseLearningFactor) {
+		double length = _period;
+		double position = epoch;
+
+		if (_periodMultiplier == 1) {
+			position = epoch % length;
+		} else {
+			while (position >= length) {
+				position -= length;
+				length *= _periodMultiplier;
+			}
+		}
+
+		double minimum = Math.min(_minimumLearningFactor, baseLearningFactor);
+		return minimum + (baseLearningFactor - minimum) * (1 + Math.cos(Math.PI * position / length)) / 2;
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static neuron_network.MultilayerPerceptron.neuronType.SIGMOIDE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+
+/**
+ * A CrossValidation splits one data set in k folds. Each fold is used once
+ * as test data, while the network is trained with the rest of folds.
+ * 
+ * <p>
+ * The folds are views of the data set, so they don't copy the patrons. In a
+ * stratified cross validation each fold has about the same proportion of
+ * each class than the whole data set. The class of a patron is the index of
+ * its highest desired output, or the rounded desired output when there is
+ * only one output.
+ * </p>
+ * 
+ * @version 1.0
+ * @see NetworkDataView
+ */
+public class CrossValidation {
+	private final NetworkData _data;
+	private final RandomSource _random;
+	private final int[][] _folds;
+
+	/**
+	 * The neuron type of the networks. By default it will be SIGMOIDE.
+	 */
+	public neuronType neuronType;
+
+	/**
+	 * The error minimized by the networks. By default it will be MSE.
+	 */
+	public errorToMinimize minimize;
+
+	/**
+	 * It splits the data in folds
+	 * 
+	 * @param data the data set
+	 * @param k the number of folds
+	 * @param stratified if true each fold keeps the proportion of each class
+	 * @param random the source used to shuffle the patrons and to initialize the networks
+	 * @throws IllegalArgumentException if k is lower than 2 or greater than the number of patrons
+	 */
+	public CrossValidation(NetworkData data, int k, boolean stratified, RandomSource random) {
+		if (k < 2 || k > data.patrons_length()) {
+			throw new IllegalArgumentException("k must be between 2 and " + data.patrons_length() + " but is " + k);
+		}
+
+		_data = data;
+		_random = random;
+		_folds = stratified ? stratifiedFolds(data, k, random) : folds(data, k, random);
+		neuronType = SIGMOIDE; // The field hides the type, so the constant is imported
+		minimize = errorToMinimize.MSE;
+	}
+
+	/**
+	 * It returns the number of folds
+	 * 
+	 * @return k
+	 */
+	public int getNumberOfFolds() {
+		return _folds.length;
+	}
+
+	/**
+	 * It returns the test data of a fold
+	 * 
+	 * @param fold the index of the fold
+	 * @return a view with the patrons of the fold
+	 */
+	public NetworkDataView getTestData(int fold) {
+		return _data.view(_folds[fold]);
+	}
+
+	/**
+	 * It returns the training data of a fold
+	 * 
+	 * @param fold the index of the fold
+	 * @return a view with the patrons of the rest of folds
+	 */
+	public NetworkDataView getTrainData(int fold) {
+		int[] indexes = new int[_data.patrons_length() - _folds[fold].length];
+		int n = 0;
+
+		for (int i = 0; i < _folds.length; i++) {
+			if (i != fold) {
+				System.arraycopy(_folds[i], 0, indexes, n, _folds[i].length);
+				n += _folds[i].length;
+			}
+		}
+
+		return _data.view(indexes);
+	}
+
+	/**
+	 * It trains a network for each fold, at the same time, and evaluates it
+	 * with the test data of the fold.
+	 * 
+	 * @param configuration the configuration of the networks
+	 * @param maxiter max number of iterations in each training
+	 * @param minimumImprovement minimum improvement to continue each training
+	 * @param threads the number of folds trained at the same time
+	 * @return the evaluation of each fold
+	 * @throws IllegalArgumentException if threads is lower than 1
+	 */
+	public CrossValidationResult run(TrainingConfiguration configuration, int maxiter,
+			double minimumImprovement, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1 but is " + threads);
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, _folds.length));
+		List<Future<Evaluation>> futures = new ArrayList<Future<Evaluation>>();
+
+		try {
+			for (int i = 0; i < _folds.length; i++) {
+				NetworkData train = getTrainData(i);
+				NetworkData test = getTestData(i);
+				MultilayerPerceptron network = configuration.createNetwork(train, neuronType,
+						minimize, _random.split());
+
+				futures.add(pool.submit(() -> {
+					network.trainByBackpropagation(train, maxiter, minimumImprovement,
+							configuration.isOffline());
+					return network.evaluate(test);
+				}));
+			}
+
+			List<Evaluation> evaluations = new ArrayList<Evaluation>();
+
+			for (Future<Evaluation> future : futures) {
+				evaluations.add(future.get());
+			}
+
+			return new CrossValidationResult(evaluations);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("the cross validation was interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new IllegalStateException("a training failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * It shuffles the indexes of the patrons and splits them in k folds of
+	 * similar size
+	 */
+	static int[][] folds(NetworkData data, int k, RandomSource random) {
+		int[] indexes = new int[data.patrons_length()];
+
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i;
+		}
+
+		random.shuffle(indexes);
+
+		return deal(indexes, k);
+	}
+
+	/**
+	 * It shuffles the indexes of the patrons of each class and deals them to
+	 * the folds one by one, class after class
+	 */
+	static int[][] stratifiedFolds(NetworkData data, int k, RandomSource random) {
+		int classes = Math.max(2, data.outputs_length());
+		int[] counts = new int[classes];
+		int[] labels = new int[data.patrons_length()];
+
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = classOf(data.get_output(data.get_input(i)));
+			counts[labels[i]]++;
+		}
+
+		int[][] byClass = new int[classes][];
+		int[] sizes = new int[classes];
+
+		for (int c = 0; c < classes; c++) {
+			byClass[c] = new int[counts[c]];
+		}
+
+		for (int i = 0; i < labels.length; i++) {
+			byClass[labels[i]][sizes[labels[i]]++] = i;
+		}
+
+		int[] indexes = new int[labels.length];
+		int n = 0;
+
+		for (int c = 0; c < classes; c++) {
+			random.shuffle(byClass[c]);
+			System.arraycopy(byClass[c], 0, indexes, n, byClass[c].length);
+			n += byClass[c].length;
+		}
+
+		return deal(indexes, k);
+	}
+
+	/**
+	 * It deals the indexes to k folds like cards, so consecutive indexes go
+	 * to different folds
+	 */
+	private static int[][] deal(int[] indexes, int k) {
+		int[][] folds = new int[k][];
+
+		for (int f = 0; f < k; f++) {
+			folds[f] = new int[(indexes.length - f + k - 1) / k];
+		}
+
+		for (int i = 0; i < indexes.length; i++) {
+			folds[i % k][i / k] = indexes[i];
+		}
+
+		for (int[] fold : folds) {
+			Arrays.sort(fold);
+		}
+
+		return folds;
+	}
+
+	private static int classOf(ArrayList<Double> output) {
+		if (output.size() == 1) {
+			return (output.get(0) >= 0.5) ? 1 : 0;
+		}
+
+		int best = 0;
+
+		for (int i = 1; i < output.size(); i++) {
+			if (output.get(i) > output.get(best)) {
+				best = i;
+			}
+		}
+
+		return best;
+	}
+}
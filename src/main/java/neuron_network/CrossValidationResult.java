@@ -0,0 +1,88 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a {@link CrossValidation}: the evaluation of each fold with
+ * its test data, and their mean and standard deviation.
+ * 
+ * @version 1.0
+ */
+public final class CrossValidationResult {
+	private final List<Evaluation> _folds;
+	private final Evaluation _mean;
+	private final Evaluation _standardDeviation;
+
+	CrossValidationResult(List<Evaluation> folds) {
+		_folds = Collections.unmodifiableList(folds);
+		_mean = Evaluation.mean(folds);
+		_standardDeviation = Evaluation.standardDeviation(folds);
+	}
+
+	/**
+	 * It returns the evaluation of each fold
+	 * 
+	 * @return a read-only list with one evaluation per fold
+	 */
+	public List<Evaluation> getFolds() {
+		return _folds;
+	}
+
+	/**
+	 * It returns the mean of the evaluations of the folds
+	 * 
+	 * @return the mean of each measure
+	 */
+	public Evaluation getMean() {
+		return _mean;
+	}
+
+	/**
+	 * It returns the standard deviation of the evaluations of the folds
+	 * 
+	 * @return the standard deviation of each measure
+	 */
+	public Evaluation getStandardDeviation() {
+		return _standardDeviation;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%6s %-12s %-10s %-12s%n", "fold", "MSE", "CCR (%)", "entropy"));
+
+		for (int i = 0; i < _folds.size(); i++) {
+			append(sb, String.valueOf(i + 1), _folds.get(i));
+		}
+
+		append(sb, "mean", _mean);
+		append(sb, "sd", _standardDeviation);
+
+		return sb.toString();
+	}
+
+	private static void append(StringBuilder sb, String label, Evaluation e) {
+		sb.append(String.format("%6s %-12.6g %-10.4g %-12.6g%n", label, e.getMeanSquaredError(),
+				e.getCCR() * 100, e.getEntropy()));
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+/**
+ * The DensePerceptron is an inference engine that stores each layer of a
+ * trained MultilayerPerceptron as a row-major matrix of doubles. It gives the
+ * same outputs than the network, but without boxing.
+ * 
+ * <p>
+ * The engine is a snapshot of the network: later changes in the network won't
+ * affect it. It is immutable, so it can be shared between threads.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class DensePerceptron implements Predictor {
+	private final int _inputsLength;
+	private final int[] _layerSizes;
+	private final double[][] _weights;
+	private final double[][] _biases;
+	private final boolean _softmax;
+	private final int _maxLayerSize;
+
+	/**
+	 * It builds a dense engine from the given network.
+	 * 
+	 * @param network the trained network
+	 */
+	public DensePerceptron(MultilayerPerceptron network) {
+		int layers = network.getNumberOfHiddenLayers() + 1;
+
+		_inputsLength = network.getInputsLength();
+		_layerSizes = new int[layers];
+		_weights = new double[layers][];
+		_biases = new double[layers][];
+		_softmax = network.isSoftmax();
+
+		int maxLayerSize = _inputsLength;
+
+		for (int l = 0; l < layers; l++) {
+			int layerIndex = (l < layers - 1) ? l : -1;
+
+			_layerSizes[l] = network.getLayerSize(layerIndex);
+			_weights[l] = network.getLayerWeights(layerIndex);
+			_biases[l] = network.getLayerBiases(layerIndex);
+			maxLayerSize = Math.max(maxLayerSize, _layerSizes[l]);
+		}
+
+		_maxLayerSize = maxLayerSize;
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _softmax;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		double[] current = new double[_maxLayerSize];
+		double[] next = new double[_maxLayerSize];
+		int currentSize = _inputsLength;
+
+		System.arraycopy(inputs, 0, current, 0, _inputsLength);
+
+		for (int l = 0; l < _weights.length; l++) {
+			double[] w = _weights[l];
+			double[] b = _biases[l];
+			int neurons = _layerSizes[l];
+
+			for (int i = 0; i < neurons; i++) {
+				int row = i * currentSize;
+				double acc = 0;
+
+				for (int j = 0; j < currentSize; j++) {
+					acc += current[j] * w[row + j];
+				}
+
+				next[i] = Predictors.sigmoid(acc + b[i]);
+			}
+
+			double[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		System.arraycopy(current, 0, outputs, 0, currentSize);
+
+		if (_softmax) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It predicts the batch one layer at a time, so each row of weights is
+	 * used by all the patrons while it is in the cache
+	 */
+	@Override
+	public void predict(double[] inputs, double[] outputs, int patrons) {
+		double[] current = new double[patrons * _maxLayerSize];
+		double[] next = new double[patrons * _maxLayerSize];
+		int currentSize = _inputsLength;
+
+		System.arraycopy(inputs, 0, current, 0, patrons * _inputsLength);
+
+		for (int l = 0; l < _weights.length; l++) {
+			double[] w = _weights[l];
+			double[] b = _biases[l];
+			int neurons = _layerSizes[l];
+
+			for (int i = 0; i < neurons; i++) {
+				int row = i * currentSize;
+
+				for (int p = 0; p < patrons; p++) {
+					int offset = p * currentSize;
+					double acc = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						acc += current[offset + j] * w[row + j];
+					}
+
+					next[p * neurons + i] = Predictors.sigmoid(acc + b[i]);
+				}
+			}
+
+			double[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		System.arraycopy(current, 0, outputs, 0, patrons * currentSize);
+
+		if (_softmax) {
+			double[] output = new double[currentSize];
+
+			for (int p = 0; p < patrons; p++) {
+				System.arraycopy(outputs, p * currentSize, output, 0, currentSize);
+				Predictors.applySoftmax(output);
+				System.arraycopy(output, 0, outputs, p * currentSize, currentSize);
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.List;
+
+/**
+ * An Evaluation holds the MSE, the CCR and the entropy of a network with a
+ * data set, measured in one pass over the data.
+ * 
+ * @version 1.0
+ * @see MultilayerPerceptron#evaluate(NetworkData)
+ */
+public final class Evaluation {
+	private final double _meanSquaredError;
+	private final double _ccr;
+	private final double _entropy;
+
+	/**
+	 * It creates an evaluation with the given measures
+	 * 
+	 * @param meanSquaredError the mean of the MSE of each patron
+	 * @param ccr the fraction of patrons correctly classified
+	 * @param entropy the cross entropy
+	 */
+	public Evaluation(double meanSquaredError, double ccr, double entropy) {
+		_meanSquaredError = meanSquaredError;
+		_ccr = ccr;
+		_entropy = entropy;
+	}
+
+	/**
+	 * It returns the mean of the MSE of each patron, like
+	 * MultilayerPerceptron.getMeanSquaredError
+	 * 
+	 * @return the MSE
+	 */
+	public double getMeanSquaredError() {
+		return _meanSquaredError;
+	}
+
+	/**
+	 * It returns the CCR, like MultilayerPerceptron.getCCR
+	 * 
+	 * @return the CCR
+	 */
+	public double getCCR() {
+		return _ccr;
+	}
+
+	/**
+	 * It returns the entropy, like MultilayerPerceptron.getEntropy
+	 * 
+	 * @return the entropy
+	 */
+	public double getEntropy() {
+		return _entropy;
+	}
+
+	/**
+	 * It returns the mean of each measure of the given evaluations
+	 * 
+	 * @param evaluations the evaluations
+	 * @return an evaluation with the means
+	 */
+	public static Evaluation mean(List<Evaluation> evaluations) {
+		double mse = 0;
+		double ccr = 0;
+		double entropy = 0;
+
+		for (Evaluation e : evaluations) {
+			mse += e._meanSquaredError;
+			ccr += e._ccr;
+			entropy += e._entropy;
+		}
+
+		int n = evaluations.size();
+
+		return new Evaluation(mse / n, ccr / n, entropy / n);
+	}
+
+	/**
+	 * It returns the standard deviation of each measure of the given
+	 * evaluations
+	 * 
+	 * @param evaluations the evaluations
+	 * @return an evaluation with the standard deviations
+	 */
+	public static Evaluation standardDeviation(List<Evaluation> evaluations) {
+		Evaluation mean = mean(evaluations);
+		double mse = 0;
+		double ccr = 0;
+		double entropy = 0;
+
+		for (Evaluation e : evaluations) {
+			mse += Math.pow(e._meanSquaredError - mean._meanSquaredError, 2);
+			ccr += Math.pow(e._ccr - mean._ccr, 2);
+			entropy += Math.pow(e._entropy - mean._entropy, 2);
+		}
+
+		int n = evaluations.size();
+
+		return new Evaluation(Math.sqrt(mse / n), Math.sqrt(ccr / n), Math.sqrt(entropy / n));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("MSE %.6g, CCR %.4g %%, entropy %.6g", _meanSquaredError, _ccr * 100, _entropy);
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * A schedule that multiplies the learning factor by gamma in each epoch. When
+ * it is evaluated per step the decay is continuous.
+ * 
+ * @version 1.0
+ */
+public class ExponentialDecaySchedule implements LearningRateSchedule {
+	private final double _gamma;
+
+	/**
+	 * It creates an exponential decay schedule
+	 * 
+	 * @param gamma the factor applied in each epoch, between 0 (exclusive) and 1 (inclusive)
+	 * @throws IllegalArgumentException if gamma is out of range
+	 */
+	public ExponentialDecaySchedule(double gamma) {
+		if (gamma <= 0 || gamma > 1) {
+			throw new IllegalArgumentException("gamma must be between 0 and 1 but is " + gamma);
+		}
+
+		_gamma = gamma;
+	}
+
+	@Override
+	public double getLearningFactor(double epoch, double baseLearningFactor) {
+		return baseLearningFactor * Math.pow(_gamma, epoch);
+	}
+}
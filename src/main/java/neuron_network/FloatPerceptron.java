@@ -0,0 +1,240 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+/**
+ * The FloatPerceptron is an inference engine that stores the weights and the
+ * activations of a trained MultilayerPerceptron as floats.
+ * 
+ * <p>
+ * Each layer is stored as a row-major float matrix, so the engine needs half of
+ * the memory of a double engine and the inner loop of each neuron walks over a
+ * contiguous array. The dot products can be accumulated as floats or as
+ * doubles. Double accumulators are a little slower, but the error only comes
+ * from the rounding of the weights.
+ * </p>
+ * 
+ * <p>
+ * The engine is a snapshot of the network: later changes in the network won't
+ * affect it. It is immutable, so it can be shared between threads. Each thread
+ * keeps its own activation buffers, so a prediction doesn't allocate memory.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class FloatPerceptron implements Predictor {
+	private final int _inputsLength;
+	private final int[] _layerSizes;
+	private final float[][] _weights;
+	private final float[][] _biases;
+	private final boolean _softmax;
+	private final boolean _doubleAccumulators;
+	private final int _maxLayerSize;
+	private final ThreadLocal<float[][]> _buffers;
+
+	/**
+	 * It builds a float engine from the given network using float
+	 * accumulators.
+	 * 
+	 * @param network the trained network
+	 */
+	public FloatPerceptron(MultilayerPerceptron network) {
+		this(network, false);
+	}
+
+	/**
+	 * It builds a float engine from the given network.
+	 * 
+	 * @param network the trained network
+	 * @param doubleAccumulators if true the dot products are accumulated as doubles
+	 */
+	public FloatPerceptron(MultilayerPerceptron network, boolean doubleAccumulators) {
+		int layers = network.getNumberOfHiddenLayers() + 1;
+
+		_inputsLength = network.getInputsLength();
+		_layerSizes = new int[layers];
+		_weights = new float[layers][];
+		_biases = new float[layers][];
+		_softmax = network.isSoftmax();
+		_doubleAccumulators = doubleAccumulators;
+
+		int maxLayerSize = _inputsLength;
+
+		for (int l = 0; l < layers; l++) {
+			int layerIndex = (l < layers - 1) ? l : -1;
+
+			_layerSizes[l] = network.getLayerSize(layerIndex);
+			_weights[l] = toFloat(network.getLayerWeights(layerIndex));
+			_biases[l] = toFloat(network.getLayerBiases(layerIndex));
+			maxLayerSize = Math.max(maxLayerSize, _layerSizes[l]);
+		}
+
+		_maxLayerSize = maxLayerSize;
+
+		// The inputs, the outputs and two activation arrays of each thread
+		_buffers = ThreadLocal.withInitial(() -> new float[][] {
+				new float[_inputsLength], new float[getOutputLayerSize()],
+				new float[_maxLayerSize], new float[_maxLayerSize] });
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _softmax;
+	}
+
+	/**
+	 * It checks if the dot products are accumulated as doubles
+	 * 
+	 * @return true when the engine uses double accumulators
+	 */
+	public boolean usesDoubleAccumulators() {
+		return _doubleAccumulators;
+	}
+
+	/**
+	 * It returns the number of weights and biases stored in the engine
+	 * 
+	 * @return the number of parameters of the engine
+	 */
+	public int getNumberOfWeights() {
+		int n = 0;
+
+		for (int l = 0; l < _weights.length; l++) {
+			n += _weights[l].length + _biases[l].length;
+		}
+
+		return n;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		float[][] buffers = _buffers.get();
+		float[] in = buffers[0];
+		float[] out = buffers[1];
+
+		for (int i = 0; i < in.length; i++) {
+			in[i] = (float) inputs[i];
+		}
+
+		predict(in, out, buffers);
+
+		for (int i = 0; i < out.length; i++) {
+			outputs[i] = out[i];
+		}
+	}
+
+	/**
+	 * It spread out the given inputs and stores the result in outputs. When
+	 * the engine is a softmax engine the outputs are already normalized.
+	 * 
+	 * @param inputs the inputs of the network
+	 * @param outputs the array where the outputs will be stored
+	 */
+	public void predict(float[] inputs, float[] outputs) {
+		predict(inputs, outputs, _buffers.get());
+	}
+
+	/**
+	 * It spread out the given inputs using the activation buffers of the
+	 * current thread
+	 */
+	private void predict(float[] inputs, float[] outputs, float[][] buffers) {
+		float[] current = buffers[2];
+		float[] next = buffers[3];
+		int currentSize = _inputsLength;
+
+		System.arraycopy(inputs, 0, current, 0, _inputsLength);
+
+		for (int l = 0; l < _weights.length; l++) {
+			float[] w = _weights[l];
+			float[] b = _biases[l];
+			int neurons = _layerSizes[l];
+
+			for (int i = 0; i < neurons; i++) {
+				int row = i * currentSize;
+				double acc;
+
+				if (_doubleAccumulators) {
+					double sum = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						sum += (double) current[j] * w[row + j];
+					}
+
+					acc = sum + b[i];
+				} else {
+					float sum = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						sum += current[j] * w[row + j];
+					}
+
+					acc = sum + b[i];
+				}
+
+				next[i] = (float) Predictors.sigmoid(acc);
+			}
+
+			float[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		if (_softmax) {
+			float sum = 0;
+
+			for (int i = 0; i < currentSize; i++) {
+				sum += current[i];
+			}
+
+			for (int i = 0; i < currentSize; i++) {
+				current[i] /= sum;
+			}
+		}
+
+		System.arraycopy(current, 0, outputs, 0, currentSize);
+	}
+
+	/**
+	 * It converts an array of doubles to an array of floats
+	 * 
+	 * @param values the values to convert
+	 * @return the values rounded to floats
+	 */
+	private static float[] toFloat(double[] values) {
+		float[] result = new float[values.length];
+
+		for (int i = 0; i < values.length; i++) {
+			result[i] = (float) values[i];
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,492 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static neuron_network.MultilayerPerceptron.neuronType.SIGMOIDE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+
+/**
+ * A HyperparameterSearch trains many networks with different
+ * {@link TrainingConfiguration}s at the same time and ranks them by their
+ * validation error.
+ * 
+ * <p>
+ * All the trainings share the same training and validation data, that are
+ * only read. Each training has its own network and its own random source,
+ * split from the source of the search, so a search gives the same results
+ * with the same source. The trainings run in a fixed pool of threads.
+ * </p>
+ * 
+ * <p>
+ * There are four strategies:
+ * </p>
+ * <ul>
+ * <li>run trains the configurations of a grid or a random search. With the
+ * median stopping rule, a training is stopped when its validation error is
+ * worse than the median of the errors of the other trainings at the same
+ * epoch.</li>
+ * <li>successiveHalving trains all configurations a few epochs, keeps the
+ * best 1 / eta of them, trains them eta times more epochs, and so on.</li>
+ * <li>hyperband runs several successive halvings with random
+ * configurations, from many configurations with few epochs to a few
+ * configurations with all the epochs.</li>
+ * <li>populationBasedTraining trains a population of networks with the same
+ * topology. Periodically the worst networks copy the weights of the best
+ * ones and continue with a perturbation of their learning factor and
+ * inertia.</li>
+ * </ul>
+ * 
+ * @version 1.0
+ */
+public class HyperparameterSearch implements AutoCloseable {
+	private static final double MINIMUM_LEARNING_FACTOR = 1e-4;
+	private final NetworkData _trainData;
+	private final NetworkData _validationData;
+	private final RandomSource _random;
+	private final ExecutorService _pool;
+	private int _stoppingPeriod;
+	private int _minimumTrials;
+
+	/**
+	 * The neuron type of the networks. By default it will be SIGMOIDE.
+	 */
+	public neuronType neuronType;
+
+	/**
+	 * The error minimized by the networks and used to rank them. By default
+	 * it will be MSE.
+	 */
+	public errorToMinimize minimize;
+
+	/**
+	 * It creates a search
+	 * 
+	 * @param trainData the data used to train the networks
+	 * @param validationData the data used to rank the networks
+	 * @param threads the number of trainings that run at the same time
+	 * @param random the source of the random sources of the networks
+	 * @throws IllegalArgumentException if threads is lower than 1
+	 */
+	public HyperparameterSearch(NetworkData trainData, NetworkData validationData,
+			int threads, RandomSource random) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1 but is " + threads);
+		}
+
+		_trainData = trainData;
+		_validationData = validationData;
+		_random = random;
+		neuronType = SIGMOIDE; // The field hides the type, so the constant is imported
+		minimize = errorToMinimize.MSE;
+		_pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "HyperparameterSearch");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * It enables the median stopping rule in run. All the trainings are
+	 * trained period epochs, and then the validation error of each training
+	 * is compared with the errors of the other trainings, and the training
+	 * is stopped if it is worse than their median.
+	 * 
+	 * @param period the number of epochs between two comparisons or 0 to disable the rule
+	 * @param minimumTrials the number of trainings left needed before stopping any training
+	 * @throws IllegalArgumentException if a param is negative
+	 */
+	public void setMedianStopping(int period, int minimumTrials) {
+		if (period < 0 || minimumTrials < 0) {
+			throw new IllegalArgumentException("period and minimumTrials can't be negative");
+		}
+
+		_stoppingPeriod = period;
+		_minimumTrials = minimumTrials;
+	}
+
+	/**
+	 * It trains each configuration the given number of epochs, or less if it
+	 * is stopped by the median stopping rule.
+	 * 
+	 * @param configurations the configurations, for example of SearchSpace.grid or SearchSpace.sample
+	 * @param epochs the number of epochs of each training
+	 * @return the results, sorted by validation error
+	 */
+	public List<SearchResult> run(List<TrainingConfiguration> configurations, int epochs) {
+		List<Trial> trials = createTrials(configurations);
+		List<Trial> active = new ArrayList<Trial>(trials);
+		int period = (_stoppingPeriod > 0) ? _stoppingPeriod : epochs;
+		int done = 0;
+
+		// All the trainings reach each rung before any is stopped, so the
+		// stopped trainings don't depend on the order of the threads
+		while (done < epochs && !active.isEmpty()) {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			int rung = Math.min(epochs, done + period);
+
+			for (Trial trial : active) {
+				tasks.add(() -> {
+					trial.train(rung);
+					return null;
+				});
+			}
+
+			invokeAll(tasks);
+			done = rung;
+
+			if (_stoppingPeriod > 0 && done < epochs) {
+				active = stopWorseThanMedian(active);
+			}
+		}
+
+		return results(trials, Comparator.comparingDouble(SearchResult::getError));
+	}
+
+	/**
+	 * It makes a successive halving. All configurations are trained
+	 * minimumEpochs, and only the best 1 / eta continue. The survivors are
+	 * trained eta times more epochs, up to maximumEpochs, until only one
+	 * configuration is left.
+	 * 
+	 * @param configurations the configurations
+	 * @param minimumEpochs the epochs of the first round
+	 * @param maximumEpochs the highest number of epochs of a configuration
+	 * @param eta the reduction factor, at least 2
+	 * @return the results, sorted by epochs (the survivors first) and validation error
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public List<SearchResult> successiveHalving(List<TrainingConfiguration> configurations,
+			int minimumEpochs, int maximumEpochs, int eta) {
+		if (eta < 2) {
+			throw new IllegalArgumentException("eta must be at least 2 but is " + eta);
+		}
+
+		if (minimumEpochs < 1 || maximumEpochs < minimumEpochs) {
+			throw new IllegalArgumentException("epochs must be 1 <= minimumEpochs <= maximumEpochs");
+		}
+
+		List<Trial> trials = createTrials(configurations);
+		List<Trial> survivors = new ArrayList<Trial>(trials);
+		int epochs = minimumEpochs;
+
+		while (true) {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			int rung = epochs;
+
+			for (Trial trial : survivors) {
+				tasks.add(() -> {
+					trial.train(rung);
+					return null;
+				});
+			}
+
+			invokeAll(tasks);
+			survivors.sort(Comparator.comparingDouble(t -> t.error));
+
+			if (survivors.size() <= 1 || epochs >= maximumEpochs) {
+				break;
+			}
+
+			int kept = Math.max(1, survivors.size() / eta);
+
+			for (Trial trial : survivors.subList(kept, survivors.size())) {
+				trial.stopped = true;
+			}
+
+			survivors = new ArrayList<Trial>(survivors.subList(0, kept));
+			epochs = (int) Math.min((long) epochs * eta, maximumEpochs);
+		}
+
+		return results(trials, BY_EPOCHS_AND_ERROR);
+	}
+
+	/**
+	 * It makes a Hyperband search: several successive halvings with random
+	 * configurations of the space, from many configurations that start with
+	 * few epochs to a few configurations trained maximumEpochs.
+	 * 
+	 * @param space the space of the configurations
+	 * @param maximumEpochs the highest number of epochs of a configuration
+	 * @param eta the reduction factor, at least 2
+	 * @return the results of all halvings, sorted by epochs and validation error
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public List<SearchResult> hyperband(SearchSpace space, int maximumEpochs, int eta) {
+		if (eta < 2) {
+			throw new IllegalArgumentException("eta must be at least 2 but is " + eta);
+		}
+
+		if (maximumEpochs < 1) {
+			throw new IllegalArgumentException("maximumEpochs must be at least 1 but is " + maximumEpochs);
+		}
+
+		int brackets = 0;
+
+		for (long r = eta; r <= maximumEpochs; r *= eta) {
+			brackets++;
+		}
+
+		List<SearchResult> results = new ArrayList<SearchResult>();
+
+		for (int s = brackets; s >= 0; s--) {
+			int power = (int) Math.pow(eta, s);
+			int n = (int) Math.ceil((double) (brackets + 1) / (s + 1) * power);
+			int minimumEpochs = Math.max(1, maximumEpochs / power);
+
+			results.addAll(successiveHalving(space.sample(n, _random), minimumEpochs, maximumEpochs, eta));
+		}
+
+		results.sort(BY_EPOCHS_AND_ERROR);
+
+		return results;
+	}
+
+	/**
+	 * It makes a population based training. All networks are trained at the
+	 * same time. Every period epochs they are ranked by validation error, and
+	 * each network of the worst fraction copies the weights and the last
+	 * input changes of one of the best fraction. Then its learning factor and
+	 * its inertia are multiplied or divided, at random, by the perturbation.
+	 * Both stay at most 1, and the learning factor doesn't go below 0.0001, so
+	 * repeated divisions don't stop the training.
+	 * The weights are exchanged through preallocated arrays.
+	 * 
+	 * @param population the initial configurations. They must have the same topology and use of bias
+	 * @param epochs the number of epochs of the training
+	 * @param period the number of epochs between two exchanges
+	 * @param fraction the fraction of the population that is replaced in each exchange, between 0 (exclusive) and 0.5
+	 * @param perturbation the factor applied to the learning factor and the inertia, greater than 1
+	 * @return the results with the last configuration of each network, sorted by validation error
+	 * @throws IllegalArgumentException if a param is out of range or the configurations have different topologies
+	 */
+	public List<SearchResult> populationBasedTraining(List<TrainingConfiguration> population,
+			int epochs, int period, double fraction, double perturbation) {
+		if (population.size() < 2) {
+			throw new IllegalArgumentException("the population needs at least two configurations");
+		}
+
+		if (epochs < 1 || period < 1) {
+			throw new IllegalArgumentException("epochs and period must be at least 1");
+		}
+
+		if (!(fraction > 0 && fraction <= 0.5)) {
+			throw new IllegalArgumentException("fraction must be between 0 and 0.5 but is " + fraction);
+		}
+
+		if (!(perturbation > 1)) {
+			throw new IllegalArgumentException("perturbation must be greater than 1 but is " + perturbation);
+		}
+
+		TrainingConfiguration first = population.get(0);
+
+		for (TrainingConfiguration c : population) {
+			if (c.getHiddenLayers() != first.getHiddenLayers()
+					|| c.getHiddenNeurons() != first.getHiddenNeurons()
+					|| c.getUseBias() != first.getUseBias()) {
+				throw new IllegalArgumentException("all configurations must have the same topology and use of bias");
+			}
+		}
+
+		List<Trial> trials = createTrials(population);
+		List<Trial> ranking = new ArrayList<Trial>(trials);
+		int replaced = Math.max(1, (int) (trials.size() * fraction));
+		double[] weights = new double[trials.get(0).network.getNumberOfWeights()];
+		double[] changes = new double[weights.length];
+		int done = 0;
+
+		while (done < epochs) {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			int rung = Math.min(epochs, done + period);
+
+			for (Trial trial : trials) {
+				tasks.add(() -> {
+					trial.train(rung);
+					return null;
+				});
+			}
+
+			invokeAll(tasks);
+			done = rung;
+
+			if (done >= epochs) {
+				break;
+			}
+
+			ranking.sort(Comparator.comparingDouble(t -> t.error));
+
+			for (int i = 0; i < replaced; i++) {
+				Trial best = ranking.get(i);
+				Trial worst = ranking.get(ranking.size() - 1 - i);
+				TrainingConfiguration c = best.configuration;
+
+				best.network.getWeights(weights);
+				best.network.getLastInputsChanges(changes);
+				worst.network.setWeights(weights);
+				worst.network.setLastInputsChanges(changes);
+				worst.error = best.error;
+				worst.configuration = new TrainingConfiguration(c.getHiddenLayers(),
+						c.getHiddenNeurons(), perturb(c.getLearningFactor(), perturbation, MINIMUM_LEARNING_FACTOR),
+						perturb(c.getInertiaValue(), perturbation, 0), c.getUseBias(), c.isOffline());
+				worst.network.setLearningFactor(worst.configuration.getLearningFactor());
+				worst.network.setInertiaValue(worst.configuration.getInertiaValue());
+			}
+		}
+
+		return results(trials, Comparator.comparingDouble(SearchResult::getError));
+	}
+
+	/**
+	 * It multiplies or divides the value by the perturbation, keeping it
+	 * between minimum and 1
+	 */
+	private double perturb(double value, double perturbation, double minimum) {
+		double result = (_random.nextDouble() < 0.5) ? value * perturbation : value / perturbation;
+		return Math.max(minimum, Math.min(1, result));
+	}
+
+	/**
+	 * It stops the threads of the search
+	 */
+	@Override
+	public void close() {
+		_pool.shutdownNow();
+	}
+
+	private static final Comparator<SearchResult> BY_EPOCHS_AND_ERROR = Comparator
+			.comparingInt(SearchResult::getEpochs).reversed()
+			.thenComparingDouble(SearchResult::getError);
+
+	/**
+	 * It stops the trainings whose validation error is worse than the median
+	 * of the errors of the other trainings, and returns the rest
+	 */
+	private List<Trial> stopWorseThanMedian(List<Trial> trials) {
+		if (trials.size() < 2 || trials.size() <= _minimumTrials) {
+			return trials;
+		}
+
+		List<Double> errors = new ArrayList<Double>();
+		List<Trial> kept = new ArrayList<Trial>();
+
+		for (Trial trial : trials) {
+			errors.add(trial.error);
+		}
+
+		Collections.sort(errors);
+
+		for (Trial trial : trials) {
+			List<Double> others = new ArrayList<Double>(errors);
+			others.remove(trial.error);
+
+			int middle = others.size() / 2;
+			double median = (others.size() % 2 == 1) ? others.get(middle)
+					: (others.get(middle - 1) + others.get(middle)) / 2;
+
+			if (trial.error > median) {
+				trial.stopped = true;
+			}
+			else {
+				kept.add(trial);
+			}
+		}
+
+		return kept;
+	}
+
+	private List<Trial> createTrials(List<TrainingConfiguration> configurations) {
+		List<Trial> trials = new ArrayList<Trial>();
+
+		for (TrainingConfiguration configuration : configurations) {
+			trials.add(new Trial(configuration, configuration.createNetwork(_trainData,
+					neuronType, minimize, _random.split())));
+		}
+
+		return trials;
+	}
+
+	private void invokeAll(List<Callable<Void>> tasks) {
+		try {
+			for (Future<Void> future : _pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("the search was interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new IllegalStateException("a training failed", e.getCause());
+		}
+	}
+
+	private static List<SearchResult> results(List<Trial> trials, Comparator<SearchResult> order) {
+		List<SearchResult> results = new ArrayList<SearchResult>();
+
+		for (Trial trial : trials) {
+			results.add(new SearchResult(trial.configuration, trial.network, trial.error,
+					trial.epochs, trial.stopped));
+		}
+
+		results.sort(order);
+
+		return results;
+	}
+
+	/**
+	 * The training of a configuration
+	 */
+	private class Trial {
+		TrainingConfiguration configuration;
+		final MultilayerPerceptron network;
+		int epochs;
+		double error = Double.POSITIVE_INFINITY;
+		boolean stopped;
+
+		Trial(TrainingConfiguration configuration, MultilayerPerceptron network) {
+			this.configuration = configuration;
+			this.network = network;
+		}
+
+		/**
+		 * It continues the training up to the given number of epochs and
+		 * measures the validation error
+		 */
+		void train(int totalEpochs) {
+			network.fineTune(_trainData, totalEpochs - epochs, configuration.isOffline());
+			epochs = totalEpochs;
+			error = minimize.equals(errorToMinimize.MSE)
+					? network.getMeanSquaredError(_validationData) : network.getEntropy(_validationData);
+		}
+	}
+}
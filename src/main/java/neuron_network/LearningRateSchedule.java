@@ -0,0 +1,96 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * A LearningRateSchedule changes the learning factor of a network during a
+ * training.
+ * 
+ * <p>
+ * The network asks for the learning factor before each epoch, or before each
+ * patron of an online backpropagation when the schedule is evaluated per step.
+ * In that case the epoch has a fractional part with the progress inside the
+ * epoch. After each epoch the schedule receives the training error, so it can
+ * react to it.
+ * </p>
+ * 
+ * @version 1.0
+ * @see MultilayerPerceptron#setLearningRateSchedule(LearningRateSchedule, boolean)
+ */
+public interface LearningRateSchedule {
+
+	/**
+	 * It returns the learning factor to use in the given epoch
+	 * 
+	 * @param epoch the number of epochs already made, with the progress of the current epoch as fractional part
+	 * @param baseLearningFactor the learning factor set in the network
+	 * @return the learning factor to use
+	 */
+	public double getLearningFactor(double epoch, double baseLearningFactor);
+
+	/**
+	 * It receives the training error after an epoch. By default it does
+	 * nothing.
+	 * 
+	 * @param epoch the number of the finished epoch, starting at 0
+	 * @param error the training error after the epoch
+	 */
+	public default void epochFinished(int epoch, double error) {
+	}
+
+	/**
+	 * It forgets the errors received, before a new training. By default it
+	 * does nothing.
+	 */
+	public default void reset() {
+	}
+
+	/**
+	 * It creates a schedule with the same params and without the errors
+	 * received, for another network. By default it returns this schedule,
+	 * because a schedule that doesn't react to the errors has no state.
+	 * 
+	 * @return a schedule that can be used by another network
+	 */
+	public default LearningRateSchedule copy() {
+		return this;
+	}
+
+	/**
+	 * It returns the state built from the errors received, so a training can
+	 * continue from a checkpoint. By default it returns an empty array,
+	 * because a schedule that doesn't react to the errors has no state.
+	 * 
+	 * @return a copy of the state
+	 */
+	public default double[] getState() {
+		return new double[0];
+	}
+
+	/**
+	 * It restores a state returned by getState
+	 * 
+	 * @param state a state returned by getState
+	 * @throws IllegalArgumentException if the state is not valid for this schedule
+	 */
+	public default void setState(double[] state) {
+		if (state.length != 0) {
+			throw new IllegalArgumentException("the schedule has no state");
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+
+/**
+ * The Levenberg-Marquardt algorithm for offline training of small networks
+ * that minimize the MSE.
+ * 
+ * <p>
+ * Each epoch computes the Jacobian of the outputs for each patron and solves
+ * the damped normal equations (J^T * J + mu * I) * step = -J^T * e with a
+ * Cholesky factorization. When the step reduces the error it is kept and mu
+ * is divided by the factor, so the algorithm moves towards Gauss-Newton.
+ * Otherwise mu is multiplied by the factor, so it moves towards the
+ * gradient descent, and the step is tried again. It doesn't use the learning
+ * factor or the inertia of the network.
+ * </p>
+ * 
+ * <p>
+ * It needs a matrix of N * N doubles and O(N^3) operations per epoch, where N
+ * is the number of weights, so the number of weights is limited. It only
+ * works with sigmoid networks that minimize the MSE.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class LevenbergMarquardt implements BatchTrainer {
+	private static final double MAXIMUM_MU = 1e10;
+	private final int _maximumWeights;
+	private final double _initialMu;
+	private final double _factor;
+	private double _mu;
+	private double[] _jtj;
+	private double[] _factorization;
+	private double[] _jte;
+	private double[] _row;
+	private double[] _weights;
+	private double[] _trial;
+
+	/**
+	 * It creates a trainer for networks up to 1000 weights, with an initial mu
+	 * of 0.001 and a factor of 10
+	 */
+	public LevenbergMarquardt() {
+		this(1000, 0.001, 10);
+	}
+
+	/**
+	 * It creates a trainer with the given params
+	 * 
+	 * @param maximumWeights the highest number of weights of the networks it can train
+	 * @param initialMu the first damping
+	 * @param factor the factor used to change the damping, greater than 1
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public LevenbergMarquardt(int maximumWeights, double initialMu, double factor) {
+		if (maximumWeights < 1) {
+			throw new IllegalArgumentException("maximumWeights must be at least 1 but is " + maximumWeights);
+		}
+
+		if (initialMu <= 0) {
+			throw new IllegalArgumentException("initialMu must be positive but is " + initialMu);
+		}
+
+		if (factor <= 1) {
+			throw new IllegalArgumentException("factor must be greater than 1 but is " + factor);
+		}
+
+		_maximumWeights = maximumWeights;
+		_initialMu = initialMu;
+		_factor = factor;
+		initialize(0);
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_mu = _initialMu;
+		_jtj = new double[numberOfWeights * numberOfWeights];
+		_factorization = new double[numberOfWeights * numberOfWeights];
+		_jte = new double[numberOfWeights];
+		_row = new double[numberOfWeights];
+		_weights = new double[numberOfWeights];
+		_trial = new double[numberOfWeights];
+	}
+
+	/**
+	 * It makes an epoch with all the data. The weights are not changed if no
+	 * damping up to 1e10 reduces the error.
+	 * 
+	 * @param network the network to be trained
+	 * @param data the training data
+	 * @throws IllegalArgumentException if the network has more weights than the limit, it is a softmax network or it doesn't minimize the MSE
+	 */
+	@Override
+	public void epoch(MultilayerPerceptron network, NetworkData data) {
+		int n = network.getNumberOfWeights();
+
+		if (n > _maximumWeights) {
+			throw new IllegalArgumentException("Levenberg-Marquardt needs a matrix of "
+					+ n + " x " + n + " values; the network has " + n
+					+ " weights but the limit is " + _maximumWeights);
+		}
+
+		if (!network.minimize.equals(errorToMinimize.MSE)) {
+			throw new IllegalArgumentException("Levenberg-Marquardt only minimizes the MSE");
+		}
+
+		if (network.isSoftmax()) {
+			throw new IllegalArgumentException("Levenberg-Marquardt doesn't support softmax networks");
+		}
+
+		if (_weights.length != n) {
+			initialize(n);
+		}
+
+		double sse = network.computeJacobianProducts(data, _jtj, _jte, _row);
+		double scale = data.patrons_length() * data.outputs_length();
+		network.getWeights(_weights);
+
+		while (_mu <= MAXIMUM_MU) {
+			System.arraycopy(_jtj, 0, _factorization, 0, _jtj.length);
+
+			for (int i = 0; i < n; i++) {
+				_factorization[i * n + i] += _mu;
+			}
+
+			if (LinearAlgebra.cholesky(_factorization, n)) {
+				for (int i = 0; i < n; i++) {
+					_trial[i] = -_jte[i];
+				}
+
+				LinearAlgebra.choleskySolve(_factorization, n, _trial);
+
+				for (int i = 0; i < n; i++) {
+					_trial[i] += _weights[i];
+				}
+
+				network.setWeights(_trial);
+
+				if (network.getMeanSquaredError(data) * scale < sse) {
+					_mu = Math.max(_mu / _factor, 1e-20);
+					return;
+				}
+			}
+
+			_mu *= _factor;
+		}
+
+		_mu = MAXIMUM_MU;
+		network.setWeights(_weights);
+	}
+
+	@Override
+	public LevenbergMarquardt copy() {
+		return new LevenbergMarquardt(_maximumWeights, _initialMu, _factor);
+	}
+
+	/**
+	 * It returns the state of the trainer: the damping and the number of
+	 * weights
+	 * 
+	 * @return an array with 2 values
+	 */
+	@Override
+	public double[] getState() {
+		return new double[] { _mu, _weights.length };
+	}
+
+	@Override
+	public void setState(double[] state) {
+		if (state.length != 2 || !(state[0] > 0)) {
+			throw new IllegalArgumentException("state is not a LevenbergMarquardt state");
+		}
+
+		initialize((int) state[1]);
+		_mu = state[0];
+	}
+
+	@Override
+	public String toString() {
+		return "Levenberg-Marquardt";
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.Arrays;
+
+/**
+ * The L-BFGS algorithm, a quasi-Newton method for offline training.
+ * 
+ * <p>
+ * It approximates the inverse of the hessian with the last pairs of changes
+ * of the weights and the gradient, and it looks for the step along that
+ * direction with a backtracking line search (Armijo rule). Each epoch is one
+ * iteration. The error and the gradient are computed in parallel by copies
+ * of the network over parts of the data. It doesn't use the learning factor
+ * or the inertia of the network.
+ * </p>
+ * 
+ * <p>
+ * When the weights of the network are changed between two epochs, for
+ * example by the pruning, the pairs are forgotten and the next epoch starts
+ * again with the gradient.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class LimitedMemoryBFGS implements BatchTrainer {
+	private static final double ARMIJO = 1e-4;
+	private static final int MAX_BACKTRACKS = 30;
+	private final int _memory;
+	private final int _threads;
+	private final ParallelGradient _evaluator;
+	private double[][] _s;
+	private double[][] _y;
+	private double[] _rho;
+	private double[] _alpha;
+	private double[] _newS;
+	private double[] _newY;
+	private int _pairs;
+	private int _newest;
+	private double[] _weights;
+	private double[] _gradient;
+	private double[] _direction;
+	private double[] _trial;
+	private double[] _trialGradient;
+	private double _error;
+	private boolean _valid;
+
+	/**
+	 * It creates a trainer that keeps the last 10 pairs and uses all the
+	 * processors
+	 */
+	public LimitedMemoryBFGS() {
+		this(10, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * It creates a trainer with the given params
+	 * 
+	 * @param memory the number of pairs used to approximate the hessian
+	 * @param threads the number of parts the data is split in to compute the gradient
+	 * @throws IllegalArgumentException if memory or threads is lower than 1
+	 */
+	public LimitedMemoryBFGS(int memory, int threads) {
+		if (memory < 1) {
+			throw new IllegalArgumentException("memory must be at least 1 but is " + memory);
+		}
+
+		_memory = memory;
+		_threads = threads;
+		_evaluator = new ParallelGradient(threads);
+		initialize(0);
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_s = new double[_memory][numberOfWeights];
+		_y = new double[_memory][numberOfWeights];
+		_rho = new double[_memory];
+		_alpha = new double[_memory];
+		_newS = new double[numberOfWeights];
+		_newY = new double[numberOfWeights];
+		_pairs = 0;
+		_newest = -1;
+		_weights = new double[numberOfWeights];
+		_gradient = new double[numberOfWeights];
+		_direction = new double[numberOfWeights];
+		_trial = new double[numberOfWeights];
+		_trialGradient = new double[numberOfWeights];
+		_valid = false;
+	}
+
+	@Override
+	public void epoch(MultilayerPerceptron network, NetworkData data) {
+		int n = network.getNumberOfWeights();
+
+		if (_weights.length != n) {
+			initialize(n);
+		}
+
+		network.getWeights(_trial);
+
+		if (!_valid || !Arrays.equals(_trial, _weights)) {
+			if (_valid) {
+				_pairs = 0;
+			}
+
+			System.arraycopy(_trial, 0, _weights, 0, n);
+			_error = _evaluator.compute(network, data, _weights, _gradient);
+			_valid = true;
+		}
+
+		double slope = computeDirection();
+
+		if (slope >= 0) {
+			_pairs = 0;
+			slope = computeDirection();
+		}
+
+		if (slope == 0) {
+			return;
+		}
+
+		double step = (_pairs == 0) ? Math.min(1, 1 / Math.sqrt(-slope)) : 1;
+
+		for (int k = 0; k < MAX_BACKTRACKS; k++) {
+			for (int i = 0; i < n; i++) {
+				_trial[i] = _weights[i] + step * _direction[i];
+			}
+
+			double error = _evaluator.compute(network, data, _trial, _trialGradient);
+
+			if (error <= _error + ARMIJO * step * slope) {
+				accept(error, step);
+				network.setWeights(_weights);
+				return;
+			}
+
+			step /= 2;
+		}
+
+		_pairs = 0;
+	}
+
+	/**
+	 * It stores the new pair and moves to the trial weights. The pair is
+	 * computed in scratch buffers, so a pair without enough curvature never
+	 * replaces the oldest pair of the history.
+	 */
+	private void accept(double error, double step) {
+		double sy = 0;
+
+		for (int i = 0; i < _newS.length; i++) {
+			_newS[i] = step * _direction[i];
+			_newY[i] = _trialGradient[i] - _gradient[i];
+			sy += _newS[i] * _newY[i];
+		}
+
+		if (sy > 1e-10) {
+			int next = (_newest + 1) % _memory;
+			double[] s = _s[next];
+			double[] y = _y[next];
+
+			// The buffers are swapped, so the pair is not copied
+			_s[next] = _newS;
+			_y[next] = _newY;
+			_newS = s;
+			_newY = y;
+			_rho[next] = 1 / sy;
+			_newest = next;
+			_pairs = Math.min(_pairs + 1, _memory);
+		}
+
+		System.arraycopy(_trial, 0, _weights, 0, _weights.length);
+		System.arraycopy(_trialGradient, 0, _gradient, 0, _gradient.length);
+		_error = error;
+	}
+
+	/**
+	 * It computes the direction with the two loop recursion and returns its
+	 * slope, the dot product with the gradient
+	 */
+	private double computeDirection() {
+		int n = _gradient.length;
+
+		for (int i = 0; i < n; i++) {
+			_direction[i] = -_gradient[i];
+		}
+
+		for (int k = 0; k < _pairs; k++) {
+			int j = (_newest - k + _memory) % _memory;
+			_alpha[j] = _rho[j] * LinearAlgebra.dot(_s[j], _direction);
+			axpy(-_alpha[j], _y[j], _direction);
+		}
+
+		if (_pairs > 0) {
+			double[] y = _y[_newest];
+			double gamma = 1 / (_rho[_newest] * LinearAlgebra.dot(y, y));
+
+			for (int i = 0; i < n; i++) {
+				_direction[i] *= gamma;
+			}
+		}
+
+		for (int k = _pairs - 1; k >= 0; k--) {
+			int j = (_newest - k + _memory) % _memory;
+			double beta = _rho[j] * LinearAlgebra.dot(_y[j], _direction);
+			axpy(_alpha[j] - beta, _s[j], _direction);
+		}
+
+		return LinearAlgebra.dot(_direction, _gradient);
+	}
+
+	private static void axpy(double a, double[] x, double[] y) {
+		for (int i = 0; i < x.length; i++) {
+			y[i] += a * x[i];
+		}
+	}
+
+	@Override
+	public LimitedMemoryBFGS copy() {
+		return new LimitedMemoryBFGS(_memory, _threads);
+	}
+
+	/**
+	 * It returns the state of the trainer: the number of pairs followed by
+	 * the pairs, from the oldest to the newest
+	 * 
+	 * @return an array with 1 + 2 * pairs * N values
+	 */
+	@Override
+	public double[] getState() {
+		int n = _weights.length;
+		double[] state = new double[1 + 2 * _pairs * n];
+		state[0] = _pairs;
+
+		for (int k = 0; k < _pairs; k++) {
+			int j = (_newest - _pairs + 1 + k + _memory) % _memory;
+			System.arraycopy(_s[j], 0, state, 1 + 2 * k * n, n);
+			System.arraycopy(_y[j], 0, state, 1 + (2 * k + 1) * n, n);
+		}
+
+		return state;
+	}
+
+	/**
+	 * It restores a state returned by getState. The error and the gradient
+	 * are computed again in the next epoch.
+	 * 
+	 * @param state a state returned by getState
+	 * @throws IllegalArgumentException if the state is not a LimitedMemoryBFGS state
+	 */
+	@Override
+	public void setState(double[] state) {
+		int pairs = (state.length > 0) ? (int) state[0] : -1;
+
+		if (pairs < 0 || pairs > _memory || (pairs == 0 && state.length != 1)
+				|| (pairs > 0 && (state.length - 1) % (2 * pairs) != 0)) {
+			throw new IllegalArgumentException("state is not a LimitedMemoryBFGS state");
+		}
+
+		int n = (pairs == 0) ? _weights.length : (state.length - 1) / (2 * pairs);
+		initialize(n);
+
+		for (int k = 0; k < pairs; k++) {
+			System.arraycopy(state, 1 + 2 * k * n, _s[k], 0, n);
+			System.arraycopy(state, 1 + (2 * k + 1) * n, _y[k], 0, n);
+			_rho[k] = 1 / LinearAlgebra.dot(_s[k], _y[k]);
+		}
+
+		_pairs = pairs;
+		_newest = pairs - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "L-BFGS";
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+/**
+ * Small dense linear algebra routines used by the compression and training
+ * algorithms. Matrices are stored as row-major arrays of doubles.
+ */
+final class LinearAlgebra {
+	private static final int MAX_SWEEPS = 60;
+	private static final double EPSILON = 1e-15;
+
+	private LinearAlgebra() {
+	}
+
+	/**
+	 * The singular value decomposition of a matrix A = U S V'. Each column of
+	 * U and V is stored as a row of u and v, sorted by decreasing singular
+	 * value.
+	 */
+	static class SingularValueDecomposition {
+		final double[][] u;
+		final double[] s;
+		final double[][] v;
+
+		SingularValueDecomposition(double[][] u, double[] s, double[][] v) {
+			this.u = u;
+			this.s = s;
+			this.v = v;
+		}
+	}
+
+	/**
+	 * It computes the thin singular value decomposition of a matrix with the
+	 * one-sided Jacobi method.
+	 * 
+	 * @param a the row-major matrix
+	 * @param rows the number of rows of the matrix
+	 * @param cols the number of columns of the matrix
+	 * @return the decomposition with min(rows, cols) singular values
+	 */
+	static SingularValueDecomposition svd(double[] a, int rows, int cols) {
+		if (rows < cols) {
+			SingularValueDecomposition t = svd(transpose(a, rows, cols), cols, rows);
+			return new SingularValueDecomposition(t.v, t.s, t.u);
+		}
+
+		// Columns of A and of V, stored as rows to walk over them quickly
+		double[][] u = new double[cols][rows];
+		double[][] v = new double[cols][cols];
+
+		for (int j = 0; j < cols; j++) {
+			for (int i = 0; i < rows; i++) {
+				u[j][i] = a[i * cols + j];
+			}
+
+			v[j][j] = 1;
+		}
+
+		for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			boolean rotated = false;
+
+			for (int p = 0; p < cols - 1; p++) {
+				for (int q = p + 1; q < cols; q++) {
+					double alpha = dot(u[p], u[p]);
+					double beta = dot(u[q], u[q]);
+					double gamma = dot(u[p], u[q]);
+
+					if (Math.abs(gamma) <= EPSILON * Math.sqrt(alpha * beta)) {
+						continue;
+					}
+
+					rotated = true;
+
+					double zeta = (beta - alpha) / (2 * gamma);
+					double t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+
+					if (zeta == 0) {
+						t = 1;
+					}
+
+					double c = 1 / Math.sqrt(1 + t * t);
+					double s = c * t;
+
+					rotate(u[p], u[q], c, s);
+					rotate(v[p], v[q], c, s);
+				}
+			}
+
+			if (!rotated) {
+				break;
+			}
+		}
+
+		double[] sigma = new double[cols];
+
+		for (int j = 0; j < cols; j++) {
+			sigma[j] = Math.sqrt(dot(u[j], u[j]));
+
+			if (sigma[j] > 0) {
+				for (int i = 0; i < rows; i++) {
+					u[j][i] /= sigma[j];
+				}
+			}
+		}
+
+		// Selection sort by decreasing singular value
+		for (int i = 0; i < cols - 1; i++) {
+			int best = i;
+
+			for (int j = i + 1; j < cols; j++) {
+				if (sigma[j] > sigma[best]) {
+					best = j;
+				}
+			}
+
+			if (best != i) {
+				double tmp = sigma[i];
+				sigma[i] = sigma[best];
+				sigma[best] = tmp;
+
+				double[] swap = u[i];
+				u[i] = u[best];
+				u[best] = swap;
+
+				swap = v[i];
+				v[i] = v[best];
+				v[best] = swap;
+			}
+		}
+
+		return new SingularValueDecomposition(u, sigma, v);
+	}
+
+	/**
+	 * It transposes a row-major matrix
+	 * 
+	 * @param a the matrix
+	 * @param rows the number of rows of a
+	 * @param cols the number of columns of a
+	 * @return a new row-major matrix with cols rows and rows columns
+	 */
+	static double[] transpose(double[] a, int rows, int cols) {
+		double[] t = new double[a.length];
+
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				t[j * rows + i] = a[i * cols + j];
+			}
+		}
+
+		return t;
+	}
+
+	/**
+	 * The dot product of two vectors of the same length
+	 * 
+	 * @param x the first vector
+	 * @param y the second vector
+	 * @return the sum of x[i] * y[i]
+	 */
+	static double dot(double[] x, double[] y) {
+		double acc = 0;
+
+		for (int i = 0; i < x.length; i++) {
+			acc += x[i] * y[i];
+		}
+
+		return acc;
+	}
+
+	/**
+	 * It computes the Cholesky factorization of a symmetric positive definite
+	 * matrix. The lower triangle of a is replaced by L, so a = L * L^T, and
+	 * the upper triangle is not used.
+	 * 
+	 * @param a the row-major matrix, that is overwritten
+	 * @param n the number of rows and columns of a
+	 * @return false if the matrix is not positive definite
+	 */
+	static boolean cholesky(double[] a, int n) {
+		for (int j = 0; j < n; j++) {
+			double d = a[j * n + j];
+
+			for (int k = 0; k < j; k++) {
+				d -= a[j * n + k] * a[j * n + k];
+			}
+
+			if (!(d > 0)) {
+				return false;
+			}
+
+			d = Math.sqrt(d);
+			a[j * n + j] = d;
+
+			for (int i = j + 1; i < n; i++) {
+				double s = a[i * n + j];
+
+				for (int k = 0; k < j; k++) {
+					s -= a[i * n + k] * a[j * n + k];
+				}
+
+				a[i * n + j] = s / d;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * It solves L * L^T * x = b with the factor computed by cholesky
+	 * 
+	 * @param l the row-major matrix returned by cholesky
+	 * @param n the number of rows and columns of l
+	 * @param b the right side, that is replaced by x
+	 */
+	static void choleskySolve(double[] l, int n, double[] b) {
+		for (int i = 0; i < n; i++) {
+			double s = b[i];
+
+			for (int k = 0; k < i; k++) {
+				s -= l[i * n + k] * b[k];
+			}
+
+			b[i] = s / l[i * n + i];
+		}
+
+		for (int i = n - 1; i >= 0; i--) {
+			double s = b[i];
+
+			for (int k = i + 1; k < n; k++) {
+				s -= l[k * n + i] * b[k];
+			}
+
+			b[i] = s / l[i * n + i];
+		}
+	}
+
+	/**
+	 * It applies a Jacobi rotation to a pair of vectors
+	 */
+	private static void rotate(double[] x, double[] y, double c, double s) {
+		for (int i = 0; i < x.length; i++) {
+			double xi = x[i];
+			double yi = y[i];
+
+			x[i] = c * xi - s * yi;
+			y[i] = s * xi + c * yi;
+		}
+	}
+}
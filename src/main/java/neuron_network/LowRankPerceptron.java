@@ -0,0 +1,375 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+/**
+ * The LowRankPerceptron is an inference engine that replaces the weight
+ * matrix W of some layers of a trained MultilayerPerceptron by the product of
+ * two thin matrices, taken from the truncated singular value decomposition of
+ * W.
+ * 
+ * <p>
+ * A layer with n inputs and m neurons needs n x m multiplications, but a
+ * factorized layer of rank r only needs r x (n + m). A layer is only
+ * factorized when its rank makes it cheaper than the dense layer.
+ * </p>
+ * 
+ * <p>
+ * The rank of each layer can be given or it can be chosen from an error
+ * budget measured on a holdout data. The engine is immutable, so it can be
+ * shared between threads.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class LowRankPerceptron implements Predictor {
+	private final int _inputsLength;
+	private final int[] _layerSizes;
+	private final int[] _fanIns;
+	private final double[][] _dense;
+	private final double[][] _biases;
+	private final LinearAlgebra.SingularValueDecomposition[] _svd;
+	private final boolean _softmax;
+	private final int _maxLayerSize;
+
+	private final int[] _ranks;
+	private final double[][] _first;
+	private final double[][] _second;
+
+	/**
+	 * It builds an engine with the given rank in each layer.
+	 * 
+	 * @param network the trained network
+	 * @param ranks the rank of each layer, from the first hidden layer to the output layer. A rank of zero keeps the layer dense
+	 * @throws IllegalArgumentException if there is not one rank per layer or a rank is too high
+	 */
+	public LowRankPerceptron(MultilayerPerceptron network, int[] ranks) {
+		this(new LowRankPerceptron(network), ranks);
+	}
+
+	/**
+	 * It builds an engine choosing the lowest rank of each layer that keeps
+	 * the MSE over holdout under the MSE of the network plus the given budget.
+	 * The layers are factorized in order, so the first layers can spend more
+	 * budget than the last ones.
+	 * 
+	 * @param network the trained network
+	 * @param holdout the data used to measure the error
+	 * @param maxErrorIncrease the maximum increase of the MSE allowed
+	 */
+	public LowRankPerceptron(MultilayerPerceptron network, NetworkData holdout,
+			double maxErrorIncrease) {
+		this(new LowRankPerceptron(network), holdout, maxErrorIncrease);
+	}
+
+	/**
+	 * It builds an engine from a dense one choosing the ranks by bisection
+	 * 
+	 * @param dense the engine with all layers dense
+	 * @param holdout the data used to measure the error
+	 * @param maxErrorIncrease the maximum increase of the MSE allowed
+	 */
+	private LowRankPerceptron(LowRankPerceptron dense, NetworkData holdout,
+			double maxErrorIncrease) {
+		this(dense, chooseRanks(dense, holdout, maxErrorIncrease));
+	}
+
+	/**
+	 * It copies the network and decomposes each layer. All layers start dense.
+	 * 
+	 * @param network the trained network
+	 */
+	private LowRankPerceptron(MultilayerPerceptron network) {
+		int layers = network.getNumberOfHiddenLayers() + 1;
+
+		_inputsLength = network.getInputsLength();
+		_layerSizes = new int[layers];
+		_fanIns = new int[layers];
+		_dense = new double[layers][];
+		_biases = new double[layers][];
+		_svd = new LinearAlgebra.SingularValueDecomposition[layers];
+		_softmax = network.isSoftmax();
+		_ranks = new int[layers];
+		_first = new double[layers][];
+		_second = new double[layers][];
+
+		int maxLayerSize = _inputsLength;
+
+		for (int l = 0; l < layers; l++) {
+			int layerIndex = (l < layers - 1) ? l : -1;
+
+			_layerSizes[l] = network.getLayerSize(layerIndex);
+			_dense[l] = network.getLayerWeights(layerIndex);
+			_biases[l] = network.getLayerBiases(layerIndex);
+			_fanIns[l] = _dense[l].length / _layerSizes[l];
+			maxLayerSize = Math.max(maxLayerSize, _layerSizes[l]);
+
+			if (getMaximumUsefulRank(l) > 0) {
+				_svd[l] = LinearAlgebra.svd(_dense[l], _layerSizes[l], _fanIns[l]);
+			}
+		}
+
+		_maxLayerSize = maxLayerSize;
+	}
+
+	/**
+	 * It factorizes the layers of a dense engine with the given ranks. The
+	 * weights and the decompositions are shared with the dense engine. The
+	 * first matrix of each layer is V' (rank x inputs) and the second one is
+	 * U S (neurons x rank).
+	 * 
+	 * @param dense the engine with all layers dense
+	 * @param ranks the rank of each layer or zero to keep it dense
+	 * @throws IllegalArgumentException if there is not one rank per layer or a rank is too high
+	 */
+	private LowRankPerceptron(LowRankPerceptron dense, int[] ranks) {
+		_inputsLength = dense._inputsLength;
+		_layerSizes = dense._layerSizes;
+		_fanIns = dense._fanIns;
+		_dense = dense._dense;
+		_biases = dense._biases;
+		_svd = dense._svd;
+		_softmax = dense._softmax;
+		_maxLayerSize = dense._maxLayerSize;
+
+		if (ranks.length != _layerSizes.length) {
+			throw new IllegalArgumentException("ranks must have "
+					+ _layerSizes.length + " elements but has " + ranks.length);
+		}
+
+		int layers = _layerSizes.length;
+		double[][] firstFactors = new double[layers][];
+		double[][] secondFactors = new double[layers][];
+
+		for (int l = 0; l < layers; l++) {
+			int rank = ranks[l];
+
+			if (rank < 0 || rank > getMaximumUsefulRank(l)) {
+				throw new IllegalArgumentException("rank of layer " + l
+						+ " must be between 0 and " + getMaximumUsefulRank(l)
+						+ ". Actual value: " + rank);
+			}
+
+			if (rank == 0) {
+				continue;
+			}
+
+			LinearAlgebra.SingularValueDecomposition svd = _svd[l];
+			int n = _fanIns[l];
+			int m = _layerSizes[l];
+			double[] first = new double[rank * n];
+			double[] second = new double[m * rank];
+
+			for (int k = 0; k < rank; k++) {
+				System.arraycopy(svd.v[k], 0, first, k * n, n);
+
+				for (int i = 0; i < m; i++) {
+					second[i * rank + k] = svd.u[k][i] * svd.s[k];
+				}
+			}
+
+			firstFactors[l] = first;
+			secondFactors[l] = second;
+		}
+
+		_ranks = ranks.clone();
+		_first = firstFactors;
+		_second = secondFactors;
+	}
+
+	/**
+	 * It chooses the lowest rank of each layer that keeps the MSE over
+	 * holdout under the MSE of the dense engine plus the given budget.
+	 * 
+	 * @param dense the engine with all layers dense
+	 * @param holdout the data used to measure the error
+	 * @param maxErrorIncrease the maximum increase of the MSE allowed
+	 * @return the rank of each layer
+	 */
+	private static int[] chooseRanks(LowRankPerceptron dense, NetworkData holdout,
+			double maxErrorIncrease) {
+		double maxError = dense.getMeanSquaredError(holdout) + maxErrorIncrease;
+		int[] ranks = new int[dense._layerSizes.length];
+
+		for (int l = 0; l < ranks.length; l++) {
+			int low = 1;
+			int high = dense.getMaximumUsefulRank(l);
+			int best = 0;
+
+			// The error usually decreases with the rank, so the lowest rank
+			// that fits the budget is searched by bisection.
+			while (low <= high) {
+				int middle = (low + high) / 2;
+				ranks[l] = middle;
+
+				if (new LowRankPerceptron(dense, ranks).getMeanSquaredError(holdout) <= maxError) {
+					best = middle;
+					high = middle - 1;
+				} else {
+					low = middle + 1;
+				}
+			}
+
+			ranks[l] = best;
+		}
+
+		return ranks;
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _softmax;
+	}
+
+	/**
+	 * It returns the rank of each layer, from the first hidden layer to the
+	 * output layer. Dense layers have a rank of zero.
+	 * 
+	 * @return a copy of the ranks of the engine
+	 */
+	public int[] getRanks() {
+		return _ranks.clone();
+	}
+
+	/**
+	 * It returns the number of multiplications needed to spread out an input
+	 * 
+	 * @return the number of multiplications of all layers
+	 */
+	public long getNumberOfMultiplications() {
+		long n = 0;
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			if (_ranks[l] > 0) {
+				n += (long) _ranks[l] * (_fanIns[l] + _layerSizes[l]);
+			} else {
+				n += (long) _fanIns[l] * _layerSizes[l];
+			}
+		}
+
+		return n;
+	}
+
+	/**
+	 * It returns the number of multiplications needed by the dense network
+	 * 
+	 * @return the number of weights of all layers
+	 */
+	public long getNumberOfDenseMultiplications() {
+		long n = 0;
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			n += (long) _fanIns[l] * _layerSizes[l];
+		}
+
+		return n;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		double[] current = new double[_maxLayerSize];
+		double[] next = new double[_maxLayerSize];
+		double[] projection = new double[_maxLayerSize];
+		int currentSize = _inputsLength;
+
+		System.arraycopy(inputs, 0, current, 0, _inputsLength);
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			int neurons = _layerSizes[l];
+			double[] b = _biases[l];
+
+			if (_ranks[l] > 0) {
+				int rank = _ranks[l];
+				double[] first = _first[l];
+				double[] second = _second[l];
+
+				for (int k = 0; k < rank; k++) {
+					int row = k * currentSize;
+					double acc = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						acc += first[row + j] * current[j];
+					}
+
+					projection[k] = acc;
+				}
+
+				for (int i = 0; i < neurons; i++) {
+					int row = i * rank;
+					double acc = 0;
+
+					for (int k = 0; k < rank; k++) {
+						acc += second[row + k] * projection[k];
+					}
+
+					next[i] = Predictors.sigmoid(acc + b[i]);
+				}
+			} else {
+				double[] w = _dense[l];
+
+				for (int i = 0; i < neurons; i++) {
+					int row = i * currentSize;
+					double acc = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						acc += current[j] * w[row + j];
+					}
+
+					next[i] = Predictors.sigmoid(acc + b[i]);
+				}
+			}
+
+			double[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		System.arraycopy(current, 0, outputs, 0, currentSize);
+
+		if (_softmax) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It returns the highest rank that makes a layer cheaper than the dense
+	 * layer.
+	 * 
+	 * @param layer the index of the layer inside the engine
+	 * @return the highest useful rank or zero if the layer must stay dense
+	 */
+	private int getMaximumUsefulRank(int layer) {
+		int n = _fanIns[layer];
+		int m = _layerSizes[layer];
+		int rank = Math.min(Math.min(n, m), (n * m - 1) / (n + m));
+
+		return Math.max(rank, 0);
+	}
+}
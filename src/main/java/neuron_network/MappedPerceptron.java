@@ -0,0 +1,148 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+
+/**
+ * The MappedPerceptron is an inference engine that reads the weights directly
+ * from a memory-mapped model file. The weights are never copied to the heap,
+ * so the engine is ready as soon as the file is mapped.
+ * 
+ * <p>
+ * The engine is immutable and only uses absolute reads over the mapped
+ * buffer, so it can be shared between threads.
+ * </p>
+ * 
+ * @see ModelFile#map(String, boolean)
+ * @version 1.0
+ */
+public class MappedPerceptron implements Predictor {
+	private final ModelFile.Header _header;
+	private final DoubleBuffer _weights;
+	private final int[] _layerSizes;
+	private final int[] _layerOffsets;
+	private final int _maxLayerSize;
+
+	/**
+	 * It builds an engine over the weights of a mapped model file
+	 * 
+	 * @param header the header of the file
+	 * @param weights the weights region of the file
+	 */
+	MappedPerceptron(ModelFile.Header header, DoubleBuffer weights) {
+		_header = header;
+		_weights = weights;
+		_layerSizes = header.layerSizes;
+		_layerOffsets = new int[_layerSizes.length];
+
+		int offset = 0;
+		int fanIn = header.inputs;
+		int maxLayerSize = header.inputs;
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			_layerOffsets[l] = offset;
+			offset += _layerSizes[l] * (fanIn + 1);
+			fanIn = _layerSizes[l];
+			maxLayerSize = Math.max(maxLayerSize, fanIn);
+		}
+
+		_maxLayerSize = maxLayerSize;
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _header.inputs;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _header.isSoftmax();
+	}
+
+	/**
+	 * It returns the number of weights stored in the file
+	 * 
+	 * @return the number of weights, including one bias per neuron
+	 */
+	public int getNumberOfWeights() {
+		return _header.weights;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		double[] current = new double[_maxLayerSize];
+		double[] next = new double[_maxLayerSize];
+		int currentSize = _header.inputs;
+		boolean useBias = _header.useBias();
+
+		System.arraycopy(inputs, 0, current, 0, currentSize);
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			int neurons = _layerSizes[l];
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < neurons; i++) {
+				double acc = 0;
+
+				for (int j = 0; j < currentSize; j++) {
+					acc += current[j] * _weights.get(row + j);
+				}
+
+				if (useBias) {
+					acc += _weights.get(row + currentSize);
+				}
+
+				next[i] = Predictors.sigmoid(acc);
+				row += currentSize + 1;
+			}
+
+			double[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		System.arraycopy(current, 0, outputs, 0, currentSize);
+
+		if (isSoftmax()) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It copies the mapped weights into a new MultilayerPerceptron, for
+	 * example to continue its training.
+	 * 
+	 * @return a new network with the weights of the file
+	 * @throws IOException if the hidden layers of the file have different sizes
+	 */
+	public MultilayerPerceptron toNetwork() throws IOException {
+		double[] weights = new double[_header.weights];
+		_weights.duplicate().get(weights);
+
+		return ModelFile.buildNetwork(_header, weights);
+	}
+}
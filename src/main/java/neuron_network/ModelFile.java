@@ -0,0 +1,449 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+
+/**
+ * It reads and writes trained networks in a versioned binary format.
+ * 
+ * <p>
+ * All values are big endian. The file starts with a header:
+ * </p>
+ * 
+ * <pre>
+ * magic          4 bytes  "NNMP"
+ * version        int      1
+ * flags          int      1: use bias, 2: softmax, 4: minimize entropy
+ * learning       double   learning factor
+ * inertia        double   inertia value
+ * inputs         int      length of the input layer
+ * hidden layers  int      number of hidden layers (H)
+ * sizes          H ints   neurons of each hidden layer
+ * outputs        int      neurons of the output layer
+ * weights        int      number of weights (N)
+ * padding        0-4 bytes up to a multiple of 8
+ * </pre>
+ * 
+ * <p>
+ * Then N doubles with the weights, in the order of
+ * {@link MultilayerPerceptron#getWeights()}, and a long with the CRC32 of all
+ * previous bytes. Because the weights are aligned, a mapped file can be read
+ * as a DoubleBuffer without parsing each weight.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public final class ModelFile {
+	/**
+	 * The current version of the format
+	 */
+	public static final int VERSION = 1;
+
+	private static final int MAGIC = 0x4E4E4D50; // "NNMP"
+	private static final int FLAG_BIAS = 1;
+	private static final int FLAG_SOFTMAX = 2;
+	private static final int FLAG_ENTROPY = 4;
+	private static final int FIXED_HEADER_LENGTH = 36;
+	private static final int MAX_HIDDEN_LAYERS = 1 << 16;
+
+	private ModelFile() {
+	}
+
+	/**
+	 * The header of a model file
+	 */
+	static class Header {
+		int flags;
+		double learningFactor;
+		double inertia;
+		int inputs;
+		int[] layerSizes; // hidden layers and output layer
+		int weights;
+
+		/**
+		 * It returns the length of the header with its padding
+		 */
+		int length() {
+			int length = 4 * 4 + 8 * 2 + 4 * (layerSizes.length + 2);
+			return (length + 7) & ~7;
+		}
+
+		boolean useBias() {
+			return (flags & FLAG_BIAS) != 0;
+		}
+
+		boolean isSoftmax() {
+			return (flags & FLAG_SOFTMAX) != 0;
+		}
+
+		/**
+		 * It returns the number of weights implied by the topology
+		 */
+		long expectedWeights() {
+			long n = 0;
+			int fanIn = inputs;
+
+			for (int size : layerSizes) {
+				n += (long) size * (fanIn + 1);
+				fanIn = size;
+			}
+
+			return n;
+		}
+	}
+
+	/**
+	 * It writes the network to the given file. The file is written as a
+	 * stream, so it can be big without using more memory than the network.
+	 * 
+	 * @param network the network to be written
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(MultilayerPerceptron network, String file) throws IOException {
+		CRC32 crc = new CRC32();
+		FileOutputStream fos = new FileOutputStream(file);
+		CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fos), crc);
+		DataOutputStream out = new DataOutputStream(checked);
+
+		try {
+			Header header = headerOf(network);
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(header.flags);
+			out.writeDouble(header.learningFactor);
+			out.writeDouble(header.inertia);
+			out.writeInt(header.inputs);
+			out.writeInt(header.layerSizes.length - 1);
+
+			for (int size : header.layerSizes) {
+				out.writeInt(size);
+			}
+
+			out.writeInt(header.weights);
+
+			while (out.size() < header.length()) {
+				out.writeByte(0);
+			}
+
+			for (int l = 0; l < header.layerSizes.length; l++) {
+				int layerIndex = (l < header.layerSizes.length - 1) ? l : -1;
+				int fanIn = network.getNeuronInputsSize(layerIndex, 0);
+
+				for (int i = 0; i < header.layerSizes[l]; i++) {
+					ArrayList<Double> inputs = network.getNeuronInputs(layerIndex, i);
+
+					for (int j = 0; j < fanIn; j++) {
+						out.writeDouble(inputs.get(j));
+					}
+
+					out.writeDouble(network.getBias(layerIndex, i));
+				}
+			}
+
+			out.flush();
+			new DataOutputStream(fos).writeLong(crc.getValue());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * It writes the network to a temporary file in the same directory and
+	 * then it replaces the given file with an atomic move. Processes that
+	 * have mapped the old file keep reading it, and new processes will see
+	 * the complete new file, never a partial one.
+	 * 
+	 * @param network the network to be written
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be written or the file system can't move it atomically
+	 * @see SharedModel
+	 */
+	public static void writeAtomically(MultilayerPerceptron network, String file) throws IOException {
+		Path target = Paths.get(file).toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(),
+				target.getFileName().toString(), ".tmp");
+
+		try {
+			write(network, temporary.toString());
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * It reads a network from the given file and checks its checksum.
+	 * 
+	 * @param file the path of the file
+	 * @return a new network with the topology, options and weights stored in the file
+	 * @throws IOException if the file doesn't exist, it is not a valid model file or it is corrupted
+	 */
+	public static MultilayerPerceptron read(String file) throws IOException {
+		CRC32 crc = new CRC32();
+		DataInputStream in = new DataInputStream(new CheckedInputStream(
+				new BufferedInputStream(new FileInputStream(file)), crc));
+
+		try {
+			Header header = readHeader(in);
+			double[] weights = new double[header.weights];
+
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] = in.readDouble();
+			}
+
+			long expected = crc.getValue();
+
+			if (in.readLong() != expected) {
+				throw new IOException("Checksum is not valid.");
+			}
+
+			return buildNetwork(header, weights);
+		} catch (EOFException e) {
+			throw new IOException("File is truncated.", e);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * It maps the given file in memory without checking its checksum.
+	 * 
+	 * @param file the path of the file
+	 * @return an engine that reads the weights directly from the mapped file
+	 * @throws IOException if the file doesn't exist or it is not a valid model file
+	 * @see map(String, boolean)
+	 */
+	public static MappedPerceptron map(String file) throws IOException {
+		return map(file, false);
+	}
+
+	/**
+	 * It maps the given file in memory. The weights are not parsed: the
+	 * engine reads them from the page cache when it needs them, so the load
+	 * time doesn't depend on the size of the network unless the checksum is
+	 * verified.
+	 * 
+	 * @param file the path of the file
+	 * @param verifyChecksum if true all the file is read to check its checksum
+	 * @return an engine that reads the weights directly from the mapped file
+	 * @throws IOException if the file doesn't exist, it is not a valid model file or it is corrupted
+	 */
+	public static MappedPerceptron map(String file, boolean verifyChecksum) throws IOException {
+		MappedByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Model is too big to be mapped.");
+			}
+
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		Header header;
+
+		try {
+			header = readHeader(buffer.duplicate());
+		} catch (BufferUnderflowException e) {
+			throw new IOException("File is truncated.", e);
+		}
+
+		long length = header.length() + 8L * header.weights + 8;
+
+		if (buffer.capacity() != length) {
+			throw new IOException("File is truncated.");
+		}
+
+		if (verifyChecksum) {
+			CRC32 crc = new CRC32();
+			ByteBuffer content = buffer.duplicate();
+			content.limit((int) (length - 8));
+			crc.update(content);
+
+			if (buffer.getLong((int) (length - 8)) != crc.getValue()) {
+				throw new IOException("Checksum is not valid.");
+			}
+		}
+
+		ByteBuffer weights = buffer.duplicate();
+		weights.position(header.length());
+		weights.limit(header.length() + 8 * header.weights);
+
+		return new MappedPerceptron(header, weights.slice().asDoubleBuffer());
+	}
+
+	/**
+	 * It builds the header of a network
+	 */
+	private static Header headerOf(MultilayerPerceptron network) {
+		Header header = new Header();
+		int hidden = network.getNumberOfHiddenLayers();
+
+		header.flags = (network.use_bias ? FLAG_BIAS : 0)
+				| (network.isSoftmax() ? FLAG_SOFTMAX : 0)
+				| (network.minimize == errorToMinimize.ENTROPY ? FLAG_ENTROPY : 0);
+		header.learningFactor = network.getLearningFactor();
+		header.inertia = network.getInertiaValue();
+		header.inputs = network.getInputsLength();
+		header.layerSizes = new int[hidden + 1];
+
+		for (int l = 0; l < hidden; l++) {
+			header.layerSizes[l] = network.getLayerSize(l);
+		}
+
+		header.layerSizes[hidden] = network.getOutputLayerSize();
+		header.weights = network.getNumberOfWeights();
+
+		return header;
+	}
+
+	/**
+	 * It reads and validates a header from a stream, including its padding
+	 */
+	private static Header readHeader(DataInputStream in) throws IOException {
+		byte[] fixed = new byte[FIXED_HEADER_LENGTH];
+
+		try {
+			in.readFully(fixed);
+
+			int hidden = ByteBuffer.wrap(fixed).getInt(FIXED_HEADER_LENGTH - 4);
+
+			if (hidden <= 0 || hidden > MAX_HIDDEN_LAYERS) {
+				throw new IOException("Header is not valid.");
+			}
+
+			Header empty = new Header();
+			empty.layerSizes = new int[hidden + 1];
+
+			byte[] header = new byte[empty.length()];
+			System.arraycopy(fixed, 0, header, 0, fixed.length);
+			in.readFully(header, fixed.length, header.length - fixed.length);
+
+			return readHeader(ByteBuffer.wrap(header));
+		} catch (EOFException e) {
+			throw new IOException("File is truncated.", e);
+		}
+	}
+
+	/**
+	 * It reads and validates a header from a buffer. The position of the
+	 * buffer is left after the sizes of the layers.
+	 */
+	private static Header readHeader(ByteBuffer in) throws IOException {
+		if (in.getInt() != MAGIC) {
+			throw new IOException("Header is not valid.");
+		}
+
+		int version = in.getInt();
+
+		if (version != VERSION) {
+			throw new IOException("Unsupported version: " + version);
+		}
+
+		Header header = new Header();
+		header.flags = in.getInt();
+		header.learningFactor = in.getDouble();
+		header.inertia = in.getDouble();
+		header.inputs = in.getInt();
+
+		int hidden = in.getInt();
+
+		if (header.inputs <= 0 || hidden <= 0 || hidden > MAX_HIDDEN_LAYERS) {
+			throw new IOException("Header is not valid.");
+		}
+
+		header.layerSizes = new int[hidden + 1];
+
+		for (int l = 0; l <= hidden; l++) {
+			header.layerSizes[l] = in.getInt();
+
+			if (header.layerSizes[l] <= 0) {
+				throw new IOException("Header is not valid.");
+			}
+		}
+
+		header.weights = in.getInt();
+
+		if (header.weights != header.expectedWeights()) {
+			throw new IOException("Header is not valid.");
+		}
+
+		return header;
+	}
+
+	/**
+	 * It builds a network from a header and its weights
+	 * 
+	 * @throws IOException if the hidden layers have different sizes
+	 */
+	static MultilayerPerceptron buildNetwork(Header header, double[] weights) throws IOException {
+		int hidden = header.layerSizes.length - 1;
+
+		for (int l = 1; l < hidden; l++) {
+			if (header.layerSizes[l] != header.layerSizes[0]) {
+				throw new IOException("All hidden layers must have the same size.");
+			}
+		}
+
+		MultilayerPerceptron network = new MultilayerPerceptron(hidden,
+				header.layerSizes[0], header.layerSizes[hidden]);
+		ArrayList<Double> input = new ArrayList<Double>();
+
+		for (int i = 0; i < header.inputs; i++) {
+			input.add(0D);
+		}
+
+		network.feed(input);
+		network.use_bias = header.useBias();
+		network.neuronType = header.isSoftmax() ? neuronType.SOFTMAX : neuronType.SIGMOIDE;
+		network.minimize = ((header.flags & FLAG_ENTROPY) != 0) ? errorToMinimize.ENTROPY
+				: errorToMinimize.MSE;
+		network.setLearningFactor(header.learningFactor);
+		network.setInertiaValue(header.inertia);
+		network.setWeights(weights);
+
+		return network;
+	}
+}
@@ -18,8 +18,10 @@
 
 package neuron_network;
 
-import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.function.Consumer;
 
 /**
@@ -56,16 +58,36 @@ import java.util.function.Consumer;
  * 
  * @version 1.0.0
  */
-public class MultilayerPerceptron {
+public class MultilayerPerceptron implements Predictor {
 	private ArrayList<Double> _inputs;
 	private ArrayList<Double> _outputs;
 	private ArrayList<Neuron> _outputLayer;
 	private ArrayList<ArrayList<Neuron>> _hiddenLayers;
-	private SecureRandom _randomGenerator;
+	private RandomSource _randomGenerator;
+	private boolean[] _prunedWeights;
+	private CheckpointWriter _checkpointWriter;
+	private int _checkpointPeriod;
+	private Optimizer _optimizer;
+	private double[] _optimizerWeights;
+	private double[] _optimizerGradient;
+	private LearningRateSchedule _schedule;
+	private boolean _schedulePerStep;
+	private double _scheduledLearningFactor = Double.NaN;
+	private BatchTrainer _batchTrainer;
+	private NetworkData _validationData;
+	private int _patience;
+	private double[] _bestWeights;
+	private double _bestValidationError = Double.NaN;
+	private int _bestEpoch;
+	private long _deadline;
+	private boolean _hasDeadline;
+	private boolean _timedOut;
 	
 	
 	public enum neuronType { SIGMOIDE, SOFTMAX };
 	public enum errorToMinimize { MSE, ENTROPY };
+	public enum weightInitialization { UNIFORM, XAVIER_UNIFORM, XAVIER_NORMAL, HE_UNIFORM, HE_NORMAL };
+	public enum biasInitialization { UNIFORM, ZERO, SAME_AS_WEIGHTS };
 	
 	/**
 	 * It indicates the neuron type of the network. By default
@@ -81,6 +103,25 @@ public class MultilayerPerceptron {
 	 */
 	public errorToMinimize minimize;
 
+	/**
+	 * It indicates how setRandomInputs initializes the weights. UNIFORM takes
+	 * them between -1 and 1. XAVIER_UNIFORM and XAVIER_NORMAL use a variance
+	 * of 2 / (fanIn + fanOut), and HE_UNIFORM and HE_NORMAL use a variance of
+	 * 2 / fanIn, where fanIn is the number of inputs of the layer and fanOut
+	 * its number of neurons. By default it will be UNIFORM.
+	 * @see weightInitialization
+	 */
+	public weightInitialization initialization;
+
+	/**
+	 * It indicates how setRandomInputs initializes the biases when the
+	 * network uses bias. UNIFORM takes them between -1 and 1, ZERO sets them
+	 * to zero and SAME_AS_WEIGHTS uses the initialization of the weights. By
+	 * default it will be UNIFORM.
+	 * @see biasInitialization
+	 */
+	public biasInitialization bias_initialization;
+
 	/**
 	 * Learning factor is a param that modify how much the neuron network will
 	 * learn of the errors made. By default it is 0.9
@@ -99,6 +140,14 @@ public class MultilayerPerceptron {
 	 */
 	public boolean use_bias;
 
+	/**
+	 * A flag to continue the training from the current weights. When true,
+	 * trainByBackpropagation doesn't set random inputs before the training,
+	 * and the last input changes are kept unless resetLastInputsChanges is
+	 * called. By default it is false.
+	 */
+	public boolean warm_start;
+
 	/**
 	 * Basic constructor. It initializes a simple neuron network with one input
 	 * in the inputs layer, one hidden layer with one neuron and one neuron in
@@ -109,7 +158,7 @@ public class MultilayerPerceptron {
 		_outputs = new ArrayList<Double>();
 		_outputLayer = new ArrayList<Neuron>();
 		_hiddenLayers = new ArrayList<ArrayList<Neuron>>();
-		_randomGenerator = new SecureRandom();
+		_randomGenerator = new SplitMixRandom();
 
 		setHiddenLayersSize(1, 1);
 		setOutputLayerSize(1);
@@ -122,6 +171,8 @@ public class MultilayerPerceptron {
 		
 		neuronType = neuronType.SIGMOIDE;
 		minimize = errorToMinimize.MSE;
+		initialization = weightInitialization.UNIFORM;
+		bias_initialization = biasInitialization.UNIFORM;
 	}
 
 	/**
@@ -138,7 +189,7 @@ public class MultilayerPerceptron {
 		_outputs = new ArrayList<Double>();
 		_outputLayer = new ArrayList<Neuron>();
 		_hiddenLayers = new ArrayList<ArrayList<Neuron>>();
-		_randomGenerator = new SecureRandom();
+		_randomGenerator = new SplitMixRandom();
 
 		setHiddenLayersSize(hidden_layers, hidden_neurons);
 		setOutputLayerSize(output_neurons);
@@ -151,6 +202,8 @@ public class MultilayerPerceptron {
 		
 		neuronType = neuronType.SIGMOIDE;
 		minimize = errorToMinimize.MSE;
+		initialization = weightInitialization.UNIFORM;
+		bias_initialization = biasInitialization.UNIFORM;
 	}
 
 	/**
@@ -163,6 +216,7 @@ public class MultilayerPerceptron {
 	 **/
 	public void setHiddenLayersSize(int n_hidden_layers, int n_neurons) {
 		_hiddenLayers.clear();
+		_prunedWeights = null;
 
 		for (int i = 0; i < n_hidden_layers; i++) {
 			ArrayList<Neuron> hidden_layer = new ArrayList<Neuron>();
@@ -358,6 +412,511 @@ public class MultilayerPerceptron {
 		return _outputLayer.size();
 	}
 
+	/**
+	 * It returns the number of inputs of the network. That is the number of
+	 * inputs of each neuron in the first hidden layer.
+	 * 
+	 * @return the length of the input layer
+	 **/
+	public int getInputsLength() {
+		return _inputs.size();
+	}
+
+	/**
+	 * It feeds the network with the inputs given, spread out them and copy
+	 * the output layer into outputs. When the network is a softmax network
+	 * the outputs are normalized with applySoftmax.
+	 * 
+	 * <p>
+	 * The network keeps the given input as its current input, so this method
+	 * is not thread safe.
+	 * </p>
+	 * 
+	 * @param inputs the inputs of the network
+	 * @param outputs the array where the outputs will be stored
+	 **/
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		ArrayList<Double> input = new ArrayList<Double>(inputs.length);
+
+		for (double v : inputs) {
+			input.add(v);
+		}
+
+		feed(input);
+		spreadOut();
+
+		if (isSoftmax()) {
+			applySoftmax();
+		}
+
+		for (int i = 0; i < outputs.length; i++) {
+			outputs[i] = getOutput(i);
+		}
+	}
+
+	/**
+	 * It returns a copy of the weights of the specified layer as a row-major
+	 * matrix, where each row is a neuron and each column is one of its inputs.
+	 * 
+	 * @param layer_index the index of the hidden layer or a negative value for the output layer
+	 * @return an array of getLayerSize(layer_index) x getNeuronInputsSize(layer_index, 0) weights
+	 **/
+	public double[] getLayerWeights(int layer_index) {
+		int neurons = getLayerSize(layer_index);
+		int fanIn = getNeuronInputsSize(layer_index, 0);
+		double[] weights = new double[neurons * fanIn];
+
+		for (int i = 0; i < neurons; i++) {
+			ArrayList<Double> inputs = getNeuron(layer_index, i).inputs;
+
+			for (int j = 0; j < fanIn; j++) {
+				weights[i * fanIn + j] = inputs.get(j);
+			}
+		}
+
+		return weights;
+	}
+
+	/**
+	 * It returns the number of weights of the network, counting one bias per
+	 * neuron even if the network doesn't use bias.
+	 * 
+	 * @return the length of the array returned by getWeights
+	 **/
+	public int getNumberOfWeights() {
+		int n = 0;
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+			n += getLayerSize(layerIndex) * (getNeuronInputsSize(layerIndex, 0) + 1);
+		}
+
+		return n;
+	}
+
+	/**
+	 * It returns all weights of the network in a single array. The weights are
+	 * sorted by layer, from the first hidden layer to the output layer, and
+	 * inside each layer by neuron. Each neuron stores its inputs followed by
+	 * its bias.
+	 * 
+	 * @return a new array with getNumberOfWeights() weights
+	 **/
+	public double[] getWeights() {
+		double[] weights = new double[getNumberOfWeights()];
+		getWeights(weights);
+		return weights;
+	}
+
+	/**
+	 * It copies all weights of the network into the given array, without
+	 * allocating memory.
+	 * 
+	 * @param destination an array of getNumberOfWeights() length
+	 * @see getWeights()
+	 **/
+	public void getWeights(double[] destination) {
+		int index = 0;
+
+		for (ArrayList<Neuron> layer : _hiddenLayers) {
+			for (Neuron n : layer) {
+				index = copyNeuronWeights(n, destination, index);
+			}
+		}
+
+		for (Neuron n : _outputLayer) {
+			index = copyNeuronWeights(n, destination, index);
+		}
+	}
+
+	/**
+	 * It sets all weights of the network from the given array.
+	 * 
+	 * @param weights an array of getNumberOfWeights() length sorted as getWeights()
+	 * @throws IllegalArgumentException if weights doesn't have getNumberOfWeights() elements
+	 * @see getWeights()
+	 **/
+	public void setWeights(double[] weights) {
+		if (weights.length != getNumberOfWeights()) {
+			throw new IllegalArgumentException("weights must have "
+					+ getNumberOfWeights() + " elements but has "
+					+ weights.length);
+		}
+
+		int index = 0;
+
+		for (ArrayList<Neuron> layer : _hiddenLayers) {
+			for (Neuron n : layer) {
+				index = setNeuronWeights(n, weights, index);
+			}
+		}
+
+		for (Neuron n : _outputLayer) {
+			index = setNeuronWeights(n, weights, index);
+		}
+	}
+
+	/**
+	 * It returns the last input changes of the network, used by the inertia
+	 * in the next adjust of the weights. They are sorted like getWeights.
+	 * 
+	 * @return a new array with getNumberOfWeights() changes
+	 * @see getWeights()
+	 **/
+	public double[] getLastInputsChanges() {
+		double[] changes = new double[getNumberOfWeights()];
+		getLastInputsChanges(changes);
+		return changes;
+	}
+
+	/**
+	 * It copies the last input changes of the network into destination,
+	 * without allocating memory. They are sorted like getWeights.
+	 * 
+	 * @param destination an array of getNumberOfWeights() length
+	 * @see getWeights()
+	 **/
+	public void getLastInputsChanges(double[] destination) {
+		int index = 0;
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+
+			for (int i = 0; i < getLayerSize(layerIndex); i++) {
+				Neuron n = getNeuron(layerIndex, i);
+
+				for (int j = 0; j < n.inputs.size(); j++) {
+					destination[index++] = n.lastInputsChanges.get(j);
+				}
+
+				destination[index++] = n.lastBiasChange;
+			}
+		}
+	}
+
+	/**
+	 * It copies the input changes accumulated in the last backpropagation,
+	 * that are the derivative of the error for each weight. They are sorted
+	 * like getWeights, and the biases are zero when the network doesn't use
+	 * bias.
+	 * 
+	 * @param destination an array of getNumberOfWeights() length
+	 * @see getWeights()
+	 **/
+	public void getGradient(double[] destination) {
+		int index = 0;
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+
+			for (int i = 0; i < getLayerSize(layerIndex); i++) {
+				Neuron n = getNeuron(layerIndex, i);
+
+				for (int j = 0; j < n.inputs.size(); j++) {
+					destination[index++] = n.inputsChanges.get(j);
+				}
+
+				destination[index++] = use_bias ? n.biasChange : 0;
+			}
+		}
+	}
+
+	/**
+	 * It sets the optimizer used to adjust the weights after each
+	 * backpropagation. Without optimizer, the weights follow the learning
+	 * factor and the inertia. The optimizer also receives the learning factor,
+	 * but it ignores the inertia.
+	 * 
+	 * @param optimizer the optimizer or null to use the inertia
+	 */
+	public void setOptimizer(Optimizer optimizer) {
+		_optimizer = optimizer;
+	}
+
+	/**
+	 * It creates a new network with the same topology, options and weights.
+	 * The last input changes, the pruned weights, the optimizer, the
+	 * schedule, the batch trainer and the checkpoints are not copied. The
+	 * random source of the copy is split from the random source of this
+	 * network.
+	 * 
+	 * @return a new network
+	 */
+	public MultilayerPerceptron copy() {
+		return copy(_randomGenerator.split());
+	}
+
+	/**
+	 * It creates a copy like copy(), but with the given random source, so
+	 * the random source of this network doesn't advance
+	 * 
+	 * @param source the random source of the copy
+	 * @return a new network
+	 */
+	MultilayerPerceptron copy(RandomSource source) {
+		MultilayerPerceptron copy = new MultilayerPerceptron(getNumberOfHiddenLayers(),
+				getLayerSize(0), getOutputLayerSize());
+
+		copy.feed(new ArrayList<Double>(Collections.nCopies(getInputsLength(), 0D)));
+		copy.neuronType = neuronType;
+		copy.minimize = minimize;
+		copy.initialization = initialization;
+		copy.bias_initialization = bias_initialization;
+		copy.use_bias = use_bias;
+		copy.warm_start = warm_start;
+		copy.setLearningFactor(getLearningFactor());
+		copy.setInertiaValue(getInertiaValue());
+		copy.setRandomSource(source);
+		copy.setWeights(getWeights());
+
+		return copy;
+	}
+
+	/**
+	 * It computes the derivative of the error of all data for each weight,
+	 * like an offline backpropagation, but without changing the weights. The
+	 * input changes and the outputs of the network are changed.
+	 * 
+	 * <p>
+	 * It returns the error minimized by the training at the current weights:
+	 * the mean of the MSE of each patron or the entropy. Unlike
+	 * getMeanSquaredError, a softmax network doesn't apply the prediction to
+	 * the outputs, so the error follows the gradient.
+	 * </p>
+	 * 
+	 * @param data the data used to compute the gradient
+	 * @param gradient an array of getNumberOfWeights() length where the gradient is stored, sorted like getWeights
+	 * @return the error of the data
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public double computeGradient(NetworkData data, double[] gradient) {
+		double error = 0;
+
+		setInputChangesToZero();
+
+		for (ArrayList<Double> input : data) {
+			ArrayList<Double> desired = data.get_output(input);
+
+			feed(input);
+			updateDeltas(desired);
+			updateInputChanges();
+
+			if (minimize.equals(errorToMinimize.MSE)) {
+				error += getMeanSquaredError(desired);
+			} else {
+				for (int i = 0; i < getOutputLayerSize(); i++) {
+					if (getOutput(i) != 0D) {
+						error += desired.get(i) * Math.log(getOutput(i));
+					}
+				}
+			}
+		}
+
+		getGradient(gradient);
+
+		if (minimize.equals(errorToMinimize.MSE)) {
+			return error / data.patrons_length();
+		}
+
+		return -error / (data.patrons_length() * data.outputs_length());
+	}
+
+	/**
+	 * It computes the Jacobian of the outputs of a sigmoid network for each
+	 * patron, and it accumulates J^T * J and J^T * e, where e are the
+	 * residuals (the output minus the desired output). Each row of the
+	 * Jacobian is computed with a backpropagation of the output, so the
+	 * Jacobian is never stored.
+	 * 
+	 * @param data the data used to compute the Jacobian
+	 * @param jtj a row-major matrix of N * N values where J^T * J is stored, with N = getNumberOfWeights()
+	 * @param jte an array of N values where J^T * e is stored
+	 * @param row an array of N values used to store each row
+	 * @return the sum of the squared residuals
+	 */
+	double computeJacobianProducts(NetworkData data, double[] jtj, double[] jte, double[] row) {
+		int n = row.length;
+		double sse = 0;
+
+		Arrays.fill(jtj, 0);
+		Arrays.fill(jte, 0);
+
+		for (ArrayList<Double> input : data) {
+			ArrayList<Double> desired = data.get_output(input);
+
+			feed(input);
+			spreadOut();
+
+			for (int k = 0; k < _outputLayer.size(); k++) {
+				for (int j = 0; j < _outputLayer.size(); j++) {
+					Neuron o = _outputLayer.get(j);
+					o.delta = (j == k) ? o.output * (1 - o.output) : 0;
+				}
+
+				updateHiddenLayersDeltas();
+				setInputChangesToZero();
+				updateInputChanges();
+				getGradient(row);
+
+				double e = _outputLayer.get(k).output - desired.get(k);
+				sse += e * e;
+
+				for (int i = 0; i < n; i++) {
+					double ri = row[i];
+
+					if (ri == 0) {
+						continue;
+					}
+
+					jte[i] += ri * e;
+
+					for (int j = i; j < n; j++) {
+						jtj[i * n + j] += ri * row[j];
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < i; j++) {
+				jtj[i * n + j] = jtj[j * n + i];
+			}
+		}
+
+		return sse;
+	}
+
+	/**
+	 * It sets the algorithm used by trainByBackpropagation in an offline
+	 * training. Without batch trainer, an offline training uses the
+	 * offlineBackpropagation. The online training doesn't use it.
+	 * 
+	 * @param trainer the batch trainer or null to use offlineBackpropagation
+	 */
+	public void setBatchTrainer(BatchTrainer trainer) {
+		_batchTrainer = trainer;
+	}
+
+	/**
+	 * It returns the algorithm used in an offline training
+	 * 
+	 * @return the batch trainer or null if offlineBackpropagation is used
+	 */
+	public BatchTrainer getBatchTrainer() {
+		return _batchTrainer;
+	}
+
+	/**
+	 * It sets a schedule that changes the learning factor during
+	 * trainByBackpropagation. The learning factor set with setLearningFactor
+	 * is the base learning factor of the schedule and it is not changed.
+	 * 
+	 * @param schedule the schedule or null to use a constant learning factor
+	 * @param perStep if true an online backpropagation asks the schedule before each patron, otherwise before each epoch
+	 */
+	public void setLearningRateSchedule(LearningRateSchedule schedule, boolean perStep) {
+		_schedule = schedule;
+		_schedulePerStep = perStep;
+	}
+
+	/**
+	 * It returns the schedule of the learning factor
+	 * 
+	 * @return the schedule or null if the learning factor is constant
+	 */
+	public LearningRateSchedule getLearningRateSchedule() {
+		return _schedule;
+	}
+
+	/**
+	 * It returns the optimizer used to adjust the weights
+	 * 
+	 * @return the optimizer or null if the network uses the inertia
+	 */
+	public Optimizer getOptimizer() {
+		return _optimizer;
+	}
+
+	/**
+	 * It sets all last input changes to zero, so the next adjust of the
+	 * weights doesn't follow the direction of the previous training. The
+	 * state of the optimizer and the batch trainer, if any, is also forgotten.
+	 **/
+	public void resetLastInputsChanges() {
+		if (_optimizer != null) {
+			_optimizer.initialize(getNumberOfWeights());
+		}
+
+		if (_batchTrainer != null) {
+			_batchTrainer.initialize(getNumberOfWeights());
+		}
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+
+			for (int i = 0; i < getLayerSize(layerIndex); i++) {
+				Neuron n = getNeuron(layerIndex, i);
+
+				for (int j = 0; j < n.lastInputsChanges.size(); j++) {
+					n.lastInputsChanges.set(j, 0D);
+				}
+
+				n.lastBiasChange = 0;
+			}
+		}
+	}
+
+	/**
+	 * It sets the last input changes of the network from the given array.
+	 * 
+	 * @param changes an array of getNumberOfWeights() length sorted as getWeights()
+	 * @throws IllegalArgumentException if changes doesn't have getNumberOfWeights() elements
+	 * @see getLastInputsChanges()
+	 **/
+	public void setLastInputsChanges(double[] changes) {
+		if (changes.length != getNumberOfWeights()) {
+			throw new IllegalArgumentException("changes must have "
+					+ getNumberOfWeights() + " elements but has "
+					+ changes.length);
+		}
+
+		int index = 0;
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+
+			for (int i = 0; i < getLayerSize(layerIndex); i++) {
+				Neuron n = getNeuron(layerIndex, i);
+
+				for (int j = 0; j < n.inputs.size(); j++) {
+					n.lastInputsChanges.set(j, changes[index++]);
+				}
+
+				n.lastBiasChange = changes[index++];
+			}
+		}
+	}
+
+	/**
+	 * It returns the bias of each neuron in the specified layer. When the
+	 * network doesn't use bias all values will be zero.
+	 * 
+	 * @param layer_index the index of the hidden layer or a negative value for the output layer
+	 * @return an array with getLayerSize(layer_index) biases
+	 **/
+	public double[] getLayerBiases(int layer_index) {
+		double[] biases = new double[getLayerSize(layer_index)];
+
+		if (use_bias) {
+			for (int i = 0; i < biases.length; i++) {
+				biases[i] = getNeuron(layer_index, i).bias;
+			}
+		}
+
+		return biases;
+	}
+
 	/**
 	 * It returns the error of the current network's output if the desired
 	 * output is desired
@@ -472,6 +1031,52 @@ public class MultilayerPerceptron {
 		}
 	}
 	
+	/**
+	 * It measures the MSE, the CCR and the entropy of the given data with
+	 * only one spread out of each patron. The measures are the same than
+	 * getMeanSquaredError, getCCR and getEntropy.
+	 * 
+	 * @param data a NetworkData used to test the network
+	 * @return the evaluation of the network
+	 */
+	public Evaluation evaluate(NetworkData data) {
+		boolean softmax = isSoftmax();
+		double mse = 0;
+		double ccr = 0;
+		double entropy = 0;
+
+		for (ArrayList<Double> input : data) {
+			ArrayList<Double> expected = data.get_output(input);
+
+			feed(input);
+			spreadOut();
+
+			if (softmax) {
+				applySoftmax();
+			}
+
+			for (int i = 0; i < getOutputLayerSize(); i++) {
+				if (getOutput(i) != 0D) {
+					entropy += expected.get(i) * Math.log(getOutput(i));
+				}
+			}
+
+			if (softmax) {
+				applyPrediction();
+			}
+
+			mse += getMeanSquaredError(expected);
+
+			if (getOutputs().equals(expected)) {
+				ccr++;
+			}
+		}
+
+		int n = data.patrons_length();
+
+		return new Evaluation(mse / n, ccr / n, -entropy / (n * data.outputs_length()));
+	}
+
 	/**
 	 * It returns CCR measure to the given data
 	 * @param data a NetworkData used to test the network
@@ -556,36 +1161,122 @@ public class MultilayerPerceptron {
 	}
 
 	/**
-	 * It sets all inputs at random between -1 and 1.
+	 * It sets all inputs at random, following initialization and
+	 * bias_initialization. By default they are between -1 and 1.
+	 * 
+	 * Note: by default the numbers are taken from a SplitMixRandom with a
+	 * different seed for each network. Use setRandomSource to repeat the
+	 * same initialization.
 	 * 
-	 * Note: the random generator used by the class is a strong generator that
-	 * generate truly random number. For this reason is not easy to retreive the
-	 * seed used to generate random number and set a random seed wont work.
+	 * It also forgets the pruned weights, if any, and the state of the
+	 * optimizer and the batch trainer.
 	 **/
 	public void setRandomInputs() {
+		_prunedWeights = null;
+
+		if (_optimizer != null) {
+			_optimizer.initialize(getNumberOfWeights());
+		}
+
+		if (_batchTrainer != null) {
+			_batchTrainer.initialize(getNumberOfWeights());
+		}
+
 		for (ArrayList<Neuron> hide_layer : _hiddenLayers) {
 			for (Neuron n : hide_layer) {
-				for (int i = 0; i < n.inputs.size(); i++) {
-					double randomInput = (_randomGenerator.nextDouble() * 2) - 1;
-					n.inputs.set(i, randomInput);
-				}
-
-				if (use_bias) {
-					n.bias = (_randomGenerator.nextDouble() * 2) - 1;
-				}
+				setRandomInputs(n, hide_layer.size());
 			}
 		}
 
 		for (Neuron n : _outputLayer) {
-			for (int i = 0; i < n.inputs.size(); i++) {
-				double randomInput = (_randomGenerator.nextDouble() * 2) - 1;
-				n.inputs.set(i, randomInput);
-			}
+			setRandomInputs(n, _outputLayer.size());
+		}
+	}
 
-			if (use_bias) {
-				n.bias = (_randomGenerator.nextDouble() * 2) - 1;
-			}
+	/**
+	 * It sets random inputs and bias to a neuron of a layer with fanOut
+	 * neurons
+	 */
+	private void setRandomInputs(Neuron n, int fanOut) {
+		int fanIn = n.inputs.size();
+
+		for (int i = 0; i < fanIn; i++) {
+			n.inputs.set(i, randomWeight(_randomGenerator, initialization, fanIn, fanOut));
+		}
+
+		if (use_bias) {
+			n.bias = randomBias(_randomGenerator, bias_initialization, initialization, fanIn, fanOut);
+		}
+	}
+
+	/**
+	 * It returns a random weight for a layer
+	 * 
+	 * @param random the source of the random numbers
+	 * @param initialization the initialization of the weights
+	 * @param fanIn the number of inputs of the layer
+	 * @param fanOut the number of neurons of the layer
+	 * @return the random weight
+	 */
+	static double randomWeight(RandomSource random, weightInitialization initialization,
+			int fanIn, int fanOut) {
+		switch (initialization) {
+		case XAVIER_UNIFORM:
+			return (random.nextDouble() * 2 - 1) * Math.sqrt(6D / (fanIn + fanOut));
+		case XAVIER_NORMAL:
+			return random.nextGaussian() * Math.sqrt(2D / (fanIn + fanOut));
+		case HE_UNIFORM:
+			return (random.nextDouble() * 2 - 1) * Math.sqrt(6D / fanIn);
+		case HE_NORMAL:
+			return random.nextGaussian() * Math.sqrt(2D / fanIn);
+		default:
+			return (random.nextDouble() * 2) - 1;
+		}
+	}
+
+	/**
+	 * It returns a random bias for a layer
+	 * 
+	 * @param random the source of the random numbers
+	 * @param bias the initialization of the biases
+	 * @param initialization the initialization of the weights
+	 * @param fanIn the number of inputs of the layer
+	 * @param fanOut the number of neurons of the layer
+	 * @return the random bias
+	 */
+	static double randomBias(RandomSource random, biasInitialization bias,
+			weightInitialization initialization, int fanIn, int fanOut) {
+		switch (bias) {
+		case ZERO:
+			return 0;
+		case SAME_AS_WEIGHTS:
+			return randomWeight(random, initialization, fanIn, fanOut);
+		default:
+			return (random.nextDouble() * 2) - 1;
+		}
+	}
+
+	/**
+	 * It sets the source of the random numbers used by setRandomInputs
+	 * 
+	 * @param source the new random source
+	 * @throws IllegalArgumentException if source is null
+	 */
+	public void setRandomSource(RandomSource source) {
+		if (source == null) {
+			throw new IllegalArgumentException("source can't be null");
 		}
+
+		_randomGenerator = source;
+	}
+
+	/**
+	 * It returns the source of the random numbers used by setRandomInputs
+	 * 
+	 * @return the random source of the network
+	 */
+	public RandomSource getRandomSource() {
+		return _randomGenerator;
 	}
 
 	/**
@@ -715,43 +1406,237 @@ public class MultilayerPerceptron {
 	 * </p>
 	 * 
 	 * <p>
-	 * Because all neuron coefficients will change after this, please don't
-	 * forget to call spreadOut
+	 * Because all neuron coefficients will change after this, please don't
+	 * forget to call spreadOut
+	 * </p>
+	 * 
+	 * @param data the data used to improve network's neurons
+	 * @throws IllegalArgumentException when desiredOutput length is not equal to the length of the output layer
+	 */
+	public void offlineBackpropagation(NetworkData data) {
+		setInputChangesToZero();
+		
+		for(ArrayList<Double> input : data) {
+			feed(input);
+			spreadOut();
+			updateDeltas(data.get_output(input));
+			updateInputChanges();
+		}
+		
+		adjustWeights();
+	}
+
+	/**
+	 * It trains the network data with the data given as train_data and check
+	 * it's capacity with the data given as test_data.
+	 * It sets random inputs before the training unless warm_start is true.
+	 * 
+	 * @param trainData data to be used in the training process
+	 * @param maxiter max number of iterations in the training process
+	 * @param minimumImprovement minimum improvement to continue the training
+	 * @param trainListener a Consumer that receives current training error
+	 * @param offlineBackpropagation indicate if use an online back propagation or not
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void trainByBackpropagation(NetworkData trainData, int maxiter, double minimumImprovement, 
+			boolean offlineBackpropagation, Consumer<Double> trainListener) {
+		
+		if (!warm_start) {
+			setRandomInputs();
+		}
+
+		train(trainData, 0, maxiter, minimumImprovement, offlineBackpropagation,
+				Double.POSITIVE_INFINITY, trainListener);
+	}
+
+	/**
+	 * It continues a training from a checkpoint. The weights and the last
+	 * input changes are restored and the training makes the remaining epochs
+	 * with the options stored in the checkpoint, so it gives the same
+	 * network than the interrupted training.
+	 * 
+	 * @param checkpoint the checkpoint where the training will continue
+	 * @param trainData data to be used in the training process
+	 * @param trainListener a Consumer that receives current training error
+	 * @throws IllegalArgumentException if the checkpoint has a different number of weights or desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void resume(TrainingCheckpoint checkpoint, NetworkData trainData, Consumer<Double> trainListener) {
+		checkpoint.restore(this);
+		train(trainData, checkpoint.getEpoch(), checkpoint.getMaxiter(),
+				checkpoint.getMinimumImprovement(), checkpoint.isOffline(),
+				checkpoint.getBestError(), trainListener);
+	}
+
+	/**
+	 * It sets a writer that receives a checkpoint of the training every
+	 * period epochs. The checkpoints are written in the background.
+	 * 
+	 * @param writer the writer of the checkpoints or null to disable them
+	 * @param period the number of epochs between two checkpoints
+	 * @throws IllegalArgumentException if period is lower than 1
+	 */
+	public void setCheckpointWriter(CheckpointWriter writer, int period) {
+		if (writer != null && period < 1) {
+			throw new IllegalArgumentException("period must be at least 1 but is " + period);
+		}
+
+		_checkpointWriter = writer;
+		_checkpointPeriod = period;
+	}
+
+	/**
+	 * It trains the network like trainByBackpropagation until the budget of
+	 * time expires. The clock is checked before each epoch and, in an online
+	 * training, before each patron, so the training ends soon after the
+	 * deadline. At the end the network keeps the best weights seen: the
+	 * weights with the lowest training error or, with early stopping, with
+	 * the lowest validation error.
+	 * 
+	 * @param trainData data to be used in the training process
+	 * @param budget the time available for the training
+	 * @param maxiter max number of iterations in the training process
+	 * @param minimumImprovement minimum improvement to continue the training
+	 * @param offlineBackpropagation indicate if use an online back propagation or not
+	 * @param trainListener a Consumer that receives current training error
+	 * @return the result of the training
+	 * @throws IllegalArgumentException if budget is negative or desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public TrainingResult trainFor(NetworkData trainData, Duration budget, int maxiter,
+			double minimumImprovement, boolean offlineBackpropagation, Consumer<Double> trainListener) {
+
+		if (budget.isNegative()) {
+			throw new IllegalArgumentException("budget must not be negative but is " + budget);
+		}
+
+		long start = System.nanoTime();
+		long nanos = (budget.getSeconds() < Long.MAX_VALUE / 2_000_000_000L)
+				? budget.toNanos() : Long.MAX_VALUE / 2;
+
+		if (!warm_start) {
+			setRandomInputs();
+		}
+
+		_deadline = start + nanos;
+		_hasDeadline = true;
+
+		try {
+			int epochs = train(trainData, 0, maxiter, minimumImprovement, offlineBackpropagation,
+					Double.POSITIVE_INFINITY, trainListener);
+			// Without a completed epoch there are no best weights
+			double bestError = (_bestValidationError < Double.POSITIVE_INFINITY)
+					? _bestValidationError : Double.NaN;
+
+			if (_validationData == null) {
+				_bestValidationError = Double.NaN;
+			}
+
+			return new TrainingResult(epochs, _bestEpoch, bestError, _timedOut,
+					Duration.ofNanos(System.nanoTime() - start));
+		} finally {
+			_hasDeadline = false;
+		}
+	}
+
+	/**
+	 * It enables the early stopping of trainByBackpropagation. After each
+	 * epoch the error of the validation data is measured, and the weights
+	 * with the lowest validation error are kept in a buffer. The training
+	 * stops when the validation error hasn't improved in patience epochs,
+	 * and then the kept weights are restored. The buffer is allocated once,
+	 * so the epochs don't allocate memory.
+	 * 
+	 * <p>
+	 * The count of epochs without improvement starts again when a training
+	 * is resumed from a checkpoint.
 	 * </p>
 	 * 
-	 * @param data the data used to improve network's neurons
-	 * @throws IllegalArgumentException when desiredOutput length is not equal to the length of the output layer
+	 * @param validationData the held out data or null to disable the early stopping
+	 * @param patience the number of epochs without improvement before stopping
+	 * @throws IllegalArgumentException if patience is lower than 1 or the validation data is empty
+	 * @see NetworkData#holdOut(double, RandomSource)
 	 */
-	public void offlineBackpropagation(NetworkData data) {
-		setInputChangesToZero();
-		
-		for(ArrayList<Double> input : data) {
-			feed(input);
-			spreadOut();
-			updateDeltas(data.get_output(input));
-			updateInputChanges();
+	public void setEarlyStopping(NetworkData validationData, int patience) {
+		if (validationData != null && patience < 1) {
+			throw new IllegalArgumentException("patience must be at least 1 but is " + patience);
 		}
-		
-		adjustWeights();
+
+		if (validationData != null && validationData.patrons_length() == 0) {
+			throw new IllegalArgumentException("validation data can't be empty");
+		}
+
+		_validationData = validationData;
+		_patience = patience;
 	}
 
 	/**
-	 * It trains the network data with the data given as train_data and check
-	 * it's capacity with the data given as test_data.
+	 * It returns the lowest validation error of the last training with early
+	 * stopping
 	 * 
-	 * @param trainData data to be used in the training process
-	 * @param maxiter max number of iterations in the training process
-	 * @param minimumImprovement minimum improvement to continue the training
-	 * @param trainListener a Consumer that receives current training error
-	 * @param offlineBackpropagation indicate if use an online back propagation or not
-	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 * @return the error of the restored weights or NaN if there was no early stopping
 	 */
-	public void trainByBackpropagation(NetworkData trainData, int maxiter, double minimumImprovement, 
-			boolean offlineBackpropagation, Consumer<Double> trainListener) {
-		
-		setRandomInputs();
+	public double getBestValidationError() {
+		return _bestValidationError;
+	}
+
+	/**
+	 * It returns the number of epochs trained up to the restored weights in
+	 * the last training with early stopping
+	 * 
+	 * @return the epoch of the lowest validation error
+	 */
+	public int getBestEpoch() {
+		return _bestEpoch;
+	}
+
+	/**
+	 * It makes the epochs of a training from startEpoch to maxiter. The
+	 * schedule is reset when the training starts from the first epoch; a
+	 * resumed training keeps the state restored from the checkpoint.
+	 */
+	private int train(NetworkData trainData, int startEpoch, int maxiter, double minimumImprovement,
+			boolean offlineBackpropagation, double bestError, Consumer<Double> trainListener) {
+
+		if (_schedule != null && startEpoch == 0) {
+			_schedule.reset();
+		}
+
+		try {
+			return trainEpochs(trainData, startEpoch, maxiter, minimumImprovement,
+					offlineBackpropagation, bestError, trainListener);
+		} finally {
+			_scheduledLearningFactor = Double.NaN;
+		}
+	}
+
+	/**
+	 * It makes the epochs of a training with the learning rate schedule and
+	 * returns the number of the last epoch completed
+	 */
+	private int trainEpochs(NetworkData trainData, int startEpoch, int maxiter, double minimumImprovement,
+			boolean offlineBackpropagation, double bestError, Consumer<Double> trainListener) {
+
+		boolean keepBest = _validationData != null || _hasDeadline;
+		int epochsWithoutImprovement = 0;
+		int epoch = startEpoch;
+		_bestValidationError = Double.NaN;
+		_timedOut = false;
+
+		if (keepBest) {
+			int n = getNumberOfWeights();
+
+			if (_bestWeights == null || _bestWeights.length != n) {
+				_bestWeights = new double[n];
+			}
+
+			_bestValidationError = Double.POSITIVE_INFINITY;
+		}
+
+		for (int i = startEpoch; i < maxiter; i++) {
+			if (_hasDeadline && System.nanoTime() - _deadline >= 0) {
+				_timedOut = true;
+				break;
+			}
 
-		for (int i = 0; i < maxiter; i++) {
 			double startError;
 
 			if(minimize.equals(errorToMinimize.MSE)){
@@ -760,10 +1645,42 @@ public class MultilayerPerceptron {
 			else {
 				startError = getEntropy(trainData);
 			}
+
+			if (_schedule != null) {
+				_scheduledLearningFactor = _schedule.getLearningFactor(i, getLearningFactor());
+			}
 			
-			if(offlineBackpropagation) {
+			if(offlineBackpropagation && _batchTrainer != null) {
+				_batchTrainer.epoch(this, trainData);
+
+				if (_prunedWeights != null) {
+					applyPruning();
+				}
+			}
+			else if(offlineBackpropagation) {
 				offlineBackpropagation(trainData);
 			}
+			else if ((_schedule != null && _schedulePerStep) || _hasDeadline) {
+				int step = 0;
+
+				for (ArrayList<Double> input : trainData) {
+					if (_hasDeadline && System.nanoTime() - _deadline >= 0) {
+						_timedOut = true;
+						break;
+					}
+
+					if (_schedule != null && _schedulePerStep) {
+						double stepEpoch = i + (double) step++ / trainData.patrons_length();
+						_scheduledLearningFactor = _schedule.getLearningFactor(stepEpoch, getLearningFactor());
+					}
+
+					onlineBackpropagation(input, trainData.get_output(input));
+				}
+
+				if (_timedOut) {
+					break; // The last epoch was not completed
+				}
+			}
 			else {
 				onlineBackpropagation(trainData);
 			}
@@ -778,11 +1695,46 @@ public class MultilayerPerceptron {
 			}
 
 			trainListener.accept(endError);
+			bestError = Math.min(bestError, endError);
+			epoch = i + 1;
+
+			if (_schedule != null) {
+				_schedule.epochFinished(i, endError);
+			}
+
+			if (_checkpointWriter != null && (i + 1) % _checkpointPeriod == 0) {
+				_checkpointWriter.submit(new TrainingCheckpoint(this, i + 1, maxiter,
+						minimumImprovement, offlineBackpropagation, bestError));
+			}
+
+			if (keepBest) {
+				double error = endError;
+
+				if (_validationData != null) {
+					error = minimize.equals(errorToMinimize.MSE)
+							? getMeanSquaredError(_validationData) : getEntropy(_validationData);
+				}
+
+				if (error < _bestValidationError) {
+					_bestValidationError = error;
+					_bestEpoch = i + 1;
+					epochsWithoutImprovement = 0;
+					getWeights(_bestWeights);
+				} else if (_validationData != null && ++epochsWithoutImprovement >= _patience) {
+					break; // Early stopping
+				}
+			}
 
 			if (Math.abs(endError - startError) < minimumImprovement) {
 				break; // End of training
 			}
-		}	
+		}
+
+		if (keepBest && _bestValidationError < Double.POSITIVE_INFINITY) {
+			setWeights(_bestWeights);
+		}
+
+		return epoch;
 	}
 
 	/**
@@ -830,6 +1782,142 @@ public class MultilayerPerceptron {
 		trainByBackpropagation(trainData, maxiter, minimumImprovement, false, trainListener);
 	}
 	
+	/**
+	 * It trains the network with the given data during the specified number
+	 * of epochs. Unlike trainByBackpropagation it doesn't set random inputs
+	 * before, so it continues from the current weights. Pruned weights stay
+	 * at zero.
+	 * 
+	 * @param trainData data to be used in the training process
+	 * @param epochs the number of epochs
+	 * @param offlineBackpropagation if true it uses an offline back propagation otherwise it will use an online back propagation
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void fineTune(NetworkData trainData, int epochs, boolean offlineBackpropagation) {
+		fineTune(trainData, epochs, offlineBackpropagation, false);
+	}
+
+	/**
+	 * It trains the network with the given data during the specified number
+	 * of epochs, continuing from the current weights. It is useful to add new
+	 * data to a trained network without training it again from scratch.
+	 * 
+	 * @param trainData data to be used in the training process
+	 * @param epochs the number of epochs
+	 * @param offlineBackpropagation if true it uses an offline back propagation otherwise it will use an online back propagation
+	 * @param resetInertia if true the last input changes are set to zero before the first epoch
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void fineTune(NetworkData trainData, int epochs, boolean offlineBackpropagation, boolean resetInertia) {
+		if (resetInertia) {
+			resetLastInputsChanges();
+		}
+
+		for (int i = 0; i < epochs; i++) {
+			if (offlineBackpropagation) {
+				offlineBackpropagation(trainData);
+			} else {
+				onlineBackpropagation(trainData);
+			}
+		}
+	}
+
+	/**
+	 * It prunes all weights whose absolute value is lower than threshold. The
+	 * pruned weights are set to zero and they will stay at zero in the next
+	 * backpropagations until the structure of the network changes or
+	 * setRandomInputs is called. Biases are never pruned.
+	 * 
+	 * @param threshold the minimum absolute value of a weight to be kept
+	 * @return the number of pruned weights, including those pruned before
+	 */
+	public int pruneWeightsBelow(double threshold) {
+		double[] weights = getWeights();
+		boolean[] pruned = getPruningMask();
+
+		forEachWeight((index, fanIn, isBias) -> {
+			if (!isBias && Math.abs(weights[index]) < threshold) {
+				pruned[index] = true;
+			}
+		});
+
+		_prunedWeights = pruned;
+		applyPruning();
+
+		return countPrunedWeights();
+	}
+
+	/**
+	 * It keeps the k weights with highest absolute value of each neuron and
+	 * prunes the rest of them.
+	 * 
+	 * @param k the number of weights to keep in each neuron
+	 * @return the number of pruned weights, including those pruned before
+	 * @see pruneWeightsBelow
+	 */
+	public int keepTopWeights(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must be positive. Actual value: " + k);
+		}
+
+		double[] weights = getWeights();
+		boolean[] pruned = getPruningMask();
+		int start = 0;
+
+		while (start < weights.length) {
+			int fanIn = neuronFanIn(start);
+			Integer[] order = new Integer[fanIn];
+
+			for (int j = 0; j < fanIn; j++) {
+				order[j] = start + j;
+			}
+
+			Arrays.sort(order, (a, b) -> Double.compare(
+					Math.abs(weights[b]), Math.abs(weights[a])));
+
+			for (int j = k; j < fanIn; j++) {
+				pruned[order[j]] = true;
+			}
+
+			start += fanIn + 1;
+		}
+
+		_prunedWeights = pruned;
+		applyPruning();
+
+		return countPrunedWeights();
+	}
+
+	/**
+	 * It returns the fraction of weights, without biases, that are zero.
+	 * 
+	 * @return a value between 0 and 1
+	 */
+	public double getSparsity() {
+		double[] weights = getWeights();
+		int[] counters = new int[2];
+
+		forEachWeight((index, fanIn, isBias) -> {
+			if (!isBias) {
+				counters[0]++;
+
+				if (weights[index] == 0) {
+					counters[1]++;
+				}
+			}
+		});
+
+		return (double) counters[1] / counters[0];
+	}
+
+	/**
+	 * It forgets the pruned weights, so they can change again in the next
+	 * backpropagations.
+	 */
+	public void clearPruning() {
+		_prunedWeights = null;
+	}
+
 	/**
 	 * Check if the network is a softmax network
 	 * @return true when it is a softmax network, false otherwise
@@ -880,6 +1968,7 @@ public class MultilayerPerceptron {
 	 **/
 	public void setOutputLayerSize(int n_neurons) {
 		_outputLayer.clear();
+		_prunedWeights = null;
 		clearOutput();
 
 		for (int i = 0; i < n_neurons; i++) {
@@ -1176,20 +2265,71 @@ public class MultilayerPerceptron {
 	 * It will adjusts the weights of the inputs in the neuron network
 	 */
 	protected void adjustWeights() {
+		if (_optimizer != null) {
+			adjustWeightsWithOptimizer();
+		} else {
+			adjustWeightsWithInertia();
+		}
+
+		if (_prunedWeights != null) {
+			applyPruning();
+		}
+	}
+
+	/**
+	 * It adjusts the weights with the optimizer. The input changes are kept
+	 * as last input changes like in adjustWeightsWithInertia.
+	 */
+	private void adjustWeightsWithOptimizer() {
+		int n = getNumberOfWeights();
+
+		if (_optimizerWeights == null || _optimizerWeights.length != n) {
+			_optimizerWeights = new double[n];
+			_optimizerGradient = new double[n];
+		}
+
+		getWeights(_optimizerWeights);
+		getGradient(_optimizerGradient);
+		_optimizer.update(_optimizerWeights, _optimizerGradient, getCurrentLearningFactor());
+		setWeights(_optimizerWeights);
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+
+			for (int i = 0; i < getLayerSize(layerIndex); i++) {
+				Neuron neuron = getNeuron(layerIndex, i);
+				neuron.lastInputsChanges = (ArrayList<Double>) neuron.inputsChanges.clone();
+				neuron.lastBiasChange = neuron.biasChange;
+			}
+		}
+	}
+
+	/**
+	 * It returns the learning factor given by the schedule in the current
+	 * epoch of a training, or the learning factor of the network otherwise
+	 */
+	private double getCurrentLearningFactor() {
+		return Double.isNaN(_scheduledLearningFactor) ? _learningFactor : _scheduledLearningFactor;
+	}
+
+	/**
+	 * It adjusts the weights with the learning factor and the inertia
+	 */
+	private void adjustWeightsWithInertia() {
 		for (ArrayList<Neuron> layer : _hiddenLayers) {
 			for (Neuron n : layer) {
 				for (int i = 0; i < n.inputs.size(); i++) {
 					double current = n.inputs.get(i);
-					current -= getLearningFactor() * n.inputsChanges.get(i);
-					current -= getLearningFactor() * getInertiaValue()
+					current -= getCurrentLearningFactor() * n.inputsChanges.get(i);
+					current -= getCurrentLearningFactor() * getInertiaValue()
 							* n.lastInputsChanges.get(i);
 					
 					n.inputs.set(i, current);
 				}
 
 				if (use_bias) {
-					n.bias -= getLearningFactor() * n.biasChange;
-					n.bias -= getLearningFactor() * getInertiaValue()
+					n.bias -= getCurrentLearningFactor() * n.biasChange;
+					n.bias -= getCurrentLearningFactor() * getInertiaValue()
 							* n.lastBiasChange;
 				}
 
@@ -1202,16 +2342,16 @@ public class MultilayerPerceptron {
 		for (Neuron n : _outputLayer) {
 			for (int i = 0; i < n.inputs.size(); i++) {
 				double current = n.inputs.get(i);
-				current -= getLearningFactor() * n.inputsChanges.get(i);
-				current -= getLearningFactor() * getInertiaValue()
+				current -= getCurrentLearningFactor() * n.inputsChanges.get(i);
+				current -= getCurrentLearningFactor() * getInertiaValue()
 						* n.lastInputsChanges.get(i);
 				
 				n.inputs.set(i, current);
 			}
 
 			if (use_bias) {
-				n.bias -= getLearningFactor() * n.biasChange;
-				n.bias -= getLearningFactor() * getInertiaValue()
+				n.bias -= getCurrentLearningFactor() * n.biasChange;
+				n.bias -= getCurrentLearningFactor() * getInertiaValue()
 						* n.lastBiasChange;
 			}
 
@@ -1364,4 +2504,170 @@ public class MultilayerPerceptron {
 			setOutput(i, n.output);
 		}
 	}
+
+	/**
+	 * A visitor of the positions of the weights returned by getWeights
+	 */
+	private interface WeightVisitor {
+		void visit(int index, int fanIn, boolean isBias);
+	}
+
+	/**
+	 * It visits each position of the array returned by getWeights
+	 * 
+	 * @param visitor the visitor to be called with each position
+	 */
+	private void forEachWeight(WeightVisitor visitor) {
+		int index = 0;
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+			int fanIn = getNeuronInputsSize(layerIndex, 0);
+
+			for (int i = 0; i < getLayerSize(layerIndex); i++) {
+				for (int j = 0; j <= fanIn; j++) {
+					visitor.visit(index++, fanIn, j == fanIn);
+				}
+			}
+		}
+	}
+
+	/**
+	 * It returns the number of inputs of the neuron whose weights start at
+	 * the given position of the array returned by getWeights
+	 * 
+	 * @param start the position of the first weight of the neuron
+	 * @return the number of inputs of the neuron
+	 */
+	private int neuronFanIn(int start) {
+		int index = 0;
+
+		for (int l = 0; l <= getNumberOfHiddenLayers(); l++) {
+			int layerIndex = (l < getNumberOfHiddenLayers()) ? l : -1;
+			int fanIn = getNeuronInputsSize(layerIndex, 0);
+			int layerLength = getLayerSize(layerIndex) * (fanIn + 1);
+
+			if (start < index + layerLength) {
+				return fanIn;
+			}
+
+			index += layerLength;
+		}
+
+		throw new IndexOutOfBoundsException("there is no weight at " + start);
+	}
+
+	/**
+	 * It returns the current pruning mask or a new one if the network was
+	 * not pruned or its structure changed.
+	 * 
+	 * @return a mask with getNumberOfWeights() elements
+	 */
+	private boolean[] getPruningMask() {
+		if (_prunedWeights != null && _prunedWeights.length == getNumberOfWeights()) {
+			return _prunedWeights;
+		}
+
+		return new boolean[getNumberOfWeights()];
+	}
+
+	/**
+	 * It returns the number of pruned weights
+	 * 
+	 * @return the number of weights marked as pruned
+	 */
+	private int countPrunedWeights() {
+		int pruned = 0;
+
+		for (boolean p : _prunedWeights) {
+			if (p) {
+				pruned++;
+			}
+		}
+
+		return pruned;
+	}
+
+	/**
+	 * It sets to zero all pruned weights. If the inputs of the network changed
+	 * since the pruning the mask is discarded. The neurons are changed in
+	 * place, because it is called after each patron of an online training.
+	 */
+	private void applyPruning() {
+		if (_prunedWeights.length != getNumberOfWeights()) {
+			_prunedWeights = null;
+			return;
+		}
+
+		int index = 0;
+
+		for (ArrayList<Neuron> layer : _hiddenLayers) {
+			for (Neuron n : layer) {
+				index = pruneNeuronWeights(n, _prunedWeights, index);
+			}
+		}
+
+		for (Neuron n : _outputLayer) {
+			index = pruneNeuronWeights(n, _prunedWeights, index);
+		}
+	}
+
+	/**
+	 * It sets to zero the inputs and the bias of a neuron that are marked in
+	 * the mask
+	 * 
+	 * @param n the neuron to be changed
+	 * @param mask the pruning mask, sorted like getWeights
+	 * @param index the position of the first weight of the neuron
+	 * @return the position after the bias of the neuron
+	 */
+	private static int pruneNeuronWeights(Neuron n, boolean[] mask, int index) {
+		for (int i = 0; i < n.inputs.size(); i++) {
+			if (mask[index++]) {
+				n.inputs.set(i, 0D);
+			}
+		}
+
+		if (mask[index++]) {
+			n.bias = 0;
+		}
+
+		return index;
+	}
+
+	/**
+	 * It copies the inputs and the bias of a neuron into destination
+	 * 
+	 * @param n the neuron to be copied
+	 * @param destination the array where the weights are copied
+	 * @param index the position of the first weight
+	 * @return the position after the bias of the neuron
+	 */
+	private static int copyNeuronWeights(Neuron n, double[] destination, int index) {
+		for (int i = 0; i < n.inputs.size(); i++) {
+			destination[index++] = n.inputs.get(i);
+		}
+
+		destination[index++] = n.bias;
+
+		return index;
+	}
+
+	/**
+	 * It sets the inputs and the bias of a neuron from weights
+	 * 
+	 * @param n the neuron to be changed
+	 * @param weights the array with the weights
+	 * @param index the position of the first weight
+	 * @return the position after the bias of the neuron
+	 */
+	private static int setNeuronWeights(Neuron n, double[] weights, int index) {
+		for (int i = 0; i < n.inputs.size(); i++) {
+			n.inputs.set(i, weights[index++]);
+		}
+
+		n.bias = weights[index++];
+
+		return index;
+	}
 }
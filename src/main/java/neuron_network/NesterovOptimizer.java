@@ -0,0 +1,97 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+import java.util.Arrays;
+
+/**
+ * A gradient descent with Nesterov momentum. The velocity of each weight
+ * follows the gradient, and the weight moves with the velocity it will have
+ * after the next step:
+ * 
+ * <pre>
+ * v' = momentum * v - learningFactor * g
+ * w  = w - momentum * v + (1 + momentum) * v'
+ * </pre>
+ * 
+ * @version 1.0
+ */
+public class NesterovOptimizer implements Optimizer {
+	private final double _momentum;
+	private double[] _velocity;
+
+	/**
+	 * It creates an optimizer with a momentum of 0.9
+	 */
+	public NesterovOptimizer() {
+		this(0.9);
+	}
+
+	/**
+	 * It creates an optimizer with the given momentum
+	 * 
+	 * @param momentum the momentum, between 0 (inclusive) and 1 (exclusive)
+	 * @throws IllegalArgumentException if momentum is out of range
+	 */
+	public NesterovOptimizer(double momentum) {
+		if (momentum < 0 || momentum >= 1) {
+			throw new IllegalArgumentException("momentum must be between 0 and 1 but is " + momentum);
+		}
+
+		_momentum = momentum;
+		_velocity = new double[0];
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_velocity = new double[numberOfWeights];
+	}
+
+	@Override
+	public void update(double[] weights, double[] gradient, double learningFactor) {
+		if (_velocity.length != weights.length) {
+			initialize(weights.length);
+		}
+
+		for (int i = 0; i < weights.length; i++) {
+			double last = _velocity[i];
+			_velocity[i] = _momentum * last - learningFactor * gradient[i];
+			weights[i] += -_momentum * last + (1 + _momentum) * _velocity[i];
+		}
+	}
+
+	@Override
+	public NesterovOptimizer copy() {
+		return new NesterovOptimizer(_momentum);
+	}
+
+	@Override
+	public double[] getState() {
+		return _velocity.clone();
+	}
+
+	@Override
+	public void setState(double[] state) {
+		_velocity = Arrays.copyOf(state, state.length);
+	}
+
+	@Override
+	public String toString() {
+		return "Nesterov (momentum " + _momentum + ")";
+	}
+}
@@ -36,6 +36,7 @@ public class NetworkData implements Iterable<ArrayList<Double>> {
 	private int inputsLength; // Number of inputs in each patron
 	private int outputsLength; // Number of outputs in each patron
 	private HashMap<ArrayList<Double>, ArrayList<Double>> inputs; // The inputs
+	private ArrayList<ArrayList<Double>> patrons; // The inputs by index, built on demand
 
 	// hash map
 
@@ -128,6 +129,7 @@ public class NetworkData implements Iterable<ArrayList<Double>> {
 		int nPatrons = 0;
 
 		String header = br.readLine();
+		patrons = null;
 
 		if (header != null) {
 			String[] fields = header.split("( |\t)+");
@@ -180,6 +182,151 @@ public class NetworkData implements Iterable<ArrayList<Double>> {
 		fr.close();
 	}
 
+	/**
+	 * It adds a patron. The first patron sets the length of the inputs and
+	 * the outputs. If the input was already stored, its output is replaced.
+	 * 
+	 * @param input the input of the patron
+	 * @param output the desired output of the input
+	 * @throws IllegalArgumentException if the lengths don't match the stored patrons
+	 */
+	public void add_patron(ArrayList<Double> input, ArrayList<Double> output) {
+		if (inputs.isEmpty()) {
+			inputsLength = input.size();
+			outputsLength = output.size();
+		} else if (input.size() != inputsLength || output.size() != outputsLength) {
+			throw new IllegalArgumentException("patrons must have " + inputsLength
+					+ " inputs and " + outputsLength + " outputs");
+		}
+
+		inputs.put(input, output);
+		patrons = null;
+	}
+
+	/**
+	 * It splits the patrons in the given number of parts of similar size. The
+	 * patrons are taken in the order of the iterator, so the split is always
+	 * the same for the same data. The parts share the lists of the patrons.
+	 * 
+	 * @param parts the number of parts
+	 * @return a list with the parts, that can be less than parts if there are not enough patrons
+	 * @throws IllegalArgumentException if parts is lower than 1
+	 */
+	public ArrayList<NetworkData> split(int parts) {
+		if (parts < 1) {
+			throw new IllegalArgumentException("parts must be at least 1 but is " + parts);
+		}
+
+		int n = Math.min(parts, Math.max(1, patrons_length()));
+		ArrayList<NetworkData> result = new ArrayList<NetworkData>();
+
+		for (int i = 0; i < n; i++) {
+			NetworkData part = new NetworkData();
+			part.inputsLength = inputs_length();
+			part.outputsLength = outputs_length();
+			result.add(part);
+		}
+
+		int index = 0;
+
+		for (ArrayList<Double> input : this) {
+			result.get(index * n / patrons_length()).inputs.put(input, get_output(input));
+			index++;
+		}
+
+		return result;
+	}
+
+	/**
+	 * It holds out a random part of the patrons, for example to be used as
+	 * validation data.
+	 * 
+	 * @param fraction the fraction of the patrons held out, between 0 and 1 (both exclusive)
+	 * @param random the source used to choose the patrons
+	 * @return an array with two parts: the patrons kept and the patrons held out
+	 * @throws IllegalArgumentException if fraction is out of range or one of the parts would be empty
+	 */
+	public NetworkData[] holdOut(double fraction, RandomSource random) {
+		if (!(fraction > 0 && fraction < 1)) {
+			throw new IllegalArgumentException("fraction must be between 0 and 1 but is " + fraction);
+		}
+
+		ArrayList<ArrayList<Double>> shuffled = new ArrayList<ArrayList<Double>>();
+		NetworkData[] parts = { new NetworkData(), new NetworkData() };
+
+		for (ArrayList<Double> input : this) {
+			shuffled.add(input);
+		}
+
+		int heldOut = (int) Math.round(shuffled.size() * fraction);
+
+		if (heldOut == 0 || heldOut == shuffled.size()) {
+			throw new IllegalArgumentException("holding out " + fraction + " of " + shuffled.size()
+					+ " patrons leaves an empty part");
+		}
+
+		random.shuffle(shuffled);
+
+		for (int i = 0; i < shuffled.size(); i++) {
+			NetworkData part = parts[(i < heldOut) ? 1 : 0];
+			part.inputsLength = inputs_length();
+			part.outputsLength = outputs_length();
+			part.inputs.put(shuffled.get(i), get_output(shuffled.get(i)));
+		}
+
+		return parts;
+	}
+
+	/**
+	 * It returns the input of the patron at the given index. The indexes
+	 * follow the order of the iterator, and they don't change while the
+	 * data is not modified.
+	 * 
+	 * @param index the index of the patron, between 0 and patrons_length() - 1
+	 * @return the input of the patron
+	 * @throws IndexOutOfBoundsException if index is out of range
+	 */
+	public ArrayList<Double> get_input(int index) {
+		return patrons().get(index);
+	}
+
+	/**
+	 * It creates a view of some patrons of this data. The view doesn't copy
+	 * the patrons, it only keeps their indexes, so the views of a data set
+	 * are cheap. The view must not be used after this data is modified.
+	 * 
+	 * @param indexes the indexes of the patrons, as in get_input
+	 * @return a read-only view with the given patrons
+	 * @throws IndexOutOfBoundsException if an index is out of range
+	 */
+	public NetworkDataView view(int[] indexes) {
+		ArrayList<ArrayList<Double>> all = patrons();
+
+		for (int index : indexes) {
+			if (index < 0 || index >= all.size()) {
+				throw new IndexOutOfBoundsException("index " + index + " of " + all.size() + " patrons");
+			}
+		}
+
+		return new NetworkDataView(this, all, indexes.clone());
+	}
+
+	/**
+	 * It returns the inputs sorted by index, building the list the first
+	 * time it is needed
+	 */
+	synchronized ArrayList<ArrayList<Double>> patrons() {
+		if (patrons == null) {
+			patrons = new ArrayList<ArrayList<Double>>(patrons_length());
+
+			for (ArrayList<Double> input : this) {
+				patrons.add(input);
+			}
+		}
+
+		return patrons;
+	}
+
 	/**
 	 * It removes all data stored
 	 */
@@ -187,6 +334,7 @@ public class NetworkData implements Iterable<ArrayList<Double>> {
 		inputsLength = 0;
 		outputsLength = 0;
 		inputs.clear();
+		patrons = null;
 	}
 
 	@Override
@@ -0,0 +1,143 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A NetworkDataView is a read-only subset of the patrons of a NetworkData.
+ * It only stores the indexes of its patrons, so several views of the same
+ * data, like the folds of a cross validation, don't copy the data. A view
+ * can be used everywhere a NetworkData is expected, except to modify it.
+ * 
+ * @version 1.0
+ * @see NetworkData#view(int[])
+ */
+public class NetworkDataView extends NetworkData {
+	private final NetworkData _parent;
+	private final ArrayList<ArrayList<Double>> _patrons;
+	private final int[] _indexes;
+
+	NetworkDataView(NetworkData parent, ArrayList<ArrayList<Double>> patrons, int[] indexes) {
+		_parent = parent;
+		_patrons = patrons;
+		_indexes = indexes;
+	}
+
+	@Override
+	public int inputs_length() {
+		return _parent.inputs_length();
+	}
+
+	@Override
+	public int outputs_length() {
+		return _parent.outputs_length();
+	}
+
+	@Override
+	public int patrons_length() {
+		return _indexes.length;
+	}
+
+	@Override
+	public ArrayList<Double> get_output(ArrayList<Double> input) {
+		return _parent.get_output(input);
+	}
+
+	@Override
+	public ArrayList<Double> get_input(int index) {
+		return _patrons.get(_indexes[index]);
+	}
+
+	@Override
+	public NetworkDataView view(int[] indexes) {
+		int[] parentIndexes = new int[indexes.length];
+
+		for (int i = 0; i < indexes.length; i++) {
+			parentIndexes[i] = _indexes[indexes[i]];
+		}
+
+		return new NetworkDataView(_parent, _patrons, parentIndexes);
+	}
+
+	@Override
+	ArrayList<ArrayList<Double>> patrons() {
+		ArrayList<ArrayList<Double>> result = new ArrayList<ArrayList<Double>>(_indexes.length);
+
+		for (int index : _indexes) {
+			result.add(_patrons.get(index));
+		}
+
+		return result;
+	}
+
+	/**
+	 * A view can't be modified
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void reload_data(String file) {
+		throw new UnsupportedOperationException("a NetworkDataView is read-only");
+	}
+
+	/**
+	 * A view can't be modified
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void add_patron(ArrayList<Double> input, ArrayList<Double> output) {
+		throw new UnsupportedOperationException("a NetworkDataView is read-only");
+	}
+
+	/**
+	 * A view can't be modified
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void clearData() {
+		throw new UnsupportedOperationException("a NetworkDataView is read-only");
+	}
+
+	@Override
+	public Iterator<ArrayList<Double>> iterator() {
+		return new Iterator<ArrayList<Double>>() {
+			private int _next;
+
+			@Override
+			public boolean hasNext() {
+				return _next < _indexes.length;
+			}
+
+			@Override
+			public ArrayList<Double> next() {
+				if (_next >= _indexes.length) {
+					throw new NoSuchElementException();
+				}
+
+				return _patrons.get(_indexes[_next++]);
+			}
+		};
+	}
+}
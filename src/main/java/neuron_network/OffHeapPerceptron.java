@@ -0,0 +1,739 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import neuron_network.MultilayerPerceptron.biasInitialization;
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+import neuron_network.MultilayerPerceptron.weightInitialization;
+
+/**
+ * The OffHeapPerceptron is a MultilayerPerceptron whose weights, input changes
+ * and last input changes are stored outside of the Java heap, in direct
+ * buffers. It is meant for very big networks: the garbage collector never
+ * walks over the weights and the training doesn't allocate memory for each
+ * patron, so the pauses don't grow with the size of the network.
+ * 
+ * <p>
+ * It makes the same backpropagation than MultilayerPerceptron, with the same
+ * learning factor, inertia, neuron type and error to minimize. Its weights are
+ * stored like {@link MultilayerPerceptron#getWeights()}: layer by layer and
+ * neuron by neuron, with the inputs followed by the bias. Optimizers, learning
+ * rate schedules and batch trainers are not supported, so networks that use
+ * them are rejected.
+ * </p>
+ * 
+ * <p>
+ * It can be copied from a MultilayerPerceptron, or built from a
+ * TrainingConfiguration with random weights. The second way never builds the
+ * network on the heap, so it's the one to use when the weights don't fit
+ * there. The weights are moved between both kinds of network neuron by neuron.
+ * </p>
+ * 
+ * <p>
+ * The memory must be freed with {@link #close()} when the network is not
+ * needed any more. The direct memory available to the JVM is limited by
+ * -XX:MaxDirectMemorySize. This class is not thread safe.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class OffHeapPerceptron implements Predictor, AutoCloseable {
+	/**
+	 * The highest number of weights that a direct buffer can store
+	 */
+	public static final int MAX_WEIGHTS = Integer.MAX_VALUE / 8;
+
+	private final int _inputsLength;
+	private final int[] _layerSizes;
+	private final int[] _layerOffsets;
+	private final neuronType _neuronType;
+	private final errorToMinimize _minimize;
+	private final boolean _useBias;
+	private final weightInitialization _initialization;
+	private final biasInitialization _biasInitialization;
+	private final double _learningFactor;
+	private final double _inertia;
+	private final int _numberOfWeights;
+	private RandomSource _random;
+
+	private ByteBuffer[] _memory;
+	private DoubleBuffer _weights;
+	private DoubleBuffer _inputsChanges;
+	private DoubleBuffer _lastInputsChanges;
+
+	// Small per-neuron state, kept on the heap
+	private final double[][] _outputs;
+	private final double[][] _deltas;
+	private final double[] _inputs;
+
+	/**
+	 * It copies the topology, the options and the weights of the given
+	 * network into direct memory. The last input changes start at zero, and
+	 * the pruned weights of the network are not kept. Its random source is
+	 * split from the source of the network.
+	 * 
+	 * @param network the network to be copied
+	 * @throws IllegalArgumentException if the network uses an optimizer, a schedule or a batch trainer, or if its weights don't fit in a direct buffer
+	 */
+	public OffHeapPerceptron(MultilayerPerceptron network) {
+		this(checkSupported(network).getInputsLength(), getLayerSizes(network),
+				network.neuronType, network.minimize, network.use_bias,
+				network.initialization, network.bias_initialization,
+				network.getLearningFactor(), network.getInertiaValue(),
+				network.getRandomSource().split());
+
+		copyFrom(network);
+	}
+
+	/**
+	 * It builds the network of the given configuration in direct memory, with
+	 * random weights, like
+	 * {@link TrainingConfiguration#createNetwork(NetworkData, neuronType, errorToMinimize, RandomSource)}.
+	 * With the same random source both networks get the same weights.
+	 * 
+	 * @param configuration the topology, the learning factor, the inertia and the use of bias
+	 * @param data the data the network will be trained with, used to know the length of the inputs and the outputs
+	 * @param type the neuron type of the network
+	 * @param minimize the error minimized by the network
+	 * @param random the random source of the network
+	 * @throws IllegalArgumentException if random is null or if the weights don't fit in a direct buffer
+	 */
+	public OffHeapPerceptron(TrainingConfiguration configuration, NetworkData data,
+			neuronType type, errorToMinimize minimize, RandomSource random) {
+		this(data.inputs_length(), getLayerSizes(configuration, data), type, minimize,
+				configuration.getUseBias(), weightInitialization.UNIFORM,
+				biasInitialization.UNIFORM, configuration.getLearningFactor(),
+				configuration.getInertiaValue(), random);
+
+		setRandomInputs();
+	}
+
+	private OffHeapPerceptron(int inputsLength, int[] layerSizes, neuronType type,
+			errorToMinimize minimize, boolean useBias, weightInitialization initialization,
+			biasInitialization bias, double learningFactor, double inertia, RandomSource random) {
+		if (random == null) {
+			throw new IllegalArgumentException("source can't be null");
+		}
+
+		int layers = layerSizes.length;
+
+		_inputsLength = inputsLength;
+		_layerSizes = layerSizes;
+		_layerOffsets = new int[layers + 1];
+		_outputs = new double[layers][];
+		_deltas = new double[layers][];
+		_inputs = new double[_inputsLength];
+		_neuronType = type;
+		_minimize = minimize;
+		_useBias = useBias;
+		_initialization = initialization;
+		_biasInitialization = bias;
+		_learningFactor = learningFactor;
+		_inertia = inertia;
+		_random = random;
+
+		int fanIn = _inputsLength;
+		long weights = 0;
+
+		for (int l = 0; l < layers; l++) {
+			weights += (long) _layerSizes[l] * (fanIn + 1);
+
+			// Each buffer holds 8 bytes per weight and is indexed by an int
+			if (weights > MAX_WEIGHTS) {
+				throw new IllegalArgumentException("network has more than "
+						+ MAX_WEIGHTS + " weights, which don't fit in a direct buffer");
+			}
+
+			_layerOffsets[l + 1] = (int) weights;
+			_outputs[l] = new double[_layerSizes[l]];
+			_deltas[l] = new double[_layerSizes[l]];
+			fanIn = _layerSizes[l];
+		}
+
+		_numberOfWeights = _layerOffsets[layers];
+		_memory = new ByteBuffer[3];
+
+		for (int i = 0; i < _memory.length; i++) {
+			_memory[i] = ByteBuffer.allocateDirect(8 * _numberOfWeights)
+					.order(ByteOrder.nativeOrder());
+		}
+
+		_weights = _memory[0].asDoubleBuffer();
+		_inputsChanges = _memory[1].asDoubleBuffer();
+		_lastInputsChanges = _memory[2].asDoubleBuffer();
+	}
+
+	/**
+	 * It copies the weights of the given network, which must have the same
+	 * topology. The weights are copied neuron by neuron, without building an
+	 * array with all of them.
+	 * 
+	 * @param network the network to be copied
+	 * @throws IllegalArgumentException if the network has a different topology
+	 */
+	public void copyFrom(MultilayerPerceptron network) {
+		checkOpen();
+		checkTopology(network);
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			int layerIndex = (l < _layerSizes.length - 1) ? l : -1;
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				Neuron n = network.getNeuron(layerIndex, i);
+
+				for (int j = 0; j < n.inputs.size(); j++) {
+					_weights.put(row++, n.inputs.get(j));
+				}
+
+				_weights.put(row++, n.bias);
+			}
+		}
+	}
+
+	/**
+	 * It copies the weights into the given network, which must have the same
+	 * topology. The weights are copied neuron by neuron, without building an
+	 * array with all of them.
+	 * 
+	 * @param network the network that will receive the weights
+	 * @throws IllegalArgumentException if the network has a different topology
+	 */
+	public void copyTo(MultilayerPerceptron network) {
+		checkOpen();
+		checkTopology(network);
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			int layerIndex = (l < _layerSizes.length - 1) ? l : -1;
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				Neuron n = network.getNeuron(layerIndex, i);
+
+				for (int j = 0; j < n.inputs.size(); j++) {
+					n.inputs.set(j, _weights.get(row++));
+				}
+
+				n.bias = _weights.get(row++);
+			}
+		}
+	}
+
+	/**
+	 * It returns the number of weights of the network
+	 * 
+	 * @return the number of weights, including one bias per neuron
+	 */
+	public int getNumberOfWeights() {
+		return _numberOfWeights;
+	}
+
+	/**
+	 * It returns the weight stored at the given position
+	 * 
+	 * @param index the position of the weight, like in MultilayerPerceptron.getWeights()
+	 * @return the weight
+	 */
+	public double getWeight(int index) {
+		checkOpen();
+		return _weights.get(index);
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _neuronType == neuronType.SOFTMAX;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		checkOpen();
+		System.arraycopy(inputs, 0, _inputs, 0, _inputsLength);
+		spreadOut();
+		System.arraycopy(_outputs[_outputs.length - 1], 0, outputs, 0, outputs.length);
+
+		if (isSoftmax()) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It sets all weights at random, and the biases when the network uses
+	 * bias, with the initialization of the copied network.
+	 */
+	public void setRandomInputs() {
+		checkOpen();
+
+		int layers = _layerSizes.length;
+
+		for (int l = 0; l < layers; l++) {
+			int fanIn = (l == 0) ? _inputsLength : _layerSizes[l - 1];
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				for (int j = 0; j < fanIn; j++) {
+					_weights.put(row + j, MultilayerPerceptron.randomWeight(_random,
+							_initialization, fanIn, _layerSizes[l]));
+				}
+
+				if (_useBias) {
+					_weights.put(row + fanIn, MultilayerPerceptron.randomBias(_random,
+							_biasInitialization, _initialization, fanIn, _layerSizes[l]));
+				}
+
+				row += fanIn + 1;
+			}
+		}
+	}
+
+	/**
+	 * It sets the source of the random numbers used by setRandomInputs
+	 * 
+	 * @param source the new random source
+	 * @throws IllegalArgumentException if source is null
+	 */
+	public void setRandomSource(RandomSource source) {
+		if (source == null) {
+			throw new IllegalArgumentException("source can't be null");
+		}
+
+		_random = source;
+	}
+
+	/**
+	 * It makes an online back propagation over all patrons of data
+	 * 
+	 * @param data the data used to improve network's neurons
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void onlineBackpropagation(NetworkData data) {
+		checkOpen();
+
+		for (ArrayList<Double> input : data) {
+			clear(_inputsChanges);
+			backpropagate(input, data.get_output(input));
+			adjustWeights();
+		}
+	}
+
+	/**
+	 * It makes an offline back propagation: the changes of all patrons are
+	 * accumulated and the weights are adjusted once.
+	 * 
+	 * @param data the data used to improve network's neurons
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void offlineBackpropagation(NetworkData data) {
+		checkOpen();
+		clear(_inputsChanges);
+
+		for (ArrayList<Double> input : data) {
+			backpropagate(input, data.get_output(input));
+		}
+
+		adjustWeights();
+	}
+
+	/**
+	 * It trains the network like
+	 * {@link MultilayerPerceptron#trainByBackpropagation(NetworkData, int, double, boolean, Consumer)}
+	 * 
+	 * @param trainData data to be used in the training process
+	 * @param maxiter max number of iterations in the training process
+	 * @param minimumImprovement minimum improvement to continue the training
+	 * @param offlineBackpropagation indicate if use an online back propagation or not
+	 * @param trainListener a Consumer that receives current training error
+	 * @throws IllegalArgumentException if desiredOutput's length in data is not equal to the length of the output layer
+	 */
+	public void trainByBackpropagation(NetworkData trainData, int maxiter,
+			double minimumImprovement, boolean offlineBackpropagation,
+			Consumer<Double> trainListener) {
+		setRandomInputs();
+
+		for (int i = 0; i < maxiter; i++) {
+			double startError = getError(trainData);
+
+			if (offlineBackpropagation) {
+				offlineBackpropagation(trainData);
+			} else {
+				onlineBackpropagation(trainData);
+			}
+
+			double endError = getError(trainData);
+
+			trainListener.accept(endError);
+
+			if (Math.abs(endError - startError) < minimumImprovement) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * It returns the entropy of the given data
+	 * 
+	 * @param data a NetworkData with all patrons to be tested
+	 * @return the entropy of the given data
+	 */
+	public double getEntropy(NetworkData data) {
+		checkOpen();
+
+		double entropy = 0;
+		double[] outputs = _outputs[_outputs.length - 1];
+		double[] normalized = new double[outputs.length];
+
+		for (ArrayList<Double> input : data) {
+			ArrayList<Double> expected = data.get_output(input);
+			Predictors.copy(input, _inputs);
+			spreadOut();
+			System.arraycopy(outputs, 0, normalized, 0, outputs.length);
+
+			if (isSoftmax()) {
+				Predictors.applySoftmax(normalized);
+			}
+
+			for (int i = 0; i < normalized.length; i++) {
+				if (normalized[i] != 0D) {
+					entropy += expected.get(i) * Math.log(normalized[i]);
+				}
+			}
+		}
+
+		return -entropy / (data.patrons_length() * data.outputs_length());
+	}
+
+	/**
+	 * It frees the direct memory. The network can't be used after this.
+	 */
+	@Override
+	public void close() {
+		if (_memory == null) {
+			return;
+		}
+
+		for (ByteBuffer buffer : _memory) {
+			free(buffer);
+		}
+
+		_memory = null;
+		_weights = null;
+		_inputsChanges = null;
+		_lastInputsChanges = null;
+	}
+
+	/**
+	 * It checks if the memory was freed
+	 * 
+	 * @return true if close was called
+	 */
+	public boolean isClosed() {
+		return _memory == null;
+	}
+
+	private double getError(NetworkData data) {
+		if (_minimize == errorToMinimize.MSE) {
+			return getMeanSquaredError(data);
+		}
+
+		return getEntropy(data);
+	}
+
+	/**
+	 * It checks that the given network has the layers of this one and the
+	 * same number of inputs
+	 */
+	private void checkTopology(MultilayerPerceptron network) {
+		boolean same = network.getNumberOfHiddenLayers() + 1 == _layerSizes.length
+				&& network.getInputsLength() == _inputsLength;
+
+		for (int l = 0; same && l < _layerSizes.length; l++) {
+			same = network.getLayerSize((l < _layerSizes.length - 1) ? l : -1) == _layerSizes[l];
+		}
+
+		if (!same) {
+			throw new IllegalArgumentException("network must have "
+					+ _numberOfWeights + " weights in the same layers");
+		}
+	}
+
+	private static MultilayerPerceptron checkSupported(MultilayerPerceptron network) {
+		if (network.getOptimizer() != null || network.getLearningRateSchedule() != null
+				|| network.getBatchTrainer() != null) {
+			throw new IllegalArgumentException(
+					"optimizers, schedules and batch trainers are not supported off heap");
+		}
+
+		return network;
+	}
+
+	private static int[] getLayerSizes(MultilayerPerceptron network) {
+		int layers = network.getNumberOfHiddenLayers() + 1;
+		int[] sizes = new int[layers];
+
+		for (int l = 0; l < layers; l++) {
+			sizes[l] = network.getLayerSize((l < layers - 1) ? l : -1);
+		}
+
+		return sizes;
+	}
+
+	private static int[] getLayerSizes(TrainingConfiguration configuration, NetworkData data) {
+		int[] sizes = new int[configuration.getHiddenLayers() + 1];
+
+		Arrays.fill(sizes, configuration.getHiddenNeurons());
+		sizes[sizes.length - 1] = data.outputs_length();
+
+		return sizes;
+	}
+
+	private void checkOpen() {
+		if (_memory == null) {
+			throw new IllegalStateException("the network was closed");
+		}
+	}
+
+	/**
+	 * It spread out _inputs to the output layer
+	 */
+	private void spreadOut() {
+		double[] source = _inputs;
+
+		for (int l = 0; l < _layerSizes.length; l++) {
+			double[] target = _outputs[l];
+			int fanIn = source.length;
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < target.length; i++) {
+				double acc = 0;
+
+				for (int j = 0; j < fanIn; j++) {
+					acc += source[j] * _weights.get(row + j);
+				}
+
+				if (_useBias) {
+					acc += _weights.get(row + fanIn);
+				}
+
+				target[i] = Predictors.sigmoid(acc);
+				row += fanIn + 1;
+			}
+
+			source = target;
+		}
+	}
+
+	/**
+	 * It spreads out a patron, computes the deltas of all neurons and adds
+	 * the changes of the patron to the input changes.
+	 */
+	private void backpropagate(ArrayList<Double> input, ArrayList<Double> desired) {
+		int last = _layerSizes.length - 1;
+
+		if (desired.size() != _layerSizes[last]) {
+			throw new IllegalArgumentException("size of desired outputs must be "
+					+ _layerSizes[last] + " but is " + desired.size());
+		}
+
+		Predictors.copy(input, _inputs);
+		spreadOut();
+		updateOutputDeltas(desired);
+
+		for (int l = last - 1; l >= 0; l--) {
+			double[] next = _deltas[l + 1];
+			int fanIn = _layerSizes[l];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				double delta = 0;
+				int weight = _layerOffsets[l + 1] + i;
+
+				for (int k = 0; k < next.length; k++) {
+					delta += next[k] * _weights.get(weight);
+					weight += fanIn + 1;
+				}
+
+				double output = _outputs[l][i];
+				_deltas[l][i] = delta * output * (1 - output);
+			}
+		}
+
+		for (int l = 0; l <= last; l++) {
+			double[] source = (l == 0) ? _inputs : _outputs[l - 1];
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				double delta = _deltas[l][i];
+
+				for (int j = 0; j < source.length; j++) {
+					_inputsChanges.put(row + j, _inputsChanges.get(row + j) + delta * source[j]);
+				}
+
+				if (_useBias) {
+					_inputsChanges.put(row + source.length,
+							_inputsChanges.get(row + source.length) + delta);
+				}
+
+				row += source.length + 1;
+			}
+		}
+	}
+
+	/**
+	 * It computes the deltas of the output layer like MultilayerPerceptron
+	 */
+	private void updateOutputDeltas(ArrayList<Double> desired) {
+		double[] outputs = _outputs[_outputs.length - 1];
+		double[] deltas = _deltas[_deltas.length - 1];
+
+		if (!isSoftmax()) {
+			for (int i = 0; i < outputs.length; i++) {
+				double o = outputs[i];
+
+				if (_minimize == errorToMinimize.MSE) {
+					deltas[i] = -(desired.get(i) - o) * o * (1 - o);
+				} else if (o != 0) {
+					deltas[i] = -(desired.get(i) / o) * o * (1 - o);
+				} else {
+					deltas[i] = Double.MIN_NORMAL;
+				}
+			}
+
+			return;
+		}
+
+		double sum = 0;
+
+		for (double o : outputs) {
+			sum += o;
+		}
+
+		for (int j = 0; j < outputs.length; j++) {
+			double oj = outputs[j] / sum;
+			double delta = 0;
+
+			for (int i = 0; i < outputs.length; i++) {
+				double oi = outputs[i] / sum;
+				double deltaInterno;
+
+				if (_minimize == errorToMinimize.MSE) {
+					deltaInterno = desired.get(i) - oi;
+				} else if (oi != 0D) {
+					deltaInterno = desired.get(i) / oi;
+				} else {
+					deltaInterno = Double.MIN_NORMAL;
+				}
+
+				deltaInterno *= oj;
+
+				if (i == j) {
+					deltaInterno *= (1 - oi);
+				} else {
+					deltaInterno *= oi;
+					deltaInterno *= -1;
+				}
+
+				delta += deltaInterno;
+			}
+
+			deltas[j] = -1 * delta;
+		}
+	}
+
+	/**
+	 * It adjusts the weights with the input changes and the last input
+	 * changes, and then the input changes become the last input changes.
+	 */
+	private void adjustWeights() {
+		int layers = _layerSizes.length;
+
+		for (int l = 0; l < layers; l++) {
+			int fanIn = (l == 0) ? _inputsLength : _layerSizes[l - 1];
+			int row = _layerOffsets[l];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				int length = _useBias ? fanIn + 1 : fanIn;
+
+				for (int j = 0; j < length; j++) {
+					int index = row + j;
+					double current = _weights.get(index);
+					current -= _learningFactor * _inputsChanges.get(index);
+					current -= _learningFactor * _inertia * _lastInputsChanges.get(index);
+					_weights.put(index, current);
+				}
+
+				row += fanIn + 1;
+			}
+		}
+
+		_lastInputsChanges.put(_inputsChanges.duplicate());
+		_lastInputsChanges.rewind();
+	}
+
+	private static void clear(DoubleBuffer buffer) {
+		for (int i = 0; i < buffer.capacity(); i++) {
+			buffer.put(i, 0);
+		}
+	}
+
+	/**
+	 * It frees a direct buffer without waiting for the garbage collector.
+	 * Java 9 and later expose Unsafe.invokeCleaner, and Java 8 has a cleaner
+	 * inside each direct buffer. If none of them works, the buffer will be
+	 * freed by the garbage collector.
+	 */
+	private static void free(ByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			invokeCleaner.invoke(field.get(null), buffer);
+			return;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Not available before Java 9
+		}
+
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer);
+			cleaner.getClass().getMethod("clean").invoke(cleaner);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// The garbage collector will free it
+		}
+	}
+}
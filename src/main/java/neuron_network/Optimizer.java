@@ -0,0 +1,78 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * An Optimizer decides how the weights change from the gradient of the error
+ * after each backpropagation.
+ * 
+ * <p>
+ * The weights and the gradient are given as flat arrays sorted like
+ * {@link MultilayerPerceptron#getWeights()}. The optimizer keeps its own state
+ * for each weight in arrays of the same length, so it doesn't allocate memory
+ * in each update. An Optimizer is not thread safe: each network needs its own
+ * instance, that can be made with copy.
+ * </p>
+ * 
+ * @version 1.0
+ * @see MultilayerPerceptron#setOptimizer(Optimizer)
+ */
+public interface Optimizer {
+
+	/**
+	 * It forgets the state and prepares it for a network with the given
+	 * number of weights
+	 * 
+	 * @param numberOfWeights the number of weights of the network
+	 */
+	public void initialize(int numberOfWeights);
+
+	/**
+	 * It changes the weights following the gradient. If the optimizer wasn't
+	 * initialized for this number of weights, it is initialized first.
+	 * 
+	 * @param weights the weights to be changed
+	 * @param gradient the derivative of the error for each weight
+	 * @param learningFactor the learning factor of the network
+	 */
+	public void update(double[] weights, double[] gradient, double learningFactor);
+
+	/**
+	 * It creates a new optimizer with the same params and an empty state
+	 * 
+	 * @return a new optimizer
+	 */
+	public Optimizer copy();
+
+	/**
+	 * It returns the state of the optimizer. Its layout depends on the
+	 * optimizer: the state of an optimizer that wasn't used yet has no values
+	 * per weight, but it can still have others, like the step counter of Adam.
+	 * 
+	 * @return a copy of the state, which can be given to setState
+	 */
+	public double[] getState();
+
+	/**
+	 * It restores a state returned by getState
+	 * 
+	 * @param state a state returned by getState
+	 * @throws IllegalArgumentException if the state is not valid for this optimizer
+	 */
+	public void setState(double[] state);
+}
@@ -0,0 +1,164 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+/**
+ * A ParallelGradient computes the error and the gradient of a network over a
+ * data set using several threads.
+ * 
+ * <p>
+ * The data is split in parts, and each part is evaluated by a copy of the
+ * network in the common fork join pool. The partial gradients are added in
+ * the order of the parts, so the result doesn't depend on the scheduling of
+ * the threads. The copies and the parts are built once and reused while the
+ * network and the data are the same.
+ * </p>
+ * 
+ * <p>
+ * Unlike {@link MultilayerPerceptron#computeGradient(NetworkData, double[])},
+ * the gradient is scaled to be the exact derivative of the returned error, so
+ * both can be used together by a line search.
+ * </p>
+ * 
+ * @version 1.0
+ */
+final class ParallelGradient {
+	private final int _parts;
+	private MultilayerPerceptron _network;
+	private NetworkData _data;
+	private ArrayList<NetworkData> _split;
+	private MultilayerPerceptron[] _workers;
+	private double[][] _gradients;
+	private double[] _errors;
+	private double[] _scratch;
+
+	/**
+	 * It creates an evaluator that splits the data in the given number of
+	 * parts
+	 * 
+	 * @param parts the number of parts, usually the number of processors
+	 * @throws IllegalArgumentException if parts is lower than 1
+	 */
+	ParallelGradient(int parts) {
+		if (parts < 1) {
+			throw new IllegalArgumentException("parts must be at least 1 but is " + parts);
+		}
+
+		_parts = parts;
+	}
+
+	/**
+	 * It computes the error and the gradient of the network with the given
+	 * weights. The weights of the network are not changed.
+	 * 
+	 * @param network the network to evaluate
+	 * @param data the data used to compute the error
+	 * @param weights the weights to evaluate, sorted like getWeights
+	 * @param gradient an array of the same length where the gradient is stored
+	 * @return the error at weights
+	 */
+	double compute(MultilayerPerceptron network, NetworkData data, double[] weights, double[] gradient) {
+		prepare(network, data);
+
+		if (_workers.length == 1) {
+			_errors[0] = evaluate(0, weights);
+		} else {
+			IntStream.range(0, _workers.length).parallel().forEach(i -> _errors[i] = evaluate(i, weights));
+		}
+
+		double scale = 1D / (data.patrons_length() * data.outputs_length());
+
+		if (network.minimize.equals(MultilayerPerceptron.errorToMinimize.MSE)) {
+			scale *= 2;
+		}
+
+		double error = 0;
+		System.arraycopy(_gradients[0], 0, gradient, 0, gradient.length);
+
+		for (int i = 1; i < _workers.length; i++) {
+			double[] partial = _gradients[i];
+
+			for (int j = 0; j < gradient.length; j++) {
+				gradient[j] += partial[j];
+			}
+		}
+
+		for (int j = 0; j < gradient.length; j++) {
+			gradient[j] *= scale;
+		}
+
+		for (int i = 0; i < _workers.length; i++) {
+			error += _errors[i] * _split.get(i).patrons_length();
+		}
+
+		return error / data.patrons_length();
+	}
+
+	/**
+	 * It computes the error of the network with the given weights, without
+	 * the gradient
+	 * 
+	 * @param network the network to evaluate
+	 * @param data the data used to compute the error
+	 * @param weights the weights to evaluate, sorted like getWeights
+	 * @return the error at weights
+	 */
+	double compute(MultilayerPerceptron network, NetworkData data, double[] weights) {
+		if (_scratch == null || _scratch.length != weights.length) {
+			_scratch = new double[weights.length];
+		}
+
+		return compute(network, data, weights, _scratch);
+	}
+
+	private double evaluate(int part, double[] weights) {
+		MultilayerPerceptron worker = _workers[part];
+
+		worker.setWeights(weights);
+		return worker.computeGradient(_split.get(part), _gradients[part]);
+	}
+
+	private void prepare(MultilayerPerceptron network, NetworkData data) {
+		if (_network == null || network != _network || data != _data
+				|| _gradients[0].length != network.getNumberOfWeights()) {
+			_network = network;
+			_data = data;
+			_split = data.split(_parts);
+			_workers = new MultilayerPerceptron[_split.size()];
+			_gradients = new double[_split.size()][network.getNumberOfWeights()];
+			_errors = new double[_split.size()];
+
+			// The workers never use random numbers, so the random source of
+			// the network is not split and it doesn't advance
+			for (int i = 0; i < _workers.length; i++) {
+				_workers[i] = network.copy(new SplitMixRandom(i));
+			}
+		}
+
+		for (MultilayerPerceptron worker : _workers) {
+			worker.neuronType = network.neuronType;
+			worker.minimize = network.minimize;
+			worker.use_bias = network.use_bias;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.ArrayList;
+
+/**
+ * A Predictor is anything able to spread out an input vector up to an output
+ * vector. The MultilayerPerceptron is the reference predictor, and the rest of
+ * engines (float precision, quantized, sparse...) are built from a trained
+ * MultilayerPerceptron.
+ * 
+ * <p>
+ * Unless the implementation says the opposite, a Predictor is immutable and it
+ * can be shared between threads. MultilayerPerceptron is not thread safe,
+ * because it stores the last input and output inside the network.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public interface Predictor {
+
+	/**
+	 * It returns the number of inputs expected by the predictor
+	 * 
+	 * @return the length of each input vector
+	 */
+	public int getInputsLength();
+
+	/**
+	 * It returns the number of neurons in the output layer.
+	 * 
+	 * @return the length of each output vector
+	 */
+	public int getOutputLayerSize();
+
+	/**
+	 * Check if the predictor normalizes its outputs with a softmax
+	 * 
+	 * @return true when it is a softmax predictor, false otherwise
+	 */
+	public boolean isSoftmax();
+
+	/**
+	 * It spread out the given inputs and stores the result in outputs. When
+	 * the predictor is a softmax predictor the outputs are already normalized.
+	 * 
+	 * @param inputs the inputs of the network. Its length must be getInputsLength()
+	 * @param outputs the array where the outputs will be stored. Its length must be getOutputLayerSize()
+	 */
+	public void predict(double[] inputs, double[] outputs);
+
+	/**
+	 * It predicts a batch of patrons. The inputs of the patrons are stored
+	 * one after another in inputs, and the outputs are stored in the same
+	 * way in outputs. Each patron gets the same outputs than with
+	 * predict(double[], double[]).
+	 * 
+	 * @param inputs the inputs of the patrons. Its length must be at least patrons * getInputsLength()
+	 * @param outputs the array where the outputs will be stored. Its length must be at least patrons * getOutputLayerSize()
+	 * @param patrons the number of patrons in the batch
+	 */
+	public default void predict(double[] inputs, double[] outputs, int patrons) {
+		int inputsLength = getInputsLength();
+		int outputsLength = getOutputLayerSize();
+		double[] input = new double[inputsLength];
+		double[] output = new double[outputsLength];
+
+		for (int p = 0; p < patrons; p++) {
+			System.arraycopy(inputs, p * inputsLength, input, 0, inputsLength);
+			predict(input, output);
+			System.arraycopy(output, 0, outputs, p * outputsLength, outputsLength);
+		}
+	}
+
+	/**
+	 * It returns the mean of the MSE of each patron in data. It follows the
+	 * same rules than MultilayerPerceptron, so softmax predictors apply the
+	 * prediction before measure the error.
+	 * 
+	 * @param data a NetworkData with all patrons to be tested
+	 * @return the mean of all MSE of all patrons.
+	 */
+	public default double getMeanSquaredError(NetworkData data) {
+		double[] inputs = new double[getInputsLength()];
+		double[] outputs = new double[getOutputLayerSize()];
+		double mse = 0;
+
+		for (ArrayList<Double> input : data) {
+			Predictors.copy(input, inputs);
+			predict(inputs, outputs);
+
+			if (isSoftmax()) {
+				Predictors.applyPrediction(outputs);
+			}
+
+			mse += Predictors.meanSquaredError(outputs, data.get_output(input));
+		}
+
+		return mse / data.patrons_length();
+	}
+
+	/**
+	 * It returns CCR measure to the given data
+	 * 
+	 * @param data a NetworkData used to test the predictor
+	 * @return the CCR measure
+	 */
+	public default double getCCR(NetworkData data) {
+		double[] inputs = new double[getInputsLength()];
+		double[] outputs = new double[getOutputLayerSize()];
+		double result = 0;
+
+		for (ArrayList<Double> input : data) {
+			Predictors.copy(input, inputs);
+			predict(inputs, outputs);
+
+			if (isSoftmax()) {
+				Predictors.applyPrediction(outputs);
+			}
+
+			if (Predictors.sameOutputs(outputs, data.get_output(input))) {
+				result++;
+			}
+		}
+
+		return result / data.patrons_length();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.ArrayList;
+
+/**
+ * Helpers shared by the Predictor implementations. They work over primitive
+ * arrays and reproduce the same operations that MultilayerPerceptron makes
+ * over its output layer.
+ */
+final class Predictors {
+
+	private Predictors() {
+	}
+
+	/**
+	 * It copies a list of values into an array of the same length
+	 * 
+	 * @param source the list to be copied
+	 * @param destination the array where the values will be stored
+	 */
+	static void copy(ArrayList<Double> source, double[] destination) {
+		for (int i = 0; i < destination.length; i++) {
+			destination[i] = source.get(i);
+		}
+	}
+
+	/**
+	 * The sigmoid function used by all neurons
+	 * 
+	 * @param acc the weighted sum of the neuron
+	 * @return the output of the neuron
+	 */
+	static double sigmoid(double acc) {
+		return 1 / (1 + Math.exp(-1 * acc));
+	}
+
+	/**
+	 * It divides each output by the sum of all outputs
+	 * 
+	 * @param outputs the outputs to be normalized
+	 */
+	static void applySoftmax(double[] outputs) {
+		double sum = 0;
+
+		for (double v : outputs) {
+			sum += v;
+		}
+
+		for (int i = 0; i < outputs.length; i++) {
+			outputs[i] /= sum;
+		}
+	}
+
+	/**
+	 * It puts an 1 to the max value in the outputs and 0 in all rest values
+	 * 
+	 * @param outputs the outputs to be changed
+	 */
+	static void applyPrediction(double[] outputs) {
+		int bestIndex = Integer.MIN_VALUE;
+		double bestValue = Double.MIN_VALUE;
+
+		for (int i = 0; i < outputs.length; i++) {
+			if (outputs[i] > bestValue) {
+				bestValue = outputs[i];
+				bestIndex = i;
+			}
+		}
+
+		for (int i = 0; i < outputs.length; i++) {
+			outputs[i] = (i == bestIndex) ? 1D : 0D;
+		}
+	}
+
+	/**
+	 * It returns the MSE between the outputs and the desired outputs
+	 * 
+	 * @param outputs the outputs of a predictor
+	 * @param desired the desired outputs
+	 * @return the mean squared error
+	 */
+	static double meanSquaredError(double[] outputs, ArrayList<Double> desired) {
+		double acc = 0;
+
+		for (int i = 0; i < outputs.length; i++) {
+			acc += Math.pow(outputs[i] - desired.get(i), 2);
+		}
+
+		return acc / outputs.length;
+	}
+
+	/**
+	 * It checks if the outputs are exactly the desired outputs
+	 * 
+	 * @param outputs the outputs of a predictor
+	 * @param desired the desired outputs
+	 * @return true when both outputs are equal
+	 */
+	static boolean sameOutputs(double[] outputs, ArrayList<Double> desired) {
+		for (int i = 0; i < outputs.length; i++) {
+			if (!desired.get(i).equals(outputs[i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
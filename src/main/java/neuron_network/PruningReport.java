@@ -0,0 +1,73 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+/**
+ * It stores the sparsity reached by a pruned network, the time spent by the
+ * dense and the sparse engines over the same data, and the CCR of both.
+ * 
+ * @see SparsePerceptron#compareWith(Predictor, NetworkData)
+ */
+public class PruningReport {
+	public final double sparsity;
+	public final long denseNanos;
+	public final long sparseNanos;
+	public final double denseCCR;
+	public final double sparseCCR;
+
+	public PruningReport(double sparsity, long denseNanos, long sparseNanos,
+			double denseCCR, double sparseCCR) {
+		this.sparsity = sparsity;
+		this.denseNanos = denseNanos;
+		this.sparseNanos = sparseNanos;
+		this.denseCCR = denseCCR;
+		this.sparseCCR = sparseCCR;
+	}
+
+	/**
+	 * It returns how many times the sparse engine is faster than the dense one
+	 * 
+	 * @return the dense time divided by the sparse time
+	 */
+	public double getSpeedup() {
+		return (double) denseNanos / Math.max(1, sparseNanos);
+	}
+
+	/**
+	 * It returns how much the CCR changes after the pruning
+	 * 
+	 * @return the sparse CCR minus the dense CCR
+	 */
+	public double getCCRDrift() {
+		return sparseCCR - denseCCR;
+	}
+
+	@Override
+	public String toString() {
+		String report = "";
+
+		report += "Sparsity: " + (sparsity * 100) + " %\n";
+		report += "Speedup: " + getSpeedup() + "x (" + denseNanos + " ns -> "
+				+ sparseNanos + " ns)\n";
+		report += "CCR: " + denseCCR + " -> " + sparseCCR + " (drift "
+				+ getCCRDrift() + ")\n";
+
+		return report;
+	}
+}
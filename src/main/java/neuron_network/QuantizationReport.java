@@ -0,0 +1,70 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+/**
+ * It stores the CCR and MSE of a float model and of its quantized version
+ * over the same data.
+ * 
+ * @see QuantizedPerceptron#compareWith(MultilayerPerceptron, NetworkData)
+ */
+public class QuantizationReport {
+	public final double floatCCR;
+	public final double floatMSE;
+	public final double quantizedCCR;
+	public final double quantizedMSE;
+
+	public QuantizationReport(double floatCCR, double floatMSE,
+			double quantizedCCR, double quantizedMSE) {
+		this.floatCCR = floatCCR;
+		this.floatMSE = floatMSE;
+		this.quantizedCCR = quantizedCCR;
+		this.quantizedMSE = quantizedMSE;
+	}
+
+	/**
+	 * It returns how much the CCR changes after the quantization
+	 * 
+	 * @return the quantized CCR minus the float CCR
+	 */
+	public double getCCRDrift() {
+		return quantizedCCR - floatCCR;
+	}
+
+	/**
+	 * It returns how much the MSE changes after the quantization
+	 * 
+	 * @return the quantized MSE minus the float MSE
+	 */
+	public double getMSEDrift() {
+		return quantizedMSE - floatMSE;
+	}
+
+	@Override
+	public String toString() {
+		String report = "";
+
+		report += "CCR: " + floatCCR + " -> " + quantizedCCR + " (drift "
+				+ getCCRDrift() + ")\n";
+		report += "MSE: " + floatMSE + " -> " + quantizedMSE + " (drift "
+				+ getMSEDrift() + ")\n";
+
+		return report;
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.ArrayList;
+
+/**
+ * The QuantizedPerceptron is an int8 inference engine built from a trained
+ * MultilayerPerceptron.
+ * 
+ * <p>
+ * Each row of weights (the inputs of one neuron) is quantized to bytes with its
+ * own scale factor: the biggest weight of the row, in absolute value, is mapped
+ * to 127. The biases are kept as floats.
+ * </p>
+ * 
+ * <p>
+ * Optionally the activations can be quantized too. Then the engine needs a
+ * calibration sample to know the range of the inputs of each layer, and each
+ * dot product is computed with integers and rescaled to float before the
+ * sigmoid. When the activations are not quantized the dot product multiplies
+ * the byte weights by the float activations.
+ * </p>
+ * 
+ * <p>
+ * The engine is immutable, so it can be shared between threads.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class QuantizedPerceptron implements Predictor {
+	private static final int MAX_LEVEL = 127;
+
+	private final int _inputsLength;
+	private final int[] _layerSizes;
+	private final byte[][] _weights;
+	private final float[][] _weightScales;
+	private final float[][] _biases;
+	private final float[] _activationScales;
+	private final boolean _quantizeActivations;
+	private final boolean _softmax;
+	private final int _maxLayerSize;
+
+	/**
+	 * It builds an engine that only quantizes the weights.
+	 * 
+	 * @param network the trained network
+	 */
+	public QuantizedPerceptron(MultilayerPerceptron network) {
+		this(network, null, false);
+	}
+
+	/**
+	 * It builds an int8 engine from the given network.
+	 * 
+	 * @param network the trained network
+	 * @param calibration a sample of inputs used to find the range of the activations. It can be null if the activations are not quantized
+	 * @param quantizeActivations if true the activations are quantized too
+	 * @throws IllegalArgumentException if the activations are quantized without a calibration sample
+	 */
+	public QuantizedPerceptron(MultilayerPerceptron network,
+			NetworkData calibration, boolean quantizeActivations) {
+		if (quantizeActivations
+				&& (calibration == null || calibration.patrons_length() == 0)) {
+			throw new IllegalArgumentException(
+					"a calibration sample is needed to quantize the activations");
+		}
+
+		int layers = network.getNumberOfHiddenLayers() + 1;
+		double[][] weights = new double[layers][];
+		double[][] biases = new double[layers][];
+
+		_inputsLength = network.getInputsLength();
+		_layerSizes = new int[layers];
+		_weights = new byte[layers][];
+		_weightScales = new float[layers][];
+		_biases = new float[layers][];
+		_softmax = network.isSoftmax();
+		_quantizeActivations = quantizeActivations;
+
+		int maxLayerSize = _inputsLength;
+
+		for (int l = 0; l < layers; l++) {
+			int layerIndex = (l < layers - 1) ? l : -1;
+
+			_layerSizes[l] = network.getLayerSize(layerIndex);
+			weights[l] = network.getLayerWeights(layerIndex);
+			biases[l] = network.getLayerBiases(layerIndex);
+			maxLayerSize = Math.max(maxLayerSize, _layerSizes[l]);
+
+			quantizeLayer(l, weights[l]);
+
+			_biases[l] = new float[_layerSizes[l]];
+
+			for (int i = 0; i < _layerSizes[l]; i++) {
+				_biases[l][i] = (float) biases[l][i];
+			}
+		}
+
+		_maxLayerSize = maxLayerSize;
+
+		if (quantizeActivations) {
+			_activationScales = calibrate(weights, biases, calibration);
+		} else {
+			_activationScales = null;
+		}
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _softmax;
+	}
+
+	/**
+	 * It checks if the activations are quantized
+	 * 
+	 * @return true when the dot products are computed with integers
+	 */
+	public boolean quantizesActivations() {
+		return _quantizeActivations;
+	}
+
+	/**
+	 * It returns the number of bytes used to store the weights, their scale
+	 * factors and the biases.
+	 * 
+	 * @return the size of the parameters of the engine in bytes
+	 */
+	public long getWeightsSizeInBytes() {
+		long size = 0;
+
+		for (int l = 0; l < _weights.length; l++) {
+			size += _weights[l].length;
+			size += 4L * _weightScales[l].length;
+			size += 4L * _biases[l].length;
+		}
+
+		return size;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		float[] current = new float[_maxLayerSize];
+		float[] next = new float[_maxLayerSize];
+		byte[] quantized = _quantizeActivations ? new byte[_maxLayerSize] : null;
+		int currentSize = _inputsLength;
+
+		for (int i = 0; i < _inputsLength; i++) {
+			current[i] = (float) inputs[i];
+		}
+
+		for (int l = 0; l < _weights.length; l++) {
+			byte[] w = _weights[l];
+			float[] scales = _weightScales[l];
+			float[] b = _biases[l];
+			int neurons = _layerSizes[l];
+
+			if (_quantizeActivations) {
+				float scale = _activationScales[l];
+
+				for (int j = 0; j < currentSize; j++) {
+					quantized[j] = quantize(current[j], scale);
+				}
+
+				for (int i = 0; i < neurons; i++) {
+					int row = i * currentSize;
+					int acc = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						acc += w[row + j] * quantized[j];
+					}
+
+					next[i] = (float) Predictors.sigmoid(acc * scales[i] * scale + b[i]);
+				}
+			} else {
+				for (int i = 0; i < neurons; i++) {
+					int row = i * currentSize;
+					float acc = 0;
+
+					for (int j = 0; j < currentSize; j++) {
+						acc += w[row + j] * current[j];
+					}
+
+					next[i] = (float) Predictors.sigmoid(acc * scales[i] + b[i]);
+				}
+			}
+
+			float[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		for (int i = 0; i < currentSize; i++) {
+			outputs[i] = current[i];
+		}
+
+		if (_softmax) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It compares this engine with the network used to build it.
+	 * 
+	 * @param network the float model
+	 * @param data the data used to measure both models
+	 * @return a report with the CCR and MSE of both models
+	 */
+	public QuantizationReport compareWith(MultilayerPerceptron network, NetworkData data) {
+		return new QuantizationReport(network.getCCR(data),
+				network.getMeanSquaredError(data), getCCR(data),
+				getMeanSquaredError(data));
+	}
+
+	/**
+	 * It quantizes the rows of a layer with one scale factor per row
+	 * 
+	 * @param layer the index of the layer inside the engine
+	 * @param weights the row-major weights of the layer
+	 */
+	private void quantizeLayer(int layer, double[] weights) {
+		int neurons = _layerSizes[layer];
+		int fanIn = weights.length / neurons;
+
+		_weights[layer] = new byte[weights.length];
+		_weightScales[layer] = new float[neurons];
+
+		for (int i = 0; i < neurons; i++) {
+			double max = 0;
+
+			for (int j = 0; j < fanIn; j++) {
+				max = Math.max(max, Math.abs(weights[i * fanIn + j]));
+			}
+
+			float scale = (max > 0) ? (float) (max / MAX_LEVEL) : 1F;
+			_weightScales[layer][i] = scale;
+
+			for (int j = 0; j < fanIn; j++) {
+				_weights[layer][i * fanIn + j] = quantize(weights[i * fanIn + j], scale);
+			}
+		}
+	}
+
+	/**
+	 * It spread out the calibration sample with the double weights and
+	 * returns, for each layer, the scale that maps its biggest input to 127.
+	 * 
+	 * @param weights the row-major weights of each layer
+	 * @param biases the biases of each layer
+	 * @param calibration the calibration sample
+	 * @return the scale factor of the inputs of each layer
+	 */
+	private float[] calibrate(double[][] weights, double[][] biases, NetworkData calibration) {
+		double[] max = new double[_weights.length];
+		double[] current = new double[_maxLayerSize];
+		double[] next = new double[_maxLayerSize];
+
+		for (ArrayList<Double> input : calibration) {
+			int currentSize = _inputsLength;
+
+			for (int j = 0; j < currentSize; j++) {
+				current[j] = input.get(j);
+			}
+
+			for (int l = 0; l < _weights.length; l++) {
+				for (int j = 0; j < currentSize; j++) {
+					max[l] = Math.max(max[l], Math.abs(current[j]));
+				}
+
+				for (int i = 0; i < _layerSizes[l]; i++) {
+					double acc = biases[l][i];
+
+					for (int j = 0; j < currentSize; j++) {
+						acc += weights[l][i * currentSize + j] * current[j];
+					}
+
+					next[i] = Predictors.sigmoid(acc);
+				}
+
+				double[] swap = current;
+				current = next;
+				next = swap;
+				currentSize = _layerSizes[l];
+			}
+		}
+
+		float[] scales = new float[max.length];
+
+		for (int l = 0; l < max.length; l++) {
+			scales[l] = (max[l] > 0) ? (float) (max[l] / MAX_LEVEL) : 1F;
+		}
+
+		return scales;
+	}
+
+	/**
+	 * It rounds a value to the nearest level of the given scale
+	 * 
+	 * @param value the value to be quantized
+	 * @param scale the size of each level
+	 * @return the level clamped between -127 and 127
+	 */
+	private static byte quantize(double value, float scale) {
+		long level = Math.round(value / scale);
+
+		if (level > MAX_LEVEL) {
+			level = MAX_LEVEL;
+		} else if (level < -MAX_LEVEL) {
+			level = -MAX_LEVEL;
+		}
+
+		return (byte) level;
+	}
+}
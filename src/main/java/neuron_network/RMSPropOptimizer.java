@@ -0,0 +1,103 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+import java.util.Arrays;
+
+/**
+ * The RMSProp optimizer. It divides the gradient of each weight by a moving
+ * average of its magnitude, so all weights learn at a similar speed:
+ * 
+ * <pre>
+ * s = decay * s + (1 - decay) * g * g
+ * w = w - learningFactor * g / (sqrt(s) + epsilon)
+ * </pre>
+ * 
+ * @version 1.0
+ */
+public class RMSPropOptimizer implements Optimizer {
+	private final double _decay;
+	private final double _epsilon;
+	private double[] _squares;
+
+	/**
+	 * It creates an optimizer with a decay of 0.9 and an epsilon of 1e-8
+	 */
+	public RMSPropOptimizer() {
+		this(0.9, 1e-8);
+	}
+
+	/**
+	 * It creates an optimizer with the given params
+	 * 
+	 * @param decay the decay of the moving average, between 0 (inclusive) and 1 (exclusive)
+	 * @param epsilon a positive value that avoids divisions by zero
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public RMSPropOptimizer(double decay, double epsilon) {
+		if (decay < 0 || decay >= 1) {
+			throw new IllegalArgumentException("decay must be between 0 and 1 but is " + decay);
+		}
+
+		if (epsilon <= 0) {
+			throw new IllegalArgumentException("epsilon must be positive but is " + epsilon);
+		}
+
+		_decay = decay;
+		_epsilon = epsilon;
+		_squares = new double[0];
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_squares = new double[numberOfWeights];
+	}
+
+	@Override
+	public void update(double[] weights, double[] gradient, double learningFactor) {
+		if (_squares.length != weights.length) {
+			initialize(weights.length);
+		}
+
+		for (int i = 0; i < weights.length; i++) {
+			double g = gradient[i];
+			_squares[i] = _decay * _squares[i] + (1 - _decay) * g * g;
+			weights[i] -= learningFactor * g / (Math.sqrt(_squares[i]) + _epsilon);
+		}
+	}
+
+	@Override
+	public RMSPropOptimizer copy() {
+		return new RMSPropOptimizer(_decay, _epsilon);
+	}
+
+	@Override
+	public double[] getState() {
+		return _squares.clone();
+	}
+
+	@Override
+	public void setState(double[] state) {
+		_squares = Arrays.copyOf(state, state.length);
+	}
+
+	@Override
+	public String toString() {
+		return "RMSProp (decay " + _decay + ")";
+	}
+}
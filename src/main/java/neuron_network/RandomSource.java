@@ -0,0 +1,114 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A RandomSource generates the random numbers used to initialize and train
+ * the networks.
+ * 
+ * <p>
+ * A source can be split in a new independent source, so each worker of a
+ * parallel training can have its own source without sharing it. The state of
+ * a source can be captured and restored to repeat the same numbers, for
+ * example when a training continues from a checkpoint. A RandomSource is not
+ * thread safe.
+ * </p>
+ * 
+ * @version 1.0
+ * @see SplitMixRandom
+ */
+public interface RandomSource {
+
+	/**
+	 * It returns a random double between 0 (inclusive) and 1 (exclusive)
+	 * 
+	 * @return a uniform random double
+	 */
+	public double nextDouble();
+
+	/**
+	 * It returns a random double with normal distribution, mean 0 and
+	 * standard deviation 1
+	 * 
+	 * @return a gaussian random double
+	 */
+	public double nextGaussian();
+
+	/**
+	 * It returns a random integer between 0 (inclusive) and bound (exclusive)
+	 * 
+	 * @param bound the upper bound
+	 * @return a uniform random integer
+	 * @throws IllegalArgumentException if bound is not positive
+	 */
+	public int nextInt(int bound);
+
+	/**
+	 * It creates a new source whose numbers are independent of the numbers of
+	 * this one. This source advances, so two calls return two different
+	 * sources.
+	 * 
+	 * @return a new source
+	 */
+	public RandomSource split();
+
+	/**
+	 * It returns the current state of the source
+	 * 
+	 * @return a copy of the state
+	 */
+	public long[] getState();
+
+	/**
+	 * It restores a state returned by getState, so the source will repeat
+	 * the same numbers.
+	 * 
+	 * @param state a state returned by getState
+	 * @throws IllegalArgumentException if the state is not valid for this source
+	 */
+	public void setState(long[] state);
+
+	/**
+	 * It shuffles the given array
+	 * 
+	 * @param array the array to be shuffled
+	 */
+	public default void shuffle(int[] array) {
+		for (int i = array.length - 1; i > 0; i--) {
+			int j = nextInt(i + 1);
+			int tmp = array[i];
+			array[i] = array[j];
+			array[j] = tmp;
+		}
+	}
+
+	/**
+	 * It shuffles the given list
+	 * 
+	 * @param list the list to be shuffled
+	 */
+	public default void shuffle(List<?> list) {
+		for (int i = list.size() - 1; i > 0; i--) {
+			Collections.swap(list, i, nextInt(i + 1));
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * A schedule that reduces the learning factor when the training error stops
+ * improving. If the error doesn't improve the best error by more than
+ * threshold during patience epochs, the learning factor is multiplied by
+ * factor, without going below the minimum learning factor.
+ * 
+ * @version 1.0
+ */
+public class ReduceOnPlateauSchedule implements LearningRateSchedule {
+	private final double _factor;
+	private final int _patience;
+	private final double _threshold;
+	private final double _minimumLearningFactor;
+	private double _scale;
+	private double _bestError;
+	private int _badEpochs;
+
+	/**
+	 * It creates a reduce on plateau schedule
+	 * 
+	 * @param factor the factor applied in each reduction, between 0 (exclusive) and 1 (exclusive)
+	 * @param patience the number of epochs without improvement before a reduction
+	 * @param threshold the minimum improvement of the error
+	 * @param minimumLearningFactor the lowest learning factor
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public ReduceOnPlateauSchedule(double factor, int patience, double threshold,
+			double minimumLearningFactor) {
+		if (factor <= 0 || factor >= 1) {
+			throw new IllegalArgumentException("factor must be between 0 and 1 but is " + factor);
+		}
+
+		if (patience < 0) {
+			throw new IllegalArgumentException("patience can't be negative");
+		}
+
+		if (threshold < 0 || minimumLearningFactor < 0) {
+			throw new IllegalArgumentException("threshold and minimumLearningFactor can't be negative");
+		}
+
+		_factor = factor;
+		_patience = patience;
+		_threshold = threshold;
+		_minimumLearningFactor = minimumLearningFactor;
+		reset();
+	}
+
+	@Override
+	public double getLearningFactor(double epoch, double baseLearningFactor) {
+		return Math.max(baseLearningFactor * _scale,
+				Math.min(_minimumLearningFactor, baseLearningFactor));
+	}
+
+	@Override
+	public void epochFinished(int epoch, double error) {
+		if (error < _bestError - _threshold) {
+			_bestError = error;
+			_badEpochs = 0;
+		} else if (++_badEpochs > _patience) {
+			_scale *= _factor;
+			_badEpochs = 0;
+		}
+	}
+
+	@Override
+	public void reset() {
+		_scale = 1;
+		_bestError = Double.POSITIVE_INFINITY;
+		_badEpochs = 0;
+	}
+
+	/**
+	 * It returns the scale of the learning factor, the best error and the
+	 * number of epochs without improvement
+	 * 
+	 * @return an array with 3 values
+	 */
+	@Override
+	public double[] getState() {
+		return new double[] { _scale, _bestError, _badEpochs };
+	}
+
+	@Override
+	public void setState(double[] state) {
+		if (state.length != 3) {
+			throw new IllegalArgumentException("state must have 3 values but has " + state.length);
+		}
+
+		_scale = state[0];
+		_bestError = state[1];
+		_badEpochs = (int) state[2];
+	}
+
+	@Override
+	public ReduceOnPlateauSchedule copy() {
+		return new ReduceOnPlateauSchedule(_factor, _patience, _threshold, _minimumLearningFactor);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+import java.util.Arrays;
+
+/**
+ * The iRprop+ algorithm, a resilient backpropagation for offline training.
+ * 
+ * <p>
+ * It only uses the sign of the gradient. Each weight has its own step, that
+ * grows while the gradient keeps its sign and shrinks when it changes. When
+ * the sign changes and the error has grown, the last change of the weight is
+ * undone. It doesn't use the learning factor or the inertia of the network.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class ResilientPropagation implements BatchTrainer {
+	private final double _increase;
+	private final double _decrease;
+	private final double _initialStep;
+	private final double _minimumStep;
+	private final double _maximumStep;
+	private double[] _weights;
+	private double[] _gradient;
+	private double[] _lastGradient;
+	private double[] _steps;
+	private double[] _lastChanges;
+	private double _lastError;
+
+	/**
+	 * It creates a trainer with the usual params: increase 1.2, decrease 0.5,
+	 * initial step 0.1, minimum step 1e-6 and maximum step 50
+	 */
+	public ResilientPropagation() {
+		this(1.2, 0.5, 0.1, 1e-6, 50);
+	}
+
+	/**
+	 * It creates a trainer with the given params
+	 * 
+	 * @param increase the factor of a step when the gradient keeps its sign, greater than 1
+	 * @param decrease the factor of a step when the gradient changes its sign, between 0 and 1 (both exclusive)
+	 * @param initialStep the first step of each weight
+	 * @param minimumStep the lowest step
+	 * @param maximumStep the highest step
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public ResilientPropagation(double increase, double decrease, double initialStep,
+			double minimumStep, double maximumStep) {
+		if (increase <= 1) {
+			throw new IllegalArgumentException("increase must be greater than 1 but is " + increase);
+		}
+
+		if (decrease <= 0 || decrease >= 1) {
+			throw new IllegalArgumentException("decrease must be between 0 and 1 but is " + decrease);
+		}
+
+		if (minimumStep <= 0 || initialStep < minimumStep || maximumStep < initialStep) {
+			throw new IllegalArgumentException("steps must be 0 < minimumStep <= initialStep <= maximumStep");
+		}
+
+		_increase = increase;
+		_decrease = decrease;
+		_initialStep = initialStep;
+		_minimumStep = minimumStep;
+		_maximumStep = maximumStep;
+		initialize(0);
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_weights = new double[numberOfWeights];
+		_gradient = new double[numberOfWeights];
+		_lastGradient = new double[numberOfWeights];
+		_lastChanges = new double[numberOfWeights];
+		_steps = new double[numberOfWeights];
+		_lastError = Double.POSITIVE_INFINITY;
+
+		Arrays.fill(_steps, _initialStep);
+	}
+
+	@Override
+	public void epoch(MultilayerPerceptron network, NetworkData data) {
+		int n = network.getNumberOfWeights();
+
+		if (_weights.length != n) {
+			initialize(n);
+		}
+
+		double error = network.computeGradient(data, _gradient);
+		boolean worse = error > _lastError;
+		network.getWeights(_weights);
+
+		for (int i = 0; i < n; i++) {
+			double g = _gradient[i];
+			double sign = _lastGradient[i] * g;
+
+			if (sign > 0) {
+				_steps[i] = Math.min(_steps[i] * _increase, _maximumStep);
+				_lastChanges[i] = -Math.signum(g) * _steps[i];
+				_weights[i] += _lastChanges[i];
+			} else if (sign < 0) {
+				_steps[i] = Math.max(_steps[i] * _decrease, _minimumStep);
+
+				if (worse) {
+					_weights[i] -= _lastChanges[i];
+				}
+
+				_lastChanges[i] = 0;
+				g = 0;
+			} else {
+				_lastChanges[i] = -Math.signum(g) * _steps[i];
+				_weights[i] += _lastChanges[i];
+			}
+
+			_lastGradient[i] = g;
+		}
+
+		_lastError = error;
+		network.setWeights(_weights);
+	}
+
+	@Override
+	public ResilientPropagation copy() {
+		return new ResilientPropagation(_increase, _decrease, _initialStep,
+				_minimumStep, _maximumStep);
+	}
+
+	/**
+	 * It returns the state of the trainer: the last gradient, the steps, the
+	 * last changes and the last error
+	 * 
+	 * @return an array with 3 * N + 1 values
+	 */
+	@Override
+	public double[] getState() {
+		int n = _steps.length;
+		double[] state = new double[3 * n + 1];
+
+		System.arraycopy(_lastGradient, 0, state, 0, n);
+		System.arraycopy(_steps, 0, state, n, n);
+		System.arraycopy(_lastChanges, 0, state, 2 * n, n);
+		state[3 * n] = _lastError;
+
+		return state;
+	}
+
+	@Override
+	public void setState(double[] state) {
+		if (state.length % 3 != 1) {
+			throw new IllegalArgumentException("state is not a ResilientPropagation state");
+		}
+
+		int n = state.length / 3;
+		initialize(n);
+
+		System.arraycopy(state, 0, _lastGradient, 0, n);
+		System.arraycopy(state, n, _steps, 0, n);
+		System.arraycopy(state, 2 * n, _lastChanges, 0, n);
+		_lastError = state[3 * n];
+	}
+
+	@Override
+	public String toString() {
+		return "iRprop+";
+	}
+}
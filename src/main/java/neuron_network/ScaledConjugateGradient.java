@@ -0,0 +1,271 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.Arrays;
+
+/**
+ * The scaled conjugate gradient algorithm of Møller for offline training.
+ * 
+ * <p>
+ * It moves along conjugate directions like the conjugate gradient, but
+ * instead of a line search it computes the step with an approximation of
+ * the hessian along the direction. The approximation is scaled like in the
+ * Levenberg-Marquardt algorithm, so the step is always useful even when the
+ * error is not convex. Each epoch is one iteration, that computes two
+ * gradients. The error and the gradient are computed in parallel by copies
+ * of the network over parts of the data. It doesn't use the learning factor
+ * or the inertia of the network.
+ * </p>
+ * 
+ * <p>
+ * When the weights of the network are changed between two epochs, for
+ * example by the pruning, the algorithm starts again with the gradient.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class ScaledConjugateGradient implements BatchTrainer {
+	private static final double SIGMA = 1e-4;
+	private static final double INITIAL_LAMBDA = 1e-6;
+	private final int _threads;
+	private final ParallelGradient _evaluator;
+	private double[] _weights;
+	private double[] _p;
+	private double[] _r;
+	private double[] _trial;
+	private double[] _trialGradient;
+	private double _error;
+	private double _lambda;
+	private double _lambdaBar;
+	private double _delta;
+	private boolean _success;
+	private int _iteration;
+	private boolean _valid;
+	private boolean _restored;
+
+	/**
+	 * It creates a trainer that uses all the processors
+	 */
+	public ScaledConjugateGradient() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * It creates a trainer with the given number of threads
+	 * 
+	 * @param threads the number of parts the data is split in to compute the gradient
+	 * @throws IllegalArgumentException if threads is lower than 1
+	 */
+	public ScaledConjugateGradient(int threads) {
+		_threads = threads;
+		_evaluator = new ParallelGradient(threads);
+		initialize(0);
+	}
+
+	@Override
+	public void initialize(int numberOfWeights) {
+		_weights = new double[numberOfWeights];
+		_p = new double[numberOfWeights];
+		_r = new double[numberOfWeights];
+		_trial = new double[numberOfWeights];
+		_trialGradient = new double[numberOfWeights];
+		_valid = false;
+		_restored = false;
+		restart();
+	}
+
+	private void restart() {
+		System.arraycopy(_r, 0, _p, 0, _r.length);
+		_lambda = INITIAL_LAMBDA;
+		_lambdaBar = 0;
+		_delta = 0;
+		_success = true;
+		_iteration = 0;
+	}
+
+	@Override
+	public void epoch(MultilayerPerceptron network, NetworkData data) {
+		int n = network.getNumberOfWeights();
+
+		if (_weights.length != n) {
+			initialize(n);
+		}
+
+		network.getWeights(_trial);
+
+		if (!_valid || !Arrays.equals(_trial, _weights)) {
+			System.arraycopy(_trial, 0, _weights, 0, n);
+			_error = _evaluator.compute(network, data, _weights, _r);
+
+			for (int i = 0; i < n; i++) {
+				_r[i] = -_r[i];
+			}
+
+			if (!_restored) {
+				restart();
+			}
+
+			_valid = true;
+			_restored = false;
+		}
+
+		double pp = LinearAlgebra.dot(_p, _p);
+		double mu = LinearAlgebra.dot(_p, _r);
+
+		if (pp == 0) {
+			return;
+		}
+
+		if (mu <= 0) {
+			restart();
+			return;
+		}
+
+		if (_success) {
+			double sigma = SIGMA / Math.sqrt(pp);
+
+			for (int i = 0; i < n; i++) {
+				_trial[i] = _weights[i] + sigma * _p[i];
+			}
+
+			_evaluator.compute(network, data, _trial, _trialGradient);
+			_delta = 0;
+
+			for (int i = 0; i < n; i++) {
+				_delta += _p[i] * (_trialGradient[i] + _r[i]) / sigma;
+			}
+		}
+
+		_delta += (_lambda - _lambdaBar) * pp;
+
+		if (_delta <= 0) {
+			_lambdaBar = 2 * (_lambda - _delta / pp);
+			_delta = -_delta + _lambda * pp;
+			_lambda = _lambdaBar;
+		}
+
+		double alpha = mu / _delta;
+
+		for (int i = 0; i < n; i++) {
+			_trial[i] = _weights[i] + alpha * _p[i];
+		}
+
+		double error = _evaluator.compute(network, data, _trial, _trialGradient);
+		double comparison = 2 * _delta * (_error - error) / (mu * mu);
+
+		if (comparison >= 0) {
+			_iteration++;
+			double rr = 0;
+			double rrOld = 0;
+
+			for (int i = 0; i < n; i++) {
+				double r = -_trialGradient[i];
+				rr += r * r;
+				rrOld += r * _r[i];
+				_r[i] = r;
+			}
+
+			if (_iteration % n == 0) {
+				System.arraycopy(_r, 0, _p, 0, n);
+			} else {
+				double beta = (rr - rrOld) / mu;
+
+				for (int i = 0; i < n; i++) {
+					_p[i] = _r[i] + beta * _p[i];
+				}
+			}
+
+			System.arraycopy(_trial, 0, _weights, 0, n);
+			_error = error;
+			_lambdaBar = 0;
+			_success = true;
+
+			if (comparison >= 0.75) {
+				_lambda /= 4;
+			}
+
+			network.setWeights(_weights);
+		} else {
+			_lambdaBar = _lambda;
+			_success = false;
+		}
+
+		if (comparison < 0.25) {
+			_lambda += _delta * (1 - comparison) / pp;
+		}
+	}
+
+	@Override
+	public ScaledConjugateGradient copy() {
+		return new ScaledConjugateGradient(_threads);
+	}
+
+	/**
+	 * It returns the state of the trainer: the direction, the scale params
+	 * (lambda, lambda bar and delta), the success of the last iteration and
+	 * the number of successful iterations
+	 * 
+	 * @return an array with N + 5 values
+	 */
+	@Override
+	public double[] getState() {
+		int n = _p.length;
+		double[] state = Arrays.copyOf(_p, n + 5);
+
+		state[n] = _lambda;
+		state[n + 1] = _lambdaBar;
+		state[n + 2] = _delta;
+		state[n + 3] = _success ? 1 : 0;
+		state[n + 4] = _iteration;
+
+		return state;
+	}
+
+	/**
+	 * It restores a state returned by getState. The error and the gradient
+	 * are computed again in the next epoch.
+	 * 
+	 * @param state a state returned by getState
+	 * @throws IllegalArgumentException if the state is not a ScaledConjugateGradient state
+	 */
+	@Override
+	public void setState(double[] state) {
+		if (state.length < 5) {
+			throw new IllegalArgumentException("state is not a ScaledConjugateGradient state");
+		}
+
+		int n = state.length - 5;
+		initialize(n);
+
+		System.arraycopy(state, 0, _p, 0, n);
+		_lambda = state[n];
+		_lambdaBar = state[n + 1];
+		_delta = state[n + 2];
+		_success = state[n + 3] != 0;
+		_iteration = (int) state[n + 4];
+		_restored = true;
+	}
+
+	@Override
+	public String toString() {
+		return "SCG";
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.List;
+
+/**
+ * The result of a configuration in a {@link HyperparameterSearch}.
+ * 
+ * @version 1.0
+ */
+public final class SearchResult implements Comparable<SearchResult> {
+	private final TrainingConfiguration _configuration;
+	private final MultilayerPerceptron _network;
+	private final double _error;
+	private final int _epochs;
+	private final boolean _stopped;
+
+	SearchResult(TrainingConfiguration configuration, MultilayerPerceptron network,
+			double error, int epochs, boolean stopped) {
+		_configuration = configuration;
+		_network = network;
+		_error = error;
+		_epochs = epochs;
+		_stopped = stopped;
+	}
+
+	/**
+	 * It returns the configuration
+	 * 
+	 * @return the evaluated configuration
+	 */
+	public TrainingConfiguration getConfiguration() {
+		return _configuration;
+	}
+
+	/**
+	 * It returns the trained network
+	 * 
+	 * @return the network trained with the configuration
+	 */
+	public MultilayerPerceptron getNetwork() {
+		return _network;
+	}
+
+	/**
+	 * It returns the validation error of the network at the end of its
+	 * training
+	 * 
+	 * @return the validation error
+	 */
+	public double getError() {
+		return _error;
+	}
+
+	/**
+	 * It returns the number of epochs trained
+	 * 
+	 * @return the number of epochs
+	 */
+	public int getEpochs() {
+		return _epochs;
+	}
+
+	/**
+	 * Check if the training was stopped before its last epoch because the
+	 * configuration was worse than the others
+	 * 
+	 * @return true if the training was stopped early
+	 */
+	public boolean isStopped() {
+		return _stopped;
+	}
+
+	/**
+	 * It sorts the results by error, the lowest first
+	 */
+	@Override
+	public int compareTo(SearchResult other) {
+		return Double.compare(_error, other._error);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-12.6g %7d %-8s %s", _error, _epochs, _stopped ? "stopped" : "", _configuration);
+	}
+
+	/**
+	 * It formats a ranked list of results as a table
+	 * 
+	 * @param results the results, sorted
+	 * @return a table with one line per result
+	 */
+	public static String table(List<SearchResult> results) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%4s %-12s %7s %-8s %s%n", "#", "error", "epochs", "", "configuration"));
+
+		for (int i = 0; i < results.size(); i++) {
+			sb.append(String.format("%4d %s%n", i + 1, results.get(i)));
+		}
+
+		return sb.toString();
+	}
+}
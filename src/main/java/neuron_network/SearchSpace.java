@@ -0,0 +1,199 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A SearchSpace holds the candidate values of each hyperparameter of a
+ * {@link TrainingConfiguration}. By default each hyperparameter has the
+ * default value of a MultilayerPerceptron.
+ * 
+ * <p>
+ * A grid search takes every combination of the values. A random search takes
+ * one of the values of each integer or boolean hyperparameter, and a value
+ * between the lowest and the highest candidate of the learning factor and
+ * the inertia. The learning factor is sampled in logarithmic scale when all
+ * its candidates are positive.
+ * </p>
+ * 
+ * @version 1.0
+ * @see HyperparameterSearch
+ */
+public class SearchSpace {
+	private int[] _hiddenLayers = { 1 };
+	private int[] _hiddenNeurons = { 4 };
+	private double[] _learningFactors = { 0.9 };
+	private double[] _inertiaValues = { 0.1 };
+	private boolean[] _useBias = { true };
+	private boolean[] _offline = { false };
+
+	/**
+	 * It sets the candidate numbers of hidden layers
+	 * 
+	 * @param values the candidates
+	 * @return this space
+	 * @throws IllegalArgumentException if there are no candidates
+	 */
+	public SearchSpace setHiddenLayers(int... values) {
+		requireCandidates(values.length);
+		_hiddenLayers = values.clone();
+		return this;
+	}
+
+	/**
+	 * It sets the candidate numbers of neurons of each hidden layer
+	 * 
+	 * @param values the candidates
+	 * @return this space
+	 * @throws IllegalArgumentException if there are no candidates
+	 */
+	public SearchSpace setHiddenNeurons(int... values) {
+		requireCandidates(values.length);
+		_hiddenNeurons = values.clone();
+		return this;
+	}
+
+	/**
+	 * It sets the candidate learning factors
+	 * 
+	 * @param values the candidates
+	 * @return this space
+	 * @throws IllegalArgumentException if there are no candidates
+	 */
+	public SearchSpace setLearningFactors(double... values) {
+		requireCandidates(values.length);
+		_learningFactors = values.clone();
+		return this;
+	}
+
+	/**
+	 * It sets the candidate inertia values
+	 * 
+	 * @param values the candidates
+	 * @return this space
+	 * @throws IllegalArgumentException if there are no candidates
+	 */
+	public SearchSpace setInertiaValues(double... values) {
+		requireCandidates(values.length);
+		_inertiaValues = values.clone();
+		return this;
+	}
+
+	/**
+	 * It sets the candidate uses of bias
+	 * 
+	 * @param values the candidates
+	 * @return this space
+	 * @throws IllegalArgumentException if there are no candidates
+	 */
+	public SearchSpace setUseBias(boolean... values) {
+		requireCandidates(values.length);
+		_useBias = values.clone();
+		return this;
+	}
+
+	/**
+	 * It sets the candidate kinds of backpropagation
+	 * 
+	 * @param values the candidates: true for offline, false for online
+	 * @return this space
+	 * @throws IllegalArgumentException if there are no candidates
+	 */
+	public SearchSpace setOffline(boolean... values) {
+		requireCandidates(values.length);
+		_offline = values.clone();
+		return this;
+	}
+
+	/**
+	 * It returns every combination of the candidates
+	 * 
+	 * @return a list with all configurations of the grid
+	 * @throws IllegalArgumentException if a combination is not a valid configuration
+	 */
+	public List<TrainingConfiguration> grid() {
+		List<TrainingConfiguration> result = new ArrayList<TrainingConfiguration>();
+
+		for (int layers : _hiddenLayers) {
+			for (int neurons : _hiddenNeurons) {
+				for (double learningFactor : _learningFactors) {
+					for (double inertia : _inertiaValues) {
+						for (boolean bias : _useBias) {
+							for (boolean offline : _offline) {
+								result.add(new TrainingConfiguration(layers, neurons,
+										learningFactor, inertia, bias, offline));
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * It returns random configurations
+	 * 
+	 * @param n the number of configurations
+	 * @param random the source used to choose the values
+	 * @return a list with n configurations
+	 * @throws IllegalArgumentException if a sampled configuration is not valid
+	 */
+	public List<TrainingConfiguration> sample(int n, RandomSource random) {
+		List<TrainingConfiguration> result = new ArrayList<TrainingConfiguration>();
+
+		for (int i = 0; i < n; i++) {
+			result.add(new TrainingConfiguration(
+					_hiddenLayers[random.nextInt(_hiddenLayers.length)],
+					_hiddenNeurons[random.nextInt(_hiddenNeurons.length)],
+					sample(_learningFactors, true, random),
+					sample(_inertiaValues, false, random),
+					_useBias[random.nextInt(_useBias.length)],
+					_offline[random.nextInt(_offline.length)]));
+		}
+
+		return result;
+	}
+
+	private static double sample(double[] values, boolean logarithmic, RandomSource random) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+
+		for (double value : values) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+
+		if (logarithmic && min > 0) {
+			return Math.min(max, Math.exp(Math.log(min) + random.nextDouble() * Math.log(max / min)));
+		}
+
+		return min + random.nextDouble() * (max - min);
+	}
+
+	private static void requireCandidates(int length) {
+		if (length == 0) {
+			throw new IllegalArgumentException("there must be at least one candidate");
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A SharedModel serves a model file that can be shared by several processes.
+ * 
+ * <p>
+ * The weights are read from a read-only memory-mapped file, so all the
+ * processes of a host that use the same file share one copy of the weights in
+ * the page cache, and they don't use any heap for them.
+ * </p>
+ * 
+ * <p>
+ * When a new model is published with
+ * {@link ModelFile#writeAtomically(MultilayerPerceptron, String)} the file is
+ * replaced, and the next call to refresh maps the new one. Each prediction
+ * uses only one model, so the swap never mixes the weights of two models. A
+ * model that can't be loaded is ignored and the previous one is kept.
+ * </p>
+ * 
+ * <p>
+ * A SharedModel can be shared between threads.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class SharedModel implements Predictor, AutoCloseable {
+	private final Path _file;
+	private final boolean _verifyChecksum;
+	private volatile MappedPerceptron _model;
+	private volatile Object _version;
+	private volatile IOException _lastError;
+	private ScheduledExecutorService _watcher;
+
+	/**
+	 * It maps the given model file.
+	 * 
+	 * @param file the path of the model file
+	 * @param verifyChecksum if true each loaded file is fully read once to check its checksum
+	 * @throws IOException if the file can't be mapped
+	 */
+	public SharedModel(String file, boolean verifyChecksum) throws IOException {
+		_file = Paths.get(file);
+		_verifyChecksum = verifyChecksum;
+
+		if (!refresh()) {
+			throw _lastError;
+		}
+	}
+
+	/**
+	 * It checks if the file was replaced and maps it again when needed.
+	 * 
+	 * @return true if a new model was loaded
+	 */
+	public synchronized boolean refresh() {
+		try {
+			Object version = versionOf(_file);
+
+			if (_model != null && version.equals(_version)) {
+				return false;
+			}
+
+			MappedPerceptron model = ModelFile.map(_file.toString(), _verifyChecksum);
+
+			_version = version;
+			_model = model;
+			_lastError = null;
+
+			return true;
+		} catch (IOException e) {
+			_lastError = e;
+			return false;
+		}
+	}
+
+	/**
+	 * It starts a daemon thread that calls refresh periodically. It does
+	 * nothing if the thread was already started.
+	 * 
+	 * @param period the time between two refreshes
+	 * @param unit the unit of period
+	 */
+	public synchronized void startWatching(long period, TimeUnit unit) {
+		if (_watcher != null) {
+			return;
+		}
+
+		_watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "SharedModel " + _file.getFileName());
+			t.setDaemon(true);
+			return t;
+		});
+		_watcher.scheduleWithFixedDelay(this::refresh, period, period, unit);
+	}
+
+	/**
+	 * It stops the thread started by startWatching
+	 */
+	@Override
+	public synchronized void close() {
+		if (_watcher != null) {
+			_watcher.shutdownNow();
+			_watcher = null;
+		}
+	}
+
+	/**
+	 * It returns the model in use. It can be kept to make several
+	 * predictions with the same model.
+	 * 
+	 * @return the current model
+	 */
+	public MappedPerceptron getModel() {
+		return _model;
+	}
+
+	/**
+	 * It returns the error of the last refresh, if it failed
+	 * 
+	 * @return the error of the last refresh or null if it was successful
+	 */
+	public IOException getLastError() {
+		return _lastError;
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _model.getInputsLength();
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _model.getOutputLayerSize();
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _model.isSoftmax();
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		_model.predict(inputs, outputs);
+	}
+
+	/**
+	 * It identifies a version of the file. An atomic replace changes the file
+	 * key (the inode); the modification time and the size are used when the
+	 * file system has no file keys.
+	 */
+	private static Object versionOf(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		Object key = attributes.fileKey();
+
+		return key + "@" + attributes.lastModifiedTime().toMillis() + "/"
+				+ attributes.size();
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.ArrayList;
+
+/**
+ * The SparsePerceptron is an inference engine for pruned networks. Each layer
+ * is stored in compressed sparse row form: only the weights that are not zero
+ * are stored, with the index of their input, and each neuron only multiplies
+ * through its own weights.
+ * 
+ * <p>
+ * Usually the network is pruned before with
+ * {@link MultilayerPerceptron#pruneWeightsBelow(double)} or
+ * {@link MultilayerPerceptron#keepTopWeights(int)}.
+ * </p>
+ * 
+ * <p>
+ * The engine is a snapshot of the network and it is immutable, so it can be
+ * shared between threads.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class SparsePerceptron implements Predictor {
+	private final int _inputsLength;
+	private final int[] _layerSizes;
+	private final double[][] _values;
+	private final int[][] _columns;
+	private final int[][] _rowPointers;
+	private final double[][] _biases;
+	private final boolean _softmax;
+	private final int _maxLayerSize;
+	private final int _denseWeights;
+
+	/**
+	 * It builds a sparse engine with the weights of the network that are not
+	 * zero.
+	 * 
+	 * @param network the pruned network
+	 */
+	public SparsePerceptron(MultilayerPerceptron network) {
+		int layers = network.getNumberOfHiddenLayers() + 1;
+
+		_inputsLength = network.getInputsLength();
+		_layerSizes = new int[layers];
+		_values = new double[layers][];
+		_columns = new int[layers][];
+		_rowPointers = new int[layers][];
+		_biases = new double[layers][];
+		_softmax = network.isSoftmax();
+
+		int maxLayerSize = _inputsLength;
+		int denseWeights = 0;
+
+		for (int l = 0; l < layers; l++) {
+			int layerIndex = (l < layers - 1) ? l : -1;
+			int neurons = network.getLayerSize(layerIndex);
+			double[] weights = network.getLayerWeights(layerIndex);
+			int fanIn = weights.length / neurons;
+			int nonZero = 0;
+
+			for (double w : weights) {
+				if (w != 0) {
+					nonZero++;
+				}
+			}
+
+			_layerSizes[l] = neurons;
+			_biases[l] = network.getLayerBiases(layerIndex);
+			_values[l] = new double[nonZero];
+			_columns[l] = new int[nonZero];
+			_rowPointers[l] = new int[neurons + 1];
+
+			int k = 0;
+
+			for (int i = 0; i < neurons; i++) {
+				_rowPointers[l][i] = k;
+
+				for (int j = 0; j < fanIn; j++) {
+					double w = weights[i * fanIn + j];
+
+					if (w != 0) {
+						_values[l][k] = w;
+						_columns[l][k] = j;
+						k++;
+					}
+				}
+			}
+
+			_rowPointers[l][neurons] = k;
+			denseWeights += weights.length;
+			maxLayerSize = Math.max(maxLayerSize, neurons);
+		}
+
+		_maxLayerSize = maxLayerSize;
+		_denseWeights = denseWeights;
+	}
+
+	@Override
+	public int getInputsLength() {
+		return _inputsLength;
+	}
+
+	@Override
+	public int getOutputLayerSize() {
+		return _layerSizes[_layerSizes.length - 1];
+	}
+
+	@Override
+	public boolean isSoftmax() {
+		return _softmax;
+	}
+
+	/**
+	 * It returns the number of weights stored by the engine
+	 * 
+	 * @return the number of weights that are not zero, without biases
+	 */
+	public int getNumberOfStoredWeights() {
+		int n = 0;
+
+		for (double[] values : _values) {
+			n += values.length;
+		}
+
+		return n;
+	}
+
+	/**
+	 * It returns the fraction of weights that were removed
+	 * 
+	 * @return a value between 0 and 1
+	 */
+	public double getSparsity() {
+		return 1 - (double) getNumberOfStoredWeights() / _denseWeights;
+	}
+
+	@Override
+	public void predict(double[] inputs, double[] outputs) {
+		double[] current = new double[_maxLayerSize];
+		double[] next = new double[_maxLayerSize];
+		int currentSize = _inputsLength;
+
+		System.arraycopy(inputs, 0, current, 0, _inputsLength);
+
+		for (int l = 0; l < _values.length; l++) {
+			double[] values = _values[l];
+			int[] columns = _columns[l];
+			int[] rows = _rowPointers[l];
+			double[] b = _biases[l];
+			int neurons = _layerSizes[l];
+
+			for (int i = 0; i < neurons; i++) {
+				double acc = 0;
+
+				for (int k = rows[i]; k < rows[i + 1]; k++) {
+					acc += values[k] * current[columns[k]];
+				}
+
+				next[i] = Predictors.sigmoid(acc + b[i]);
+			}
+
+			double[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = neurons;
+		}
+
+		System.arraycopy(current, 0, outputs, 0, currentSize);
+
+		if (_softmax) {
+			Predictors.applySoftmax(outputs);
+		}
+	}
+
+	/**
+	 * It compares this engine with a dense engine built before the pruning.
+	 * Both engines spread out the data the same number of times to measure
+	 * the speedup.
+	 * 
+	 * @param dense the engine of the network before pruning
+	 * @param data the data used to measure both engines
+	 * @return a report with the sparsity, the speedup and the CCR of both engines
+	 */
+	public PruningReport compareWith(Predictor dense, NetworkData data) {
+		int repetitions = Math.max(1, 20000 / Math.max(1, data.patrons_length()));
+
+		// Both engines are timed twice and only the second run is kept, so
+		// the first run warms up the JIT compiler.
+		timePredictions(dense, data, repetitions);
+		timePredictions(this, data, repetitions);
+
+		long denseTime = timePredictions(dense, data, repetitions);
+		long sparseTime = timePredictions(this, data, repetitions);
+
+		return new PruningReport(getSparsity(), denseTime, sparseTime,
+				dense.getCCR(data), getCCR(data));
+	}
+
+	/**
+	 * It spread out all data with the given engine
+	 * 
+	 * @param engine the engine to be timed
+	 * @param data the inputs to spread out
+	 * @param repetitions the number of times that all data is spread out
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long timePredictions(Predictor engine, NetworkData data, int repetitions) {
+		double[][] inputs = new double[data.patrons_length()][engine.getInputsLength()];
+		double[] outputs = new double[engine.getOutputLayerSize()];
+		int p = 0;
+
+		for (ArrayList<Double> input : data) {
+			Predictors.copy(input, inputs[p++]);
+		}
+
+		long start = System.nanoTime();
+
+		for (int r = 0; r < repetitions; r++) {
+			for (double[] input : inputs) {
+				engine.predict(input, outputs);
+			}
+		}
+
+		return System.nanoTime() - start;
+	}
+}
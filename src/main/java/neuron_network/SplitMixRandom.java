@@ -0,0 +1,159 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fast random source based on the SplitMix64 algorithm, the same used by
+ * java.util.SplittableRandom. Unlike SplittableRandom, its state can be
+ * captured and restored.
+ * 
+ * <p>
+ * Its state is two longs: the seed, that advances in each number, and the
+ * gamma, that is fixed for each source. A source built with the same seed
+ * always generates the same numbers. It is not a cryptographic generator.
+ * </p>
+ * 
+ * @version 1.0
+ */
+public class SplitMixRandom implements RandomSource {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private static final AtomicLong DEFAULT_SEEDS = new AtomicLong(
+			mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	private long _seed;
+	private long _gamma;
+
+	/**
+	 * It creates a source with a seed that is different in each call
+	 */
+	public SplitMixRandom() {
+		long s = DEFAULT_SEEDS.getAndAdd(2 * GOLDEN_GAMMA);
+		_seed = mix64(s);
+		_gamma = mixGamma(s + GOLDEN_GAMMA);
+	}
+
+	/**
+	 * It creates a source with the given seed
+	 * 
+	 * @param seed the seed of the source
+	 */
+	public SplitMixRandom(long seed) {
+		_seed = seed;
+		_gamma = GOLDEN_GAMMA;
+	}
+
+	private SplitMixRandom(long seed, long gamma) {
+		_seed = seed;
+		_gamma = gamma;
+	}
+
+	/**
+	 * It returns a random long
+	 * 
+	 * @return a uniform random long
+	 */
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	public double nextGaussian() {
+		// Polar method, the second value is discarded to keep the state small
+		double v1, v2, s;
+
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+
+		return v1 * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive but is " + bound);
+		}
+
+		int r = mix32(nextSeed());
+		int m = bound - 1;
+
+		if ((bound & m) == 0) {
+			return r & m;
+		}
+
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+			// Reject the values that would make the distribution uneven
+		}
+
+		return r;
+	}
+
+	@Override
+	public SplitMixRandom split() {
+		return new SplitMixRandom(nextLong(), mixGamma(nextSeed()));
+	}
+
+	@Override
+	public long[] getState() {
+		return new long[] { _seed, _gamma };
+	}
+
+	@Override
+	public void setState(long[] state) {
+		if (state.length != 2 || (state[1] & 1) == 0) {
+			throw new IllegalArgumentException("state is not a SplitMixRandom state");
+		}
+
+		_seed = state[0];
+		_gamma = state[1];
+	}
+
+	private long nextSeed() {
+		return _seed += _gamma;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package neuron_network;
+
+/**
+ * A schedule that multiplies the learning factor by gamma every stepSize
+ * epochs.
+ * 
+ * @version 1.0
+ */
+public class StepDecaySchedule implements LearningRateSchedule {
+	private final int _stepSize;
+	private final double _gamma;
+
+	/**
+	 * It creates a step decay schedule
+	 * 
+	 * @param stepSize the number of epochs between two decays
+	 * @param gamma the factor applied in each decay, between 0 (exclusive) and 1 (inclusive)
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public StepDecaySchedule(int stepSize, double gamma) {
+		if (stepSize < 1) {
+			throw new IllegalArgumentException("stepSize must be at least 1 but is " + stepSize);
+		}
+
+		if (gamma <= 0 || gamma > 1) {
+			throw new IllegalArgumentException("gamma must be between 0 and 1 but is " + gamma);
+		}
+
+		_stepSize = stepSize;
+		_gamma = gamma;
+	}
+
+	@Override
+	public double getLearningFactor(double epoch, double baseLearningFactor) {
+		return baseLearningFactor * Math.pow(_gamma, Math.floor(epoch / _stepSize));
+	}
+}
@@ -0,0 +1,432 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A TrainingCheckpoint stores the state of a training in progress: the
+ * weights, the last input changes used by the inertia, the state of the
+ * random source, of the optimizer, of the batch trainer and of the learning
+ * rate schedule, the number of epochs made, the best error found and the
+ * options of the training. A network can continue the training from it with
+ * {@link MultilayerPerceptron#resume(TrainingCheckpoint, NetworkData, java.util.function.Consumer)}
+ * and it will make the same epochs than the interrupted training.
+ * 
+ * <p>
+ * All values of the file are big endian:
+ * </p>
+ * 
+ * <pre>
+ * magic          4 bytes  "NNCK"
+ * version        int      1
+ * epoch          int      epochs already made
+ * maxiter        int      max number of epochs of the training
+ * improvement    double   minimum improvement to continue the training
+ * offline        boolean  offline or online backpropagation
+ * best error     double   lowest error after an epoch
+ * random state   int      number of longs of the state (R)
+ * state          R longs  state of the random source of the network
+ * optimizer      int      length of its state (O), -1 without optimizer
+ * state          O doubles state of the optimizer
+ * trainer        int      length of its state (T), -1 without batch trainer
+ * state          T doubles state of the batch trainer
+ * schedule       int      length of its state (S), -1 without schedule
+ * state          S doubles state of the learning rate schedule
+ * weights        int      number of weights (N)
+ * </pre>
+ * 
+ * <p>
+ * Then N doubles with the weights and N doubles with the last input changes,
+ * both in the order of {@link MultilayerPerceptron#getWeights()}, and a long
+ * with the CRC32 of all previous bytes.
+ * </p>
+ * 
+ * @version 1.0
+ * @see CheckpointWriter
+ */
+public class TrainingCheckpoint {
+	/**
+	 * The current version of the format
+	 */
+	public static final int VERSION = 1;
+
+	private static final int MAGIC = 0x4E4E434B; // "NNCK"
+	private static final int MAX_RANDOM_STATE = 1 << 16;
+
+	private final int _epoch;
+	private final int _maxiter;
+	private final double _minimumImprovement;
+	private final boolean _offline;
+	private final double _bestError;
+	private final double[] _weights;
+	private final double[] _lastInputsChanges;
+	private final long[] _randomState;
+	private final double[] _optimizerState;
+	private final double[] _trainerState;
+	private final double[] _scheduleState;
+
+	/**
+	 * It takes a snapshot of the network. The arrays are copied, so the
+	 * training can continue while the checkpoint is written.
+	 * 
+	 * @param network the network in training
+	 * @param epoch the number of epochs already made
+	 * @param maxiter the max number of epochs of the training
+	 * @param minimumImprovement the minimum improvement to continue the training
+	 * @param offline true if the training uses an offline backpropagation
+	 * @param bestError the lowest error after an epoch
+	 */
+	public TrainingCheckpoint(MultilayerPerceptron network, int epoch, int maxiter,
+			double minimumImprovement, boolean offline, double bestError) {
+		this(epoch, maxiter, minimumImprovement, offline, bestError,
+				network.getWeights(), network.getLastInputsChanges(),
+				network.getRandomSource().getState(),
+				network.getOptimizer() == null ? null : network.getOptimizer().getState(),
+				network.getBatchTrainer() == null ? null : network.getBatchTrainer().getState(),
+				network.getLearningRateSchedule() == null ? null : network.getLearningRateSchedule().getState());
+	}
+
+	private TrainingCheckpoint(int epoch, int maxiter, double minimumImprovement,
+			boolean offline, double bestError, double[] weights, double[] lastInputsChanges,
+			long[] randomState, double[] optimizerState, double[] trainerState,
+			double[] scheduleState) {
+		_epoch = epoch;
+		_maxiter = maxiter;
+		_minimumImprovement = minimumImprovement;
+		_offline = offline;
+		_bestError = bestError;
+		_weights = weights;
+		_lastInputsChanges = lastInputsChanges;
+		_randomState = randomState;
+		_optimizerState = optimizerState;
+		_trainerState = trainerState;
+		_scheduleState = scheduleState;
+	}
+
+	/**
+	 * It returns the number of epochs already made
+	 * 
+	 * @return the epoch where the training will continue
+	 */
+	public int getEpoch() {
+		return _epoch;
+	}
+
+	/**
+	 * It returns the max number of epochs of the training
+	 * 
+	 * @return the max number of epochs
+	 */
+	public int getMaxiter() {
+		return _maxiter;
+	}
+
+	/**
+	 * It returns the minimum improvement to continue the training
+	 * 
+	 * @return the minimum improvement
+	 */
+	public double getMinimumImprovement() {
+		return _minimumImprovement;
+	}
+
+	/**
+	 * Check if the training uses an offline backpropagation
+	 * 
+	 * @return true for an offline backpropagation, false for an online one
+	 */
+	public boolean isOffline() {
+		return _offline;
+	}
+
+	/**
+	 * It returns the lowest error after an epoch. It is infinite when no
+	 * epoch was made.
+	 * 
+	 * @return the best error
+	 */
+	public double getBestError() {
+		return _bestError;
+	}
+
+	/**
+	 * It returns the number of weights stored in the checkpoint
+	 * 
+	 * @return the number of weights
+	 */
+	public int getNumberOfWeights() {
+		return _weights.length;
+	}
+
+	/**
+	 * It sets the weights, the last input changes and the state of the
+	 * random source, the optimizer, the batch trainer and the schedule of the
+	 * network to the stored ones. The optimizer and the batch trainer are not
+	 * changed when the checkpoint doesn't have their state; the schedule is
+	 * reset.
+	 * 
+	 * @param network a network with the same topology than the stored one
+	 * @throws IllegalArgumentException if the network has a different number of weights, or a random source, an optimizer, a batch trainer or a schedule of other type
+	 */
+	public void restore(MultilayerPerceptron network) {
+		network.setWeights(_weights);
+		network.setLastInputsChanges(_lastInputsChanges);
+
+		network.getRandomSource().setState(_randomState);
+
+		if (_optimizerState != null && network.getOptimizer() != null) {
+			network.getOptimizer().setState(_optimizerState);
+		}
+
+		if (_trainerState != null && network.getBatchTrainer() != null) {
+			network.getBatchTrainer().setState(_trainerState);
+		}
+
+		LearningRateSchedule schedule = network.getLearningRateSchedule();
+
+		if (schedule != null) {
+			if (_scheduleState != null) {
+				schedule.setState(_scheduleState);
+			}
+			else {
+				schedule.reset();
+			}
+		}
+	}
+
+	/**
+	 * It writes the checkpoint to the given file
+	 * 
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(String file) throws IOException {
+		CRC32 crc = new CRC32();
+		FileOutputStream fos = new FileOutputStream(file);
+		DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+				new BufferedOutputStream(fos), crc));
+
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(_epoch);
+			out.writeInt(_maxiter);
+			out.writeDouble(_minimumImprovement);
+			out.writeBoolean(_offline);
+			out.writeDouble(_bestError);
+			out.writeInt(_randomState.length);
+
+			for (long l : _randomState) {
+				out.writeLong(l);
+			}
+
+			writeState(out, _optimizerState);
+			writeState(out, _trainerState);
+			writeState(out, _scheduleState);
+
+			out.writeInt(_weights.length);
+
+			for (double w : _weights) {
+				out.writeDouble(w);
+			}
+
+			for (double c : _lastInputsChanges) {
+				out.writeDouble(c);
+			}
+
+			out.flush();
+			new DataOutputStream(fos).writeLong(crc.getValue());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * It writes the checkpoint to a temporary file and then it replaces the
+	 * given file with an atomic move, so a crash while writing never leaves
+	 * a broken checkpoint.
+	 * 
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be written or moved
+	 */
+	public void writeAtomically(String file) throws IOException {
+		Path target = Paths.get(file).toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(),
+				target.getFileName().toString(), ".tmp");
+
+		try {
+			write(temporary.toString());
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * It reads a checkpoint and checks its checksum. The lengths stored in the
+	 * file are checked against its size before any array is allocated, so a
+	 * corrupted length can't exhaust the memory.
+	 * 
+	 * @param file the path of the file
+	 * @return the stored checkpoint
+	 * @throws IOException if the file doesn't exist, it is not a valid checkpoint or it is corrupted
+	 */
+	public static TrainingCheckpoint read(String file) throws IOException {
+		long size = Files.size(Paths.get(file));
+		CRC32 crc = new CRC32();
+		DataInputStream in = new DataInputStream(new CheckedInputStream(
+				new BufferedInputStream(new FileInputStream(file)), crc));
+
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Header is not valid.");
+			}
+
+			int version = in.readInt();
+
+			if (version != VERSION) {
+				throw new IOException("Unsupported version: " + version);
+			}
+
+			int epoch = in.readInt();
+			int maxiter = in.readInt();
+			double minimumImprovement = in.readDouble();
+			boolean offline = in.readBoolean();
+			double bestError = in.readDouble();
+			int length = in.readInt();
+
+			if (length < 0 || length > MAX_RANDOM_STATE) {
+				throw new IOException("Header is not valid.");
+			}
+
+			checkLength(length, 8, size);
+
+			long[] randomState = new long[length];
+
+			for (int i = 0; i < length; i++) {
+				randomState[i] = in.readLong();
+			}
+
+			double[] optimizerState = readState(in, size);
+			double[] trainerState = readState(in, size);
+			double[] scheduleState = readState(in, size);
+
+			int n = in.readInt();
+
+			if (epoch < 0 || n <= 0) {
+				throw new IOException("Header is not valid.");
+			}
+
+			checkLength(n, 16, size); // The weights and the last input changes
+
+			double[] weights = new double[n];
+			double[] lastInputsChanges = new double[n];
+
+			for (int i = 0; i < n; i++) {
+				weights[i] = in.readDouble();
+			}
+
+			for (int i = 0; i < n; i++) {
+				lastInputsChanges[i] = in.readDouble();
+			}
+
+			long expected = crc.getValue();
+
+			if (in.readLong() != expected) {
+				throw new IOException("Checksum is not valid.");
+			}
+
+			return new TrainingCheckpoint(epoch, maxiter, minimumImprovement,
+					offline, bestError, weights, lastInputsChanges, randomState,
+					optimizerState, trainerState, scheduleState);
+		} catch (EOFException e) {
+			throw new IOException("File is truncated.", e);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * It writes an optional state as its length, or -1, and its values
+	 */
+	private static void writeState(DataOutputStream out, double[] state) throws IOException {
+		if (state == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(state.length);
+
+		for (double d : state) {
+			out.writeDouble(d);
+		}
+	}
+
+	/**
+	 * It reads an optional state written by writeState
+	 */
+	private static double[] readState(DataInputStream in, long size) throws IOException {
+		int length = in.readInt();
+
+		if (length < -1) {
+			throw new IOException("Header is not valid.");
+		}
+
+		if (length == -1) {
+			return null;
+		}
+
+		checkLength(length, 8, size);
+		double[] state = new double[length];
+
+		for (int i = 0; i < length; i++) {
+			state[i] = in.readDouble();
+		}
+
+		return state;
+	}
+
+	/**
+	 * It checks that a file of the given size can hold the given number of
+	 * values
+	 * 
+	 * @throws IOException if the values need more bytes than the whole file
+	 */
+	private static void checkLength(int length, int bytes, long size) throws IOException {
+		if ((long) length * bytes > size) {
+			throw new IOException("File is truncated.");
+		}
+	}
+}
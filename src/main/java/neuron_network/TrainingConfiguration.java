@@ -0,0 +1,159 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+
+/**
+ * A TrainingConfiguration is a set of hyperparameters of a
+ * MultilayerPerceptron: the topology, the learning factor, the inertia, the
+ * use of bias and the kind of backpropagation. It is immutable.
+ * 
+ * @version 1.0
+ * @see HyperparameterSearch
+ */
+public final class TrainingConfiguration {
+	private final int _hiddenLayers;
+	private final int _hiddenNeurons;
+	private final double _learningFactor;
+	private final double _inertiaValue;
+	private final boolean _useBias;
+	private final boolean _offline;
+
+	/**
+	 * It creates a configuration
+	 * 
+	 * @param hiddenLayers the number of hidden layers
+	 * @param hiddenNeurons the number of neurons of each hidden layer
+	 * @param learningFactor the learning factor, between 0 and 1
+	 * @param inertiaValue the inertia, between 0 and 1
+	 * @param useBias if the neurons use bias
+	 * @param offline if the training uses an offline backpropagation
+	 * @throws IllegalArgumentException if a param is out of range
+	 */
+	public TrainingConfiguration(int hiddenLayers, int hiddenNeurons, double learningFactor,
+			double inertiaValue, boolean useBias, boolean offline) {
+		if (hiddenLayers < 1 || hiddenNeurons < 1) {
+			throw new IllegalArgumentException("the network needs at least one hidden layer with one neuron");
+		}
+
+		if (learningFactor < 0 || learningFactor > 1) {
+			throw new IllegalArgumentException("learningFactor must be between 0 and 1 but is " + learningFactor);
+		}
+
+		if (inertiaValue < 0 || inertiaValue > 1) {
+			throw new IllegalArgumentException("inertiaValue must be between 0 and 1 but is " + inertiaValue);
+		}
+
+		_hiddenLayers = hiddenLayers;
+		_hiddenNeurons = hiddenNeurons;
+		_learningFactor = learningFactor;
+		_inertiaValue = inertiaValue;
+		_useBias = useBias;
+		_offline = offline;
+	}
+
+	/**
+	 * It returns the number of hidden layers
+	 * 
+	 * @return the number of hidden layers
+	 */
+	public int getHiddenLayers() {
+		return _hiddenLayers;
+	}
+
+	/**
+	 * It returns the number of neurons of each hidden layer
+	 * 
+	 * @return the number of hidden neurons
+	 */
+	public int getHiddenNeurons() {
+		return _hiddenNeurons;
+	}
+
+	/**
+	 * It returns the learning factor
+	 * 
+	 * @return the learning factor
+	 */
+	public double getLearningFactor() {
+		return _learningFactor;
+	}
+
+	/**
+	 * It returns the inertia
+	 * 
+	 * @return the inertia value
+	 */
+	public double getInertiaValue() {
+		return _inertiaValue;
+	}
+
+	/**
+	 * Check if the neurons use bias
+	 * 
+	 * @return true if the neurons use bias
+	 */
+	public boolean getUseBias() {
+		return _useBias;
+	}
+
+	/**
+	 * Check if the training uses an offline backpropagation
+	 * 
+	 * @return true for an offline backpropagation, false for an online one
+	 */
+	public boolean isOffline() {
+		return _offline;
+	}
+
+	/**
+	 * It creates a network with this configuration and random weights
+	 * 
+	 * @param data the data the network will be trained with, used to know the length of the inputs and the outputs
+	 * @param type the neuron type of the network
+	 * @param minimize the error minimized by the network
+	 * @param random the random source of the network
+	 * @return a new network
+	 */
+	public MultilayerPerceptron createNetwork(NetworkData data, neuronType type,
+			errorToMinimize minimize, RandomSource random) {
+		MultilayerPerceptron network = new MultilayerPerceptron(_hiddenLayers, _hiddenNeurons,
+				data.outputs_length());
+
+		network.use_bias = _useBias;
+		network.neuronType = type;
+		network.minimize = minimize;
+		network.setLearningFactor(_learningFactor);
+		network.setInertiaValue(_inertiaValue);
+		network.feed(data.iterator().next());
+		network.setRandomSource(random);
+		network.setRandomInputs();
+
+		return network;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d x %d, lf %.4g, inertia %.4g, bias %s, %s", _hiddenLayers,
+				_hiddenNeurons, _learningFactor, _inertiaValue, _useBias, _offline ? "offline" : "online");
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.time.Duration;
+
+/**
+ * The result of a training with a budget of time.
+ * 
+ * @version 1.0
+ * @see MultilayerPerceptron#trainFor(NetworkData, Duration, int, double, boolean, java.util.function.Consumer)
+ */
+public final class TrainingResult {
+	private final int _epochs;
+	private final int _bestEpoch;
+	private final double _bestError;
+	private final boolean _timedOut;
+	private final Duration _elapsed;
+
+	TrainingResult(int epochs, int bestEpoch, double bestError, boolean timedOut, Duration elapsed) {
+		_epochs = epochs;
+		_bestEpoch = bestEpoch;
+		_bestError = bestError;
+		_timedOut = timedOut;
+		_elapsed = elapsed;
+	}
+
+	/**
+	 * It returns the number of epochs completed
+	 * 
+	 * @return the number of epochs
+	 */
+	public int getEpochs() {
+		return _epochs;
+	}
+
+	/**
+	 * It returns the epoch of the weights kept by the network
+	 * 
+	 * @return the number of epochs trained up to the best weights or 0 if no epoch was completed
+	 */
+	public int getBestEpoch() {
+		return Double.isNaN(_bestError) ? 0 : _bestEpoch;
+	}
+
+	/**
+	 * It returns the error of the weights kept by the network: the validation
+	 * error with early stopping or the training error otherwise
+	 * 
+	 * @return the best error or NaN if no epoch was completed, for example
+	 *         when the deadline expired during the first epoch
+	 */
+	public double getBestError() {
+		return _bestError;
+	}
+
+	/**
+	 * Check if the training was stopped by the deadline
+	 * 
+	 * @return true if the budget expired before the end of the training
+	 */
+	public boolean isTimedOut() {
+		return _timedOut;
+	}
+
+	/**
+	 * It returns the time used by the training
+	 * 
+	 * @return the elapsed time
+	 */
+	public Duration getElapsed() {
+		return _elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d epochs in %d ms, best error %s at epoch %d%s", _epochs,
+				_elapsed.toMillis(), _bestError, getBestEpoch(), _timedOut ? " (timed out)" : "");
+	}
+}
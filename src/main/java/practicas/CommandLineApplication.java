@@ -0,0 +1,710 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package practicas;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+import neuron_network.AdamOptimizer;
+import neuron_network.BatchScorer;
+import neuron_network.BatchScorer.outputFormat;
+import neuron_network.ModelFile;
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+import neuron_network.NesterovOptimizer;
+import neuron_network.NetworkData;
+import neuron_network.RMSPropOptimizer;
+import practicas.controller.FinalReport;
+import practicas.controller.TrainingRunner;
+
+/**
+ * The CommandLineApplication trains and uses networks without a window, so
+ * it can run on servers without a display. It has three commands:
+ * 
+ * <ul>
+ * <li>train: it trains a network with the same parameters as the window and
+ * writes the error of each epoch and the final report as CSV or JSON.</li>
+ * <li>score: it writes the outputs of a model file for each patron of a data
+ * file. The file is memory-mapped and scored in parallel by chunks, so it is
+ * never loaded in memory.</li>
+ * <li>convert: it converts a data file between the .dat, CSV and JSON
+ * formats, also line by line.</li>
+ * </ul>
+ * 
+ * <p>
+ * The options are given as "--name value". A file named "-" is the standard
+ * output. The progress is written to the standard error.
+ * </p>
+ */
+public class CommandLineApplication {
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Uso: CommandLineApplication <comando> [--opcion valor]...",
+			"",
+			"train --train FICHERO --test FICHERO",
+			"    [--times 5] [--maxiter 1000] [--min-improvement 1e-8]",
+			"    [--learning-factor 0.9] [--inertia 0.1] [--bias false]",
+			"    [--hidden-layers 1] [--hidden-neurons 1]",
+			"    [--neurons sigmoide|softmax] [--error mse|entropy]",
+			"    [--optimizer inercia|nesterov|rmsprop|adam]",
+			"    [--backpropagation offline|online] [--patience 0]",
+			"    [--budget SEGUNDOS] [--threads N]",
+			"    [--metrics FICHERO] [--report FICHERO] [--model FICHERO]",
+			"    [--format csv|json]",
+			"score --model FICHERO --input FICHERO.dat --output FICHERO [--format csv|json] [--threads N]",
+			"convert --input FICHERO --output FICHERO [--format dat|csv|json] [--inputs N]");
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			HashMap<String, String> options = parseOptions(args);
+
+			switch (args[0]) {
+			case "train":
+				train(options);
+				break;
+			case "score":
+				score(options);
+				break;
+			case "convert":
+				convert(options);
+				break;
+			default:
+				throw new IllegalArgumentException("Comando desconocido: " + args[0]);
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		} catch (IOException | ExecutionException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		} catch (InterruptedException e) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * It trains a network with the given options, like MainController does
+	 * with the options of the window
+	 */
+	static void train(HashMap<String, String> options)
+			throws IOException, InterruptedException, ExecutionException {
+		checkOptions(options, "train", "test", "times", "maxiter", "min-improvement",
+				"learning-factor", "inertia", "bias", "hidden-layers", "hidden-neurons",
+				"neurons", "error", "optimizer", "backpropagation", "patience", "budget",
+				"threads", "metrics", "report", "model", "format");
+
+		NetworkData trainData = new NetworkData(required(options, "train"));
+		NetworkData testData = new NetworkData(required(options, "test"));
+
+		if (trainData.patrons_length() == 0 || testData.patrons_length() == 0) {
+			throw new IOException("Los datos de entrenamiento y test no pueden estar vacíos");
+		}
+
+		if (trainData.inputs_length() != testData.inputs_length()
+				|| trainData.outputs_length() != testData.outputs_length()) {
+			throw new IOException("Los datos de entrenamiento y test no coinciden");
+		}
+
+		TrainingRunner runner = new TrainingRunner();
+		runner.log = System.err;
+		runner.trainData = trainData;
+		runner.testData = testData;
+		runner.times = intOption(options, "times", 5, 1);
+		runner.maxiter = intOption(options, "maxiter", 1000, 1);
+		runner.minimumImprovement = doubleOption(options, "min-improvement", 1e-8);
+		runner.learningFactor = doubleOption(options, "learning-factor", 0.9);
+		runner.inertiaValue = doubleOption(options, "inertia", 0.1);
+		runner.useBias = Boolean.parseBoolean(options.getOrDefault("bias", "false"));
+		runner.hiddenLayers = intOption(options, "hidden-layers", 1, 1);
+		runner.hiddenNeurons = intOption(options, "hidden-neurons", 1, 1);
+		runner.patience = intOption(options, "patience", 0, 0);
+		runner.threads = intOption(options, "threads", runner.threads, 1);
+
+		if (options.containsKey("budget")) {
+			runner.budget = Duration.ofMillis((long) (doubleOption(options, "budget", 0, 0) * 1000));
+		}
+
+		switch (choice(options, "neurons", "sigmoide", "sigmoide", "softmax")) {
+		case "softmax":
+			runner.neuronType = neuronType.SOFTMAX;
+			break;
+		default:
+			runner.neuronType = neuronType.SIGMOIDE;
+		}
+
+		switch (choice(options, "error", "mse", "mse", "entropy")) {
+		case "entropy":
+			runner.errorToMinimize = errorToMinimize.ENTROPY;
+			break;
+		default:
+			runner.errorToMinimize = errorToMinimize.MSE;
+		}
+
+		switch (choice(options, "optimizer", "inercia", "inercia", "nesterov", "rmsprop", "adam")) {
+		case "nesterov":
+			runner.optimizer = new NesterovOptimizer(Math.min(runner.inertiaValue, 0.99));
+			break;
+		case "rmsprop":
+			runner.optimizer = new RMSPropOptimizer();
+			break;
+		case "adam":
+			runner.optimizer = new AdamOptimizer();
+			break;
+		default:
+			runner.optimizer = null;
+		}
+
+		runner.offlineBackpropagation = choice(options, "backpropagation", "offline",
+				"offline", "online").equals("offline");
+
+		boolean json = isJson(options, options.get("report"));
+		ArrayList<double[]> repetitions = new ArrayList<double[]>();
+		FinalReport report;
+
+		try (PrintWriter metrics = open(options.get("metrics"))) {
+			MetricsWriter writer = new MetricsWriter(metrics, isJson(options, options.get("metrics")));
+
+			report = runner.run(new TrainingRunner.Listener() {
+				@Override
+				public void epochFinished(int repetition, int epoch, double trainError) {
+					writer.write(repetition, epoch, trainError);
+				}
+
+				@Override
+				public void repetitionFinished(int repetition, double trainError, double testError) {
+					repetitions.add(new double[] { repetition, trainError, testError });
+					System.err.println(String.format("Acabado entrenamiento %s de %s",
+							repetitions.size(), runner.times));
+				}
+			});
+
+			writer.close();
+		}
+
+		if (options.containsKey("model")) {
+			ModelFile.writeAtomically(runner.getNetwork(), options.get("model"));
+		}
+
+		try (PrintWriter out = open(options.getOrDefault("report", "-"))) {
+			if (json) {
+				writeJsonReport(out, runner.times, repetitions, report);
+			}
+			else {
+				writeCsvReport(out, runner.times, repetitions, report);
+			}
+		}
+	}
+
+	/**
+	 * It writes the outputs of a model for each patron of a .dat file. The
+	 * file is split in chunks that are scored in parallel.
+	 */
+	private static void score(HashMap<String, String> options) throws IOException, InterruptedException {
+		checkOptions(options, "model", "input", "output", "format", "threads");
+
+		BatchScorer scorer = new BatchScorer(ModelFile.read(required(options, "model")),
+				intOption(options, "threads", Runtime.getRuntime().availableProcessors(), 1));
+		String output = required(options, "output");
+		long patrons;
+
+		scorer.setFormat(isJson(options, output) ? outputFormat.JSON : outputFormat.CSV);
+
+		if (output.equals("-")) {
+			patrons = scorer.score(required(options, "input"), System.out);
+		}
+		else {
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output), 1 << 16)) {
+				patrons = scorer.score(required(options, "input"), out);
+			}
+		}
+
+		System.err.println(String.format("Puntuados %s patrones", patrons));
+	}
+
+	/**
+	 * It converts a data file between the .dat, CSV and JSON formats. The
+	 * .dat header needs the number of patrons, so a CSV file is read twice.
+	 */
+	static void convert(HashMap<String, String> options) throws IOException {
+		checkOptions(options, "input", "output", "format", "inputs");
+
+		String input = required(options, "input");
+		String output = required(options, "output");
+		String format = options.containsKey("format")
+				? choice(options, "format", "dat", "dat", "csv", "json")
+				: extension(output);
+		int inputs = options.containsKey("inputs") ? intOption(options, "inputs", 0, 0) : -1;
+		long patrons = 0;
+
+		if (!input.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+			inputs = -1; // The .dat header has its own lengths
+		}
+
+		if (format.equals("dat")) {
+			try (DataReader in = new DataReader(input, inputs)) {
+				while (in.next() != null) {
+					patrons++;
+				}
+			}
+		}
+
+		try (DataReader in = new DataReader(input, inputs);
+				PrintWriter out = open(output)) {
+			int length = in.inputs + in.outputs;
+			double[] patron;
+
+			if (format.equals("dat")) {
+				out.println(in.inputs + " " + in.outputs + " " + patrons);
+			}
+			else if (format.equals("csv")) {
+				out.println(header("x", in.inputs) + "," + header("y", in.outputs));
+			}
+			else {
+				out.print("[");
+			}
+
+			patrons = 0;
+
+			while ((patron = in.next()) != null) {
+				if (format.equals("dat")) {
+					StringBuilder line = new StringBuilder();
+
+					for (int i = 0; i < length; i++) {
+						line.append(i == 0 ? "" : " ").append(patron[i]);
+					}
+
+					out.println(line);
+				}
+				else if (format.equals("csv")) {
+					out.println(csvRow(patron, 0, length));
+				}
+				else {
+					out.print(patrons == 0 ? "\n" : ",\n");
+					out.print(String.format("{\"inputs\":%s,\"outputs\":%s}",
+							jsonArray(patron, 0, in.inputs), jsonArray(patron, in.inputs, length)));
+				}
+
+				patrons++;
+			}
+
+			if (format.equals("json")) {
+				out.println("\n]");
+			}
+		}
+
+		System.err.println(String.format("Convertidos %s patrones", patrons));
+	}
+
+	/**
+	 * It writes the error of each epoch. The repetitions run in parallel, so
+	 * the writes are synchronized.
+	 */
+	private static class MetricsWriter {
+		private final PrintWriter _out;
+		private final boolean _json;
+		private boolean _first;
+
+		public MetricsWriter(PrintWriter out, boolean json) {
+			_out = out;
+			_json = json;
+			_first = true;
+
+			if (out != null && !json) {
+				out.println("repetition,epoch,train_error");
+			}
+		}
+
+		public synchronized void write(int repetition, int epoch, double trainError) {
+			if (_out == null) {
+				return;
+			}
+
+			if (_json) {
+				_out.print(_first ? "[\n" : ",\n");
+				_out.print(String.format("{\"repetition\":%s,\"epoch\":%s,\"train_error\":%s}",
+						repetition + 1, epoch, jsonNumber(trainError)));
+			}
+			else {
+				_out.println((repetition + 1) + "," + epoch + "," + trainError);
+			}
+
+			_first = false;
+		}
+
+		public synchronized void close() {
+			if (_out != null && _json) {
+				_out.println(_first ? "[]" : "\n]");
+			}
+		}
+	}
+
+	private static void writeCsvReport(PrintWriter out, int times,
+			ArrayList<double[]> repetitions, FinalReport report) {
+		out.println("name,value");
+		out.println("times," + times);
+		out.println("train_mean," + report.trainMean);
+		out.println("train_deviation," + report.trainDesviation);
+		out.println("test_mean," + report.testMean);
+		out.println("test_deviation," + report.testDesviation);
+		out.println("test_mse," + report.mseTest);
+		out.println("test_ccr," + report.ccr);
+		out.println("test_entropy," + report.entropyTest);
+
+		for (double[] repetition : repetitions) {
+			out.println("train_error_" + ((int) repetition[0] + 1) + "," + repetition[1]);
+			out.println("test_error_" + ((int) repetition[0] + 1) + "," + repetition[2]);
+		}
+	}
+
+	private static void writeJsonReport(PrintWriter out, int times,
+			ArrayList<double[]> repetitions, FinalReport report) {
+		out.println("{");
+		out.println("  \"times\": " + times + ",");
+		out.println("  \"train_mean\": " + jsonNumber(report.trainMean) + ",");
+		out.println("  \"train_deviation\": " + jsonNumber(report.trainDesviation) + ",");
+		out.println("  \"test_mean\": " + jsonNumber(report.testMean) + ",");
+		out.println("  \"test_deviation\": " + jsonNumber(report.testDesviation) + ",");
+		out.println("  \"test_mse\": " + jsonNumber(report.mseTest) + ",");
+		out.println("  \"test_ccr\": " + jsonNumber(report.ccr) + ",");
+		out.println("  \"test_entropy\": " + jsonNumber(report.entropyTest) + ",");
+		out.println("  \"repetitions\": [");
+
+		for (int i = 0; i < repetitions.size(); i++) {
+			double[] repetition = repetitions.get(i);
+			out.println(String.format("    {\"repetition\":%s,\"train_error\":%s,\"test_error\":%s}%s",
+					(int) repetition[0] + 1, jsonNumber(repetition[1]), jsonNumber(repetition[2]),
+					i + 1 < repetitions.size() ? "," : ""));
+		}
+
+		out.println("  ],");
+		out.println("  \"network\": " + jsonString(report.network));
+		out.println("}");
+	}
+
+	/**
+	 * It reads the patrons of a .dat file or of a CSV file with a header
+	 * line, one line at a time
+	 */
+	private static class DataReader implements AutoCloseable {
+		private final BufferedReader _in;
+		private final boolean _csv;
+		private final double[] _patron;
+		public final int inputs;
+		public final int outputs;
+
+		/**
+		 * @param file the path of the file
+		 * @param csvInputs the number of inputs of a CSV file, or -1 to count the columns named x
+		 */
+		public DataReader(String file, int csvInputs) throws IOException {
+			_in = new BufferedReader(new FileReader(file));
+			_csv = file.toLowerCase(Locale.ROOT).endsWith(".csv");
+
+			String header = _in.readLine();
+
+			if (header == null) {
+				_in.close();
+				throw new IOException("Header is not valid.");
+			}
+
+			if (_csv) {
+				String[] names = header.split(",");
+				int x = 0;
+
+				while (x < names.length && names[x].trim().startsWith("x")) {
+					x++;
+				}
+
+				inputs = (csvInputs >= 0) ? csvInputs : x;
+				outputs = names.length - inputs;
+			}
+			else {
+				String[] fields = header.trim().split("( |\t)+");
+
+				if (fields.length < 3) {
+					_in.close();
+					throw new IOException("Header is not valid.");
+				}
+
+				inputs = Integer.valueOf(fields[0]);
+				outputs = Integer.valueOf(fields[1]);
+			}
+
+			if (inputs < 0 || outputs < 0) {
+				_in.close();
+				throw new IOException("Header is not valid.");
+			}
+
+			_patron = new double[inputs + outputs];
+		}
+
+		/**
+		 * It returns the next patron, in an array that is reused by the
+		 * next call, or null at the end of the file
+		 */
+		public double[] next() throws IOException {
+			String line;
+
+			do {
+				line = _in.readLine();
+
+				if (line == null) {
+					return null;
+				}
+
+				line = line.trim();
+			} while (line.isEmpty());
+
+			String[] fields = line.split(_csv ? " *, *" : "( |\t)+");
+
+			if (fields.length != _patron.length) {
+				throw new IOException("Data is corrupted.");
+			}
+
+			try {
+				for (int i = 0; i < fields.length; i++) {
+					_patron[i] = Double.parseDouble(fields[i]);
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException("Data is corrupted.", e);
+			}
+
+			return _patron;
+		}
+
+		@Override
+		public void close() throws IOException {
+			_in.close();
+		}
+	}
+
+	/**
+	 * It parses the options after the command
+	 */
+	static HashMap<String, String> parseOptions(String[] args) {
+		HashMap<String, String> options = new HashMap<String, String>();
+
+		for (int i = 1; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException("Opción no válida: " + args[i]);
+			}
+
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+
+		return options;
+	}
+
+	private static void checkOptions(HashMap<String, String> options, String... known) {
+		for (String name : options.keySet()) {
+			boolean found = false;
+
+			for (String k : known) {
+				found |= k.equals(name);
+			}
+
+			if (!found) {
+				throw new IllegalArgumentException("Opción desconocida: --" + name);
+			}
+		}
+	}
+
+	private static String required(HashMap<String, String> options, String name) {
+		if (!options.containsKey(name)) {
+			throw new IllegalArgumentException("Falta la opción --" + name);
+		}
+
+		return options.get(name);
+	}
+
+	private static int intOption(HashMap<String, String> options, String name, int value, int minimum) {
+		try {
+			int result = options.containsKey(name) ? Integer.parseInt(options.get(name)) : value;
+
+			if (result < minimum) {
+				throw new IllegalArgumentException("--" + name + " debe ser al menos " + minimum);
+			}
+
+			return result;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("--" + name + " debe ser un entero");
+		}
+	}
+
+	private static double doubleOption(HashMap<String, String> options, String name, double value) {
+		try {
+			return options.containsKey(name) ? Double.parseDouble(options.get(name)) : value;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("--" + name + " debe ser un número");
+		}
+	}
+
+	private static double doubleOption(HashMap<String, String> options, String name, double value,
+			double minimum) {
+		double result = doubleOption(options, name, value);
+
+		if (!(result >= minimum)) { // NaN is rejected too
+			throw new IllegalArgumentException("--" + name + " debe ser al menos " + minimum);
+		}
+
+		return result;
+	}
+
+	static String choice(HashMap<String, String> options, String name, String value, String... values) {
+		String result = options.getOrDefault(name, value).toLowerCase(Locale.ROOT);
+
+		for (String v : values) {
+			if (v.equals(result)) {
+				return result;
+			}
+		}
+
+		throw new IllegalArgumentException("--" + name + " debe ser uno de: " + String.join(", ", values));
+	}
+
+	/**
+	 * It checks if a file is written as JSON, by the format option or by the
+	 * extension of the file
+	 */
+	private static boolean isJson(HashMap<String, String> options, String file) {
+		if (options.containsKey("format")) {
+			return choice(options, "format", "csv", "csv", "json").equals("json");
+		}
+
+		return file != null && extension(file).equals("json");
+	}
+
+	private static String extension(String file) {
+		String name = file.toLowerCase(Locale.ROOT);
+
+		if (name.endsWith(".json")) {
+			return "json";
+		}
+
+		return name.endsWith(".dat") ? "dat" : "csv";
+	}
+
+	/**
+	 * It opens a file to write, the standard output for "-" or nothing for
+	 * null
+	 */
+	private static PrintWriter open(String file) throws IOException {
+		if (file == null) {
+			return null;
+		}
+
+		if (file.equals("-")) {
+			return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)), false) {
+				@Override
+				public void close() {
+					flush(); // The standard output stays open
+				}
+			};
+		}
+
+		return new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16));
+	}
+
+	private static String header(String prefix, int length) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < length; i++) {
+			builder.append(i == 0 ? "" : ",").append(prefix).append(i + 1);
+		}
+
+		return builder.toString();
+	}
+
+	private static String csvRow(double[] values, int from, int to) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = from; i < to; i++) {
+			builder.append(i == from ? "" : ",").append(values[i]);
+		}
+
+		return builder.toString();
+	}
+
+	private static String jsonArray(double[] values, int from, int to) {
+		StringBuilder builder = new StringBuilder("[");
+
+		for (int i = from; i < to; i++) {
+			builder.append(i == from ? "" : ",").append(jsonNumber(values[i]));
+		}
+
+		return builder.append("]").toString();
+	}
+
+	private static String jsonNumber(double value) {
+		return (Double.isNaN(value) || Double.isInfinite(value)) ? "null" : Double.toString(value);
+	}
+
+	static String jsonString(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+
+		for (char c : value.toCharArray()) {
+			switch (c) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					builder.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					builder.append(c);
+				}
+			}
+		}
+
+		return builder.append("\"").toString();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package practicas.controller;
+
+/**
+ * The statistics of all the repetitions of a training
+ */
+public class FinalReport {
+	public double trainMean;
+	public double trainDesviation;
+	public double testMean;
+	public double testDesviation;
+	public double ccr;
+	public double entropyTest;
+	public double mseTest;
+	public String network;
+
+	public FinalReport(double trainMean, double trainDesviation,
+			double testMean, double testDesviation, double ccr,
+			double entropyTest, double mseTest, String network) {
+		this.trainMean = trainMean;
+		this.trainDesviation = trainDesviation;
+		this.testMean = testMean;
+		this.testDesviation = testDesviation;
+		this.network = network;
+		this.ccr = ccr;
+		this.entropyTest = entropyTest;
+		this.mseTest = mseTest;
+	}
+}
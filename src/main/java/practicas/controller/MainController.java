@@ -20,9 +20,12 @@ package practicas.controller;
 
 import java.io.IOException;
 
+import neuron_network.AdamOptimizer;
 import neuron_network.MultilayerPerceptron.errorToMinimize;
 import neuron_network.MultilayerPerceptron.neuronType;
+import neuron_network.NesterovOptimizer;
 import neuron_network.NetworkData;
+import neuron_network.RMSPropOptimizer;
 import practicas.gui.MainWindow;
 
 public class MainController {
@@ -64,53 +67,70 @@ public class MainController {
 		window.appendOutput(String.format("Funcion a optimizar: %s", window.getFunctionToOptimize().toUpperCase()));
 		window.appendOutput(String.format("Factor de aprendizaje: %s", window.getLearningFactor()));
 		window.appendOutput(String.format("Factor de inercia: %s", window.getInertiaFactor()));
+		window.appendOutput(String.format("Optimizador: %s", window.getOptimizer()));
 		window.appendOutput(String.format("Mejora mínimia: %s", window.getMinimumImprovement()));
 		window.appendOutput(String.format("Capas ocultas: %s", window.getHiddenLayers()));
 		window.appendOutput(String.format("Neuronas por capa oculta: %s", window.getHiddenNeurons()));
 		window.appendOutput(String.format("Neuronas con bias: %s", window.getUseBias()));
 		window.appendOutput(String.format("Iteraciones máximas: %s", window.getMaxiter()));
 		window.appendOutput(String.format("Repeticiones del algoritmo: %s", window.getTimes()));
+		window.appendOutput(String.format("Paciencia: %s", window.getPatience()));
 		window.appendOutput("");
 
 		window.setProgressBarMaximumValue(window.getTimes() + 2);
 		window.setProgressBarValue(0);
 
-		worker = new TrainController();
-		worker.times = window.getTimes();
-		worker.maxiter = window.getMaxiter();
-		worker.minimumImprovement = window.getMinimumImprovement();
-		worker.trainData = trainData;
-		worker.testData = testData;
-		worker.learningFactor = window.getLearningFactor();
-		worker.inertiaValue = window.getInertiaFactor();
-		worker.useBias = window.getUseBias();
-		worker.hiddenLayers = window.getHiddenLayers();
-		worker.hiddenNeurons = window.getHiddenNeurons();
+		TrainingRunner runner = new TrainingRunner();
+		runner.times = window.getTimes();
+		runner.maxiter = window.getMaxiter();
+		runner.minimumImprovement = window.getMinimumImprovement();
+		runner.trainData = trainData;
+		runner.testData = testData;
+		runner.learningFactor = window.getLearningFactor();
+		runner.inertiaValue = window.getInertiaFactor();
+		runner.useBias = window.getUseBias();
+		runner.hiddenLayers = window.getHiddenLayers();
+		runner.hiddenNeurons = window.getHiddenNeurons();
+		runner.patience = window.getPatience();
 		
 		if(window.getNeuronsType().equalsIgnoreCase("SIGMOIDE")) {
-			worker.neuronType = neuronType.SIGMOIDE;
+			runner.neuronType = neuronType.SIGMOIDE;
 		}
 		else {
-			worker.neuronType = neuronType.SOFTMAX;
+			runner.neuronType = neuronType.SOFTMAX;
 		}
 		
 		if(window.getFunctionToOptimize().equalsIgnoreCase("Entropía")) {
-			worker.errorToMinimize = errorToMinimize.ENTROPY;
+			runner.errorToMinimize = errorToMinimize.ENTROPY;
 		}
 		else {
-			worker.errorToMinimize = errorToMinimize.MSE;
+			runner.errorToMinimize = errorToMinimize.MSE;
+		}
+		
+		if(window.getOptimizer().equalsIgnoreCase("Nesterov")) {
+			runner.optimizer = new NesterovOptimizer(Math.min(window.getInertiaFactor(), 0.99));
+		}
+		else if(window.getOptimizer().equalsIgnoreCase("RMSProp")) {
+			runner.optimizer = new RMSPropOptimizer();
+		}
+		else if(window.getOptimizer().equalsIgnoreCase("Adam")) {
+			runner.optimizer = new AdamOptimizer();
+		}
+		else {
+			runner.optimizer = null;
 		}
 		
 		if(window.getBackpropagationType().equalsIgnoreCase("Online")) {
-			worker.offlineBackpropagation = false;
+			runner.offlineBackpropagation = false;
 		}
 		else {
-			worker.offlineBackpropagation = true;
+			runner.offlineBackpropagation = true;
 		}
 		
 		window.setStatus("Entrenamiento 1 de " + window.getTimes());
 		window.setProgressBarValue(1);
 		window.disableAllButtons();
+		worker = new TrainController(runner);
 		worker.execute();
 	}
 
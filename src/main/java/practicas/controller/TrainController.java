@@ -18,15 +18,11 @@
 
 package practicas.controller;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.SwingWorker;
 
-import neuron_network.MultilayerPerceptron;
-import neuron_network.NetworkData;
-
 class TrainResults {
 	public int iteration;
 	public double testError;
@@ -39,145 +35,30 @@ class TrainResults {
 	}
 }
 
-class FinalReport {
-	public double trainMean;
-	public double trainDesviation;
-	public double testMean;
-	public double testDesviation;
-	public double ccr;
-	public double entropyTest;
-	public double mseTest;
-	public String network;
-
-	public FinalReport(double trainMean, double trainDesviation,
-			double testMean, double testDesviation, double ccr,
-			double entropyTest, double mseTest, String network) {
-		this.trainMean = trainMean;
-		this.trainDesviation = trainDesviation;
-		this.testMean = testMean;
-		this.testDesviation = testDesviation;
-		this.network = network;
-		this.ccr = ccr;
-		this.entropyTest = entropyTest;
-		this.mseTest = mseTest;
-	}
-}
-
 public class TrainController extends SwingWorker<FinalReport, TrainResults> {
 
-	private MultilayerPerceptron network;
-	public int times;
-	public NetworkData trainData;
-	public NetworkData testData;
-	public int maxiter;
-	public double minimumImprovement;
-	public MultilayerPerceptron.neuronType neuronType;
-	public MultilayerPerceptron.errorToMinimize errorToMinimize;
-	public boolean offlineBackpropagation;
-	public double learningFactor;
-	public double inertiaValue;
-	public boolean useBias;
-	public int hiddenLayers;
-	public int hiddenNeurons;
+	private final TrainingRunner runner;
+	private int finished;
 
-	public TrainController() {
+	public TrainController(TrainingRunner runner) {
 		super();
-		network = new MultilayerPerceptron();
-		neuronType = neuronType.SIGMOIDE;
-		errorToMinimize = errorToMinimize.MSE;
-		learningFactor = network.getLearningFactor();
-		inertiaValue = network.getInertiaValue();
-	}
-
-	public void setup() {
-		network.use_bias = this.useBias;
-		network.setHiddenLayersSize(hiddenLayers, hiddenNeurons);
-		network.setOutputLayerSize(trainData.outputs_length());
-		network.neuronType = this.neuronType;
-		network.minimize = this.errorToMinimize;
-		network.setInertiaValue(inertiaValue);
-		network.setLearningFactor(learningFactor);
-		network.spreadOut();
+		this.runner = runner;
 	}
 
 	@Override
 	protected FinalReport doInBackground() throws Exception {
-		ArrayList<Double> trainError = new ArrayList<Double>();
-		ArrayList<Double> testError = new ArrayList<Double>();
-		
-		setup();
-		
-		System.out.println("Configurada red neuronal con: ");
-		System.out.println(String.format("Numero de capas ocultas: %s - Neuronas por capa oculta: %s",
-				network.getNumberOfHiddenLayers(), network.getLayerSize(0)));
-		System.out.println(String.format("Tamaño de la capa de salida: %s neuronas",
-				network.getOutputLayerSize()));
-		System.out.println(String.format("Uso de bias: %s", network.use_bias));
-		System.out.println(String.format("Tipo de neuronas: %s", network.neuronType));
-		System.out.println(String.format("Funcion a minimizar: %s", network.minimize));
-		System.out.println(String.format("Uso de la retropropagación offline: %s", offlineBackpropagation));
-		System.out.println(String.format("Factor de aprendizaje: %s", network.getLearningFactor()));
-		System.out.println(String.format("Factor de inercia: %s", network.getInertiaValue()));
-		System.out.println("");
+		finished = 0;
 
-		for (int i = 0; i < times; i++) {
-			network.trainByBackpropagation(trainData, maxiter, minimumImprovement, this.offlineBackpropagation);
-			network.spreadOut();
-			
-			if(errorToMinimize.equals(errorToMinimize.MSE)) {
-				trainError.add(network.getMeanSquaredError(trainData));
-				testError.add(network.getMeanSquaredError(testData));
+		return runner.run(new TrainingRunner.Listener() {
+			@Override
+			public void epochFinished(int repetition, int epoch, double trainError) {
 			}
-			else {
-				trainError.add(network.getEntropy(trainData));
-				testError.add(network.getEntropy(testData));
-			}
-			
-			System.out.println(String.format("Trainning %s finished with the following error: train: <%s> test: <%s>",
-					i + 1, trainError.get(trainError.size() - 1), testError.get(testError.size() - 1)));
-			
-			publish(new TrainResults(i, trainError.get(trainError.size() - 1), testError.get(testError.size() - 1)));
-		}
-
-		double trainMean = 0;
-		double testMean = 0;
-		double trainDesviation = 0;
-		double testDesviation = 0;
-		double ccrTest = network.getCCR(testData);
-		double mseTest = network.getMeanSquaredError(testData);
-		double entropyTest = network.getEntropy(testData);
 
-		for (Double error : trainError) {
-			trainMean += error;
-			trainDesviation += Math.pow(error, 2);
-		}
-
-		for (Double error : testError) {
-			testMean += error;
-			testDesviation += Math.pow(error, 2);
-		}
-
-		trainMean /= trainError.size();
-		trainDesviation /= trainError.size();
-		testMean /= testError.size();
-		testDesviation /= testError.size();
-
-		trainDesviation -= Math.pow(trainMean, 2);
-		testDesviation -= Math.pow(testMean, 2);
-
-		trainDesviation = Math.sqrt(trainDesviation);
-		testDesviation = Math.sqrt(testDesviation);
-
-		if (Double.isNaN(trainDesviation)) {
-			trainDesviation = 0;
-		}
-
-		if (Double.isNaN(testDesviation)) {
-			testDesviation = 0;
-		}
-
-		return new FinalReport(trainMean, trainDesviation, testMean,
-				testDesviation, ccrTest, entropyTest, mseTest, network.toString());
+			@Override
+			public void repetitionFinished(int repetition, double trainError, double testError) {
+				publish(new TrainResults(finished++, trainError, testError));
+			}
+		});
 	}
 
 	@Override
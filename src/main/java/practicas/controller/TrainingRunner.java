@@ -0,0 +1,346 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package practicas.controller;
+
+import static neuron_network.MultilayerPerceptron.errorToMinimize.MSE;
+import static neuron_network.MultilayerPerceptron.neuronType.SIGMOIDE;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import neuron_network.BatchTrainer;
+import neuron_network.Evaluation;
+import neuron_network.LearningRateSchedule;
+import neuron_network.MultilayerPerceptron;
+import neuron_network.NetworkData;
+import neuron_network.Optimizer;
+import neuron_network.TrainingResult;
+
+/**
+ * A TrainingRunner trains a network several times with the same parameters
+ * and measures the errors of all the repetitions. It doesn't depend on
+ * Swing, so it is used by the window through TrainController and by the
+ * command line application.
+ */
+public class TrainingRunner {
+
+	/**
+	 * It receives the progress of a training
+	 */
+	public interface Listener {
+
+		/**
+		 * It is called after each epoch of a repetition. The repetitions
+		 * run in parallel, so it can be called from several threads at the
+		 * same time.
+		 * 
+		 * @param repetition the repetition, from 0
+		 * @param epoch the finished epoch, from 1
+		 * @param trainError the error of the training data in the epoch
+		 */
+		public void epochFinished(int repetition, int epoch, double trainError);
+
+		/**
+		 * It is called when a repetition finishes, always from the thread
+		 * that called run.
+		 * 
+		 * @param repetition the repetition, from 0
+		 * @param trainError the final error of the training data
+		 * @param testError the final error of the test data
+		 */
+		public void repetitionFinished(int repetition, double trainError, double testError);
+	}
+
+	private MultilayerPerceptron network;
+	private NetworkData fitData;
+	private NetworkData validationData;
+	private Duration[] budgets;
+	public int times;
+	public NetworkData trainData;
+	public NetworkData testData;
+	public int maxiter;
+	public double minimumImprovement;
+	public MultilayerPerceptron.neuronType neuronType;
+	public MultilayerPerceptron.errorToMinimize errorToMinimize;
+	public MultilayerPerceptron.weightInitialization initialization;
+	public MultilayerPerceptron.biasInitialization biasInitialization;
+	public Optimizer optimizer;
+	public LearningRateSchedule schedule;
+	public BatchTrainer batchTrainer;
+	public int patience;
+	public double validationFraction;
+	public Duration budget;
+	public int threads;
+	public boolean offlineBackpropagation;
+	public double learningFactor;
+	public double inertiaValue;
+	public boolean useBias;
+	public int hiddenLayers;
+	public int hiddenNeurons;
+	public PrintStream log;
+
+	public TrainingRunner() {
+		network = new MultilayerPerceptron();
+		neuronType = SIGMOIDE; // The fields hide the types, so the constants are imported
+		errorToMinimize = MSE;
+		initialization = network.initialization;
+		biasInitialization = network.bias_initialization;
+		learningFactor = network.getLearningFactor();
+		inertiaValue = network.getInertiaValue();
+		validationFraction = 0.2;
+		threads = Runtime.getRuntime().availableProcessors();
+		log = System.out;
+	}
+
+	public void setup() {
+		network.use_bias = this.useBias;
+		network.setHiddenLayersSize(hiddenLayers, hiddenNeurons);
+		network.setOutputLayerSize(trainData.outputs_length());
+		network.neuronType = this.neuronType;
+		network.minimize = this.errorToMinimize;
+		network.initialization = this.initialization;
+		network.bias_initialization = this.biasInitialization;
+		network.setInertiaValue(inertiaValue);
+		network.setLearningFactor(learningFactor);
+		network.setOptimizer(optimizer);
+		network.setLearningRateSchedule(schedule, false);
+		network.setBatchTrainer(batchTrainer);
+		network.feed(trainData.iterator().next());
+		network.spreadOut();
+		
+		if (patience > 0) {
+			NetworkData[] parts = trainData.holdOut(validationFraction, network.getRandomSource());
+			fitData = parts[0];
+			validationData = parts[1];
+			network.setEarlyStopping(validationData, patience);
+		}
+		else {
+			fitData = trainData;
+			validationData = null;
+			network.setEarlyStopping(null, 0);
+		}
+	}
+
+	/**
+	 * It returns the network of the last repetition
+	 * 
+	 * @return the trained network, or the configured one before run
+	 */
+	public MultilayerPerceptron getNetwork() {
+		return network;
+	}
+
+	/**
+	 * It returns the time given to each repetition of the last run. The
+	 * repetitions that run at the same time share a wave and get the same
+	 * time: the time left when the wave starts divided by the waves left.
+	 * 
+	 * @return the time of each repetition, or null without budget or before run
+	 */
+	public Duration[] getBudgets() {
+		return budgets == null ? null : budgets.clone();
+	}
+
+	/**
+	 * It creates a network for a repetition from the configured one, with
+	 * its own random source, optimizer, schedule and batch trainer
+	 */
+	private MultilayerPerceptron copyNetwork() {
+		MultilayerPerceptron copy = network.copy();
+
+		copy.setOptimizer(optimizer == null ? null : optimizer.copy());
+		copy.setLearningRateSchedule(schedule == null ? null : schedule.copy(), false);
+		copy.setBatchTrainer(batchTrainer == null ? null : batchTrainer.copy());
+
+		if (fitData != trainData) {
+			copy.setEarlyStopping(validationData, patience);
+		}
+
+		return copy;
+	}
+
+	/**
+	 * It returns the time of each repetition of a wave. The first repetition
+	 * of the wave that starts divides the time left by the waves left, so the
+	 * time not used by the previous waves is shared by the rest.
+	 */
+	private static long getWaveBudget(AtomicLongArray waveBudgets, int wave, int waves, long deadline) {
+		if (waveBudgets.get(wave) < 0) {
+			long remaining = Math.max(0, deadline - System.nanoTime());
+			waveBudgets.compareAndSet(wave, -1, remaining / (waves - wave));
+		}
+
+		return waveBudgets.get(wave);
+	}
+
+	/**
+	 * It sets up the network and makes all the repetitions of the training
+	 * 
+	 * @param listener the listener of the progress
+	 * @return the statistics of the repetitions
+	 * @throws InterruptedException if the thread is interrupted while it waits for the repetitions
+	 * @throws ExecutionException if a repetition fails
+	 */
+	public FinalReport run(Listener listener) throws InterruptedException, ExecutionException {
+		ArrayList<Double> trainError = new ArrayList<Double>();
+		ArrayList<Double> testError = new ArrayList<Double>();
+		
+		setup();
+		
+		log.println("Configurada red neuronal con: ");
+		log.println(String.format("Numero de capas ocultas: %s - Neuronas por capa oculta: %s",
+				network.getNumberOfHiddenLayers(), network.getLayerSize(0)));
+		log.println(String.format("Tamaño de la capa de salida: %s neuronas",
+				network.getOutputLayerSize()));
+		log.println(String.format("Uso de bias: %s", network.use_bias));
+		log.println(String.format("Tipo de neuronas: %s", network.neuronType));
+		log.println(String.format("Funcion a minimizar: %s", network.minimize));
+		log.println(String.format("Inicialización de pesos: %s - de bias: %s",
+				network.initialization, network.bias_initialization));
+		log.println(String.format("Uso de la retropropagación offline: %s", offlineBackpropagation));
+		log.println(String.format("Factor de aprendizaje: %s", network.getLearningFactor()));
+		log.println(String.format("Factor de inercia: %s", network.getInertiaValue()));
+		log.println(String.format("Optimizador: %s", optimizer == null ? "Inercia" : optimizer));
+		log.println(String.format("Parada temprana: %s", patience > 0
+				? String.format("paciencia %s, validación %s%%", patience, validationFraction * 100) : "no"));
+		log.println(String.format("Tiempo máximo: %s", budget == null ? "sin límite" : budget));
+		log.println(String.format("Repeticiones en paralelo: %s", Math.min(threads, times)));
+		log.println("");
+
+		int poolSize = Math.max(1, Math.min(threads, times));
+		long deadline = System.nanoTime() + (budget == null ? 0 : budget.toNanos());
+		int waves = (times + poolSize - 1) / poolSize;
+		AtomicLongArray waveBudgets = new AtomicLongArray(waves);
+		budgets = (budget == null) ? null : new Duration[times];
+
+		for (int i = 0; i < waves; i++) {
+			waveBudgets.set(i, -1); // Not started yet
+		}
+
+		MultilayerPerceptron[] networks = new MultilayerPerceptron[times];
+		double[] trainErrors = new double[times];
+		double[] testErrors = new double[times];
+		ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+		CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(pool);
+
+		try {
+			for (int i = 0; i < times; i++) {
+				int repetition = i;
+				MultilayerPerceptron copy = copyNetwork();
+				AtomicInteger epochs = new AtomicInteger();
+				networks[i] = copy;
+
+				completion.submit(() -> {
+					if (budget == null) {
+						copy.trainByBackpropagation(fitData, maxiter, minimumImprovement, this.offlineBackpropagation,
+								e -> listener.epochFinished(repetition, epochs.incrementAndGet(), e));
+					}
+					else {
+						// The repetitions are started in order, so each group of
+						// poolSize repetitions is a wave that shares the same time
+						int wave = repetition / poolSize;
+						Duration time = Duration.ofNanos(getWaveBudget(waveBudgets, wave, waves, deadline));
+						budgets[repetition] = time;
+						TrainingResult result = copy.trainFor(fitData, time,
+								maxiter, minimumImprovement, this.offlineBackpropagation,
+								e -> listener.epochFinished(repetition, epochs.incrementAndGet(), e));
+						log.println(String.format("Trainning %s: %s", repetition + 1, result));
+					}
+					copy.spreadOut();
+
+					if(errorToMinimize == MSE) {
+						trainErrors[repetition] = copy.getMeanSquaredError(trainData);
+						testErrors[repetition] = copy.getMeanSquaredError(testData);
+					}
+					else {
+						trainErrors[repetition] = copy.getEntropy(trainData);
+						testErrors[repetition] = copy.getEntropy(testData);
+					}
+
+					return repetition;
+				});
+			}
+
+			for (int i = 0; i < times; i++) {
+				int repetition = completion.take().get();
+				trainError.add(trainErrors[repetition]);
+				testError.add(testErrors[repetition]);
+
+				log.println(String.format("Trainning %s finished with the following error: train: <%s> test: <%s>",
+						repetition + 1, trainErrors[repetition], testErrors[repetition]));
+
+				listener.repetitionFinished(repetition, trainErrors[repetition], testErrors[repetition]);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		network = networks[times - 1];
+
+		double trainMean = 0;
+		double testMean = 0;
+		double trainDesviation = 0;
+		double testDesviation = 0;
+		Evaluation evaluation = network.evaluate(testData);
+		double ccrTest = evaluation.getCCR();
+		double mseTest = evaluation.getMeanSquaredError();
+		double entropyTest = evaluation.getEntropy();
+
+		for (Double error : trainError) {
+			trainMean += error;
+			trainDesviation += Math.pow(error, 2);
+		}
+
+		for (Double error : testError) {
+			testMean += error;
+			testDesviation += Math.pow(error, 2);
+		}
+
+		trainMean /= trainError.size();
+		trainDesviation /= trainError.size();
+		testMean /= testError.size();
+		testDesviation /= testError.size();
+
+		trainDesviation -= Math.pow(trainMean, 2);
+		testDesviation -= Math.pow(testMean, 2);
+
+		trainDesviation = Math.sqrt(trainDesviation);
+		testDesviation = Math.sqrt(testDesviation);
+
+		if (Double.isNaN(trainDesviation)) {
+			trainDesviation = 0;
+		}
+
+		if (Double.isNaN(testDesviation)) {
+			testDesviation = 0;
+		}
+
+		return new FinalReport(trainMean, trainDesviation, testMean,
+				testDesviation, ccrTest, entropyTest, mseTest, network.toString());
+	}
+}
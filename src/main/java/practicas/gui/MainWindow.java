@@ -60,10 +60,12 @@ public class MainWindow extends JFrame {
 	private JPanel neuronsTypePanel;
 	private JPanel functionToOptimizePanel;
 	private JPanel backpropagationTypePanel;
+	private JPanel optimizerPanel;
 	private JPanel comboOptionsPanel;
 	private JComboBox<String> neuronsType;
 	private JComboBox<String> functionToOptimize;
 	private JComboBox<String> backpropagationType;
+	private JComboBox<String> optimizer;
 	private JCheckBox useBias;
 	private JPanel learningFactorPanel;
 	private JSlider learningFactor;
@@ -80,6 +82,8 @@ public class MainWindow extends JFrame {
 	private JSpinner maxiter;
 	private JPanel timesPanel;
 	private JSpinner times;
+	private JPanel patiencePanel;
+	private JSpinner patience;
 	private JLabel status;
 	private JPanel actionPanel;
 	private JButton trainButton;
@@ -169,6 +173,18 @@ public class MainWindow extends JFrame {
 		functionToOptimizePanel.add(functionToOptimize);
 		comboOptionsPanel.add(functionToOptimizePanel);
 		
+		optimizerPanel = new JPanel();
+		optimizerPanel.setLayout(new BoxLayout(optimizerPanel, BoxLayout.Y_AXIS));
+		optimizerPanel.setBorder(new TitledBorder("Optimizador"));
+		optimizer = new JComboBox<>();
+		optimizer.addItem("Inercia");
+		optimizer.addItem("Nesterov");
+		optimizer.addItem("RMSProp");
+		optimizer.addItem("Adam");
+		optimizer.setToolTipText("Indica como se ajustan los pesos tras cada retropropagación.");
+		optimizerPanel.add(optimizer);
+		comboOptionsPanel.add(optimizerPanel);
+		
 		configWindow.add(comboOptionsPanel);
 		configWindow.add(Box.createVerticalStrut(5));
 		
@@ -275,6 +291,15 @@ public class MainWindow extends JFrame {
 		timesPanel.add(times);
 		spinnerOptionsPanel.add(timesPanel);
 
+		// Patience
+		patiencePanel = new JPanel();
+		patiencePanel.setLayout(new BoxLayout(patiencePanel, BoxLayout.X_AXIS));
+		patiencePanel.setBorder(new TitledBorder("Paciencia"));
+		patience = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 10));
+		patience.setToolTipText("Indica cuantas iteraciones sin mejorar el error de validación se permiten antes de parar. Con 0 (por defecto) no hay parada temprana y se usan todos los datos para entrenar.");
+		patiencePanel.add(patience);
+		spinnerOptionsPanel.add(patiencePanel);
+
 		configWindow.add(spinnerOptionsPanel);
 		configWindow.add(Box.createVerticalStrut(5));
 
@@ -372,6 +397,10 @@ public class MainWindow extends JFrame {
 		return (int) times.getValue();
 	}
 
+	public int getPatience() {
+		return (int) patience.getValue();
+	}
+
 	public void clearOutput() {
 		output.setText(null);
 	}
@@ -420,6 +449,10 @@ public class MainWindow extends JFrame {
 	public String getBackpropagationType() {
 		return (String) backpropagationType.getSelectedItem();
 	}
+	
+	public String getOptimizer() {
+		return (String) optimizer.getSelectedItem();
+	}
 
 	private void onLoadTrainButtonClicked() {
 		int returnVal = fileChooser.showOpenDialog(this);
@@ -0,0 +1,202 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BatchScorer}
+ */
+public class BatchScorerTest {
+	private static final int PATRONS = 500;
+
+	private MultilayerPerceptron _network;
+	private double[][] _inputs;
+	private String _file;
+
+	@Before
+	public void setUp() throws IOException {
+		RandomSource random = new SplitMixRandom(11);
+
+		_network = new MultilayerPerceptron(1, 4, 2);
+		_network.use_bias = true;
+		_network.neuronType = neuronType.SOFTMAX;
+		_network.setRandomSource(random.split());
+		_network.feed(new ArrayList<Double>(Arrays.asList(0.0, 0.0, 0.0)));
+		_network.setRandomInputs();
+
+		_inputs = new double[PATRONS][3];
+
+		File file = File.createTempFile("batch", ".dat");
+		file.deleteOnExit();
+		_file = file.getPath();
+
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("3 2 " + PATRONS);
+
+			for (int p = 0; p < PATRONS; p++) {
+				for (int i = 0; i < 3; i++) {
+					_inputs[p][i] = random.nextGaussian();
+					out.print(_inputs[p][i] + (i < 2 ? " " : "\t"));
+				}
+
+				out.println(p % 2 + " " + (1 - p % 2));
+
+				if (p % 100 == 0) {
+					out.println(); // Empty lines are skipped
+				}
+			}
+		}
+	}
+
+	private String[] score(BatchScorer scorer) throws IOException, InterruptedException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertEquals(PATRONS, scorer.score(_file, out));
+
+		return out.toString("ISO-8859-1").split("\n");
+	}
+
+	@Test
+	public void checkPredictionsAreWrittenInOrder() throws IOException, InterruptedException {
+		BatchScorer scorer = new BatchScorer(_network, 4);
+		scorer.setChunkSize(64); // Many chunks of a few lines
+		scorer.setWindow(3);
+
+		String[] lines = score(scorer);
+		double[] outputs = new double[2];
+
+		assertEquals(PATRONS + 1, lines.length);
+		assertEquals("y1,y2", lines[0]);
+
+		for (int p = 0; p < PATRONS; p++) {
+			_network.predict(_inputs[p], outputs);
+			assertEquals(outputs[0] + "," + outputs[1], lines[p + 1]);
+		}
+	}
+
+	@Test
+	public void checkTheResultDoesNotDependOnTheChunks() throws IOException, InterruptedException {
+		BatchScorer single = new BatchScorer(_network, 1);
+		BatchScorer parallel = new BatchScorer(_network, 3);
+		parallel.setChunkSize(1);
+
+		String[] expected = score(single);
+		String[] lines = score(parallel);
+
+		assertEquals(expected.length, lines.length);
+
+		for (int i = 0; i < lines.length; i++) {
+			assertEquals(expected[i], lines[i]);
+		}
+	}
+
+	@Test
+	public void checkJsonFormat() throws IOException, InterruptedException {
+		BatchScorer scorer = new BatchScorer(_network, 2);
+		scorer.setChunkSize(100);
+		scorer.setFormat(BatchScorer.outputFormat.JSON);
+
+		String[] lines = score(scorer);
+		double[] outputs = new double[2];
+
+		assertEquals(PATRONS + 2, lines.length);
+		assertEquals("[", lines[0]);
+		assertEquals("]", lines[PATRONS + 1]);
+
+		for (int p = 0; p < PATRONS; p++) {
+			_network.predict(_inputs[p], outputs);
+			assertEquals("[" + outputs[0] + "," + outputs[1] + "]" + (p + 1 < PATRONS ? "," : ""),
+					lines[p + 1]);
+		}
+	}
+
+	@Test
+	public void checkBatchPredictionGivesTheSameOutputs() {
+		DensePerceptron dense = new DensePerceptron(_network);
+		double[] inputs = new double[PATRONS * 3];
+		double[] batch = new double[PATRONS * 2];
+		double[] outputs = new double[2];
+
+		for (int p = 0; p < PATRONS; p++) {
+			System.arraycopy(_inputs[p], 0, inputs, p * 3, 3);
+		}
+
+		dense.predict(inputs, batch, PATRONS);
+
+		for (int p = 0; p < PATRONS; p++) {
+			dense.predict(_inputs[p], outputs);
+			assertEquals(outputs[0], batch[2 * p], 0.0);
+			assertEquals(outputs[1], batch[2 * p + 1], 0.0);
+		}
+	}
+
+	@Test
+	public void checkCorruptedDataIsDetected() throws IOException, InterruptedException {
+		File file = File.createTempFile("corrupted", ".dat");
+		file.deleteOnExit();
+
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("3 2 2");
+			out.println("1 2 3 0 1");
+			out.println("1 2 0 1");
+		}
+
+		try {
+			new BatchScorer(_network, 2).score(file.getPath(), new ByteArrayOutputStream());
+			fail("a line with less values must be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Data is corrupted"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void checkInputsMustMatchThePredictor() throws IOException, InterruptedException {
+		File file = File.createTempFile("inputs", ".dat");
+		file.deleteOnExit();
+
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("2 1 1");
+			out.println("1 2 0");
+		}
+
+		new BatchScorer(_network, 2).score(file.getPath(), new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkThreadsMustBePositive() {
+		new BatchScorer(_network, 0);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TrainingCheckpoint} and {@link CheckpointWriter}
+ */
+public class CheckpointTest {
+	private NetworkData _xor;
+	private String _file;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+
+		File file = File.createTempFile("training", ".nnck");
+		file.deleteOnExit();
+		_file = file.getPath();
+	}
+
+	@Test
+	public void checkResumedTrainingIsEqualToTheUninterruptedOne() throws IOException {
+		for (boolean offline : new boolean[] { false, true }) {
+			MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+			double[][] middle = new double[2][];
+			int[] epoch = new int[1];
+
+			try (CheckpointWriter writer = new CheckpointWriter(_file)) {
+				network.setCheckpointWriter(writer, 10);
+				network.trainByBackpropagation(_xor, 20, 0, offline, e -> {
+					if (++epoch[0] == 10) {
+						middle[0] = network.getWeights();
+						middle[1] = network.getLastInputsChanges();
+					}
+				});
+			}
+
+			TrainingCheckpoint last = TrainingCheckpoint.read(_file);
+			assertEquals(20, last.getEpoch());
+			assertEquals(offline, last.isOffline());
+
+			MultilayerPerceptron copy = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+			copy.setWeights(middle[0]);
+			copy.setLastInputsChanges(middle[1]);
+			new TrainingCheckpoint(copy, 10, 20, 0, offline, 1).write(_file);
+
+			MultilayerPerceptron resumed = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+			resumed.resume(TrainingCheckpoint.read(_file), _xor, e -> {});
+
+			assertArrayEquals(network.getWeights(), resumed.getWeights(), 0.0);
+			assertArrayEquals(network.getLastInputsChanges(),
+					resumed.getLastInputsChanges(), 0.0);
+		}
+	}
+
+	@Test
+	public void checkResumedTrainingKeepsTheScheduleState() throws IOException {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		network.setLearningRateSchedule(new ReduceOnPlateauSchedule(0.5, 1, 0.01, 0), false);
+		network.trainByBackpropagation(_xor, 40, 0, true, e -> {});
+
+		MultilayerPerceptron interrupted = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		int[] epoch = new int[1];
+		interrupted.setLearningRateSchedule(new ReduceOnPlateauSchedule(0.5, 1, 0.01, 0), false);
+
+		try (CheckpointWriter writer = new CheckpointWriter(_file)) {
+			interrupted.setCheckpointWriter(writer, 20);
+			interrupted.trainByBackpropagation(_xor, 40, 0, true, e -> {
+				if (++epoch[0] == 21) {
+					throw new IllegalStateException("crash");
+				}
+			});
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+
+		MultilayerPerceptron resumed = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		resumed.setLearningRateSchedule(new ReduceOnPlateauSchedule(0.5, 1, 0.01, 0), false);
+		resumed.resume(TrainingCheckpoint.read(_file), _xor, e -> {});
+
+		assertArrayEquals(network.getLearningRateSchedule().getState(),
+				resumed.getLearningRateSchedule().getState(), 0.0);
+		assertArrayEquals(network.getWeights(), resumed.getWeights(), 0.0);
+	}
+
+	@Test
+	public void checkCheckpointSurvivesACrash() throws IOException {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		int[] epoch = new int[1];
+
+		try (CheckpointWriter writer = new CheckpointWriter(_file)) {
+			network.setCheckpointWriter(writer, 5);
+			network.trainByBackpropagation(_xor, 100, 0, e -> {
+				if (++epoch[0] == 7) {
+					throw new IllegalStateException("crash");
+				}
+			});
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+
+		TrainingCheckpoint checkpoint = TrainingCheckpoint.read(_file);
+
+		assertEquals(5, checkpoint.getEpoch());
+		assertEquals(100, checkpoint.getMaxiter());
+		assertEquals(network.getNumberOfWeights(), checkpoint.getNumberOfWeights());
+	}
+
+	@Test
+	public void checkWriterKeepsTheNewestCheckpoint() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		CheckpointWriter writer = new CheckpointWriter(_file);
+
+		for (int i = 1; i <= 50; i++) {
+			writer.submit(new TrainingCheckpoint(network, i, 50, 0, false, 1));
+		}
+
+		writer.close();
+
+		assertEquals(50, writer.getLastWritten().getEpoch());
+		assertNull(writer.getLastError());
+	}
+
+	@Test(expected = IOException.class)
+	public void checkCorruptedLengthIsRejectedBeforeAllocating() throws IOException {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		int randomState = network.getRandomSource().getState().length;
+		new TrainingCheckpoint(network, 3, 10, 0, false, 1).write(_file);
+
+		// The length of the optimizer state, just after the random state
+		try (RandomAccessFile file = new RandomAccessFile(_file, "rw")) {
+			file.seek(37 + 8 * randomState);
+			file.writeInt(Integer.MAX_VALUE);
+		}
+
+		TrainingCheckpoint.read(_file);
+	}
+
+	@Test(expected = IOException.class)
+	public void checkCorruptedCheckpointIsRejected() throws IOException {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 7);
+		new TrainingCheckpoint(network, 3, 10, 0, false, 1).write(_file);
+
+		try (RandomAccessFile file = new RandomAccessFile(_file, "rw")) {
+			file.seek(file.length() - 16);
+			file.writeDouble(42);
+		}
+
+		TrainingCheckpoint.read(_file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkPeriodMustBePositive() {
+		TestNetworks.newRandomNetwork(_xor, 4, 1, 7).setCheckpointWriter(new CheckpointWriter(_file), 0);
+	}
+}
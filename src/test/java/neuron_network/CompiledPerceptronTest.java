@@ -0,0 +1,107 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CompiledPerceptron}
+ */
+public class CompiledPerceptronTest {
+	private final double HARD_DELTA = 1e-12;
+	private NetworkData _xor;
+	private NetworkData _xor2;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+	}
+
+	@Test
+	public void checkCompiledNetworkGivesTheSameOutputs() {
+		MultilayerPerceptron network = new MultilayerPerceptron(3, 7, 1);
+		network.use_bias = true;
+		network.trainByBackpropagation(_xor, 200, 1e-10);
+		network.pruneWeightsBelow(0.2);
+
+		CompiledPerceptron engine = new CompiledPerceptron(network);
+		double[] inputs = new double[2];
+		double[] outputs = new double[1];
+
+		assertTrue(engine.isSpecialized());
+
+		for (ArrayList<Double> input : _xor) {
+			network.feed(input);
+			network.spreadOut();
+			Predictors.copy(input, inputs);
+			engine.predict(inputs, outputs);
+
+			assertEquals(network.getOutput(0), outputs[0], HARD_DELTA);
+		}
+	}
+
+	@Test
+	public void checkCompiledSoftmaxNetwork() {
+		MultilayerPerceptron network = new MultilayerPerceptron(1, 4, 2);
+		network.neuronType = neuronType.SOFTMAX;
+		network.trainByBackpropagation(_xor2, 200, 1e-10);
+
+		CompiledPerceptron engine = new CompiledPerceptron(network);
+
+		assertTrue(engine.isSpecialized());
+		assertEquals(network.getMeanSquaredError(_xor2),
+				engine.getMeanSquaredError(_xor2), HARD_DELTA);
+		assertEquals(network.getCCR(_xor2), engine.getCCR(_xor2), 0.0);
+	}
+
+	@Test
+	public void checkBigNetworksUseTheGenericEngine() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor,
+				CompiledPerceptron.MAX_NEURONS + 1, 1, 1);
+
+		CompiledPerceptron engine = new CompiledPerceptron(network);
+
+		assertFalse(engine.isSpecialized());
+		assertEquals(network.getMeanSquaredError(_xor),
+				engine.getMeanSquaredError(_xor), HARD_DELTA);
+	}
+
+	@Test
+	public void checkDeepNetworksUseTheGenericEngine() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 9,
+				CompiledPerceptron.MAX_NEURONS, 1, 1);
+
+		CompiledPerceptron engine = new CompiledPerceptron(network);
+
+		assertFalse(engine.isSpecialized());
+		assertEquals(network.getMeanSquaredError(_xor),
+				engine.getMeanSquaredError(_xor), HARD_DELTA);
+	}
+}
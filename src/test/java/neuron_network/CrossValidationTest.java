@@ -0,0 +1,150 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CrossValidation}, {@link NetworkDataView} and
+ * {@link MultilayerPerceptron#evaluate(NetworkData)}
+ */
+public class CrossValidationTest {
+	private NetworkData _xor2;
+	private NetworkData _data;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+		_data = new NetworkData();
+
+		// 30 patrons of one class and 10 of the other
+		for (int i = 0; i < 40; i++) {
+			ArrayList<Double> input = new ArrayList<Double>(Arrays.asList(i / 40D, (i % 7) / 7D));
+			ArrayList<Double> output = new ArrayList<Double>(Arrays.asList(i < 30 ? 1D : 0D, i < 30 ? 0D : 1D));
+			_data.add_patron(input, output);
+		}
+	}
+
+	@Test
+	public void checkEvaluateGivesTheSameMeasures() {
+		for (neuronType type : new neuronType[] { neuronType.SIGMOIDE, neuronType.SOFTMAX }) {
+			MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor2, 3, 2, 2);
+			network.neuronType = type;
+
+			Evaluation evaluation = network.evaluate(_xor2);
+
+			assertEquals(network.getMeanSquaredError(_xor2), evaluation.getMeanSquaredError(), 1e-15);
+			assertEquals(network.getCCR(_xor2), evaluation.getCCR(), 0.0);
+			assertEquals(network.getEntropy(_xor2), evaluation.getEntropy(), 1e-15);
+		}
+	}
+
+	@Test
+	public void checkViewSharesThePatrons() {
+		NetworkDataView view = _data.view(new int[] { 3, 5 });
+
+		assertEquals(2, view.patrons_length());
+		assertEquals(_data.inputs_length(), view.inputs_length());
+		assertTrue(view.get_input(0) == _data.get_input(3));
+
+		int n = 0;
+
+		for (ArrayList<Double> input : view) {
+			assertTrue(_data.get_output(input) == view.get_output(input));
+			n++;
+		}
+
+		assertEquals(2, n);
+		assertTrue(view.view(new int[] { 1 }).get_input(0) == _data.get_input(5));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void checkViewIsReadOnly() {
+		_data.view(new int[] { 0 }).clearData();
+	}
+
+	@Test
+	public void checkFoldsCoverAllPatrons() {
+		CrossValidation cv = new CrossValidation(_data, 3, false, new SplitMixRandom(1));
+		int[] seen = new int[_data.patrons_length()];
+
+		for (int f = 0; f < cv.getNumberOfFolds(); f++) {
+			int size = cv.getTestData(f).patrons_length();
+			assertTrue(size == 13 || size == 14);
+			assertEquals(_data.patrons_length() - size, cv.getTrainData(f).patrons_length());
+
+			for (int i = 0; i < size; i++) {
+				seen[_data.patrons().indexOf(cv.getTestData(f).get_input(i))]++;
+			}
+		}
+
+		int[] once = new int[seen.length];
+		Arrays.fill(once, 1);
+		assertArrayEquals(once, seen);
+	}
+
+	@Test
+	public void checkStratifiedFoldsKeepTheProportion() {
+		CrossValidation cv = new CrossValidation(_data, 5, true, new SplitMixRandom(1));
+
+		for (int f = 0; f < cv.getNumberOfFolds(); f++) {
+			int first = 0;
+
+			for (ArrayList<Double> input : cv.getTestData(f)) {
+				if (_data.get_output(input).get(0) == 1D) {
+					first++;
+				}
+			}
+
+			assertEquals(6, first);
+			assertEquals(8, cv.getTestData(f).patrons_length());
+		}
+	}
+
+	@Test
+	public void checkRunEvaluatesEachFold() {
+		CrossValidation cv = new CrossValidation(_data, 4, true, new SplitMixRandom(1));
+		cv.neuronType = neuronType.SOFTMAX;
+		CrossValidationResult result = cv.run(new TrainingConfiguration(1, 4, 0.5, 0.1, true, false),
+				100, 0, 2);
+
+		assertEquals(4, result.getFolds().size());
+
+		double mean = 0;
+
+		for (Evaluation e : result.getFolds()) {
+			mean += e.getCCR() / 4;
+		}
+
+		assertEquals(mean, result.getMean().getCCR(), 1e-12);
+		assertTrue(result.getMean().getCCR() > 0.7);
+	}
+}
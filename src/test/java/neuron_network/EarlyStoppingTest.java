@@ -0,0 +1,95 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the early stopping of {@link MultilayerPerceptron}
+ */
+public class EarlyStoppingTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkBestWeightsAreRestored() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.setEarlyStopping(_xor, 10);
+		network.trainByBackpropagation(_xor, 200, 0);
+
+		assertEquals(network.getBestValidationError(), network.getMeanSquaredError(_xor), 0.0);
+		assertTrue(network.getBestEpoch() > 0);
+	}
+
+	@Test
+	public void checkTrainingStopsWhenValidationErrorDoesNotImprove() {
+		NetworkData inverted = new NetworkData();
+
+		for (ArrayList<Double> input : _xor) {
+			ArrayList<Double> output = new ArrayList<Double>();
+			output.add(1 - _xor.get_output(input).get(0));
+			inverted.add_patron(input, output);
+		}
+
+		AtomicInteger epochs = new AtomicInteger();
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.setEarlyStopping(inverted, 5);
+		network.trainByBackpropagation(_xor, 1000, 0, false, e -> epochs.incrementAndGet());
+
+		assertEquals(network.getBestEpoch() + 5, epochs.get());
+		assertEquals(network.getBestValidationError(), network.getMeanSquaredError(inverted), 0.0);
+	}
+
+	@Test
+	public void checkHoldOutKeepsAllPatrons() {
+		NetworkData[] parts = _xor.holdOut(0.25, new SplitMixRandom(1));
+
+		assertEquals(3, parts[0].patrons_length());
+		assertEquals(1, parts[1].patrons_length());
+		assertEquals(_xor.inputs_length(), parts[1].inputs_length());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkHoldOutRejectsAnEmptyPart() {
+		_xor.holdOut(0.1, new SplitMixRandom(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkEmptyValidationDataIsRejected() {
+		TestNetworks.newNetwork(_xor, 4, 1, 4).setEarlyStopping(new NetworkData(), 5);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkInvalidPatienceIsRejected() {
+		TestNetworks.newNetwork(_xor, 4, 1, 4).setEarlyStopping(_xor, 0);
+	}
+}
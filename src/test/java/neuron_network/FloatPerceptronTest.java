@@ -0,0 +1,131 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FloatPerceptron}
+ */
+public class FloatPerceptronTest {
+	private final double DELTA = 1e-5;
+	private NetworkData _xor;
+	private NetworkData _xor2;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+	}
+
+	@Test
+	public void checkOutputsAreNearToTheDoubleEngine() {
+		MultilayerPerceptron network = new MultilayerPerceptron(2, 5, 1);
+		network.use_bias = true;
+		network.trainByBackpropagation(_xor, 300, 1e-10);
+
+		for (boolean doubleAccumulators : new boolean[] { false, true }) {
+			FloatPerceptron engine = new FloatPerceptron(network, doubleAccumulators);
+			double[] inputs = new double[2];
+			double[] outputs = new double[1];
+
+			for (ArrayList<Double> input : _xor) {
+				network.feed(input);
+				network.spreadOut();
+				Predictors.copy(input, inputs);
+				engine.predict(inputs, outputs);
+
+				assertEquals(network.getOutput(0), outputs[0], DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void checkOutputsAreNearOnAllTheTestData() throws IOException {
+		for (String name : new String[] { "xor.dat", "xor_2_outputs.dat", "simple_data.data" }) {
+			NetworkData data = TestNetworks.load(name);
+
+			for (neuronType type : neuronType.values()) {
+				if (type == neuronType.SOFTMAX && data.outputs_length() < 2) {
+					continue;
+				}
+
+				MultilayerPerceptron network = new MultilayerPerceptron(2, 5, data.outputs_length());
+				network.neuronType = type;
+				network.use_bias = true;
+				network.trainByBackpropagation(data, 200, 1e-10);
+
+				for (boolean doubleAccumulators : new boolean[] { false, true }) {
+					FloatPerceptron engine = new FloatPerceptron(network, doubleAccumulators);
+					double[] inputs = new double[data.inputs_length()];
+					double[] outputs = new double[data.outputs_length()];
+
+					for (ArrayList<Double> input : data) {
+						network.feed(input);
+						network.spreadOut();
+						if (network.isSoftmax()) {
+							network.applySoftmax();
+						}
+						Predictors.copy(input, inputs);
+						engine.predict(inputs, outputs);
+
+						for (int i = 0; i < outputs.length; i++) {
+							assertEquals(name + " " + type, network.getOutput(i), outputs[i], DELTA);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void checkErrorsAreNearToTheDoubleEngine() {
+		MultilayerPerceptron network = new MultilayerPerceptron(2, 10, 2);
+		network.neuronType = neuronType.SOFTMAX;
+		network.trainByBackpropagation(_xor2, 300, 1e-10);
+
+		FloatPerceptron engine = new FloatPerceptron(network, true);
+
+		assertEquals(network.getMeanSquaredError(_xor2),
+				engine.getMeanSquaredError(_xor2), DELTA);
+		assertEquals(network.getCCR(_xor2), engine.getCCR(_xor2), 0.0);
+	}
+
+	@Test
+	public void checkEngineIsASnapshot() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 3, 1, 1);
+
+		FloatPerceptron engine = new FloatPerceptron(network);
+		double before = engine.getMeanSquaredError(_xor);
+		network.setRandomInputs();
+
+		assertEquals(before, engine.getMeanSquaredError(_xor), 0.0);
+		assertTrue("2 inputs x 3 neurons + 3 x 1 neurons plus 4 biases",
+				engine.getNumberOfWeights() == 13);
+	}
+}
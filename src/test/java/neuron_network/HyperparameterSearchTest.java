@@ -0,0 +1,219 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HyperparameterSearch} and {@link SearchSpace}
+ */
+public class HyperparameterSearchTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkGridHasEveryCombination() {
+		SearchSpace space = new SearchSpace().setHiddenLayers(1, 2)
+				.setHiddenNeurons(2, 4).setUseBias(true, false);
+
+		assertEquals(8, space.grid().size());
+	}
+
+	@Test
+	public void checkSampleStaysInTheSpace() {
+		SearchSpace space = new SearchSpace().setLearningFactors(0.01, 0.5)
+				.setInertiaValues(0, 0.9).setHiddenNeurons(2, 3, 4);
+
+		for (TrainingConfiguration c : space.sample(100, new SplitMixRandom(1))) {
+			assertTrue(c.getLearningFactor() >= 0.01 && c.getLearningFactor() <= 0.5);
+			assertTrue(c.getInertiaValue() >= 0 && c.getInertiaValue() <= 0.9);
+			assertTrue(c.getHiddenNeurons() >= 2 && c.getHiddenNeurons() <= 4);
+		}
+	}
+
+	@Test
+	public void checkRunRanksTheConfigurations() {
+		List<TrainingConfiguration> configurations = new SearchSpace()
+				.setLearningFactors(0.1, 0.9).setHiddenNeurons(2, 4).grid();
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 2, new SplitMixRandom(3))) {
+			List<SearchResult> results = search.run(configurations, 50);
+
+			assertEquals(4, results.size());
+
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(50, results.get(i).getEpochs());
+				assertEquals(results.get(i).getError(),
+						results.get(i).getNetwork().getMeanSquaredError(_xor), 0.0);
+
+				if (i > 0) {
+					assertTrue(results.get(i - 1).getError() <= results.get(i).getError());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void checkSameSourceGivesSameResults() {
+		List<TrainingConfiguration> configurations = new SearchSpace().setHiddenNeurons(2, 3, 4).grid();
+
+		try (HyperparameterSearch a = new HyperparameterSearch(_xor, _xor, 3, new SplitMixRandom(5));
+				HyperparameterSearch b = new HyperparameterSearch(_xor, _xor, 1, new SplitMixRandom(5))) {
+			List<SearchResult> first = a.run(configurations, 20);
+			List<SearchResult> second = b.run(configurations, 20);
+
+			for (int i = 0; i < first.size(); i++) {
+				assertEquals(first.get(i).getError(), second.get(i).getError(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void checkMedianStoppingStopsBadConfigurations() {
+		List<TrainingConfiguration> configurations = new ArrayList<TrainingConfiguration>();
+
+		for (int i = 0; i < 4; i++) {
+			configurations.add(new TrainingConfiguration(1, 4, 0.9, 0.1, true, false));
+		}
+
+		configurations.add(new TrainingConfiguration(1, 4, 0, 0, true, false));
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 1, new SplitMixRandom(7))) {
+			search.setMedianStopping(20, 3);
+			List<SearchResult> results = search.run(configurations, 200);
+			SearchResult last = results.get(results.size() - 1);
+
+			assertEquals(0, last.getConfiguration().getLearningFactor(), 0.0);
+			assertTrue(last.isStopped());
+			assertEquals(20, last.getEpochs());
+		}
+	}
+
+	@Test
+	public void checkMedianStoppingDoesNotDependOnTheThreads() {
+		List<TrainingConfiguration> configurations = new SearchSpace()
+				.setLearningFactors(0.01, 0.9).setHiddenNeurons(2, 4)
+				.sample(8, new SplitMixRandom(2));
+
+		try (HyperparameterSearch a = new HyperparameterSearch(_xor, _xor, 4, new SplitMixRandom(9));
+				HyperparameterSearch b = new HyperparameterSearch(_xor, _xor, 1, new SplitMixRandom(9))) {
+			a.setMedianStopping(10, 2);
+			b.setMedianStopping(10, 2);
+			List<SearchResult> first = a.run(configurations, 60);
+			List<SearchResult> second = b.run(configurations, 60);
+
+			for (int i = 0; i < first.size(); i++) {
+				assertEquals(first.get(i).getEpochs(), second.get(i).getEpochs());
+				assertEquals(first.get(i).isStopped(), second.get(i).isStopped());
+				assertEquals(first.get(i).getError(), second.get(i).getError(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void checkSuccessiveHalvingKeepsTheBest() {
+		List<TrainingConfiguration> configurations = new SearchSpace()
+				.setLearningFactors(0.1, 0.5, 0.9).setHiddenNeurons(2, 3, 4).grid();
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 2, new SplitMixRandom(3))) {
+			List<SearchResult> results = search.successiveHalving(configurations, 10, 90, 3);
+			int[] epochs = new int[results.size()];
+
+			for (int i = 0; i < epochs.length; i++) {
+				epochs[i] = results.get(i).getEpochs();
+			}
+
+			assertEquals(9, results.size());
+			assertEquals(90, epochs[0]);
+			assertTrue(!results.get(0).isStopped());
+			assertEquals(30, epochs[1]);
+			assertEquals(30, epochs[2]);
+			assertEquals(10, epochs[3]);
+		}
+	}
+
+	@Test
+	public void checkHyperbandRunsAllBrackets() {
+		SearchSpace space = new SearchSpace().setLearningFactors(0.1, 0.9).setHiddenNeurons(2, 4);
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 2, new SplitMixRandom(3))) {
+			List<SearchResult> results = search.hyperband(space, 9, 3);
+
+			assertEquals(9 + 5 + 3, results.size());
+			assertEquals(9, results.get(0).getEpochs());
+		}
+	}
+
+	@Test
+	public void checkPopulationBasedTrainingExploitsTheBest() {
+		List<TrainingConfiguration> population = new SearchSpace()
+				.setLearningFactors(0.01, 0.05, 0.5, 0.9).grid();
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 2, new SplitMixRandom(3))) {
+			List<SearchResult> results = search.populationBasedTraining(population, 200, 20, 0.25, 1.2);
+			boolean perturbed = false;
+
+			assertEquals(4, results.size());
+
+			for (SearchResult result : results) {
+				double lf = result.getConfiguration().getLearningFactor();
+				perturbed |= lf != 0.01 && lf != 0.05 && lf != 0.5 && lf != 0.9;
+				assertEquals(200, result.getEpochs());
+				assertEquals(lf, result.getNetwork().getLearningFactor(), 0.0);
+			}
+
+			assertTrue(perturbed);
+		}
+	}
+
+	@Test
+	public void checkPerturbationKeepsTheLearningFactorInRange() {
+		List<TrainingConfiguration> population = new SearchSpace()
+				.setLearningFactors(0.001, 0.002, 0.5, 0.9).grid();
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 2, new SplitMixRandom(4))) {
+			for (SearchResult result : search.populationBasedTraining(population, 40, 1, 0.5, 100)) {
+				double lf = result.getConfiguration().getLearningFactor();
+				assertTrue(lf >= 1e-4 && lf <= 1);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkPopulationNeedsTheSameTopology() {
+		List<TrainingConfiguration> population = new SearchSpace().setHiddenNeurons(2, 4).grid();
+
+		try (HyperparameterSearch search = new HyperparameterSearch(_xor, _xor, 1, new SplitMixRandom(3))) {
+			search.populationBasedTraining(population, 20, 5, 0.5, 1.2);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import neuron_network.MultilayerPerceptron.biasInitialization;
+import neuron_network.MultilayerPerceptron.weightInitialization;
+
+import org.junit.Test;
+
+/**
+ * Tests for the initialization of the weights in {@link MultilayerPerceptron}
+ */
+public class InitializationTest {
+	private final int INPUTS = 200;
+	private final int NEURONS = 100;
+
+	@Test
+	public void checkUniformIsTheDefault() {
+		MultilayerPerceptron network = newNetwork(null);
+		double[] weights = network.getLayerWeights(0);
+
+		for (double w : weights) {
+			assertTrue(w >= -1 && w < 1);
+		}
+
+		assertEquals(Math.sqrt(1D / 3), deviation(weights), 0.02);
+	}
+
+	@Test
+	public void checkVarianceOfEachInitialization() {
+		double xavier = Math.sqrt(2D / (INPUTS + NEURONS));
+		double he = Math.sqrt(2D / INPUTS);
+
+		assertEquals(xavier, deviation(newNetwork(weightInitialization.XAVIER_UNIFORM)
+				.getLayerWeights(0)), xavier * 0.05);
+		assertEquals(xavier, deviation(newNetwork(weightInitialization.XAVIER_NORMAL)
+				.getLayerWeights(0)), xavier * 0.05);
+		assertEquals(he, deviation(newNetwork(weightInitialization.HE_UNIFORM)
+				.getLayerWeights(0)), he * 0.05);
+		assertEquals(he, deviation(newNetwork(weightInitialization.HE_NORMAL)
+				.getLayerWeights(0)), he * 0.05);
+
+		double limit = Math.sqrt(6D / (INPUTS + NEURONS));
+
+		for (double w : newNetwork(weightInitialization.XAVIER_UNIFORM).getLayerWeights(0)) {
+			assertTrue(Math.abs(w) <= limit);
+		}
+	}
+
+	@Test
+	public void checkBiasInitialization() {
+		MultilayerPerceptron network = newNetwork(weightInitialization.HE_NORMAL);
+		network.bias_initialization = biasInitialization.ZERO;
+		network.setRandomInputs();
+
+		for (double b : network.getLayerBiases(0)) {
+			assertEquals(0, b, 0.0);
+		}
+
+		network.bias_initialization = biasInitialization.SAME_AS_WEIGHTS;
+		network.setRandomInputs();
+
+		double limit = 6 * Math.sqrt(2D / INPUTS);
+
+		for (double b : network.getLayerBiases(0)) {
+			assertTrue(b != 0 && Math.abs(b) < limit);
+		}
+	}
+
+	private MultilayerPerceptron newNetwork(weightInitialization initialization) {
+		ArrayList<Double> input = new ArrayList<Double>();
+
+		for (int i = 0; i < INPUTS; i++) {
+			input.add(0D);
+		}
+
+		MultilayerPerceptron network = TestNetworks.newNetwork(input, 1, NEURONS, 1, 1);
+
+		if (initialization != null) {
+			network.initialization = initialization;
+		}
+
+		network.setRandomInputs();
+		return network;
+	}
+
+	private static double deviation(double[] values) {
+		double sum = 0;
+		double squares = 0;
+
+		for (double v : values) {
+			sum += v;
+			squares += v * v;
+		}
+
+		double mean = sum / values.length;
+		return Math.sqrt(squares / values.length - mean * mean);
+	}
+}
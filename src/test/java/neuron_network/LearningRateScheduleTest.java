@@ -0,0 +1,103 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LearningRateSchedule} and its implementations
+ */
+public class LearningRateScheduleTest {
+	private final double DELTA = 1e-12;
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkDecays() {
+		StepDecaySchedule step = new StepDecaySchedule(10, 0.5);
+		assertEquals(0.8, step.getLearningFactor(9.5, 0.8), DELTA);
+		assertEquals(0.4, step.getLearningFactor(10, 0.8), DELTA);
+		assertEquals(0.2, step.getLearningFactor(25, 0.8), DELTA);
+
+		ExponentialDecaySchedule exponential = new ExponentialDecaySchedule(0.9);
+		assertEquals(0.8, exponential.getLearningFactor(0, 0.8), DELTA);
+		assertEquals(0.8 * 0.81, exponential.getLearningFactor(2, 0.8), DELTA);
+	}
+
+	@Test
+	public void checkCosineAnnealingRestarts() {
+		CosineAnnealingSchedule cosine = new CosineAnnealingSchedule(10, 0.1);
+		assertEquals(0.9, cosine.getLearningFactor(0, 0.9), DELTA);
+		assertEquals(0.5, cosine.getLearningFactor(5, 0.9), DELTA);
+		assertEquals(0.9, cosine.getLearningFactor(10, 0.9), DELTA);
+
+		CosineAnnealingSchedule growing = new CosineAnnealingSchedule(10, 2, 0);
+		assertEquals(0.5, growing.getLearningFactor(20, 1), DELTA);
+		assertEquals(1, growing.getLearningFactor(30, 1), DELTA);
+	}
+
+	@Test
+	public void checkReduceOnPlateau() {
+		ReduceOnPlateauSchedule plateau = new ReduceOnPlateauSchedule(0.5, 2, 0, 0.1);
+		double[] errors = { 1, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9, 0.9 };
+		ArrayList<Double> factors = new ArrayList<Double>();
+
+		for (int i = 0; i < errors.length; i++) {
+			plateau.epochFinished(i, errors[i]);
+			factors.add(plateau.getLearningFactor(i + 1, 0.8));
+		}
+
+		assertEquals(0.8, factors.get(3), DELTA);
+		assertEquals(0.4, factors.get(4), DELTA);
+		assertEquals(0.2, factors.get(7), DELTA);
+		assertEquals(0.2, factors.get(9), DELTA);
+		assertEquals(0.1, factors.get(13), DELTA);
+
+		plateau.reset();
+		assertEquals(0.8, plateau.getLearningFactor(0, 0.8), DELTA);
+	}
+
+	@Test
+	public void checkNetworkUsesTheScheduledLearningFactor() {
+		for (boolean perStep : new boolean[] { false, true }) {
+			MultilayerPerceptron scheduled = TestNetworks.newNetwork(_xor, 4, 1, 9);
+			scheduled.setLearningRateSchedule((epoch, base) -> epoch < 1 ? base : 0, perStep);
+			scheduled.setInertiaValue(0);
+			scheduled.trainByBackpropagation(_xor, 5, 0);
+
+			MultilayerPerceptron constant = TestNetworks.newNetwork(_xor, 4, 1, 9);
+			constant.setInertiaValue(0);
+			constant.trainByBackpropagation(_xor, 1, 0);
+
+			assertArrayEquals(constant.getWeights(), scheduled.getWeights(), 0.0);
+			assertEquals(0.9, scheduled.getLearningFactor(), 0.0);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LevenbergMarquardt}
+ */
+public class LevenbergMarquardtTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor_2_outputs.dat");
+	}
+
+	@Test
+	public void checkCholeskySolvesTheSystem() {
+		double[] a = { 4, 2, 2, 2, 5, 1, 2, 1, 6 };
+		double[] b = { 1, 2, 3 };
+		double[] x = b.clone();
+
+		assertTrue(LinearAlgebra.cholesky(a, 3));
+		LinearAlgebra.choleskySolve(a, 3, x);
+
+		double[] original = { 4, 2, 2, 2, 5, 1, 2, 1, 6 };
+
+		for (int i = 0; i < 3; i++) {
+			double s = 0;
+
+			for (int j = 0; j < 3; j++) {
+				s += original[i * 3 + j] * x[j];
+			}
+
+			assertEquals(b[i], s, 1e-12);
+		}
+
+		assertTrue(!LinearAlgebra.cholesky(new double[] { 1, 2, 2, 1 }, 2));
+	}
+
+	@Test
+	public void checkJacobianProductsFollowTheGradient() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 2, 4);
+		int n = network.getNumberOfWeights();
+		double[] jtj = new double[n * n];
+		double[] jte = new double[n];
+		double[] gradient = new double[n];
+		double scale = _xor.patrons_length() * _xor.outputs_length();
+
+		double sse = network.computeJacobianProducts(_xor, jtj, jte, new double[n]);
+		double error = new ParallelGradient(1).compute(network, _xor, network.getWeights(), gradient);
+
+		assertEquals(error, sse / scale, 1e-12);
+
+		for (int i = 0; i < n; i++) {
+			assertEquals(gradient[i], 2 * jte[i] / scale, 1e-12);
+			assertTrue(jtj[i * n + i] >= 0);
+
+			for (int j = 0; j < n; j++) {
+				assertEquals(jtj[i * n + j], jtj[j * n + i], 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void checkLevenbergMarquardtLearnsXor() {
+		MultilayerPerceptron lm = TestNetworks.newRandomNetwork(_xor, 4, 2, 4);
+		lm.setBatchTrainer(new LevenbergMarquardt());
+		lm.trainByBackpropagation(_xor, 50, 0, true);
+
+		assertTrue(lm.getMeanSquaredError(_xor) < 0.01);
+	}
+
+	@Test
+	public void checkStateCanBeRestored() {
+		LevenbergMarquardt trainer = new LevenbergMarquardt();
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 2, 4);
+		network.setBatchTrainer(trainer);
+		network.trainByBackpropagation(_xor, 5, 0, true);
+
+		LevenbergMarquardt copy = trainer.copy();
+		copy.setState(trainer.getState());
+		MultilayerPerceptron restored = TestNetworks.newRandomNetwork(_xor, 4, 2, 4);
+		restored.setWeights(network.getWeights());
+
+		trainer.epoch(network, _xor);
+		copy.epoch(restored, _xor);
+
+		assertArrayEquals(network.getWeights(), restored.getWeights(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkBigNetworksAreRejected() {
+		new LevenbergMarquardt(10, 0.001, 10).epoch(TestNetworks.newRandomNetwork(_xor, 4, 2, 4), _xor);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkEntropyIsRejected() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 2, 4);
+		network.minimize = errorToMinimize.ENTROPY;
+		new LevenbergMarquardt().epoch(network, _xor);
+	}
+}
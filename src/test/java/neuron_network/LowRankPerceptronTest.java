@@ -0,0 +1,132 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LowRankPerceptron}
+ */
+public class LowRankPerceptronTest {
+	private final double HARD_DELTA = 1e-9;
+	private NetworkData _xor;
+	private MultilayerPerceptron _network;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+
+		_network = new MultilayerPerceptron(2, 20, 1);
+		_network.use_bias = true;
+		_network.trainByBackpropagation(_xor, 100, 1e-10);
+	}
+
+	@Test
+	public void checkSingularValueDecomposition() {
+		Random random = new Random(7);
+		int rows = 5;
+		int cols = 8;
+		double[] a = new double[rows * cols];
+
+		for (int i = 0; i < a.length; i++) {
+			a[i] = random.nextDouble() * 2 - 1;
+		}
+
+		LinearAlgebra.SingularValueDecomposition svd = LinearAlgebra.svd(a, rows, cols);
+
+		for (int k = 1; k < svd.s.length; k++) {
+			assertTrue("singular values must be sorted", svd.s[k - 1] >= svd.s[k]);
+		}
+
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				double acc = 0;
+
+				for (int k = 0; k < svd.s.length; k++) {
+					acc += svd.u[k][i] * svd.s[k] * svd.v[k][j];
+				}
+
+				assertEquals(a[i * cols + j], acc, HARD_DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void checkLowRankLayerIsExact() {
+		// The weights between hidden layers are the sum of two outer products
+		double[] weights = _network.getWeights();
+		int start = 20 * 3;
+
+		for (int i = 0; i < 20; i++) {
+			for (int j = 0; j < 20; j++) {
+				weights[start + i * 21 + j] = Math.sin(i) * Math.cos(j) + 0.5
+						* Math.cos(i) * Math.sin(2 * j);
+			}
+		}
+
+		_network.setWeights(weights);
+
+		LowRankPerceptron engine = new LowRankPerceptron(_network, new int[] { 0, 2, 0 });
+		double[] inputs = new double[2];
+		double[] outputs = new double[1];
+
+		for (ArrayList<Double> input : _xor) {
+			_network.feed(input);
+			_network.spreadOut();
+			Predictors.copy(input, inputs);
+			engine.predict(inputs, outputs);
+
+			assertEquals(_network.getOutput(0), outputs[0], HARD_DELTA);
+		}
+
+		assertTrue(engine.getNumberOfMultiplications() < engine
+				.getNumberOfDenseMultiplications());
+	}
+
+	@Test
+	public void checkRanksFitTheBudget() {
+		double budget = 1e-3;
+		LowRankPerceptron engine = new LowRankPerceptron(_network, _xor, budget);
+
+		assertTrue(engine.getMeanSquaredError(_xor) <= _network
+				.getMeanSquaredError(_xor) + budget);
+		assertTrue("first layer has 2 inputs, so it can't be factorized",
+				engine.getRanks()[0] == 0);
+	}
+
+	@Test
+	public void checkHugeBudgetUsesTheLowestRank() {
+		LowRankPerceptron engine = new LowRankPerceptron(_network, _xor, 1);
+
+		assertTrue(engine.getRanks()[1] == 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkRankMustBeUseful() {
+		new LowRankPerceptron(_network, new int[] { 0, 10, 0 });
+	}
+}
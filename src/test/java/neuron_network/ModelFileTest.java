@@ -0,0 +1,130 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ModelFile} and {@link MappedPerceptron}
+ */
+public class ModelFileTest {
+	private NetworkData _xor2;
+	private MultilayerPerceptron _network;
+	private String _file;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+
+		_network = new MultilayerPerceptron(2, 5, 2);
+		_network.use_bias = true;
+		_network.neuronType = neuronType.SOFTMAX;
+		_network.minimize = errorToMinimize.ENTROPY;
+		_network.setLearningFactor(0.5);
+		_network.trainByBackpropagation(_xor2, 50, 1e-10);
+
+		File file = File.createTempFile("network", ".nnmp");
+		file.deleteOnExit();
+		_file = file.getPath();
+
+		ModelFile.write(_network, _file);
+	}
+
+	@Test
+	public void checkReadGivesTheSameNetwork() throws IOException {
+		MultilayerPerceptron read = ModelFile.read(_file);
+		double[] expected = _network.getWeights();
+		double[] weights = read.getWeights();
+
+		assertTrue(read.use_bias);
+		assertTrue(read.isSoftmax());
+		assertTrue(read.minimize == errorToMinimize.ENTROPY);
+		assertEquals(0.5, read.getLearningFactor(), 0.0);
+		assertTrue(read.getNumberOfHiddenLayers() == 2);
+		assertTrue(weights.length == expected.length);
+
+		for (int i = 0; i < weights.length; i++) {
+			assertEquals(expected[i], weights[i], 0.0);
+		}
+
+		assertEquals(_network.getMeanSquaredError(_xor2),
+				read.getMeanSquaredError(_xor2), 0.0);
+	}
+
+	@Test
+	public void checkMappedEngineGivesTheSameOutputs() throws IOException {
+		MappedPerceptron engine = ModelFile.map(_file, true);
+		double[] inputs = new double[2];
+		double[] outputs = new double[2];
+		double[] expected = new double[2];
+
+		for (ArrayList<Double> input : _xor2) {
+			Predictors.copy(input, inputs);
+			_network.predict(inputs, expected);
+			engine.predict(inputs, outputs);
+
+			assertEquals(expected[0], outputs[0], 1e-12);
+			assertEquals(expected[1], outputs[1], 1e-12);
+		}
+
+		assertEquals(_network.getCCR(_xor2), engine.toNetwork().getCCR(_xor2), 0.0);
+	}
+
+	@Test(expected = IOException.class)
+	public void checkCorruptedFileIsDetectedWhenRead() throws IOException {
+		corrupt();
+		ModelFile.read(_file);
+	}
+
+	@Test(expected = IOException.class)
+	public void checkCorruptedFileIsDetectedWhenMapped() throws IOException {
+		corrupt();
+		ModelFile.map(_file, true);
+	}
+
+	@Test(expected = IOException.class)
+	public void checkInvalidFile() throws IOException {
+		ModelFile.map(TestNetworks.path("xor.dat"));
+	}
+
+	/**
+	 * It changes the last weight of the file
+	 */
+	private void corrupt() throws IOException {
+		RandomAccessFile file = new RandomAccessFile(_file, "rw");
+		long position = file.length() - 9;
+		file.seek(position);
+		int value = file.read();
+		file.seek(position);
+		file.write(value ^ 0xff);
+		file.close();
+	}
+}
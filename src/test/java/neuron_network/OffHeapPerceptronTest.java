@@ -0,0 +1,192 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OffHeapPerceptron}
+ */
+public class OffHeapPerceptronTest {
+	private final double DELTA = 1e-9;
+	private NetworkData _xor;
+	private NetworkData _xor2;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+	}
+
+	@Test
+	public void checkOnlineTrainingMatchesTheNetwork() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 2, 4, 1, 1);
+		checkSameTraining(network, _xor, false);
+	}
+
+	@Test
+	public void checkOfflineTrainingMatchesTheNetwork() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 1, 5, 1, 1);
+		network.minimize = errorToMinimize.ENTROPY;
+		checkSameTraining(network, _xor, true);
+	}
+
+	@Test
+	public void checkSoftmaxTrainingMatchesTheNetwork() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor2, 2, 3, 2, 1);
+		network.neuronType = neuronType.SOFTMAX;
+		checkSameTraining(network, _xor2, false);
+
+		network = TestNetworks.newRandomNetwork(_xor2, 1, 4, 2, 1);
+		network.neuronType = neuronType.SOFTMAX;
+		network.minimize = errorToMinimize.ENTROPY;
+		checkSameTraining(network, _xor2, true);
+	}
+
+	@Test
+	public void checkEveryNeuronTypeAndErrorMatchesTheNetwork() {
+		for (neuronType type : neuronType.values()) {
+			for (errorToMinimize minimize : errorToMinimize.values()) {
+				for (boolean useBias : new boolean[] { false, true }) {
+					for (boolean offline : new boolean[] { false, true }) {
+						MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor2, 2, 3, 2, 1);
+						network.neuronType = type;
+						network.minimize = minimize;
+						network.use_bias = useBias;
+						network.setRandomInputs();
+						checkSameTraining(network, _xor2, offline);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void checkConfigurationBuildsTheSameWeights() {
+		TrainingConfiguration configuration = new TrainingConfiguration(2, 3, 0.5, 0.5, true, false);
+		MultilayerPerceptron network = configuration.createNetwork(_xor2, neuronType.SOFTMAX,
+				errorToMinimize.ENTROPY, new SplitMixRandom(7));
+
+		try (OffHeapPerceptron engine = new OffHeapPerceptron(configuration, _xor2,
+				neuronType.SOFTMAX, errorToMinimize.ENTROPY, new SplitMixRandom(7))) {
+			double[] weights = network.getWeights();
+
+			assertEquals(weights.length, engine.getNumberOfWeights());
+
+			for (int i = 0; i < weights.length; i++) {
+				assertEquals(weights[i], engine.getWeight(i), 0.0);
+			}
+
+			for (int epoch = 0; epoch < 5; epoch++) {
+				network.onlineBackpropagation(_xor2);
+				engine.onlineBackpropagation(_xor2);
+			}
+
+			assertEquals(network.getEntropy(_xor2), engine.getEntropy(_xor2), DELTA);
+		}
+	}
+
+	@Test
+	public void checkCopyToRestoresTheWeights() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 2, 4, 1, 1);
+
+		try (OffHeapPerceptron engine = new OffHeapPerceptron(network)) {
+			engine.onlineBackpropagation(_xor);
+			engine.copyTo(network);
+
+			double[] after = network.getWeights();
+
+			for (int i = 0; i < after.length; i++) {
+				assertEquals(engine.getWeight(i), after[i], 0.0);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkOtherTopologyIsRejected() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 1, 4, 1, 1);
+
+		try (OffHeapPerceptron engine = new OffHeapPerceptron(network)) {
+			engine.copyTo(TestNetworks.newRandomNetwork(_xor, 1, 3, 1, 1));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void checkClosedNetworkCantBeUsed() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 1, 3, 1, 1);
+		OffHeapPerceptron engine = new OffHeapPerceptron(network);
+
+		engine.close();
+		engine.close();
+		assertTrue(engine.isClosed());
+		engine.getMeanSquaredError(_xor);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkOptimizersAreRejected() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 1, 3, 1, 1);
+		network.setOptimizer(new AdamOptimizer());
+
+		new OffHeapPerceptron(network).close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkSchedulesAreRejected() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 1, 3, 1, 1);
+		network.setLearningRateSchedule(new StepDecaySchedule(10, 0.5), false);
+
+		new OffHeapPerceptron(network).close();
+	}
+
+	private void checkSameTraining(MultilayerPerceptron network, NetworkData data, boolean offline) {
+		network.setLearningFactor(0.5);
+		network.setInertiaValue(0.5);
+
+		try (OffHeapPerceptron engine = new OffHeapPerceptron(network)) {
+			for (int epoch = 0; epoch < 5; epoch++) {
+				if (offline) {
+					network.offlineBackpropagation(data);
+					engine.offlineBackpropagation(data);
+				} else {
+					network.onlineBackpropagation(data);
+					engine.onlineBackpropagation(data);
+				}
+			}
+
+			double[] weights = network.getWeights();
+
+			for (int i = 0; i < weights.length; i++) {
+				assertEquals(weights[i], engine.getWeight(i), DELTA);
+			}
+
+			assertEquals(network.getMeanSquaredError(data), engine.getMeanSquaredError(data), DELTA);
+			assertEquals(network.getEntropy(data), engine.getEntropy(data), DELTA);
+			assertEquals(network.getCCR(data), engine.getCCR(data), 0.0);
+		}
+	}
+}
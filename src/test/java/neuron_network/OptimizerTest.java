@@ -0,0 +1,127 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Optimizer} and its implementations
+ */
+public class OptimizerTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkFirstStepOfAdamFollowsTheSignOfTheGradient() {
+		double[] weights = { 1, 1, 1 };
+		double[] gradient = { 0.5, -2, 0 };
+
+		new AdamOptimizer().update(weights, gradient, 0.1);
+
+		assertEquals(0.9, weights[0], 1e-6);
+		assertEquals(1.1, weights[1], 1e-6);
+		assertEquals(1, weights[2], 0.0);
+	}
+
+	@Test
+	public void checkNesterovWithoutMomentumIsAGradientDescent() {
+		double[] weights = { 1, -1 };
+		double[] gradient = { 0.5, -2 };
+		NesterovOptimizer optimizer = new NesterovOptimizer(0);
+
+		optimizer.update(weights, gradient, 0.1);
+		optimizer.update(weights, gradient, 0.1);
+
+		assertArrayEquals(new double[] { 0.9, -0.6 }, weights, 1e-12);
+	}
+
+	@Test
+	public void checkRMSPropNormalizesTheGradient() {
+		double[] weights = { 0, 0 };
+		double[] gradient = { 1e-3, 1e3 };
+
+		new RMSPropOptimizer(0, 1e-12).update(weights, gradient, 0.1);
+
+		assertArrayEquals(new double[] { -0.1, -0.1 }, weights, 1e-6);
+	}
+
+	@Test
+	public void checkStateCanBeRestored() {
+		for (Optimizer optimizer : new Optimizer[] { new NesterovOptimizer(),
+				new RMSPropOptimizer(), new AdamOptimizer() }) {
+			double[] a = { 1, 2, 3 };
+			double[] gradient = { 0.3, -0.2, 0.1 };
+			optimizer.update(a, gradient, 0.01);
+
+			Optimizer copy = optimizer.copy();
+			copy.setState(optimizer.getState());
+			double[] b = a.clone();
+
+			optimizer.update(a, gradient, 0.01);
+			copy.update(b, gradient, 0.01);
+
+			assertArrayEquals(a, b, 0.0);
+		}
+	}
+
+	@Test
+	public void checkNetworkLearnsWithEachOptimizer() {
+		for (Optimizer optimizer : new Optimizer[] { new NesterovOptimizer(),
+				new RMSPropOptimizer(), new AdamOptimizer() }) {
+			MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 5, 1, 2);
+			network.setOptimizer(optimizer);
+			network.setLearningFactor(0.05);
+			network.trainByBackpropagation(_xor, 1000, 0);
+
+			assertTrue(optimizer.toString(), network.getMeanSquaredError(_xor) < 0.05);
+		}
+	}
+
+	@Test
+	public void checkCheckpointStoresTheStateOfTheOptimizer() throws IOException {
+		File file = File.createTempFile("training", ".nnck");
+		file.deleteOnExit();
+
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 5, 1, 2);
+		network.setOptimizer(new AdamOptimizer());
+		network.trainByBackpropagation(_xor, 10, 0);
+		new TrainingCheckpoint(network, 10, 20, 0, false, 1).write(file.getPath());
+
+		MultilayerPerceptron restored = TestNetworks.newNetwork(_xor, 5, 1, 2);
+		restored.setOptimizer(new AdamOptimizer());
+		TrainingCheckpoint.read(file.getPath()).restore(restored);
+
+		network.fineTune(_xor, 5, false);
+		restored.fineTune(_xor, 5, false);
+
+		assertArrayEquals(network.getWeights(), restored.getWeights(), 0.0);
+	}
+}
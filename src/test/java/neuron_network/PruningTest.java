@@ -0,0 +1,137 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the pruning of {@link MultilayerPerceptron} and the
+ * {@link SparsePerceptron} engine.
+ */
+public class PruningTest {
+	private final double HARD_DELTA = 1e-12;
+	private NetworkData _xor;
+	private MultilayerPerceptron _network;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+
+		_network = new MultilayerPerceptron(2, 6, 1);
+		_network.use_bias = true;
+		_network.trainByBackpropagation(_xor, 300, 1e-10);
+	}
+
+	@Test
+	public void checkWeightsRoundTrip() {
+		double[] weights = _network.getWeights();
+
+		assertTrue("2x6 + 6x6 + 6x1 weights plus 13 biases",
+				weights.length == 67);
+
+		weights[0] = 42;
+		_network.setWeights(weights);
+
+		assertEquals(42, _network.getNeuronInputs(0, 0).get(0), 0.0);
+	}
+
+	@Test
+	public void checkPruneWeightsBelow() {
+		double threshold = 0.5;
+		int pruned = _network.pruneWeightsBelow(threshold);
+		int zeros = 0;
+
+		for (int l = -1; l < _network.getNumberOfHiddenLayers(); l++) {
+			for (double w : _network.getLayerWeights(l)) {
+				assertTrue(w == 0 || Math.abs(w) >= threshold);
+
+				if (w == 0) {
+					zeros++;
+				}
+			}
+		}
+
+		assertTrue("pruned " + pruned + " but there are " + zeros + " zeros",
+				pruned == zeros);
+		assertEquals((double) zeros / 54, _network.getSparsity(), HARD_DELTA);
+	}
+
+	@Test
+	public void checkKeepTopWeights() {
+		_network.keepTopWeights(2);
+
+		for (int l = -1; l < _network.getNumberOfHiddenLayers(); l++) {
+			for (int i = 0; i < _network.getLayerSize(l); i++) {
+				int kept = 0;
+
+				for (Double w : _network.getNeuronInputs(l, i)) {
+					if (w != 0) {
+						kept++;
+					}
+				}
+
+				assertTrue("each neuron must keep 2 weights, but keeps " + kept,
+						kept <= 2);
+			}
+		}
+	}
+
+	@Test
+	public void checkPrunedWeightsStayAtZeroWhenFineTuning() {
+		_network.keepTopWeights(1);
+		double sparsity = _network.getSparsity();
+
+		_network.fineTune(_xor, 20, false);
+		assertEquals(sparsity, _network.getSparsity(), HARD_DELTA);
+
+		_network.fineTune(_xor, 20, true);
+		assertEquals(sparsity, _network.getSparsity(), HARD_DELTA);
+	}
+
+	@Test
+	public void checkSparseEngineGivesTheSameOutputs() {
+		DensePerceptron dense = new DensePerceptron(_network);
+		_network.pruneWeightsBelow(1);
+		SparsePerceptron sparse = new SparsePerceptron(_network);
+		double[] inputs = new double[2];
+		double[] outputs = new double[1];
+
+		for (ArrayList<Double> input : _xor) {
+			_network.feed(input);
+			_network.spreadOut();
+			Predictors.copy(input, inputs);
+			sparse.predict(inputs, outputs);
+
+			assertEquals(_network.getOutput(0), outputs[0], HARD_DELTA);
+		}
+
+		PruningReport report = sparse.compareWith(dense, _xor);
+
+		assertEquals(_network.getSparsity(), report.sparsity, HARD_DELTA);
+		assertEquals(_network.getCCR(_xor), report.sparseCCR, 0.0);
+		assertTrue(report.getSpeedup() > 0);
+	}
+}
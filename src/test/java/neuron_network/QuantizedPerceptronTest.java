@@ -0,0 +1,98 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import neuron_network.MultilayerPerceptron.neuronType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link QuantizedPerceptron}
+ */
+public class QuantizedPerceptronTest {
+	private final double SOFT_DELTA = 5e-2;
+	private NetworkData _xor;
+	private NetworkData _xor2;
+	private MultilayerPerceptron _network;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+
+		_network = new MultilayerPerceptron(1, 8, 1);
+		_network.use_bias = true;
+		_network.trainByBackpropagation(_xor, 500, 1e-10);
+	}
+
+	@Test
+	public void checkOutputsAreNearToTheFloatModel() {
+		for (boolean quantizeActivations : new boolean[] { false, true }) {
+			QuantizedPerceptron engine = new QuantizedPerceptron(_network, _xor,
+					quantizeActivations);
+			double[] inputs = new double[2];
+			double[] outputs = new double[1];
+
+			for (ArrayList<Double> input : _xor) {
+				_network.feed(input);
+				_network.spreadOut();
+				Predictors.copy(input, inputs);
+				engine.predict(inputs, outputs);
+
+				assertEquals(_network.getOutput(0), outputs[0], SOFT_DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void checkReportWithSoftmax() {
+		MultilayerPerceptron network = new MultilayerPerceptron(1, 8, 2);
+		network.neuronType = neuronType.SOFTMAX;
+		network.trainByBackpropagation(_xor2, 500, 1e-10);
+
+		QuantizedPerceptron engine = new QuantizedPerceptron(network, _xor2, true);
+		QuantizationReport report = engine.compareWith(network, _xor2);
+
+		assertEquals(network.getCCR(_xor2), report.floatCCR, 0.0);
+		assertEquals(engine.getCCR(_xor2), report.quantizedCCR, 0.0);
+		assertEquals(0, report.getMSEDrift(), SOFT_DELTA);
+	}
+
+	@Test
+	public void checkWeightsAreSmaller() {
+		QuantizedPerceptron engine = new QuantizedPerceptron(_network);
+
+		// 2x8 + 8x1 weights as bytes, plus one scale and one bias per neuron
+		assertTrue("weights must use " + (24 + 9 * 8) + " bytes but use "
+				+ engine.getWeightsSizeInBytes(),
+				engine.getWeightsSizeInBytes() == 24 + 9 * 8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkActivationsNeedCalibration() {
+		new QuantizedPerceptron(_network, null, true);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ResilientPropagation} and the gradient of
+ * {@link MultilayerPerceptron}
+ */
+public class ResilientPropagationTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkGradientIsTheDerivativeOfTheError() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.setRandomInputs();
+
+		double[] weights = network.getWeights();
+		double[] gradient = new double[weights.length];
+		double[] ignored = new double[weights.length];
+		double h = 1e-6;
+		double error = network.computeGradient(_xor, gradient);
+
+		assertEquals(network.getMeanSquaredError(_xor), error, 1e-12);
+
+		for (int i = 0; i < weights.length; i++) {
+			double w = weights[i];
+
+			weights[i] = w + h;
+			network.setWeights(weights);
+			double plus = network.computeGradient(_xor, ignored);
+
+			weights[i] = w - h;
+			network.setWeights(weights);
+			double minus = network.computeGradient(_xor, ignored);
+
+			weights[i] = w;
+
+			// Each patron contributes with 1/2 of its squared error
+			double expected = (plus - minus) / (2 * h) * _xor.patrons_length() / 2;
+			assertEquals(expected, gradient[i], 1e-6);
+		}
+	}
+
+	@Test
+	public void checkRpropLearnsFasterThanOfflineBackpropagation() {
+		MultilayerPerceptron rprop = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		rprop.setBatchTrainer(new ResilientPropagation());
+		rprop.trainByBackpropagation(_xor, 100, 0, true);
+
+		MultilayerPerceptron backpropagation = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		backpropagation.trainByBackpropagation(_xor, 100, 0, true);
+
+		assertTrue(rprop.getMeanSquaredError(_xor) < 0.01);
+		assertTrue(rprop.getMeanSquaredError(_xor) < backpropagation.getMeanSquaredError(_xor));
+	}
+
+	@Test
+	public void checkCheckpointStoresTheStateOfTheTrainer() throws IOException {
+		File file = File.createTempFile("training", ".nnck");
+		file.deleteOnExit();
+
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.setBatchTrainer(new ResilientPropagation());
+		network.trainByBackpropagation(_xor, 10, 0, true);
+		new TrainingCheckpoint(network, 10, 20, 0, true, 1).write(file.getPath());
+
+		MultilayerPerceptron restored = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		restored.setBatchTrainer(new ResilientPropagation());
+		TrainingCheckpoint checkpoint = TrainingCheckpoint.read(file.getPath());
+
+		network.resume(checkpoint, _xor, e -> {});
+		restored.resume(checkpoint, _xor, e -> {});
+
+		assertArrayEquals(network.getWeights(), restored.getWeights(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkInvalidParamsAreRejected() {
+		new ResilientPropagation(1, 0.5, 0.1, 1e-6, 50);
+	}
+}
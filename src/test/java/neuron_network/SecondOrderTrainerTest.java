@@ -0,0 +1,159 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import neuron_network.MultilayerPerceptron.errorToMinimize;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LimitedMemoryBFGS}, {@link ScaledConjugateGradient} and
+ * the parallel gradient used by both
+ */
+public class SecondOrderTrainerTest {
+	private NetworkData _xor;
+	private NetworkData _xor2;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+		_xor2 = TestNetworks.load("xor_2_outputs.dat");
+	}
+
+	@Test
+	public void checkSplitKeepsAllPatrons() {
+		int total = 0;
+
+		for (NetworkData part : _xor.split(3)) {
+			assertEquals(_xor.inputs_length(), part.inputs_length());
+			total += part.patrons_length();
+		}
+
+		assertEquals(_xor.patrons_length(), total);
+		assertEquals(_xor.patrons_length(), _xor.split(100).size());
+	}
+
+	@Test
+	public void checkParallelGradientIsTheDerivativeOfTheError() {
+		checkGradient(TestNetworks.newRandomNetwork(_xor, 4, 1, 4), _xor);
+
+		MultilayerPerceptron entropy = TestNetworks.newRandomNetwork(_xor2, 4, 2, 4);
+		entropy.minimize = errorToMinimize.ENTROPY;
+		checkGradient(entropy, _xor2);
+	}
+
+	@Test
+	public void checkParallelGradientDoesNotDependOnTheParts() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 4);
+		double[] weights = network.getWeights();
+		double[] one = new double[weights.length];
+		double[] three = new double[weights.length];
+
+		double error = new ParallelGradient(1).compute(network, _xor, weights, one);
+		assertEquals(error, new ParallelGradient(3).compute(network, _xor, weights, three), 1e-12);
+		assertArrayEquals(one, three, 1e-12);
+		assertArrayEquals(weights, network.getWeights(), 0.0);
+	}
+
+	@Test
+	public void checkLimitedMemoryBFGSLearnsXor() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 4);
+		network.setBatchTrainer(new LimitedMemoryBFGS(5, 2));
+		network.trainByBackpropagation(_xor, 200, 0, true);
+
+		assertTrue(network.getMeanSquaredError(_xor) < 0.01);
+	}
+
+	@Test
+	public void checkScaledConjugateGradientLearnsXor() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 4);
+		network.setBatchTrainer(new ScaledConjugateGradient(2));
+		network.trainByBackpropagation(_xor, 200, 0, true);
+
+		assertTrue(network.getMeanSquaredError(_xor) < 0.01);
+	}
+
+	@Test
+	public void checkStateCanBeRestored() {
+		for (BatchTrainer trainer : new BatchTrainer[] { new LimitedMemoryBFGS(3, 1),
+				new ScaledConjugateGradient(1) }) {
+			MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 4);
+			network.setBatchTrainer(trainer);
+			network.trainByBackpropagation(_xor, 10, 0, true);
+
+			MultilayerPerceptron restored = TestNetworks.newRandomNetwork(_xor, 4, 1, 4);
+			BatchTrainer copy = trainer.copy();
+			copy.setState(trainer.getState());
+			restored.setWeights(network.getWeights());
+
+			trainer.setState(trainer.getState());
+			trainer.epoch(network, _xor);
+			copy.epoch(restored, _xor);
+
+			assertArrayEquals(network.getWeights(), restored.getWeights(), 1e-12);
+		}
+	}
+
+	@Test
+	public void checkTrainingDoesNotAdvanceTheRandomSource() {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 4);
+		long[] state = network.getRandomSource().getState();
+
+		network.setBatchTrainer(new LimitedMemoryBFGS(5, 2));
+		network.fineTune(_xor, 5, true);
+		network.setBatchTrainer(new ScaledConjugateGradient(2));
+		network.fineTune(_xor, 5, true);
+
+		assertArrayEquals(state, network.getRandomSource().getState());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkInvalidMemoryIsRejected() {
+		new LimitedMemoryBFGS(0, 1);
+	}
+
+	private void checkGradient(MultilayerPerceptron network, NetworkData data) {
+		ParallelGradient evaluator = new ParallelGradient(3);
+		double[] weights = network.getWeights();
+		double[] gradient = new double[weights.length];
+		double h = 1e-6;
+
+		evaluator.compute(network, data, weights, gradient);
+
+		for (int i = 0; i < weights.length; i++) {
+			double w = weights[i];
+
+			weights[i] = w + h;
+			double plus = evaluator.compute(network, data, weights);
+			weights[i] = w - h;
+			double minus = evaluator.compute(network, data, weights);
+			weights[i] = w;
+
+			assertEquals((plus - minus) / (2 * h), gradient[i], 1e-6);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SharedModel}
+ */
+public class SharedModelTest {
+	private NetworkData _xor;
+	private String _file;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+
+		File file = File.createTempFile("shared", ".nnmp");
+		file.deleteOnExit();
+		_file = file.getPath();
+	}
+
+	@Test
+	public void checkNewModelIsLoadedAfterAnAtomicReplace() throws IOException {
+		MultilayerPerceptron first = TestNetworks.newRandomNetwork(_xor, 4, 1, 1);
+		MultilayerPerceptron second = TestNetworks.newRandomNetwork(_xor, 4, 1, 2);
+
+		ModelFile.writeAtomically(first, _file);
+		SharedModel model = new SharedModel(_file, true);
+
+		assertFalse("file didn't change", model.refresh());
+		assertEquals(first.getMeanSquaredError(_xor),
+				model.getMeanSquaredError(_xor), 1e-12);
+
+		ModelFile.writeAtomically(second, _file);
+
+		assertTrue("file was replaced", model.refresh());
+		assertEquals(second.getMeanSquaredError(_xor),
+				model.getMeanSquaredError(_xor), 1e-12);
+		model.close();
+	}
+
+	@Test
+	public void checkInvalidModelKeepsThePreviousOne() throws IOException {
+		MultilayerPerceptron network = TestNetworks.newRandomNetwork(_xor, 4, 1, 1);
+
+		ModelFile.writeAtomically(network, _file);
+		SharedModel model = new SharedModel(_file, false);
+		MappedPerceptron loaded = model.getModel();
+
+		FileWriter writer = new FileWriter(_file);
+		writer.write("this is not a model");
+		writer.close();
+
+		assertFalse(model.refresh());
+		assertNotNull(model.getLastError());
+		assertTrue(loaded == model.getModel());
+	}
+}
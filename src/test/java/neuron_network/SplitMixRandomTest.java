@@ -0,0 +1,143 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SplitMixRandom}
+ */
+public class SplitMixRandomTest {
+
+	@Test
+	public void checkNumbersAreEqualToSplittableRandom() {
+		SplitMixRandom random = new SplitMixRandom(42);
+		SplittableRandom expected = new SplittableRandom(42);
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(expected.nextLong(), random.nextLong());
+			assertEquals(expected.nextDouble(), random.nextDouble(), 0.0);
+			assertEquals(expected.nextInt(i + 1), random.nextInt(i + 1));
+		}
+
+		SplitMixRandom split = random.split();
+		SplittableRandom expectedSplit = expected.split();
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(expectedSplit.nextLong(), split.nextLong());
+		}
+	}
+
+	@Test
+	public void checkStateCanBeRestored() {
+		SplitMixRandom random = new SplitMixRandom();
+		random.nextGaussian();
+
+		long[] state = random.getState();
+		double[] first = new double[10];
+
+		for (int i = 0; i < first.length; i++) {
+			first[i] = random.nextGaussian();
+		}
+
+		random.setState(state);
+
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(first[i], random.nextGaussian(), 0.0);
+		}
+	}
+
+	@Test
+	public void checkSplitSourcesAreIndependent() {
+		SplitMixRandom random = new SplitMixRandom(7);
+
+		assertTrue(random.split().nextLong() != random.split().nextLong());
+	}
+
+	@Test
+	public void checkShuffleIsAPermutation() {
+		int[] array = new int[100];
+		ArrayList<Integer> list = new ArrayList<Integer>();
+
+		for (int i = 0; i < array.length; i++) {
+			array[i] = i;
+			list.add(i);
+		}
+
+		SplitMixRandom random = new SplitMixRandom(3);
+		random.shuffle(array);
+		random.shuffle(list);
+
+		boolean[] seen = new boolean[array.length];
+
+		for (int i = 0; i < array.length; i++) {
+			seen[array[i]] = true;
+		}
+
+		for (boolean s : seen) {
+			assertTrue(s);
+		}
+
+		assertEquals(array.length, new HashSet<Integer>(list).size());
+	}
+
+	@Test
+	public void checkSeedRepeatsTheInitialization() {
+		MultilayerPerceptron a = new MultilayerPerceptron(2, 5, 2);
+		MultilayerPerceptron b = new MultilayerPerceptron(2, 5, 2);
+		a.use_bias = b.use_bias = true;
+		a.setRandomSource(new SplitMixRandom(11));
+		b.setRandomSource(new SplitMixRandom(11));
+		a.setRandomInputs();
+		b.setRandomInputs();
+
+		assertArrayEquals(a.getWeights(), b.getWeights(), 0.0);
+	}
+
+	@Test
+	public void checkCheckpointStoresTheRandomState() throws IOException {
+		File file = File.createTempFile("training", ".nnck");
+		file.deleteOnExit();
+
+		MultilayerPerceptron network = new MultilayerPerceptron(1, 3, 1);
+		network.setRandomSource(new SplitMixRandom(5));
+		new TrainingCheckpoint(network, 1, 10, 0, false, 1).write(file.getPath());
+		double expected = network.getRandomSource().nextDouble();
+
+		MultilayerPerceptron restored = new MultilayerPerceptron(1, 3, 1);
+		TrainingCheckpoint.read(file.getPath()).restore(restored);
+
+		assertEquals(expected, restored.getRandomSource().nextDouble(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkInvalidStateIsRejected() {
+		new SplitMixRandom().setState(new long[] { 1, 2 });
+	}
+}
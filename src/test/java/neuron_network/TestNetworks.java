@@ -0,0 +1,123 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+
+/**
+ * Data and small networks shared by the tests
+ */
+final class TestNetworks {
+	private TestNetworks() {
+	}
+
+	/**
+	 * It returns the path of one of the files of the test resources
+	 * 
+	 * @param name the name of the file inside neuron_network, like xor.dat
+	 * @return the path of the file
+	 */
+	static String path(String name) {
+		URL url = Thread.currentThread().getContextClassLoader()
+				.getResource("neuron_network/" + name);
+		return url.getPath();
+	}
+
+	/**
+	 * It loads one of the data files of the test resources
+	 * 
+	 * @param name the name of the file inside neuron_network, like xor.dat
+	 * @return the data of the file
+	 * @throws IOException if the file can't be read
+	 */
+	static NetworkData load(String name) throws IOException {
+		return new NetworkData(path(name));
+	}
+
+	/**
+	 * It builds a network with bias fed with the given inputs. The weights
+	 * are not initialized.
+	 * 
+	 * @param inputs the inputs used to feed the network
+	 * @param hiddenLayers the number of hidden layers
+	 * @param neurons the number of neurons of each hidden layer
+	 * @param outputs the number of neurons of the output layer
+	 * @param seed the seed of the random source of the network
+	 * @return the new network
+	 */
+	static MultilayerPerceptron newNetwork(ArrayList<Double> inputs, int hiddenLayers,
+			int neurons, int outputs, long seed) {
+		MultilayerPerceptron network = new MultilayerPerceptron(hiddenLayers, neurons, outputs);
+		network.use_bias = true;
+		network.feed(inputs);
+		network.setRandomSource(new SplitMixRandom(seed));
+		return network;
+	}
+
+	/**
+	 * It builds a network with one hidden layer and bias, fed with the first
+	 * patron of the data. The weights are not initialized.
+	 * 
+	 * @param data the data used to feed the network
+	 * @param neurons the number of neurons of the hidden layer
+	 * @param outputs the number of neurons of the output layer
+	 * @param seed the seed of the random source of the network
+	 * @return the new network
+	 */
+	static MultilayerPerceptron newNetwork(NetworkData data, int neurons, int outputs, long seed) {
+		return newNetwork(data.iterator().next(), 1, neurons, outputs, seed);
+	}
+
+	/**
+	 * It builds a network like newNetwork and initializes its weights at
+	 * random
+	 * 
+	 * @param data the data used to feed the network
+	 * @param neurons the number of neurons of the hidden layer
+	 * @param outputs the number of neurons of the output layer
+	 * @param seed the seed of the random source of the network
+	 * @return the new network
+	 */
+	static MultilayerPerceptron newRandomNetwork(NetworkData data, int neurons, int outputs,
+			long seed) {
+		return newRandomNetwork(data, 1, neurons, outputs, seed);
+	}
+
+	/**
+	 * It builds a network with the given hidden layers like newNetwork and
+	 * initializes its weights at random
+	 * 
+	 * @param data the data used to feed the network
+	 * @param hiddenLayers the number of hidden layers
+	 * @param neurons the number of neurons of each hidden layer
+	 * @param outputs the number of neurons of the output layer
+	 * @param seed the seed of the random source of the network
+	 * @return the new network
+	 */
+	static MultilayerPerceptron newRandomNetwork(NetworkData data, int hiddenLayers,
+			int neurons, int outputs, long seed) {
+		MultilayerPerceptron network = newNetwork(data.iterator().next(), hiddenLayers,
+				neurons, outputs, seed);
+		network.setRandomInputs();
+		return network;
+	}
+}
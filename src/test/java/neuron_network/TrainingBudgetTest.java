@@ -0,0 +1,82 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package neuron_network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the training of {@link MultilayerPerceptron} with a budget of
+ * time
+ */
+public class TrainingBudgetTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkTrainingStopsAtTheDeadline() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		TrainingResult result = network.trainFor(_xor, Duration.ofMillis(200),
+				Integer.MAX_VALUE, -1, false, e -> {});
+
+		assertTrue(result.isTimedOut());
+		assertTrue(result.getEpochs() > 0);
+		assertTrue(result.getElapsed().toMillis() >= 200);
+		assertEquals(result.getBestError(), network.getMeanSquaredError(_xor), 0.0);
+		assertTrue(Double.isNaN(network.getBestValidationError()));
+	}
+
+	@Test
+	public void checkTrainingEndsBeforeTheDeadline() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		TrainingResult result = network.trainFor(_xor, Duration.ofHours(1), 20, -1, true, e -> {});
+
+		assertTrue(!result.isTimedOut());
+		assertEquals(20, result.getEpochs());
+		assertTrue(result.getBestEpoch() > 0);
+	}
+
+	@Test
+	public void checkExpiredBudgetMakesNoEpoch() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		TrainingResult result = network.trainFor(_xor, Duration.ZERO, 20, -1, false, e -> {});
+
+		assertTrue(result.isTimedOut());
+		assertEquals(0, result.getEpochs());
+		assertEquals(0, result.getBestEpoch());
+		assertTrue(Double.isNaN(result.getBestError()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkNegativeBudgetIsRejected() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.trainFor(_xor, Duration.ofSeconds(-1), 20, 0, false, e -> {});
+	}
+}
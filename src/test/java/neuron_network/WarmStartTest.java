@@ -0,0 +1,86 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neuron_network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the warm start of {@link MultilayerPerceptron}
+ */
+public class WarmStartTest {
+	private NetworkData _xor;
+
+	@Before
+	public void setUp() throws IOException {
+		_xor = TestNetworks.load("xor.dat");
+	}
+
+	@Test
+	public void checkWarmStartContinuesFromCurrentWeights() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.trainByBackpropagation(_xor, 50, 0);
+
+		MultilayerPerceptron copy = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		copy.setWeights(network.getWeights());
+		copy.setLastInputsChanges(network.getLastInputsChanges());
+
+		network.warm_start = true;
+		network.trainByBackpropagation(_xor, 5, 0);
+		copy.fineTune(_xor, 5, false);
+
+		assertArrayEquals(copy.getWeights(), network.getWeights(), 0.0);
+	}
+
+	@Test
+	public void checkWarmStartDoesNotForgetTheTraining() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.trainByBackpropagation(_xor, 500, 0);
+		double trained = network.getMeanSquaredError(_xor);
+
+		double[] first = new double[1];
+		network.warm_start = true;
+		network.trainByBackpropagation(_xor, 1, 0, e -> first[0] = e);
+
+		assertTrue(first[0] <= trained + 0.01);
+	}
+
+	@Test
+	public void checkFineTuneCanResetInertia() {
+		MultilayerPerceptron network = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		network.trainByBackpropagation(_xor, 50, 0);
+
+		MultilayerPerceptron copy = TestNetworks.newNetwork(_xor, 4, 1, 4);
+		copy.setWeights(network.getWeights());
+
+		network.fineTune(_xor, 3, true, true);
+		copy.fineTune(_xor, 3, true);
+
+		assertArrayEquals(copy.getWeights(), network.getWeights(), 0.0);
+
+		network.resetLastInputsChanges();
+		assertArrayEquals(new double[network.getNumberOfWeights()],
+				network.getLastInputsChanges(), 0.0);
+	}
+}
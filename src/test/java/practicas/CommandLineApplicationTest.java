@@ -0,0 +1,133 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package practicas;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import neuron_network.NetworkData;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link CommandLineApplication}
+ */
+public class CommandLineApplicationTest {
+
+	@Test
+	public void checkOptionsAreParsed() {
+		HashMap<String, String> options = CommandLineApplication.parseOptions(
+				new String[] { "train", "--times", "3", "--format", "json" });
+
+		assertEquals(2, options.size());
+		assertEquals("3", options.get("times"));
+		assertEquals("json", options.get("format"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkOptionWithoutValueIsRejected() {
+		CommandLineApplication.parseOptions(new String[] { "train", "--times" });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkOptionWithoutDashesIsRejected() {
+		CommandLineApplication.parseOptions(new String[] { "train", "times", "3" });
+	}
+
+	@Test
+	public void checkChoiceIgnoresTheCase() {
+		HashMap<String, String> options = new HashMap<String, String>();
+		options.put("error", "Entropy");
+
+		assertEquals("entropy", CommandLineApplication.choice(options, "error", "mse", "mse", "entropy"));
+		assertEquals("online", CommandLineApplication.choice(options, "backpropagation", "online",
+				"offline", "online"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkUnknownChoiceIsRejected() {
+		HashMap<String, String> options = new HashMap<String, String>();
+		options.put("optimizer", "sgd");
+
+		CommandLineApplication.choice(options, "optimizer", "inercia", "inercia", "adam");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void checkNegativeBudgetIsRejected() throws Exception {
+		HashMap<String, String> options = new HashMap<String, String>();
+		options.put("train", resource("xor.dat"));
+		options.put("test", resource("xor.dat"));
+		options.put("budget", "-1");
+
+		CommandLineApplication.train(options);
+	}
+
+	@Test
+	public void checkJsonStringsAreEscaped() {
+		assertEquals("\"a\\\"b\\\\c\"", CommandLineApplication.jsonString("a\"b\\c"));
+		assertEquals("\"\\n\\r\\t\"", CommandLineApplication.jsonString("\n\r\t"));
+		assertEquals("\"\\u0001ñ\"", CommandLineApplication.jsonString("\u0001ñ"));
+	}
+
+	@Test
+	public void checkDataSurvivesACsvRoundTrip() throws IOException {
+		File csv = File.createTempFile("round_trip", ".csv");
+		File dat = File.createTempFile("round_trip", ".dat");
+		csv.deleteOnExit();
+		dat.deleteOnExit();
+
+		HashMap<String, String> options = new HashMap<String, String>();
+		options.put("input", resource("xor_2_outputs.dat"));
+		options.put("output", csv.getPath());
+		CommandLineApplication.convert(options);
+
+		options.put("input", csv.getPath());
+		options.put("output", dat.getPath());
+		CommandLineApplication.convert(options);
+
+		NetworkData expected = new NetworkData(resource("xor_2_outputs.dat"));
+		NetworkData actual = new NetworkData(dat.getPath());
+
+		assertEquals(expected.inputs_length(), actual.inputs_length());
+		assertEquals(expected.outputs_length(), actual.outputs_length());
+		assertEquals(expected.patrons_length(), actual.patrons_length());
+
+		Iterator<ArrayList<Double>> patrons = actual.iterator();
+
+		for (ArrayList<Double> input : expected) {
+			ArrayList<Double> other = patrons.next();
+
+			assertEquals(input, other);
+			assertEquals(expected.get_output(input), actual.get_output(other));
+		}
+	}
+
+	private static String resource(String name) {
+		URL url = Thread.currentThread().getContextClassLoader()
+				.getResource("neuron_network/" + name);
+		return url.getPath();
+	}
+}
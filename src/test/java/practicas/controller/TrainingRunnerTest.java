@@ -0,0 +1,85 @@
+/*
+ *  NeuronNetwork: A class collection to build neuron networks
+ *  Copyright (C) 2014  Pedro José Piquero Plaza
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package practicas.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.time.Duration;
+
+import neuron_network.NetworkData;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link TrainingRunner}
+ */
+public class TrainingRunnerTest {
+
+	@Test
+	public void checkRepetitionsOfAWaveGetTheSameBudget() throws Exception {
+		TrainingRunner runner = newRunner();
+		Duration budget = Duration.ofMillis(800);
+		runner.times = 5;
+		runner.threads = 4;
+		runner.budget = budget;
+
+		runner.run(new TrainingRunner.Listener() {
+			@Override
+			public void epochFinished(int repetition, int epoch, double trainError) {
+			}
+
+			@Override
+			public void repetitionFinished(int repetition, double trainError, double testError) {
+			}
+		});
+
+		Duration[] budgets = runner.getBudgets();
+
+		// 5 repetitions in 4 threads make 2 waves, so the first one gets half of the time
+		for (int i = 1; i < 4; i++) {
+			assertEquals(budgets[0], budgets[i]);
+		}
+
+		assertTrue(budgets[0].compareTo(budget.dividedBy(2)) <= 0);
+		assertTrue(budgets[0].compareTo(budget.dividedBy(3)) > 0);
+		assertTrue(budgets[4].compareTo(budget) <= 0);
+	}
+
+	private static TrainingRunner newRunner() throws IOException {
+		URL url = Thread.currentThread().getContextClassLoader()
+				.getResource("neuron_network/xor.dat");
+		NetworkData xor = new NetworkData(url.getPath());
+		TrainingRunner runner = new TrainingRunner();
+
+		runner.log = new PrintStream(new ByteArrayOutputStream());
+		runner.trainData = xor;
+		runner.testData = xor;
+		runner.maxiter = Integer.MAX_VALUE;
+		runner.minimumImprovement = -1;
+		runner.hiddenLayers = 1;
+		runner.hiddenNeurons = 2;
+		return runner;
+	}
+}